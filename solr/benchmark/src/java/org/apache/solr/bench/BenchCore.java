@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.util.IOUtils;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestHandler;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.QueryResponseWriterUtil;
+import org.apache.solr.response.SolrQueryResponse;
+
+/**
+ * An embedded, single core Solr node living in a temporary directory, using the
+ * {@code configs/bench} configset from the classpath.
+ * <p>
+ * Requests are executed through {@link SolrCore#execute} and their response is written with the
+ * requested response writer, so the measured work matches what a node does for an HTTP request
+ * minus the servlet container.
+ */
+public class BenchCore implements Closeable {
+  public static final String CORE_NAME = "bench";
+
+  private static final String CONFIGSET = "configs/bench/conf/";
+  private static final String[] CONFIG_FILES = {"solrconfig.xml", "schema.xml"};
+
+  private final Path solrHome;
+  private final EmbeddedSolrServer server;
+  private final SolrCore core;
+
+  public BenchCore() throws IOException {
+    solrHome = Files.createTempDirectory("solr-bench");
+    boolean success = false;
+    try {
+      copyResource("configs/solr.xml", solrHome.resolve("solr.xml"));
+      Path coreDir = solrHome.resolve(CORE_NAME);
+      Files.createDirectories(coreDir.resolve("conf"));
+      Files.createFile(coreDir.resolve("core.properties"));
+      for (String file : CONFIG_FILES) {
+        copyResource(CONFIGSET + file, coreDir.resolve("conf").resolve(file));
+      }
+      server = new EmbeddedSolrServer(solrHome, CORE_NAME);
+      core = server.getCoreContainer().getCore(CORE_NAME);
+      if (core == null) {
+        throw new IOException("Benchmark core failed to load: " + server.getCoreContainer().getCoreInitFailures());
+      }
+      success = true;
+    } finally {
+      if (!success) {
+        IOUtils.rm(solrHome);
+      }
+    }
+  }
+
+  private static void copyResource(String resource, Path target) throws IOException {
+    try (InputStream in = BenchCore.class.getClassLoader().getResourceAsStream(resource)) {
+      if (in == null) {
+        throw new IOException("Missing benchmark resource: " + resource);
+      }
+      Files.copy(in, target);
+    }
+  }
+
+  public SolrCore getCore() {
+    return core;
+  }
+
+  public EmbeddedSolrServer getServer() {
+    return server;
+  }
+
+  /**
+   * Indexes documents {@code [0, numDocs)} produced by the given {@link DocMaker} in batches,
+   * then hard commits.
+   */
+  public void index(DocMaker docMaker, int numDocs, int batchSize) throws IOException, SolrServerException {
+    List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+    for (int i = 0; i < numDocs; i++) {
+      batch.add(docMaker.makeDoc(i));
+      if (batch.size() == batchSize) {
+        server.add(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      server.add(batch);
+    }
+    server.commit();
+  }
+
+  /**
+   * Executes a request against the given handler and writes the response to {@code out} using
+   * the response writer selected by the {@code wt} parameter.
+   */
+  public void request(String handlerName, SolrParams params, OutputStream out) throws IOException {
+    SolrRequestHandler handler = core.getRequestHandler(handlerName);
+    if (handler == null) {
+      throw new IllegalArgumentException("Unknown request handler: " + handlerName);
+    }
+    SolrQueryRequest req = new LocalSolrQueryRequest(core, params);
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+    try {
+      core.execute(handler, req, rsp);
+      if (rsp.getException() != null) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, rsp.getException());
+      }
+      QueryResponseWriterUtil.writeQueryResponse(out, core.getQueryResponseWriter(req), req, rsp, null);
+    } finally {
+      SolrRequestInfo.clearRequestInfo();
+      req.close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      core.close();
+      server.close();
+    } finally {
+      IOUtils.rm(solrHome);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Generates reproducible documents for the benchmark schema. The content of a document depends
+ * only on the seed and the document number, so every benchmark run (and every fork) indexes
+ * exactly the same data.
+ * <p>
+ * Each document has:
+ * <ul>
+ *   <li>{@code id} - the document number</li>
+ *   <li>{@code int_i}, {@code long_l}, {@code double_d} - uniformly distributed numerics</li>
+ *   <li>{@code field<N>_s} - {@code numFields} single valued strings drawn from {@code cardinality} terms</li>
+ *   <li>{@code tags_ss} - a multi valued string field drawn from {@code cardinality} terms</li>
+ *   <li>{@code text_t} - a short text built from a small vocabulary</li>
+ * </ul>
+ */
+public class DocMaker {
+  private static final String[] WORDS = {
+      "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet",
+      "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango",
+      "uniform", "victor", "whiskey", "xray", "yankee", "zulu"
+  };
+
+  private final long seed;
+  private final int numFields;
+  private final int cardinality;
+  private final int maxTags;
+  private final int textLength;
+
+  public DocMaker(long seed, int numFields, int cardinality) {
+    this(seed, numFields, cardinality, 5, 20);
+  }
+
+  public DocMaker(long seed, int numFields, int cardinality, int maxTags, int textLength) {
+    if (numFields < 1 || cardinality < 1 || maxTags < 0 || textLength < 0) {
+      throw new IllegalArgumentException("numFields and cardinality must be positive, maxTags and textLength non-negative");
+    }
+    this.seed = seed;
+    this.numFields = numFields;
+    this.cardinality = cardinality;
+    this.maxTags = maxTags;
+    this.textLength = textLength;
+  }
+
+  public int getNumFields() {
+    return numFields;
+  }
+
+  public int getCardinality() {
+    return cardinality;
+  }
+
+  /** Name of the n-th generated single valued string field */
+  public static String stringField(int n) {
+    return "field" + n + "_s";
+  }
+
+  /** Returns a term of the string fields, as generated for ordinal {@code ord} */
+  public static String term(int ord) {
+    return String.format(Locale.ROOT, "term%08d", ord);
+  }
+
+  public SolrInputDocument makeDoc(int docNum) {
+    // mix the doc number into the seed so docs are independent of generation order
+    Random r = new Random(seed * 31 + docNum);
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", Integer.toString(docNum));
+    doc.addField("int_i", r.nextInt());
+    doc.addField("long_l", r.nextLong());
+    doc.addField("double_d", r.nextDouble());
+    for (int i = 0; i < numFields; i++) {
+      doc.addField(stringField(i), term(r.nextInt(cardinality)));
+    }
+    int numTags = maxTags == 0 ? 0 : 1 + r.nextInt(maxTags);
+    for (int i = 0; i < numTags; i++) {
+      doc.addField("tags_ss", term(r.nextInt(cardinality)));
+    }
+    if (textLength > 0) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < textLength; i++) {
+        if (i > 0) sb.append(' ');
+        sb.append(WORDS[r.nextInt(WORDS.length)]);
+      }
+      doc.addField("text_t", sb.toString());
+    }
+    return doc;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.bench.BenchCore;
+import org.apache.solr.bench.DocMaker;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of adding batches of documents through the {@code /update} handler:
+ * javabin request parsing, the update request processor chain
+ * ({@code DistributedUpdateProcessor} and {@code RunUpdateProcessor}), the transaction log and
+ * the {@code IndexWriter}. Commits are left to the {@code IndexWriter}'s RAM buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class UpdateChainBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+    @Param({"1", "100"})
+    public int batchSize;
+
+    /** Number of distinct ids written to; once exhausted, adds become overwrites. */
+    @Param("1000000")
+    public int idSpace;
+
+    @Param("4")
+    public int fields;
+
+    @Param("1000")
+    public int cardinality;
+
+    @Param("6174")
+    public long seed;
+
+    BenchCore benchCore;
+    List<SolrInputDocument> docPool;
+    final AtomicInteger nextId = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      benchCore = new BenchCore();
+      DocMaker docMaker = new DocMaker(seed, fields, cardinality);
+      docPool = new ArrayList<>(1024);
+      for (int i = 0; i < 1024; i++) {
+        docPool.add(docMaker.makeDoc(i));
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      benchCore.close();
+    }
+  }
+
+  /** Per-thread batch, so concurrent benchmark threads don't share document instances. */
+  @State(Scope.Thread)
+  public static class Batch {
+    List<SolrInputDocument> docs;
+
+    @Setup(Level.Trial)
+    public void setup(BenchState state) {
+      docs = new ArrayList<>(state.batchSize);
+      for (int i = 0; i < state.batchSize; i++) {
+        docs.add(state.docPool.get(i % state.docPool.size()).deepCopy());
+      }
+    }
+  }
+
+  @Benchmark
+  public UpdateResponse add(BenchState state, Batch batch) throws Exception {
+    for (SolrInputDocument doc : batch.docs) {
+      int id = Math.floorMod(state.nextId.getAndIncrement(), state.idSpace);
+      doc.setField("id", Integer.toString(id));
+    }
+    return state.benchCore.getServer().add(batch.docs);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.javabin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.bench.CountingNullOutputStream;
+import org.apache.solr.bench.DocMaker;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.DataEntry;
+import org.apache.solr.common.util.FastJavaBinDecoder;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures javabin encoding and decoding of a search-like response holding a
+ * {@link SolrDocumentList} of generated documents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class JavaBinCodecBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+    @Param({"10", "1000"})
+    public int rows;
+
+    @Param("4")
+    public int fields;
+
+    @Param("1000")
+    public int cardinality;
+
+    @Param("6174")
+    public long seed;
+
+    NamedList<Object> response;
+    byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      DocMaker docMaker = new DocMaker(seed, fields, cardinality);
+      SolrDocumentList docs = new SolrDocumentList();
+      docs.setNumFound(rows);
+      docs.setStart(0);
+      for (int i = 0; i < rows; i++) {
+        SolrInputDocument inputDoc = docMaker.makeDoc(i);
+        SolrDocument doc = new SolrDocument();
+        for (String name : inputDoc.getFieldNames()) {
+          doc.setField(name, inputDoc.getFieldValues(name).size() == 1
+              ? inputDoc.getFieldValue(name) : inputDoc.getFieldValues(name));
+        }
+        docs.add(doc);
+      }
+      NamedList<Object> header = new SimpleOrderedMap<>();
+      header.add("status", 0);
+      header.add("QTime", 1);
+      response = new NamedList<>();
+      response.add("responseHeader", header);
+      response.add("response", docs);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      new JavaBinCodec().marshal(response, out);
+      encoded = out.toByteArray();
+    }
+  }
+
+  @Benchmark
+  public long encode(BenchState state) throws IOException {
+    CountingNullOutputStream out = new CountingNullOutputStream();
+    new JavaBinCodec().marshal(state.response, out);
+    return out.getCount();
+  }
+
+  @Benchmark
+  public Object decode(BenchState state) throws IOException {
+    return new JavaBinCodec().unmarshal(new ByteArrayInputStream(state.encoded));
+  }
+
+  @Benchmark
+  public Object decodeStringsAsCharSeq(BenchState state) throws IOException {
+    return new JavaBinCodec().setReadStringAsCharSeq(true).unmarshal(new ByteArrayInputStream(state.encoded));
+  }
+
+  @Benchmark
+  public long fastDecode(BenchState state) throws IOException {
+    long[] entries = new long[1];
+    new FastJavaBinDecoder()
+        .withInputStream(new ByteArrayInputStream(state.encoded))
+        .decode(new DataEntry.EntryListener() {
+          @Override
+          public void entry(DataEntry e) {
+            entries[0]++;
+            if (e.type().isContainer) {
+              e.listenContainer(null, this);
+            }
+          }
+        });
+    return entries[0];
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.javabin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.bench.CountingNullOutputStream;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures javabin encoding of string values held as a {@link String} against encoding them from their UTF-8
+ * bytes, the way stored fields are fetched for javabin responses (see {@code ResultContext.READASBYTES}).
+ * {@link #fromUtf8} writes values that already are UTF-8, like those of documents in the documentCache, and
+ * {@link #encodeToUtf8} includes encoding each value first, like a document that has just been fetched.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class Utf8StrBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+    @Param({"16", "512"})
+    public int length;
+
+    @Param("1000")
+    public int values;
+
+    /** Percentage of chars outside of ASCII */
+    @Param({"0", "10"})
+    public int nonAscii;
+
+    @Param("6174")
+    public long seed;
+
+    List<String> strings;
+    List<ByteArrayUtf8CharSequence> utf8;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      Random random = new Random(seed);
+      strings = new ArrayList<>(values);
+      utf8 = new ArrayList<>(values);
+      StringBuilder sb = new StringBuilder(length);
+      for (int i = 0; i < values; i++) {
+        sb.setLength(0);
+        for (int j = 0; j < length; j++) {
+          sb.append(random.nextInt(100) < nonAscii ? (char) (0xe0 + random.nextInt(0x20)) : (char) ('a' + random.nextInt(26)));
+        }
+        strings.add(sb.toString());
+        utf8.add(new ByteArrayUtf8CharSequence(sb.toString()));
+      }
+    }
+  }
+
+  @Benchmark
+  public long fromString(BenchState state) throws IOException {
+    CountingNullOutputStream out = new CountingNullOutputStream();
+    new JavaBinCodec().marshal(state.strings, out);
+    return out.getCount();
+  }
+
+  @Benchmark
+  public long fromUtf8(BenchState state) throws IOException {
+    CountingNullOutputStream out = new CountingNullOutputStream();
+    new JavaBinCodec().marshal(state.utf8, out);
+    return out.getCount();
+  }
+
+  @Benchmark
+  public long encodeToUtf8(BenchState state) throws IOException {
+    List<ByteArrayUtf8CharSequence> encoded = new ArrayList<>(state.strings.size());
+    for (String s : state.strings) {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      encoded.add(new ByteArrayUtf8CharSequence(bytes, 0, bytes.length));
+    }
+    CountingNullOutputStream out = new CountingNullOutputStream();
+    new JavaBinCodec().marshal(encoded, out);
+    return out.getCount();
+  }
+}
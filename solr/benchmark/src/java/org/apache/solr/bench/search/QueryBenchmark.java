@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.bench.BenchCore;
+import org.apache.solr.bench.CountingNullOutputStream;
+import org.apache.solr.bench.DocMaker;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the main read paths of a single core: top-N search
+ * ({@code SolrIndexSearcher.getDocListAndSet}), JSON facets over single and multi valued string
+ * fields, and the {@code /export} handler. Responses are fully written with the selected
+ * response writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class QueryBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+    @Param("100000")
+    public int docs;
+
+    @Param("4")
+    public int fields;
+
+    @Param("1000")
+    public int cardinality;
+
+    @Param("6174")
+    public long seed;
+
+    @Param({"javabin", "json"})
+    public String wt;
+
+    BenchCore benchCore;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      if (fields < 3) {
+        throw new IllegalArgumentException("QueryBenchmark needs at least 3 string fields, got: " + fields);
+      }
+      benchCore = new BenchCore();
+      benchCore.index(new DocMaker(seed, fields, cardinality), docs, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      benchCore.close();
+    }
+
+    ModifiableSolrParams params(String... keyVals) {
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      for (int i = 0; i < keyVals.length; i += 2) {
+        params.add(keyVals[i], keyVals[i + 1]);
+      }
+      params.set("wt", wt);
+      return params;
+    }
+
+    long request(String handler, SolrParams params) throws Exception {
+      CountingNullOutputStream out = new CountingNullOutputStream();
+      benchCore.request(handler, params, out);
+      return out.getCount();
+    }
+  }
+
+  @Benchmark
+  public long termQuerySortedByField(BenchState state) throws Exception {
+    return state.request("/select", state.params(
+        "q", "text_t:alpha",
+        "fq", DocMaker.stringField(0) + ":" + DocMaker.term(state.cardinality / 2) + " OR int_i:[0 TO *]",
+        "sort", "long_l asc",
+        "rows", "10"));
+  }
+
+  @Benchmark
+  public long booleanQueryTopDocsByScore(BenchState state) throws Exception {
+    return state.request("/select", state.params(
+        "q", "text_t:(alpha OR echo OR kilo) AND -text_t:zulu",
+        "fl", "id,score",
+        "rows", "100"));
+  }
+
+  @Benchmark
+  public long jsonFacetTermsSingleValued(BenchState state) throws Exception {
+    return state.request("/select", state.params(
+        "q", "*:*",
+        "rows", "0",
+        "json.facet", "{f:{type:terms, field:" + DocMaker.stringField(0) + ", limit:10}}"));
+  }
+
+  @Benchmark
+  public long jsonFacetTermsMultiValued(BenchState state) throws Exception {
+    return state.request("/select", state.params(
+        "q", "*:*",
+        "rows", "0",
+        "json.facet", "{f:{type:terms, field:tags_ss, limit:10}}"));
+  }
+
+  @Benchmark
+  public long jsonFacetTermsWithStats(BenchState state) throws Exception {
+    return state.request("/select", state.params(
+        "q", "text_t:alpha",
+        "rows", "0",
+        "json.facet", "{f:{type:terms, field:" + DocMaker.stringField(1) + ", limit:10,"
+            + " facet:{s:'sum(double_d)', a:'avg(int_i)', u:'unique(" + DocMaker.stringField(2) + ")'}}}"));
+  }
+
+  @Benchmark
+  public long export(BenchState state) throws Exception {
+    return state.request("/export", state.params(
+        "q", "text_t:alpha",
+        "sort", "long_l asc",
+        "fl", "id,int_i,long_l," + DocMaker.stringField(0)));
+  }
+}
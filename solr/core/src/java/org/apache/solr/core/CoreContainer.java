@@ -85,6 +85,7 @@ import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Replica.State;
 import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.util.BufferPool;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.ObjectCache;
@@ -125,6 +126,7 @@ import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.pkg.PackageLoader;
 import org.apache.solr.request.SolrRequestHandler;
 import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.search.NodeFilterCache;
 import org.apache.solr.search.SolrFieldCacheBean;
 import org.apache.solr.security.AuditLoggerPlugin;
 import org.apache.solr.security.AuthenticationPlugin;
@@ -210,6 +212,12 @@ public class CoreContainer {
 
   private final OrderedExecutor replayUpdatesExecutor;
 
+  // searches index segments in parallel for requests that opt in; null if disabled
+  private volatile ExecutorService collectorExecutor;
+
+  // filter cache shared by all cores; null if each searcher has its own
+  private volatile NodeFilterCache nodeFilterCache;
+
   @SuppressWarnings({"rawtypes"})
   protected volatile LogWatcher logging = null;
 
@@ -633,6 +641,22 @@ public class CoreContainer {
     return replayUpdatesExecutor;
   }
 
+  /**
+   * The executor used by {@link org.apache.solr.search.SolrIndexSearcher} to search index segments in
+   * parallel, or null if {@link NodeConfig#getIndexSearcherExecutorThreads()} is 0.
+   */
+  public ExecutorService getCollectorExecutor() {
+    return collectorExecutor;
+  }
+
+  /**
+   * The filter cache shared by all cores of this node, or null if
+   * {@link NodeConfig#getNodeFilterCachePluginInfo()} is not configured.
+   */
+  public NodeFilterCache getNodeFilterCache() {
+    return nodeFilterCache;
+  }
+
   public PackageLoader getPackageLoader() {
     return packageLoader;
   }
@@ -706,6 +730,19 @@ public class CoreContainer {
         metricManager.registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node)),
         SolrMetricManager.mkName("coreContainerWorkExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
 
+    if (cfg.getIndexSearcherExecutorThreads() > 0) {
+      collectorExecutor = MetricUtils.instrumentedExecutorService(
+          ExecutorUtil.newMDCAwareFixedThreadPool(cfg.getIndexSearcherExecutorThreads(),
+              new SolrNamedThreadFactory("searcherCollector")), null,
+          metricManager.registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node)),
+          SolrMetricManager.mkName("searcherCollectorExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
+    }
+
+    nodeFilterCache = NodeFilterCache.newInstance(cfg.getNodeFilterCachePluginInfo());
+    if (nodeFilterCache != null) {
+      nodeFilterCache.initializeMetrics(solrMetricsContext, "nodeFilterCache");
+    }
+
     shardHandlerFactory = ShardHandlerFactory.newInstance(cfg.getShardHandlerFactoryPluginInfo(), loader);
     if (shardHandlerFactory instanceof SolrMetricProducer) {
       SolrMetricProducer metricProducer = (SolrMetricProducer) shardHandlerFactory;
@@ -822,6 +859,15 @@ public class CoreContainer {
         true, "specification", SolrInfoBean.Category.CONTAINER.toString(), "version");
     solrMetricsContext.gauge(() -> this.getClass().getPackage().getImplementationVersion(),
         true, "implementation", SolrInfoBean.Category.CONTAINER.toString(), "version");
+    // response buffers pooled across all cores
+    solrMetricsContext.gauge(BufferPool::getHits,
+        true, "hits", SolrInfoBean.Category.CONTAINER.toString(), "bufferPool");
+    solrMetricsContext.gauge(BufferPool::getMisses,
+        true, "misses", SolrInfoBean.Category.CONTAINER.toString(), "bufferPool");
+    solrMetricsContext.gauge(BufferPool::getDiscards,
+        true, "discards", SolrInfoBean.Category.CONTAINER.toString(), "bufferPool");
+    solrMetricsContext.gauge(BufferPool::getPooledBytes,
+        true, "pooledBytes", SolrInfoBean.Category.CONTAINER.toString(), "bufferPool");
 
     SolrFieldCacheBean fieldCacheBean = new SolrFieldCacheBean();
     fieldCacheBean.initializeMetrics(solrMetricsContext, null);
@@ -1098,6 +1144,14 @@ public class CoreContainer {
 
       objectCache.clear();
 
+      if (nodeFilterCache != null) {
+        try {
+          nodeFilterCache.close();
+        } catch (IOException e) {
+          log.warn("Error closing the node filter cache", e);
+        }
+      }
+
       // It's still possible that one of the pending dynamic load operation is waiting, so wake it up if so.
       // Since all the pending operations queues have been drained, there should be nothing to do.
       synchronized (solrCores.getModifyLock()) {
@@ -1108,6 +1162,10 @@ public class CoreContainer {
         replayUpdatesExecutor.shutdownAndAwaitTermination();
       });
 
+      if (collectorExecutor != null) {
+        customThreadPool.submit(() -> ExecutorUtil.shutdownAndAwaitTermination(collectorExecutor));
+      }
+
       if (metricsHistoryHandler != null) {
         metricsHistoryHandler.close();
         IOUtils.closeQuietly(metricsHistoryHandler.getSolrClient());
@@ -70,6 +70,8 @@ public class NodeConfig {
 
   private final int replayUpdatesThreads;
 
+  private final int indexSearcherExecutorThreads;
+
   @Deprecated
   // This should be part of the transientCacheConfig, remove in 7.0
   private final int transientCacheSize;
@@ -86,6 +88,8 @@ public class NodeConfig {
 
   private final PluginInfo tracerConfig;
 
+  private final PluginInfo nodeFilterCacheConfig;
+
   // Track if this config was loaded from zookeeper so that we can skip validating the zookeeper connection later
   // If it becomes necessary to track multiple potential sources in the future, replace this with an Enum
   private final boolean fromZookeeper;
@@ -98,10 +102,10 @@ public class NodeConfig {
                      String coreAdminHandlerClass, String collectionsAdminHandlerClass,
                      String healthCheckHandlerClass, String infoHandlerClass, String configSetsHandlerClass,
                      LogWatcherConfig logWatcherConfig, CloudConfig cloudConfig, Integer coreLoadThreads, int replayUpdatesThreads,
-                     int transientCacheSize, boolean useSchemaCache, String managementPath,
+                     int indexSearcherExecutorThreads, int transientCacheSize, boolean useSchemaCache, String managementPath,
                      Path solrHome, SolrResourceLoader loader,
                      Properties solrProperties, PluginInfo[] backupRepositoryPlugins,
-                     MetricsConfig metricsConfig, PluginInfo transientCacheConfig, PluginInfo tracerConfig,
+                     MetricsConfig metricsConfig, PluginInfo transientCacheConfig, PluginInfo tracerConfig, PluginInfo nodeFilterCacheConfig,
                      boolean fromZookeeper, String defaultZkHost, Set<Path> allowPaths,String configSetServiceClass) {
     // all Path params here are absolute and normalized.
     this.nodeName = nodeName;
@@ -121,6 +125,7 @@ public class NodeConfig {
     this.cloudConfig = cloudConfig;
     this.coreLoadThreads = coreLoadThreads;
     this.replayUpdatesThreads = replayUpdatesThreads;
+    this.indexSearcherExecutorThreads = indexSearcherExecutorThreads;
     this.transientCacheSize = transientCacheSize;
     this.useSchemaCache = useSchemaCache;
     this.managementPath = managementPath;
@@ -131,6 +136,7 @@ public class NodeConfig {
     this.metricsConfig = metricsConfig;
     this.transientCacheConfig = transientCacheConfig;
     this.tracerConfig = tracerConfig;
+    this.nodeFilterCacheConfig = nodeFilterCacheConfig;
     this.fromZookeeper = fromZookeeper;
     this.defaultZkHost = defaultZkHost;
     this.allowPaths = allowPaths;
@@ -189,6 +195,14 @@ public class NodeConfig {
     return replayUpdatesThreads;
   }
 
+  /**
+   * Number of threads of the node-wide executor used to search index segments in parallel
+   * for requests that opt in to it. A value of 0 disables parallel segment search.
+   */
+  public int getIndexSearcherExecutorThreads() {
+    return indexSearcherExecutorThreads;
+  }
+
   /**
    * Returns a directory, optionally a comma separated list of directories
    * that will be added to Solr's class path for searching for classes and plugins.
@@ -275,6 +289,14 @@ public class NodeConfig {
     return tracerConfig;
   }
 
+  /**
+   * The configuration of the filter cache shared by all cores of this node, or null if each
+   * searcher uses its own filterCache.
+   */
+  public PluginInfo getNodeFilterCachePluginInfo() {
+    return nodeFilterCacheConfig;
+  }
+
   /** 
    * True if this node config was loaded from zookeeper
    * @see #getDefaultZkHost
@@ -329,6 +351,7 @@ public class NodeConfig {
     private CloudConfig cloudConfig;
     private int coreLoadThreads = DEFAULT_CORE_LOAD_THREADS;
     private int replayUpdatesThreads = Runtime.getRuntime().availableProcessors();
+    private int indexSearcherExecutorThreads = Runtime.getRuntime().availableProcessors();
     @Deprecated
     //Remove in 7.0 and put it all in the transientCache element in solrconfig.xml
     private int transientCacheSize = DEFAULT_TRANSIENT_CACHE_SIZE;
@@ -339,6 +362,7 @@ public class NodeConfig {
     private MetricsConfig metricsConfig;
     private PluginInfo transientCacheConfig;
     private PluginInfo tracerConfig;
+    private PluginInfo nodeFilterCacheConfig;
     private boolean fromZookeeper = false;
     private String defaultZkHost;
     private Set<Path> allowPaths = Collections.emptySet();
@@ -459,6 +483,11 @@ public class NodeConfig {
       return this;
     }
 
+    public NodeConfigBuilder setIndexSearcherExecutorThreads(int indexSearcherExecutorThreads) {
+      this.indexSearcherExecutorThreads = indexSearcherExecutorThreads;
+      return this;
+    }
+
     // Remove in Solr 7.0
     @Deprecated
     public NodeConfigBuilder setTransientCacheSize(int transientCacheSize) {
@@ -501,6 +530,11 @@ public class NodeConfig {
       return this;
     }
 
+    public NodeConfigBuilder setNodeFilterCacheConfig(PluginInfo nodeFilterCacheConfig) {
+      this.nodeFilterCacheConfig = nodeFilterCacheConfig;
+      return this;
+    }
+
     public NodeConfigBuilder setFromZookeeper(boolean fromZookeeper) {
       this.fromZookeeper = fromZookeeper;
       return this;
@@ -529,9 +563,9 @@ public class NodeConfig {
       return new NodeConfig(nodeName, coreRootDirectory, solrDataHome, booleanQueryMaxClauseCount,
                             configSetBaseDirectory, sharedLibDirectory, shardHandlerFactoryConfig,
                             updateShardHandlerConfig, coreAdminHandlerClass, collectionsAdminHandlerClass, healthCheckHandlerClass, infoHandlerClass, configSetsHandlerClass,
-                            logWatcherConfig, cloudConfig, coreLoadThreads, replayUpdatesThreads, transientCacheSize, useSchemaCache, managementPath,
+                            logWatcherConfig, cloudConfig, coreLoadThreads, replayUpdatesThreads, indexSearcherExecutorThreads, transientCacheSize, useSchemaCache, managementPath,
                             solrHome, loader, solrProperties,
-                            backupRepositoryPlugins, metricsConfig, transientCacheConfig, tracerConfig, fromZookeeper, defaultZkHost, allowPaths, configSetServiceClass);
+                            backupRepositoryPlugins, metricsConfig, transientCacheConfig, tracerConfig, nodeFilterCacheConfig, fromZookeeper, defaultZkHost, allowPaths, configSetServiceClass);
     }
 
     public NodeConfigBuilder setSolrResourceLoader(SolrResourceLoader resourceLoader) {
@@ -225,11 +225,14 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
 //    filtOptThreshold = getFloat("query/boolTofilterOptimizer/@threshold",.05f);
 
     useFilterForSortedQuery = getBool("query/useFilterForSortedQuery", false);
+    facetUninvertPerSegment = getBool("query/facetUninvertPerSegment", false);
     queryResultWindowSize = Math.max(1, getInt("query/queryResultWindowSize", 1));
     queryResultMaxDocsCached = getInt("query/queryResultMaxDocsCached", Integer.MAX_VALUE);
     enableLazyFieldLoading = getBool("query/enableLazyFieldLoading", false);
     
     filterCacheConfig = CacheConfig.getConfig(this, "query/filterCache");
+    segmentFilterCacheConfig = CacheConfig.getConfig(this, "query/segmentFilterCache");
+    segmentFacetCountCacheConfig = CacheConfig.getConfig(this, "query/segmentFacetCountCache");
     queryResultCacheConfig = CacheConfig.getConfig(this, "query/queryResultCache");
     documentCacheConfig = CacheConfig.getConfig(this, "query/documentCache");
     CacheConfig conf = CacheConfig.getConfig(this, "query/fieldValueCache");
@@ -515,12 +518,15 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
 //  public final float filtOptThreshold;
   // SolrIndexSearcher - caches configurations
   public final CacheConfig filterCacheConfig;
+  public final CacheConfig segmentFilterCacheConfig;
+  public final CacheConfig segmentFacetCountCacheConfig;
   public final CacheConfig queryResultCacheConfig;
   public final CacheConfig documentCacheConfig;
   public final CacheConfig fieldValueCacheConfig;
   public final Map<String, CacheConfig> userCacheConfigs;
   // SolrIndexSearcher - more...
   public final boolean useFilterForSortedQuery;
+  public final boolean facetUninvertPerSegment;
   public final int queryResultWindowSize;
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
@@ -873,6 +879,7 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
     Map m = new LinkedHashMap();
     result.put("query", m);
     m.put("useFilterForSortedQuery", useFilterForSortedQuery);
+    m.put("facetUninvertPerSegment", facetUninvertPerSegment);
     m.put("queryResultWindowSize", queryResultWindowSize);
     m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
     m.put("enableLazyFieldLoading", enableLazyFieldLoading);
@@ -906,7 +913,7 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
     }
 
 
-    addCacheConfig(m, filterCacheConfig, queryResultCacheConfig, documentCacheConfig, fieldValueCacheConfig);
+    addCacheConfig(m, filterCacheConfig, segmentFilterCacheConfig, segmentFacetCountCacheConfig, queryResultCacheConfig, documentCacheConfig, fieldValueCacheConfig);
     m = new LinkedHashMap();
     result.put("requestDispatcher", m);
     m.put("handleSelect", handleSelect);
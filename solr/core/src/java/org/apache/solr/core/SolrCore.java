@@ -70,6 +70,7 @@ import org.apache.lucene.index.IndexDeletionPolicy;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -110,6 +111,7 @@ import org.apache.solr.handler.component.HighlightComponent;
 import org.apache.solr.handler.component.SearchComponent;
 import org.apache.solr.logging.MDCLoggingContext;
 import org.apache.solr.metrics.SolrCoreMetricManager;
+import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricProducer;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.pkg.PackageListeners;
@@ -140,7 +142,12 @@ import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.ManagedIndexSchema;
 import org.apache.solr.schema.SimilarityFactory;
+import org.apache.solr.search.CacheConfig;
 import org.apache.solr.search.QParserPlugin;
+import org.apache.solr.search.SegmentFacetCountKey;
+import org.apache.solr.search.SegmentFilterCache;
+import org.apache.solr.search.SegmentFilterKey;
+import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrFieldCacheBean;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.ValueSourceParser;
@@ -994,6 +1001,10 @@ public final class SolrCore implements SolrInfoBean, Closeable {
       solrFieldCacheBean.initializeMetrics(solrMetricsContext, "core");
       infoRegistry.put("fieldCache", solrFieldCacheBean);
 
+      SolrCache<SegmentFilterKey,DocIdSet> segmentCache = initCoreCache(solrConfig.segmentFilterCacheConfig);
+      this.segmentFilterCache = segmentCache == null ? null : new SegmentFilterCache(segmentCache);
+      this.segmentFacetCountCache = initCoreCache(solrConfig.segmentFacetCountCacheConfig);
+
       this.maxWarmingSearchers = solrConfig.maxWarmingSearchers;
       this.slowQueryThresholdMillis = solrConfig.slowQueryThresholdMillis;
 
@@ -1187,6 +1198,20 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     return circuitBreakerManager;
   }
 
+  /** Creates a cache that is shared by all searchers of this core, or returns null if it isn't configured. */
+  @SuppressWarnings({"unchecked"})
+  private <K,V> SolrCache<K,V> initCoreCache(CacheConfig cacheConfig) {
+    if (cacheConfig == null) {
+      return null;
+    }
+    SolrCache<K,V> cache = cacheConfig.newInstance();
+    if (cache != null) {
+      cache.setState(SolrCache.State.LIVE);
+      cache.initializeMetrics(solrMetricsContext, SolrMetricManager.mkName(cache.name(), "core"));
+    }
+    return cache;
+  }
+
   @Override
   public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
     newSearcherCounter = parentContext.counter("new", Category.SEARCHER.toString());
@@ -1510,6 +1535,26 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     return circuitBreakerManager;
   }
 
+  /**
+   * The cache of per-segment filter sets shared by all searchers of this core, or null if
+   * <code>query/segmentFilterCache</code> isn't configured.
+   *
+   * @see org.apache.solr.search.DocSetUtil#createDocSetBySegment
+   */
+  public SegmentFilterCache getSegmentFilterCache() {
+    return segmentFilterCache;
+  }
+
+  /**
+   * The cache of per-segment facet counts shared by all searchers of this core, or null if
+   * <code>query/segmentFacetCountCache</code> isn't configured.
+   *
+   * @see org.apache.solr.search.SegmentFacetCounts
+   */
+  public SolrCache<SegmentFacetCountKey,int[]> getSegmentFacetCountCache() {
+    return segmentFacetCountCache;
+  }
+
   // this core current usage count
   private final AtomicInteger refCount = new AtomicInteger(1);
 
@@ -1643,6 +1688,22 @@ public final class SolrCore implements SolrInfoBean, Closeable {
       }
     }
 
+    if (segmentFilterCache != null) {
+      try {
+        segmentFilterCache.close();
+      } catch (Exception e) {
+        SolrException.log(log, e);
+      }
+    }
+
+    if (segmentFacetCountCache != null) {
+      try {
+        segmentFacetCountCache.close();
+      } catch (Exception e) {
+        SolrException.log(log, e);
+      }
+    }
+
     if (coreStateClosed) {
       try {
         cleanupOldIndexDirectories(false);
@@ -1869,6 +1930,8 @@ public final class SolrCore implements SolrInfoBean, Closeable {
   private Object searcherLock = new Object();  // the sync object for the searcher
   private ReentrantLock openSearcherLock = new ReentrantLock(true);     // used to serialize opens/reopens for absolute ordering
   private final int maxWarmingSearchers;  // max number of on-deck searchers allowed
+  private final SegmentFilterCache segmentFilterCache; // outlives searchers; may be null
+  private final SolrCache<SegmentFacetCountKey,int[]> segmentFacetCountCache; // outlives searchers; may be null
   private final int slowQueryThresholdMillis;  // threshold above which a query is considered slow
 
   private RefCounted<SolrIndexSearcher> realtimeSearcher;
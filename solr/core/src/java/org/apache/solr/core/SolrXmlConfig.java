@@ -148,6 +148,7 @@ public class SolrXmlConfig {
     configBuilder.setShardHandlerFactoryConfig(getShardHandlerFactoryPluginInfo(config));
     configBuilder.setSolrCoreCacheFactoryConfig(getTransientCoreCacheFactoryPluginInfo(config));
     configBuilder.setTracerConfig(getTracerPluginInfo(config));
+    configBuilder.setNodeFilterCacheConfig(getNodeFilterCachePluginInfo(config));
     configBuilder.setLogWatcherConfig(loadLogWatcherConfig(config, "solr/logging/*[@name]", "solr/logging/watcher/*[@name]"));
     configBuilder.setSolrProperties(loadProperties(config));
     if (cloudConfig != null)
@@ -341,6 +342,9 @@ public class SolrXmlConfig {
         case "replayUpdatesThreads":
           builder.setReplayUpdatesThreads(parseInt(name, value));
           break;
+        case "indexSearcherExecutorThreads":
+          builder.setIndexSearcherExecutorThreads(parseInt(name, value));
+          break;
         case "transientCacheSize":
           builder.setTransientCacheSize(parseInt(name, value));
           break;
@@ -672,4 +676,9 @@ public class SolrXmlConfig {
     Node node = config.getNode("solr/tracerConfig", false);
     return (node == null) ? null : new PluginInfo(node, "tracerConfig", false, true);
   }
+
+  private static PluginInfo getNodeFilterCachePluginInfo(XmlConfigFile config) {
+    Node node = config.getNode("solr/nodeFilterCache", false);
+    return (node == null) ? null : new PluginInfo(node, "nodeFilterCache", false, false);
+  }
 }
@@ -28,6 +28,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.solr.client.solrj.io.ModelCache;
 import org.apache.solr.client.solrj.io.SolrClientCache;
@@ -35,6 +36,7 @@ import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.DaemonStream;
 import org.apache.solr.client.solrj.io.stream.ExceptionStream;
+import org.apache.solr.client.solrj.io.stream.HashJoinStream;
 import org.apache.solr.client.solrj.io.stream.StreamContext;
 import org.apache.solr.client.solrj.io.stream.TupleStream;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
@@ -58,6 +60,7 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrConfig;
 import org.apache.solr.core.SolrCore;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.pkg.PackageLoader;
 import org.apache.solr.pkg.PackagePluginHolder;
 import org.apache.solr.request.SolrQueryRequest;
@@ -97,6 +100,15 @@ public class StreamHandler extends RequestHandlerBase implements SolrCoreAware,
   private SolrClientCache solrClientCache;
   @SuppressWarnings({"unchecked", "rawtypes"})
   private Map<String, DaemonStream> daemons = Collections.synchronizedMap(new HashMap());
+  private final LongAdder hashJoinSpills = new LongAdder();
+  private final LongAdder hashJoinSpilledBytes = new LongAdder();
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    super.initializeMetrics(parentContext, scope);
+    solrMetricsContext.gauge(hashJoinSpills::sum, true, "hashJoinSpills", getCategory().toString(), scope);
+    solrMetricsContext.gauge(hashJoinSpilledBytes::sum, true, "hashJoinSpilledBytes", getCategory().toString(), scope);
+  }
 
   @Override
   public PermissionNameProvider.Name getPermissionName(AuthorizationContext request) {
@@ -226,6 +238,8 @@ public class StreamHandler extends RequestHandlerBase implements SolrCoreAware,
     context.setObjectCache(objectCache);
     context.put("core", this.coreName);
     context.put("solr-core", req.getCore());
+    context.put(HashJoinStream.SPILLS_METRIC, hashJoinSpills);
+    context.put(HashJoinStream.SPILLED_BYTES_METRIC, hashJoinSpilledBytes);
     context.setLocal(local);
     tupleStream.setStreamContext(context);
 
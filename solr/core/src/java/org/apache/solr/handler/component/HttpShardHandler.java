@@ -16,12 +16,16 @@
  */
 package org.apache.solr.handler.component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.opentracing.Span;
@@ -125,15 +129,9 @@ public class HttpShardHandler extends ShardHandler {
   public void submit(final ShardRequest sreq, final String shard, final ModifiableSolrParams params) {
     // do this outside of the callable for thread safety reasons
     final List<String> urls = getURLs(shard);
-    final Tracer tracer = GlobalTracer.getTracer();
-    final Span span = tracer != null ? tracer.activeSpan() : null;
 
     params.remove(CommonParams.WT); // use default (currently javabin)
     params.remove(CommonParams.VERSION);
-    QueryRequest req = makeQueryRequest(sreq, params, shard);
-    req.setMethod(SolrRequest.METHOD.POST);
-
-    LBSolrClient.Req lbReq = httpShardHandlerFactory.newLBHttpSolrClientReq(req, urls);
 
     ShardResponse srsp = new ShardResponse();
     if (sreq.nodeName != null) {
@@ -156,36 +154,231 @@ public class HttpShardHandler extends ShardHandler {
       return;
     }
 
+    PendingShardResponse pendingResponse = new PendingShardResponse(sreq, shard, params, urls, srsp, ssr);
+    responseCancellableMap.put(srsp, pendingResponse);
+    pendingResponse.start();
+  }
+
+  /**
+   * Only search requests to a slice with more than one replica are hedged; admin and peer sync requests
+   * (purpose {@link ShardRequest#PURPOSE_PRIVATE} or 0) must reach exactly the replica they were sent to.
+   */
+  private static boolean isHedgeable(ShardRequest sreq, List<String> urls) {
+    return urls.size() > 1 && sreq.purpose != 0 && (sreq.purpose & ShardRequest.PURPOSE_PRIVATE) == 0;
+  }
+
+  /**
+   * The outcome of a request to one shard. The request is first sent to the preferred replica; if hedging is
+   * enabled and no response has arrived within the hedge delay, a duplicate is sent to the next replica.
+   * The first successful response is delivered and the other request cancelled. A failure is only delivered
+   * once every request sent has failed.
+   */
+  private class PendingShardResponse implements Cancellable {
+    private final ShardRequest sreq;
+    private final String shard;
+    private final ModifiableSolrParams params;
+    private final List<String> urls;
+    private final ShardResponse srsp;
+    private final SimpleSolrResponse ssr;
+    private final Tracer tracer = GlobalTracer.getTracer();
+    private final Span span = tracer != null ? tracer.activeSpan() : null;
+    private final SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
+    private final long startTime = System.nanoTime();
+    // set once a response (or the final failure) has been delivered, or the request has been cancelled
+    private final AtomicBoolean done = new AtomicBoolean();
+    // requests sent that have not completed yet
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile Attempt primary;
+    private volatile Attempt hedge;
+    private volatile ScheduledFuture<?> hedgeTask;
+
+    PendingShardResponse(ShardRequest sreq, String shard, ModifiableSolrParams params, List<String> urls,
+                         ShardResponse srsp, SimpleSolrResponse ssr) {
+      this.sreq = sreq;
+      this.shard = shard;
+      this.params = params;
+      this.urls = urls;
+      this.srsp = srsp;
+      this.ssr = ssr;
+    }
+
+    void start() {
+      long hedgeDelayNanos = isHedgeable(sreq, urls) ? httpShardHandlerFactory.getHedgeDelayNanos() : -1;
+      primary = send(urls, false);
+      if (hedgeDelayNanos >= 0 && !done.get()) {
+        try {
+          hedgeTask = httpShardHandlerFactory.scheduleHedge(this::sendHedge, hedgeDelayNanos);
+        } catch (RejectedExecutionException e) {
+          // shutting down, the request will do without a hedge
+        }
+      }
+    }
+
+    private void sendHedge() {
+      if (done.get()) {
+        return;
+      }
+      // try the other replicas first, falling back to the preferred one last
+      List<String> hedgeUrls = new ArrayList<>(urls.size());
+      hedgeUrls.addAll(urls.subList(1, urls.size()));
+      hedgeUrls.add(urls.get(0));
+      httpShardHandlerFactory.hedgedRequests.increment();
+      // the request info is needed to propagate the user principal on inter-node requests, but the original must not
+      // be popped from this thread as that would run its close hooks
+      if (requestInfo != null) {
+        SolrRequestInfo.setRequestInfo(new SolrRequestInfo(requestInfo.getReq(), requestInfo.getRsp()));
+      }
+      try {
+        hedge = send(hedgeUrls, true);
+      } finally {
+        if (requestInfo != null) {
+          SolrRequestInfo.clearRequestInfo();
+        }
+      }
+      if (done.get()) {
+        if (hedge.inFlightRequest != null) {
+          hedge.inFlightRequest.cancel();
+        }
+        hedge.cancel();
+      }
+    }
+
+    private Attempt send(List<String> attemptUrls, boolean isHedge) {
+      QueryRequest req = makeQueryRequest(sreq, params, shard);
+      req.setMethod(SolrRequest.METHOD.POST);
+      LBSolrClient.Req lbReq = httpShardHandlerFactory.newLBHttpSolrClientReq(req, attemptUrls);
+
+      // Latency is attributed to the first choice even if the load balancer failed over to another replica,
+      // since it is the first choice that made the request slow
+      ReplicaLatencyTracker latencyTracker = httpShardHandlerFactory.getReplicaLatencyTracker();
+      Attempt attempt = new Attempt(req, isHedge, latencyTracker == null ? null : latencyTracker.requestStarted(attemptUrls.get(0)));
+      outstanding.incrementAndGet();
+      try {
+        attempt.cancellable = lbClient.asyncReq(lbReq, attempt);
+      } catch (RuntimeException e) {
+        // e.g. the client is shutting down; don't leave the response waiting for this request
+        onFailure(attempt, e);
+      }
+      return attempt;
+    }
+
+    private void onSuccess(Attempt attempt, LBSolrClient.Rsp rsp) {
+      outstanding.decrementAndGet();
+      long now = System.nanoTime();
+      if (attempt.inFlightRequest != null) {
+        attempt.inFlightRequest.finish(now - attempt.startTime);
+      }
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      cancelOthers(attempt, now);
+      long elapsedNanos = now - startTime;
+      if (attempt.isHedge) {
+        httpShardHandlerFactory.hedgeWins.increment();
+      }
+      httpShardHandlerFactory.recordShardLatency(elapsedNanos);
+      ssr.nl = rsp.getResponse();
+      srsp.setShardAddress(rsp.getServer());
+      ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+      responses.add(srsp);
+    }
+
+    private void onFailure(Attempt attempt, Throwable throwable) {
+      long now = System.nanoTime();
+      if (attempt.inFlightRequest != null) {
+        attempt.inFlightRequest.finish(now - attempt.startTime);
+      }
+      if (outstanding.decrementAndGet() > 0 || !done.compareAndSet(false, true)) {
+        // another request is still running and may yet succeed, or the outcome has already been delivered
+        return;
+      }
+      cancelHedgeTask();
+      ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(now - startTime, TimeUnit.NANOSECONDS);
+      srsp.setException(throwable);
+      if (throwable instanceof SolrException) {
+        srsp.setResponseCode(((SolrException) throwable).code());
+      }
+      responses.add(srsp);
+    }
+
+    private void cancelOthers(Attempt winner, long now) {
+      cancelHedgeTask();
+      for (Attempt attempt : new Attempt[] {primary, hedge}) {
+        if (attempt != null && attempt != winner) {
+          if (attempt.inFlightRequest != null) {
+            if (attempt.isHedge) {
+              attempt.inFlightRequest.cancel();
+            } else {
+              // the preferred replica took at least this long, which is worth knowing about it
+              attempt.inFlightRequest.finish(now - attempt.startTime);
+            }
+          }
+          attempt.cancel();
+        }
+      }
+    }
+
+    private void cancelHedgeTask() {
+      ScheduledFuture<?> task = hedgeTask;
+      if (task != null) {
+        task.cancel(false);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      done.set(true);
+      cancelHedgeTask();
+      for (Attempt attempt : new Attempt[] {primary, hedge}) {
+        if (attempt != null) {
+          // cancelled requests say nothing about the replica's latency
+          if (attempt.inFlightRequest != null) {
+            attempt.inFlightRequest.cancel();
+          }
+          attempt.cancel();
+        }
+      }
+    }
+
     // all variables that set inside this listener must be at least volatile
-    responseCancellableMap.put(srsp, this.lbClient.asyncReq(lbReq, new AsyncListener<>() {
-      volatile long startTime = System.nanoTime();
+    private class Attempt implements AsyncListener<LBSolrClient.Rsp> {
+      final QueryRequest req;
+      final boolean isHedge;
+      final ReplicaLatencyTracker.InFlightRequest inFlightRequest;
+      final long startTime = System.nanoTime();
+      volatile Cancellable cancellable;
+
+      Attempt(QueryRequest req, boolean isHedge, ReplicaLatencyTracker.InFlightRequest inFlightRequest) {
+        this.req = req;
+        this.isHedge = isHedge;
+        this.inFlightRequest = inFlightRequest;
+      }
 
       @Override
       public void onStart() {
         if (tracer != null && span != null) {
           tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new SolrRequestCarrier(req));
         }
-        SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
         if (requestInfo != null) req.setUserPrincipal(requestInfo.getReq().getUserPrincipal());
       }
 
       @Override
       public void onSuccess(LBSolrClient.Rsp rsp) {
-        ssr.nl = rsp.getResponse();
-        srsp.setShardAddress(rsp.getServer());
-        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-        responses.add(srsp);
+        PendingShardResponse.this.onSuccess(this, rsp);
       }
 
+      @Override
       public void onFailure(Throwable throwable) {
-        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-        srsp.setException(throwable);
-        if (throwable instanceof SolrException) {
-          srsp.setResponseCode(((SolrException) throwable).code());
+        PendingShardResponse.this.onFailure(this, throwable);
+      }
+
+      void cancel() {
+        Cancellable c = cancellable;
+        if (c != null) {
+          c.cancel();
         }
-        responses.add(srsp);
       }
-    }));
+    }
   }
 
   /**
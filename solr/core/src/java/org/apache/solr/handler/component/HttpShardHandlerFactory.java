@@ -28,10 +28,16 @@ import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.client.solrj.impl.Http2SolrClient;
@@ -107,6 +113,17 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
   protected final Random r = new Random();
 
   private RequestReplicaListTransformerGenerator requestReplicaListTransformerGenerator = new RequestReplicaListTransformerGenerator();
+  private ReplicaLatencyTracker replicaLatencyTracker;
+
+  // Hedging of shard requests, disabled unless a hedge percentile is configured
+  private float hedgePercentile = 0;
+  private int hedgeMinDelayMs = 20;
+  private ScheduledThreadPoolExecutor hedgeScheduler;
+  private final Histogram shardLatencies = new Histogram(new ExponentiallyDecayingReservoir());
+  private volatile long hedgeDelayNanos = -1;
+  private final AtomicLong hedgeDelayUpdated = new AtomicLong();
+  final LongAdder hedgedRequests = new LongAdder();
+  final LongAdder hedgeWins = new LongAdder();
 
   // URL scheme to be used in distributed search.
   static final String INIT_URL_SCHEME = "urlScheme";
@@ -132,6 +149,15 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
   // Configure if the threadpool favours fairness over throughput
   static final String INIT_FAIRNESS_POLICY = "fairnessPolicy";
 
+  // The percentile of recent shard request latencies after which a request is hedged (0 disables hedging)
+  static final String INIT_HEDGE_PERCENTILE = "hedgePercentile";
+
+  // The minimum delay before a shard request is hedged
+  static final String INIT_HEDGE_MIN_DELAY = "hedgeMinDelayMs";
+
+  // Number of shard request latencies to record before hedging starts
+  static final int HEDGE_MIN_SAMPLES = 100;
+
   public static final String INIT_SHARDS_WHITELIST = "shardsWhitelist";
 
   static final String INIT_SOLR_DISABLE_SHARDS_WHITELIST = "solr.disable." + INIT_SHARDS_WHITELIST;
@@ -207,6 +233,12 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
             defaultRouting = checkDefaultReplicaListTransformer(c, key, defaultRouting);
             stableRltFactory = new AffinityReplicaListTransformerFactory(c);
             break;
+          case ShardParams.REPLICA_LATENCY:
+            NamedList<?> lc = getNamedList(e.getValue());
+            defaultRouting = checkDefaultReplicaListTransformer(lc, key, defaultRouting);
+            Number decayMs = (Number) lc.get("decayMs");
+            replicaLatencyTracker = new ReplicaLatencyTracker(decayMs == null ? ReplicaLatencyTracker.DEFAULT_DECAY_MS : decayMs.longValue());
+            break;
           default:
             throw new IllegalArgumentException("invalid replica routing spec name: " + key);
         }
@@ -217,6 +249,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     }
     if (ShardParams.REPLICA_STABLE.equals(defaultRouting)) {
       defaultRltFactory = stableRltFactory;
+    } else if (ShardParams.REPLICA_LATENCY.equals(defaultRouting)) {
+      final ReplicaListTransformer latencyRlt = new LatencyAwareReplicaListTransformer(replicaLatencyTracker, r);
+      defaultRltFactory = (configSpec, requestParams, fallback) -> latencyRlt;
     } else {
       defaultRltFactory = RequestReplicaListTransformerGenerator.RANDOM_RLTF;
     }
@@ -255,6 +290,16 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
         permittedLoadBalancerRequestsMaximumFraction,
         sb);
     this.accessPolicy = getParameter(args, INIT_FAIRNESS_POLICY, accessPolicy,sb);
+    Number hedgePercentileParam = getParameter(args, INIT_HEDGE_PERCENTILE, (Number) hedgePercentile, sb);
+    this.hedgePercentile = hedgePercentileParam.floatValue();
+    if (hedgePercentile < 0 || hedgePercentile >= 100) {
+      throw new SolrException(ErrorCode.SERVER_ERROR, INIT_HEDGE_PERCENTILE + " must be at least 0 and less than 100: " + hedgePercentile);
+    }
+    this.hedgeMinDelayMs = getParameter(args, INIT_HEDGE_MIN_DELAY, hedgeMinDelayMs, sb);
+    if (hedgePercentile > 0) {
+      this.hedgeScheduler = new ScheduledThreadPoolExecutor(1, new SolrNamedThreadFactory("httpShardHedgeScheduler"));
+      this.hedgeScheduler.setRemoveOnCancelPolicy(true);
+    }
     this.whitelistHostChecker = new WhitelistHostChecker(args == null? null: (String) args.get(INIT_SHARDS_WHITELIST), !getDisableShardsWhitelist());
     log.info("Host whitelist initialized: {}", this.whitelistHostChecker);
 
@@ -329,6 +374,7 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
           IOUtils.closeQuietly(defaultClient);
         }
       } finally {
+        ExecutorUtil.shutdownNowAndAwaitTermination(hedgeScheduler);
         ExecutorUtil.shutdownAndAwaitTermination(commExecutor);
       }
     }
@@ -352,6 +398,45 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     return new LBSolrClient.Req(req, urls, numServersToTry);
   }
 
+  /**
+   * The delay after which a shard request should be hedged: the configured percentile of recent shard
+   * request latencies, but at least the configured minimum delay. Returns -1 if requests should not be
+   * hedged, either because hedging is disabled or because too few latencies have been recorded yet.
+   */
+  long getHedgeDelayNanos() {
+    if (hedgeScheduler == null || shardLatencies.getCount() < HEDGE_MIN_SAMPLES) {
+      return -1;
+    }
+    // computing a snapshot is not free, so the delay is only recomputed once a second
+    long now = System.nanoTime();
+    long updated = hedgeDelayUpdated.get();
+    if (hedgeDelayNanos < 0 || now - updated > TimeUnit.SECONDS.toNanos(1)) {
+      if (hedgeDelayUpdated.compareAndSet(updated, now)) {
+        double percentileNanos = shardLatencies.getSnapshot().getValue(hedgePercentile / 100.0);
+        hedgeDelayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs), (long) percentileNanos);
+      }
+    }
+    return hedgeDelayNanos;
+  }
+
+  /** Records the latency of a completed shard request, used to compute the hedge delay. */
+  void recordShardLatency(long elapsedNanos) {
+    if (hedgeScheduler != null) {
+      shardLatencies.update(elapsedNanos);
+    }
+  }
+
+  ScheduledFuture<?> scheduleHedge(Runnable hedge, long delayNanos) {
+    return hedgeScheduler.schedule(hedge, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * The tracker of per-replica latencies if latency based replica routing is configured, else null.
+   */
+  ReplicaLatencyTracker getReplicaLatencyTracker() {
+    return replicaLatencyTracker;
+  }
+
   /**
    * Creates a list of urls for the given shard.
    *
@@ -412,6 +497,14 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     commExecutor = MetricUtils.instrumentedExecutorService(commExecutor, null,
         solrMetricsContext.getMetricRegistry(),
         SolrMetricManager.mkName("httpShardExecutor", expandedScope, "threadPool"));
+    if (replicaLatencyTracker != null) {
+      solrMetricsContext.gauge(replicaLatencyTracker.getMetricsMap(), true, "replicaLatency", expandedScope);
+    }
+    if (hedgeScheduler != null) {
+      solrMetricsContext.gauge(hedgedRequests::sum, true, "hedgedRequests", expandedScope);
+      solrMetricsContext.gauge(hedgeWins::sum, true, "hedgeWins", expandedScope);
+      solrMetricsContext.gauge(() -> TimeUnit.NANOSECONDS.toMillis(Math.max(0, hedgeDelayNanos)), true, "hedgeDelayMs", expandedScope);
+    }
   }
 
   /**
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.solr.client.solrj.routing.ReplicaListTransformer;
+import org.apache.solr.common.cloud.Replica;
+
+/**
+ * Orders replicas using the "power of two choices": two replicas are picked at random and the one with the
+ * lower {@link ReplicaLatencyTracker#getScore score} is put first, so requests are routed away from slow or
+ * busy replicas without herding them all onto the single currently fastest one. The remaining replicas, used
+ * only for failover, are left in random order.
+ */
+public class LatencyAwareReplicaListTransformer implements ReplicaListTransformer {
+
+  private final ReplicaLatencyTracker tracker;
+  private final Random r;
+
+  public LatencyAwareReplicaListTransformer(ReplicaLatencyTracker tracker, Random r) {
+    this.tracker = tracker;
+    this.r = r;
+  }
+
+  @Override
+  public void transform(List<?> choices) {
+    if (choices.size() > 1) {
+      Collections.shuffle(choices, r);
+      if (tracker.getScore(getUrl(choices.get(1))) < tracker.getScore(getUrl(choices.get(0)))) {
+        Collections.swap(choices, 0, 1);
+      }
+    }
+  }
+
+  private static String getUrl(Object choice) {
+    return choice instanceof Replica ? ((Replica) choice).getCoreUrl() : choice.toString();
+  }
+}
@@ -362,6 +362,7 @@ public class QueryComponent extends SearchComponent
     QueryCommand cmd = rb.createQueryCommand();
     cmd.setTimeAllowed(timeAllowed);
     cmd.setMinExactCount(getMinExactCount(params));
+    cmd.setMultiThreaded(params.getBool(CommonParams.MULTI_THREADED, CommonParams.MULTI_THREADED_DEFAULT));
 
     req.getContext().put(SolrIndexSearcher.STATS_SOURCE, statsCache.get(req));
     
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import org.apache.solr.common.annotation.SolrThreadSafe;
+import org.apache.solr.common.util.URLUtil;
+import org.apache.solr.metrics.MetricsMap;
+
+/**
+ * Tracks the latency and the number of in-flight requests of each replica that distributed requests are
+ * sent to, so that {@link LatencyAwareReplicaListTransformer} can route around slow or busy replicas.
+ *
+ * Latency is kept as a peak-sensitive, time-decayed moving average: a response slower than the current
+ * average replaces it outright, faster responses pull it down with a weight that grows with the time since
+ * the previous response, and the average decays towards zero while a replica receives no requests so that
+ * a replica that was avoided because it was slow is eventually tried again. A replica that has not responded
+ * yet is assumed to be as fast as the average tracked replica, and a small floor is added to every latency so
+ * that in-flight requests are counted even for replicas whose latency is unknown or has decayed away.
+ */
+@SolrThreadSafe
+public class ReplicaLatencyTracker {
+  public static final long DEFAULT_DECAY_MS = 10000;
+
+  // check for stale entries every this many requests
+  private static final int PRUNE_INTERVAL = 1024;
+  // added to the latency of every replica, so that in-flight requests always raise its score
+  static final long LATENCY_FLOOR_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final long decayNanos;
+  private final Map<String, ReplicaStats> stats = new ConcurrentHashMap<>();
+  private final AtomicLong requests = new AtomicLong();
+  // sum and count of the undecayed latencies of the tracked replicas that have responded, for the average
+  private final DoubleAdder latencySum = new DoubleAdder();
+  private final AtomicInteger observedReplicas = new AtomicInteger();
+
+  public ReplicaLatencyTracker(long decayMs) {
+    if (decayMs <= 0) {
+      throw new IllegalArgumentException("decayMs must be positive: " + decayMs);
+    }
+    this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMs);
+  }
+
+  /**
+   * Records the start of a request to the replica with the given URL. The returned object must be
+   * {@link InFlightRequest#finish finished} or {@link InFlightRequest#cancel cancelled} once the request completes.
+   */
+  public InFlightRequest requestStarted(String url) {
+    if (requests.incrementAndGet() % PRUNE_INTERVAL == 0) {
+      prune(System.nanoTime());
+    }
+    // count the request while holding the entry's lock in the map, so that prune can't remove it in between
+    ReplicaStats replicaStats = stats.compute(key(url), (k, v) -> {
+      if (v == null) {
+        v = new ReplicaStats(System.nanoTime());
+      }
+      v.inFlight.incrementAndGet();
+      return v;
+    });
+    return new InFlightRequest(replicaStats);
+  }
+
+  /**
+   * The load score of the replica with the given URL: its decayed latency in nanoseconds plus
+   * {@link #LATENCY_FLOOR_NANOS}, times the number of requests in flight to it plus one. Lower is better;
+   * replicas that haven't responded yet are scored with the average latency of the replicas that have.
+   */
+  public double getScore(String url) {
+    ReplicaStats replicaStats = stats.get(key(url));
+    return replicaStats == null ? score(getAverageLatencyNanos(), 0) : replicaStats.getScore(System.nanoTime());
+  }
+
+  private static double score(double latencyNanos, int inFlight) {
+    return (latencyNanos + LATENCY_FLOOR_NANOS) * (inFlight + 1);
+  }
+
+  private double getAverageLatencyNanos() {
+    int count = observedReplicas.get();
+    return count == 0 ? 0 : Math.max(0, latencySum.sum() / count);
+  }
+
+  /** A metric listing the decayed latency, in-flight count and score of each tracked replica. */
+  MetricsMap getMetricsMap() {
+    return new MetricsMap(map -> {
+      long now = System.nanoTime();
+      stats.forEach((k, v) -> {
+        double latencyNanos = v.getLatencyNanos(now);
+        int inFlight = v.inFlight.get();
+        map.putNoEx(k, Map.of(
+            "latencyMs", latencyNanos / TimeUnit.MILLISECONDS.toNanos(1),
+            "inFlight", inFlight,
+            "score", score(latencyNanos, inFlight)));
+      });
+    });
+  }
+
+  // The same replica may be referred to with or without a scheme and trailing slash
+  static String key(String url) {
+    String key = URLUtil.removeScheme(url);
+    return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+  }
+
+  void prune(long now) {
+    for (String k : stats.keySet()) {
+      // re-checked atomically with the removal, so an entry that a request just started on is kept
+      stats.computeIfPresent(k, (key, v) -> {
+        if (v.inFlight.get() == 0 && v.isIdle(now, 10 * decayNanos)) {
+          v.forget();
+          return null;
+        }
+        return v;
+      });
+    }
+  }
+
+  int size() {
+    return stats.size();
+  }
+
+  private class ReplicaStats {
+    final AtomicInteger inFlight = new AtomicInteger();
+    // guarded by this
+    private double latencyNanos;
+    private long lastUpdateNanos;
+    private boolean observed;
+
+    ReplicaStats(long createdNanos) {
+      this.lastUpdateNanos = createdNanos;
+    }
+
+    synchronized void observe(long elapsedNanos, long now) {
+      double previous = latencyNanos;
+      if (!observed || elapsedNanos > latencyNanos) {
+        latencyNanos = elapsedNanos;
+        if (!observed) {
+          observedReplicas.incrementAndGet();
+          observed = true;
+        }
+      } else {
+        double w = Math.exp(-(now - lastUpdateNanos) / (double) decayNanos);
+        latencyNanos = latencyNanos * w + elapsedNanos * (1 - w);
+      }
+      latencySum.add(latencyNanos - previous);
+      lastUpdateNanos = now;
+    }
+
+    /** Removes this replica's latency from the average once it is no longer tracked. */
+    synchronized void forget() {
+      if (observed) {
+        latencySum.add(-latencyNanos);
+        observedReplicas.decrementAndGet();
+        observed = false;
+        latencyNanos = 0;
+      }
+    }
+
+    synchronized double getLatencyNanos(long now) {
+      if (!observed) {
+        return getAverageLatencyNanos();
+      }
+      return latencyNanos * Math.exp(-Math.max(0, now - lastUpdateNanos) / (double) decayNanos);
+    }
+
+    double getScore(long now) {
+      return score(getLatencyNanos(now), inFlight.get());
+    }
+
+    synchronized boolean isIdle(long now, long idleNanos) {
+      return now - lastUpdateNanos > idleNanos;
+    }
+  }
+
+  /** A request to a tracked replica. */
+  public static class InFlightRequest {
+    private final ReplicaStats replicaStats;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private InFlightRequest(ReplicaStats replicaStats) {
+      this.replicaStats = replicaStats;
+    }
+
+    /** Records the completion of the request after the given time. Only the first call has an effect. */
+    public void finish(long elapsedNanos) {
+      if (done.compareAndSet(false, true)) {
+        // observe before releasing, so that prune doesn't remove the entry while the sample is added
+        replicaStats.observe(elapsedNanos, System.nanoTime());
+        replicaStats.inFlight.decrementAndGet();
+      }
+    }
+
+    /** Releases the request without recording its latency. Only the first call has an effect. */
+    public void cancel() {
+      if (done.compareAndSet(false, true)) {
+        replicaStats.inFlight.decrementAndGet();
+      }
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.lucene.search.grouping.TopGroups;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.request.SolrQueryRequest;
@@ -42,6 +43,7 @@ import org.apache.solr.search.QParser;
 import org.apache.solr.search.QueryCommand;
 import org.apache.solr.search.QueryResult;
 import org.apache.solr.search.RankQuery;
+import org.apache.solr.search.SegmentFacetCounts;
 import org.apache.solr.search.SortSpec;
 import org.apache.solr.search.grouping.GroupingSpecification;
 import org.apache.solr.search.grouping.distributed.command.QueryCommandResult;
@@ -85,6 +87,8 @@ public class ResponseBuilder
 
 
   private DocListAndSet results = null;
+  private SegmentFacetCounts segmentFacetCounts;
+  private boolean segmentFacetCountsInitialized;
   private NamedList<Object> debugInfo = null;
   private RTimer timer = null;
 
@@ -385,6 +389,23 @@ public class ResponseBuilder
     return results;
   }
 
+  /**
+   * The per-segment facet counts of the documents matching the query and filters, which facet components
+   * may use when faceting on <code>getResults().docSet</code>. Null if they can't be cached for this request.
+   */
+  public synchronized SegmentFacetCounts getSegmentFacetCounts() {
+    if (!segmentFacetCountsInitialized) {
+      segmentFacetCountsInitialized = true;
+      NamedList<Object> header = rsp.getResponseHeader();
+      boolean partialResults = header != null
+          && Boolean.TRUE.equals(header.get(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY));
+      if (!partialResults && req.getParams().getBool(CommonParams.CACHE, true)) {
+        segmentFacetCounts = SegmentFacetCounts.forDomain(req.getSearcher(), getQuery(), getFilters());
+      }
+    }
+    return segmentFacetCounts;
+  }
+
   public void setResults(DocListAndSet results) {
     this.results = results;
   }
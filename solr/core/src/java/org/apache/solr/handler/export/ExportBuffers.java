@@ -20,11 +20,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.BrokenBarrierException;
 
@@ -40,7 +42,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Helper class implementing a "double buffering" producer / consumer.
+ * Helper class implementing a multi-buffered producer / consumer.
+ * <p>
+ * A ring of {@code bufferCount} buffers circulates between the filler thread and the writer:
+ * the filler takes empty buffers, fills them with the next batch of sorted docs and queues them
+ * for output, while the writer hands each written buffer back to be refilled. With more than two
+ * buffers the filler can run ahead of a slow writer (and vice versa) instead of the two strictly
+ * alternating.
  */
 class ExportBuffers {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -48,26 +56,33 @@ class ExportBuffers {
   static final long EXCHANGE_TIMEOUT_SECONDS = 600;
   static final String EXPORT_BUFFERS_KEY = "__eb__";
 
-  final Buffer bufferOne;
-  final Buffer bufferTwo;
+  // signals a failure on the other side; it is put back after being taken so every waiter sees it
+  private static final Buffer POISON = new Buffer(0);
+
+  final Buffer[] buffers;
+  final BlockingQueue<Buffer> filledBuffers;
+  final BlockingQueue<Buffer> emptyBuffers;
   final List<LeafReaderContext> leaves;
   final ExportWriter exportWriter;
   final OutputStream os;
   final IteratorWriter.ItemWriter rawWriter;
   final IteratorWriter.ItemWriter writer;
-  final CyclicBarrier barrier;
+  final MergeIterator mergeIterator;
   final int totalHits;
   Buffer fillBuffer;
   Buffer outputBuffer;
   Runnable filler;
   ExecutorService service;
-  Throwable error;
+  volatile Throwable error;
   LongAdder outputCounter = new LongAdder();
   volatile boolean shutDown = false;
 
   ExportBuffers(ExportWriter exportWriter, List<LeafReaderContext> leaves, SolrIndexSearcher searcher,
                 OutputStream os, IteratorWriter.ItemWriter rawWriter, Sort sort, int queueSize, int totalHits,
-                FixedBitSet[] sets) throws IOException {
+                FixedBitSet[] sets, int bufferCount) throws IOException {
+    if (bufferCount < 2) {
+      throw new IllegalArgumentException("bufferCount must be at least 2; got: " + bufferCount);
+    }
     this.exportWriter = exportWriter;
     this.leaves = leaves;
     this.os = os;
@@ -81,53 +96,54 @@ class ExportBuffers {
       }
     };
 
-    this.bufferOne = new Buffer(queueSize);
-    this.bufferTwo = new Buffer(queueSize);
     this.totalHits = totalHits;
-    fillBuffer = bufferOne;
-    outputBuffer = bufferTwo;
     SortDoc writerSortDoc = exportWriter.getSortDoc(searcher, sort.getSort());
 
-    MergeIterator mergeIterator = exportWriter.getMergeIterator(leaves, sets, writerSortDoc);
+    this.mergeIterator = exportWriter.getMergeIterator(leaves, sets, writerSortDoc);
 
-    bufferOne.initialize(writerSortDoc);
-    bufferTwo.initialize(writerSortDoc);
-    barrier = new CyclicBarrier(2, () -> swapBuffers());
+    this.buffers = new Buffer[bufferCount];
+    this.filledBuffers = new LinkedBlockingQueue<>();
+    this.emptyBuffers = new LinkedBlockingQueue<>();
+    for (int i = 0; i < bufferCount; i++) {
+      buffers[i] = new Buffer(queueSize);
+      buffers[i].initialize(writerSortDoc);
+    }
+    // the writer starts out holding an empty buffer, the rest are free for the filler
+    outputBuffer = buffers[0];
+    for (int i = 1; i < bufferCount; i++) {
+      emptyBuffers.add(buffers[i]);
+    }
     filler = () -> {
       try {
         // log.debug("--- filler start {}", Thread.currentThread());
-        Buffer buffer = getFillBuffer();
+        Buffer buffer = takeFillBuffer();
         long lastOutputCounter = 0;
         for (int count = 0; count < totalHits; ) {
           // log.debug("--- filler fillOutDocs in {}", fillBuffer);
           exportWriter.fillOutDocs(mergeIterator, buffer);
+          if (buffer.outDocsIndex < 0) {
+            // the result set was smaller than totalHits claimed, don't spin on empty buffers
+            break;
+          }
           count += (buffer.outDocsIndex + 1);
-          // log.debug("--- filler count={}, exchange buffer from {}", count, buffer);
-          try {
-            long startBufferWait = System.nanoTime();
-            exchangeBuffers();
-            long endBufferWait = System.nanoTime();
-            if(log.isDebugEnabled()) {
-              log.debug("Waited for writer thread:{}", Long.toString(((endBufferWait - startBufferWait) / 1000000)));
-            }
-          } finally {
-
+          // log.debug("--- filler count={}, queue buffer {}", count, buffer);
+          long startBufferWait = System.nanoTime();
+          filledBuffers.add(buffer);
+          buffer = takeFillBuffer();
+          long endBufferWait = System.nanoTime();
+          if(log.isDebugEnabled()) {
+            log.debug("Waited for writer thread:{}", Long.toString(((endBufferWait - startBufferWait) / 1000000)));
           }
 
-          buffer = getFillBuffer();
           if (outputCounter.longValue() > lastOutputCounter) {
             lastOutputCounter = outputCounter.longValue();
             flushOutput();
           }
         }
         buffer.outDocsIndex = Buffer.NO_MORE_DOCS;
-        try {
-          exchangeBuffers();
-        } finally {
-
-        }
-        buffer = getFillBuffer();
-        // log.debug("--- filler final got buffer {}", buffer);
+        filledBuffers.add(buffer);
+        fillBuffer = null;
+        // log.debug("--- filler done");
       } catch (Throwable e) {
         if(!(e instanceof InterruptedException) && !(e instanceof BrokenBarrierException)) {
           /*
@@ -140,38 +156,62 @@ class ExportBuffers {
         if (e instanceof InterruptedException) {
           Thread.currentThread().interrupt();
         }
-        shutdownNow();
+        // the writer shuts down once it has seen the error, the merge iterator must not be closed from here
+        shutDown = true;
       }
     };
   }
 
+  /**
+   * Called by the writer: hands the current output buffer back to the filler and waits for the next
+   * filled one, which then becomes available from {@link #getOutputBuffer()}.
+   *
+   * @throws TimeoutException if no buffer was filled within {@link #EXCHANGE_TIMEOUT_SECONDS}; the call
+   *                          may be retried
+   * @throws BrokenBarrierException if the filler failed, see {@link #getError()}
+   */
   public void exchangeBuffers() throws Exception {
     // log.debug("---- wait exchangeBuffers from {}", Thread.currentThread());
-    barrier.await(EXCHANGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    if (outputBuffer != null) {
+      emptyBuffers.add(outputBuffer);
+      outputBuffer = null;
+    }
+    outputBuffer = take(filledBuffers);
+  }
+
+  private Buffer takeFillBuffer() throws InterruptedException, TimeoutException, BrokenBarrierException {
+    fillBuffer = take(emptyBuffers);
+    return fillBuffer;
+  }
+
+  private Buffer take(BlockingQueue<Buffer> queue) throws InterruptedException, TimeoutException, BrokenBarrierException {
+    Buffer buffer = queue.poll(EXCHANGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    if (buffer == null) {
+      throw new TimeoutException("Timed out after " + EXCHANGE_TIMEOUT_SECONDS + " seconds waiting for a buffer");
+    }
+    if (buffer == POISON) {
+      queue.add(POISON);
+      throw new BrokenBarrierException();
+    }
+    return buffer;
   }
 
   public void error(Throwable t) {
     error = t;
-    // break the lock on the other thread too
-    barrier.reset();
+    // wake up the other thread too
+    filledBuffers.add(POISON);
+    emptyBuffers.add(POISON);
   }
 
   public Throwable getError() {
     return error;
   }
 
-  private void swapBuffers() {
-    //log.debug("--- swap buffers");
-    Buffer one = fillBuffer;
-    fillBuffer = outputBuffer;
-    outputBuffer = one;
-  }
-
   private void flushOutput() throws IOException {
     //os.flush();
   }
 
-  // initial output buffer
+  // initial output buffer, or null if the last exchange failed
   public Buffer getOutputBuffer() {
     return outputBuffer;
   }
@@ -185,12 +225,29 @@ class ExportBuffers {
     return writer;
   }
 
+  /**
+   * Stops the filler and closes the merge iterator. Called by the writer once it is done; the filler is
+   * interrupted, and is waited for since it may still be reading from the merge iterator.
+   */
   public void shutdownNow() {
+    boolean fillerDone = true;
     if (service != null) {
       log.debug("--- shutting down buffers");
       service.shutdownNow();
+      try {
+        // the filler stops at its next buffer exchange
+        fillerDone = service.awaitTermination(EXCHANGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        fillerDone = false;
+        Thread.currentThread().interrupt();
+      }
       service = null;
     }
+    if (fillerDone) {
+      mergeIterator.close();
+    } else {
+      log.warn("The export filler did not stop, not closing its segment iterators");
+    }
     shutDown = true;
   }
 
@@ -26,6 +26,10 @@ import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -90,15 +94,23 @@ import static org.apache.solr.common.util.Utils.makeMap;
  * bitmap identifies the smallest docs (default is {@link #DEFAULT_BATCH_SIZE}) that haven't been sent yet and stores them in a
  * Priority Queue.  They are then exported (written across the wire) and marked as sent (unset in the bitmap).
  * This process repeats until all matching documents have been sent.
+ * <p>
+ * Sorted batches are handed from the filler thread to the writer through a ring of {@link #BUFFER_COUNT_PARAM}
+ * buffers (see {@link ExportBuffers}). When {@link #PARALLEL_FILL_PARAM} is enabled and the node has a searcher
+ * collector executor, each segment collects its next batch in the background while the current one is merged.
+ * That takes a second sort queue per segment, doubling the memory of the queues, so it is off by default.
  */
 public class ExportWriter implements SolrCore.RawWriter, Closeable {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   public static final String BATCH_SIZE_PARAM = "batchSize";
   public static final String QUEUE_SIZE_PARAM = "queueSize";
+  public static final String BUFFER_COUNT_PARAM = "bufferCount";
+  public static final String PARALLEL_FILL_PARAM = "parallelFill";
 
   public static final int DEFAULT_BATCH_SIZE = 30000;
   public static final int DEFAULT_QUEUE_SIZE = 150000;
+  public static final int DEFAULT_BUFFER_COUNT = 3;
 
 
   private OutputStreamWriter respWriter;
@@ -111,6 +123,10 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   final int batchSize;
   //The max combined size of the segment level priority queues.
   private int priorityQueueSize;
+  //The number of buffers circulating between the filler and the writer thread.
+  final int bufferCount;
+  //Collects the next batch of each segment in the background, null when disabled.
+  final Executor segmentExecutor;
   StreamExpression streamExpression;
   StreamContext streamContext;
   FieldWriter[] fieldWriters;
@@ -131,7 +147,10 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     this.solrMetricsContext = solrMetricsContext;
     this.metricsPath = metricsPath;
     this.priorityQueueSize = req.getParams().getInt(QUEUE_SIZE_PARAM, DEFAULT_QUEUE_SIZE);
-    this.batchSize = DEFAULT_BATCH_SIZE;
+    this.batchSize = Math.max(1, req.getParams().getInt(BATCH_SIZE_PARAM, DEFAULT_BATCH_SIZE));
+    this.bufferCount = Math.max(2, req.getParams().getInt(BUFFER_COUNT_PARAM, DEFAULT_BUFFER_COUNT));
+    this.segmentExecutor = req.getParams().getBool(PARALLEL_FILL_PARAM, false)
+        ? req.getCore().getCoreContainer().getCollectorExecutor() : null;
   }
 
   @Override
@@ -358,7 +377,8 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
                                               sort,
                                               queueSize,
                                               totalHits,
-                                              sets);
+                                              sets,
+                                              bufferCount);
 
 
     if (streamExpression != null) {
@@ -658,6 +678,15 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       }
       return outDoc;
     }
+
+    /**
+     * Cancels any background collection that has not started yet.
+     */
+    public void close() {
+      for (SegmentIterator segmentIterator : segmentIterators) {
+        segmentIterator.close();
+      }
+    }
   }
 
   public MergeIterator getMergeIterator(List<LeafReaderContext> leaves, FixedBitSet[] bits, SortDoc sortDoc) throws IOException {
@@ -702,7 +731,9 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       SegmentIterator[] segmentIterators = new SegmentIterator[leaves.size()];
       for (int i = 0; i < segmentIterators.length; i++) {
         SortQueue sortQueue = new SortQueue(sizes[i], sortDoc.copy());
-        segmentIterators[i] = new SegmentIterator(bits[i], leaves.get(i), sortQueue, sortDoc.copy());
+        SortQueue nextSortQueue = segmentExecutor == null ? null : new SortQueue(sizes[i], sortDoc.copy());
+        segmentIterators[i] = new SegmentIterator(bits[i], leaves.get(i), sortQueue, nextSortQueue, sortDoc.copy(),
+            segmentExecutor);
       }
 
       return new MergeIterator(segmentIterators, sortDoc);
@@ -710,43 +741,53 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     }
   }
 
+  /**
+   * Iterates over the matching docs of one segment in sort order, one batch (the size of the
+   * segment's queue) at a time. Each batch is found by a full pass over the segment's remaining
+   * bits. With an executor and a second queue the pass for the next batch runs in the background
+   * while the current batch is being merged; the docs of a batch are cleared from the bits as soon
+   * as the batch is collected so the passes don't overlap.
+   */
   private static class SegmentIterator {
 
     private final FixedBitSet bits;
-    private final SortQueue queue;
     private final SortDoc sortDoc;
     private final LeafReaderContext context;
-    private final SortDoc[] outDocs;
+    private final Executor executor;
+    private final Batch[] batches;
 
     private SortDoc nextDoc;
+    private Batch batch;
     private int index;
+    private volatile FutureTask<Batch> nextBatch;
+    private volatile boolean closed;
 
 
-    public SegmentIterator(FixedBitSet bits, LeafReaderContext context, SortQueue sortQueue, SortDoc sortDoc) throws IOException {
+    public SegmentIterator(FixedBitSet bits, LeafReaderContext context, SortQueue sortQueue, SortQueue nextSortQueue,
+                           SortDoc sortDoc, Executor executor) throws IOException {
       this.bits = bits;
-      this.queue = sortQueue;
       this.sortDoc = sortDoc;
       this.nextDoc = sortDoc.copy();
       this.context = context;
-      this.outDocs = new SortDoc[sortQueue.maxSize];
-      topDocs();
+      this.executor = nextSortQueue == null ? null : executor;
+      if (this.executor == null) {
+        this.batches = new Batch[] {new Batch(sortQueue)};
+      } else {
+        this.batches = new Batch[] {new Batch(sortQueue), new Batch(nextSortQueue)};
+      }
+      setBatch(topDocs(batches[0]));
     }
 
     public SortDoc next() throws IOException {
       SortDoc _sortDoc = null;
+      if (index < 0 && !batch.last) {
+        setBatch(nextBatch());
+      }
       if (index > -1) {
-        _sortDoc = outDocs[index--];
-      } else {
-        topDocs();
-        if (index > -1) {
-          _sortDoc = outDocs[index--];
-        }
+        _sortDoc = batch.outDocs[index--];
       }
 
       if (_sortDoc != null) {
-        //Clear the bit so it's not loaded again.
-        bits.clear(_sortDoc.docId);
-
         //Load the global ordinal (only matters for strings)
         _sortDoc.setGlobalValues(nextDoc);
 
@@ -759,14 +800,88 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       return nextDoc;
     }
 
-    private void topDocs() throws IOException {
+    /**
+     * Stops collecting the next batch. A pass that is running in the background is cut short and waited for,
+     * since the reader it runs on is released once the export is over.
+     */
+    public void close() {
+      closed = true;
+      FutureTask<Batch> task = nextBatch;
+      if (task == null) {
+        return;
+      }
+      // no-op if the executor already started the task, otherwise it returns right away now that we're closed
+      task.run();
+      boolean interrupted = false;
       try {
+        while (true) {
+          try {
+            task.get();
+            return;
+          } catch (InterruptedException e) {
+            // early client disconnects interrupt the filler, keep waiting
+            interrupted = true;
+          } catch (ExecutionException e) {
+            // nothing reads this batch anymore
+            return;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private void setBatch(Batch batch) {
+      this.batch = batch;
+      this.index = batch.size - 1;
+      this.nextBatch = null;
+      if (executor != null && !batch.last) {
+        // the other batch has been fully consumed (and its docs reset), so it is free to collect into
+        Batch other = batch == batches[0] ? batches[1] : batches[0];
+        FutureTask<Batch> task = new FutureTask<>(() -> topDocs(other));
+        try {
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          // nextBatch() runs the task in the calling thread
+        }
+        nextBatch = task;
+      }
+    }
+
+    private Batch nextBatch() throws IOException {
+      FutureTask<Batch> task = nextBatch;
+      if (task == null) {
+        return topDocs(batches[0]);
+      }
+      // no-op if the executor already started the task
+      task.run();
+      try {
+        return task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+    }
+
+    private Batch topDocs(Batch batch) throws IOException {
+      try {
+        SortQueue queue = batch.queue;
         queue.reset();
         SortDoc top = queue.top();
         this.sortDoc.setNextReader(context);
         DocIdSetIterator it = new BitSetIterator(bits, 0); // cost is not useful here
         int docId;
         while ((docId = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+          if (closed) {
+            break;
+          }
           this.sortDoc.setValues(docId);
           if (top.lessThan(this.sortDoc)) {
             top.setValues(this.sortDoc);
@@ -775,21 +890,41 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         }
 
         //Pop the queue and load up the array.
-        index = -1;
+        int index = -1;
 
         SortDoc _sortDoc;
         while ((_sortDoc = queue.pop()) != null) {
           if (_sortDoc.docId > -1) {
-            outDocs[++index] = _sortDoc;
+            batch.outDocs[++index] = _sortDoc;
+            //Clear the bit so it's not loaded again.
+            bits.clear(_sortDoc.docId);
           }
         }
+        batch.size = index + 1;
+        //A queue that wasn't filled up has seen every remaining doc of the segment
+        batch.last = batch.size < queue.maxSize;
+        return batch;
       } catch (Exception e) {
-        log.error("Segment Iterator Error:", e);
+        if (!closed) {
+          log.error("Segment Iterator Error:", e);
+        }
         throw new IOException(e);
       } finally {
 
       }
     }
+
+    private static final class Batch {
+      final SortQueue queue;
+      final SortDoc[] outDocs;
+      int size;
+      boolean last;
+
+      Batch(SortQueue queue) {
+        this.queue = queue;
+        this.outDocs = new SortDoc[queue.maxSize];
+      }
+    }
   }
 
   public static class IgnoreException extends IOException {
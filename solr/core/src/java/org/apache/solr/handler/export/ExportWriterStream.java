@@ -184,10 +184,14 @@ public class ExportWriterStream extends TupleStream implements Expressible {
         exportBuffers.error(e);
         res = Tuple.EXCEPTION(e, true);
       }
-      buffer = exportBuffers.getOutputBuffer();
-      if (buffer == null) {
-        res = Tuple.EOF();
+      ExportBuffers.Buffer outputBuffer = exportBuffers.getOutputBuffer();
+      if (outputBuffer == null) {
+        if (res == null) {
+          res = Tuple.EOF();
+        }
+        return res;
       }
+      buffer = outputBuffer;
       if (buffer.outDocsIndex == ExportBuffers.Buffer.NO_MORE_DOCS) {
         log.debug("--- ews EOF");
         res = Tuple.EOF();
@@ -38,6 +38,8 @@ import org.apache.solr.common.SolrInputField;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
+import org.apache.solr.common.util.ByteUtils;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.JsonRecordReader;
 import org.apache.solr.handler.RequestHandlerUtils;
@@ -45,12 +47,14 @@ import org.apache.solr.handler.UpdateRequestHandler;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.StrField;
 import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.CommitUpdateCommand;
 import org.apache.solr.update.DeleteUpdateCommand;
 import org.apache.solr.update.RollbackUpdateCommand;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.apache.solr.util.RecordingJSONParser;
+import org.noggit.CharArr;
 import org.noggit.JSONParser;
 import org.noggit.JSONParser.ParseException;
 import org.noggit.ObjectBuilder;
@@ -72,6 +76,13 @@ public class JsonLoader extends ContentStreamLoader {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final AtomicBoolean WARNED_ABOUT_INDEX_TIME_BOOSTS = new AtomicBoolean();
   public static final String CHILD_DOC_KEY = "_childDocuments_";
+  /**
+   * When true, string values of {@link StrField} fields (other than the uniqueKey) are handed to the update chain as
+   * {@link ByteArrayUtf8CharSequence}s packed into shared byte blocks instead of {@link String}s. Such values are
+   * written to the transaction log and docValues without conversion. Update processors must treat field values as
+   * {@link CharSequence}s, which all processors shipped with Solr do.
+   */
+  public static final String UTF8_VALUES = "json.utf8Values";
 
   @Override
   public String getDefaultWT() {
@@ -93,6 +104,16 @@ public class JsonLoader extends ContentStreamLoader {
     protected JSONParser parser;
     protected final int commitWithin;
     protected final boolean overwrite;
+    protected final boolean utf8Values;
+
+    // field names repeat in every document, reuse their Strings
+    private final String[] fieldNameCache = new String[FIELD_NAME_CACHE_SIZE];
+    private Map<String, Boolean> utf8ValueFields;
+    private byte[] utf8Block;
+    private int utf8BlockUpto;
+
+    private static final int FIELD_NAME_CACHE_SIZE = 256;  // must be a power of 2
+    private static final int UTF8_BLOCK_SIZE = 1 << 14;
 
     SingleThreadedJsonLoader(SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor processor) {
       this.processor = processor;
@@ -101,6 +122,7 @@ public class JsonLoader extends ContentStreamLoader {
 
       commitWithin = req.getParams().getInt(UpdateParams.COMMIT_WITHIN, -1);
       overwrite = req.getParams().getBool(UpdateParams.OVERWRITE, true);
+      utf8Values = req.getParams().getBool(UTF8_VALUES, false);
     }
 
     @Override
@@ -539,7 +561,7 @@ public class JsonLoader extends ContentStreamLoader {
         if (ev == JSONParser.OBJECT_END) {
           return sdoc;
         }
-        String fieldName = parser.getString();
+        String fieldName = getFieldName();
 
         if (fieldName.equals(JsonLoader.CHILD_DOC_KEY)) { // somewhat legacy
           ev = parser.nextEvent();
@@ -561,9 +583,66 @@ public class JsonLoader extends ContentStreamLoader {
       }
     }
 
+    /**
+     * Returns the current key, reusing the String of an earlier key with the same characters.
+     */
+    private String getFieldName() throws IOException {
+      CharArr chars = parser.getStringChars();
+      char[] arr = chars.getArray();
+      int hash = 0;
+      for (int i = chars.getStart(), end = chars.getEnd(); i < end; i++) {
+        hash = 31 * hash + arr[i];
+      }
+      int slot = (hash ^ (hash >>> 16)) & (FIELD_NAME_CACHE_SIZE - 1);
+      String name = fieldNameCache[slot];
+      if (name == null || !name.contentEquals(chars)) {
+        name = chars.toString();
+        fieldNameCache[slot] = name;
+      }
+      return name;
+    }
+
+    private boolean isUtf8ValueField(String fieldName) {
+      if (utf8ValueFields == null) {
+        utf8ValueFields = new HashMap<>();
+      }
+      Boolean utf8 = utf8ValueFields.get(fieldName);
+      if (utf8 == null) {
+        SchemaField sf = req.getSchema().getFieldOrNull(fieldName);
+        utf8 = sf != null && sf.getType() instanceof StrField && !sf.equals(req.getSchema().getUniqueKeyField());
+        utf8ValueFields.put(fieldName, utf8);
+      }
+      return utf8;
+    }
+
+    /**
+     * Encodes the current string value straight from the parser's buffer into a shared block of UTF-8 bytes.
+     */
+    private ByteArrayUtf8CharSequence getUtf8Value() throws IOException {
+      CharArr chars = parser.getStringChars();
+      int maxLength = Math.multiplyExact(chars.size(), ByteUtils.MAX_UTF8_BYTES_PER_CHAR);
+      if (maxLength > UTF8_BLOCK_SIZE >> 2) {
+        // large values get their own array so they don't waste a block
+        byte[] bytes = new byte[maxLength];
+        int length = ByteUtils.UTF16toUTF8(chars, 0, chars.size(), bytes, 0);
+        return new ByteArrayUtf8CharSequence(bytes, 0, length);
+      }
+      if (utf8Block == null || utf8BlockUpto + maxLength > utf8Block.length) {
+        utf8Block = new byte[UTF8_BLOCK_SIZE];
+        utf8BlockUpto = 0;
+      }
+      int length = ByteUtils.UTF16toUTF8(chars, 0, chars.size(), utf8Block, utf8BlockUpto);
+      ByteArrayUtf8CharSequence value = new ByteArrayUtf8CharSequence(utf8Block, utf8BlockUpto, length);
+      utf8BlockUpto += length;
+      return value;
+    }
+
     private Object parseFieldValue(int ev, String fieldName) throws IOException {
       switch (ev) {
         case JSONParser.STRING:
+          if (utf8Values && isUtf8ValueField(fieldName)) {
+            return getUtf8Value();
+          }
           return parser.getString();
         case JSONParser.LONG:
           return parser.getLong();
@@ -40,6 +40,7 @@ import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.Filter;
+import org.apache.solr.search.SegmentFacetCounts;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.facet.FacetDebugInfo;
 import org.apache.solr.util.LongPriorityQueue;
@@ -65,6 +66,13 @@ public class DocValuesFacets {
   }
   
   public static NamedList<Integer> getCounts(SolrIndexSearcher searcher, DocSet docs, String fieldName, int offset, int limit, int mincount, boolean missing, String sort, String prefix, Predicate<BytesRef> termFilter, FacetDebugInfo fdebug) throws IOException {
+    return getCounts(searcher, docs, fieldName, offset, limit, mincount, missing, sort, prefix, termFilter, fdebug, null);
+  }
+
+  /**
+   * @param segmentCounts cached per-segment counts of <code>docs</code>, or null to count every segment
+   */
+  public static NamedList<Integer> getCounts(SolrIndexSearcher searcher, DocSet docs, String fieldName, int offset, int limit, int mincount, boolean missing, String sort, String prefix, Predicate<BytesRef> termFilter, FacetDebugInfo fdebug, SegmentFacetCounts segmentCounts) throws IOException {
     SchemaField schemaField = searcher.getSchema().getField(fieldName);
     FieldType ft = schemaField.getType();
     NamedList<Integer> res = new NamedList<>();
@@ -138,7 +146,27 @@ public class DocValuesFacets {
         if (dis != null) {
           disi = dis.iterator();
         }
-        if (disi != null) {
+        if (disi != null && segmentCounts != null && startTermIndex == -1) {
+          // counted per segment and cached, then mapped to global ords
+          SortedSetDocValues sub;
+          if (multiValued) {
+            sub = leaf.reader().getSortedSetDocValues(fieldName);
+          } else {
+            SortedDocValues single = leaf.reader().getSortedDocValues(fieldName);
+            sub = single == null ? null : DocValues.singleton(single);
+          }
+          if (sub == null) {
+            sub = DocValues.emptySortedSet();
+          }
+          int[] segCounts = segmentCounts.getCounts(leaf, fieldName, sub, disi);
+          if (ordinalMap == null) {
+            for (int i = 0; i < segCounts.length; i++) {
+              counts[i] += segCounts[i];
+            }
+          } else {
+            migrateGlobal(counts, segCounts, subIndex, ordinalMap);
+          }
+        } else if (disi != null) {
           if (multiValued) {
             SortedSetDocValues sub = leaf.reader().getSortedSetDocValues(fieldName);
             if (sub == null) {
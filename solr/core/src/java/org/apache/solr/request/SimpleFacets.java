@@ -85,6 +85,7 @@ import org.apache.solr.search.Insanity;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.QueryParsing;
 import org.apache.solr.search.QueryUtils;
+import org.apache.solr.search.SegmentFacetCounts;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SyntaxError;
 import org.apache.solr.search.facet.FacetDebugInfo;
@@ -170,6 +171,14 @@ public class SimpleFacets {
     this.facetExecutor = req.getCore().getCoreContainer().getUpdateShardHandler().getUpdateExecutor();
   }
 
+  /** Cached per-segment counts if <code>docs</code> are the documents matching the main query and filters */
+  private SegmentFacetCounts getSegmentFacetCounts(DocSet docs) {
+    if (rb == null || rb.getResults() == null || docs != rb.getResults().docSet) {
+      return null;
+    }
+    return rb.getSegmentFacetCounts();
+  }
+
   public void setFacetDebugInfo(FacetDebugInfo fdebugParent) {
     this.fdebugParent = fdebugParent;
   }
@@ -587,7 +596,7 @@ public class SimpleFacets {
             }
           break;
         case FC:
-          counts = DocValuesFacets.getCounts(searcher, docs, field, offset,limit, mincount, missing, sort, prefix, termFilter, fdebug);
+          counts = DocValuesFacets.getCounts(searcher, docs, field, offset,limit, mincount, missing, sort, prefix, termFilter, fdebug, getSegmentFacetCounts(docs));
           break;
         default:
           throw new AssertionError();
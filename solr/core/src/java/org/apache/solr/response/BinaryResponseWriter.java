@@ -58,10 +58,22 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
     Resolver resolver = new Resolver(req, response.getReturnFields());
     if (req.getParams().getBool(CommonParams.OMIT_HEADER, false)) response.removeResponseHeader();
     try (JavaBinCodec jbc = new JavaBinCodec(resolver)) {
+      jbc.setDocBatches(acceptsDocBatches(req));
       jbc.setWritableDocFields(resolver).marshal(response.getValues(), out);
     }
   }
 
+  /** True if the client asked for javabin version 3 or later, which can contain doc batches */
+  static boolean acceptsDocBatches(SolrQueryRequest req) {
+    String version = req.getParams().get(CommonParams.VERSION);
+    if (version == null) return false;
+    try {
+      return Float.parseFloat(version) >= 3f;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
   private static void serialize(SolrQueryResponse response,Resolver resolver, String f) throws IOException {
     try (JavaBinCodec jbc = new JavaBinCodec(resolver); FileOutputStream fos = new FileOutputStream(f)) {
       jbc.setWritableDocFields(resolver).marshal(response.getValues(), fos);
@@ -111,10 +123,7 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
           returnFields = res.getReturnFields();
         }
 //        if (useUtf8CharSeq) {
-        ResultContext.READASBYTES.set(fieldName -> {
-          SchemaField fld = res.getRequest().getSchema().getFieldOrNull(fieldName);
-          return fld != null && fld.getType().isUtf8Field();
-        });
+        ResultContext.READASBYTES.set(ResultContext.utf8Fields(res.getRequest().getSchema()));
 
         try {
           writeResults(res, codec);
@@ -164,7 +173,6 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
     }
 
     public void writeResults(ResultContext ctx, JavaBinCodec codec) throws IOException {
-      codec.writeTag(JavaBinCodec.SOLRDOCLST);
       List<Object> l = new ArrayList<>(4);
       l.add( ctx.getDocList().matches());
       l.add((long) ctx.getDocList().offset());
@@ -175,6 +183,11 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
       }
       l.add(maxScore);
       l.add(ctx.getDocList().hitCountRelation() == TotalHits.Relation.EQUAL_TO);
+      if (codec.writesDocBatches()) {
+        codec.writeSolrDocumentBatch(l, ctx.getDocList().size(), ctx.getProcessedDocuments());
+        return;
+      }
+      codec.writeTag(JavaBinCodec.SOLRDOCLST);
       codec.writeArray(l);
       
       // this is a seprate function so that streaming responses can use just that part
@@ -27,6 +27,7 @@ import java.util.Map;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.UnicodeUtil;
+import org.apache.solr.common.IteratorWriter;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.NamedList;
@@ -188,6 +189,20 @@ class PHPSerializedWriter extends JSONWriter {
     writeArray(name, vals.toArray());
   }
   
+  @Override
+  public void writeIterator(IteratorWriter val) throws IOException {
+    // serialized PHP arrays start with their size, so the items have to be collected first
+    ArrayList<Object> vals = new ArrayList<>();
+    val.writeIter(new IteratorWriter.ItemWriter() {
+      @Override
+      public IteratorWriter.ItemWriter add(Object o) {
+        vals.add(o);
+        return this;
+      }
+    });
+    writeArray(null, vals.toArray());
+  }
+
   @Override
   public void writeMapOpener(int size) throws IOException, IllegalArgumentException {
     // negative size value indicates that something has gone wrong
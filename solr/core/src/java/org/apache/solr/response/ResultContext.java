@@ -22,6 +22,8 @@ import java.util.function.Predicate;
 import org.apache.lucene.search.Query;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.ReturnFields;
 import org.apache.solr.search.SolrIndexSearcher;
@@ -56,6 +58,18 @@ public abstract class ResultContext {
     return new DocsStreamer(this);
   }
   public static final ThreadLocal<Predicate<String>>  READASBYTES = new ThreadLocal<>();
+
+  /**
+   * A {@link #READASBYTES} predicate matching the fields whose type keeps its stored values as UTF-8,
+   * see {@link org.apache.solr.schema.FieldType#isUtf8Field()}. The fetched values of these fields are then
+   * {@link org.apache.solr.common.util.Utf8CharSequence}s that response writers can copy without decoding.
+   */
+  public static Predicate<String> utf8Fields(IndexSchema schema) {
+    return fieldName -> {
+      SchemaField fld = schema.getFieldOrNull(fieldName);
+      return fld != null && fld.getType().isUtf8Field();
+    };
+  }
 }
 
 
@@ -18,8 +18,11 @@ package org.apache.solr.search;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.SimpleCollector;
@@ -105,6 +108,65 @@ public class DocSetCollector extends SimpleCollector {
     this.base = context.docBase;
   }
 
+  /**
+   * A {@link CollectorManager} variant for searching index slices concurrently: each slice gets its own
+   * {@link DocSetCollector} and the per-slice results are combined into one {@link DocSet} by {@link #reduce}.
+   * Slices may visit their segments in any order, so no assumption is made about collection order.
+   */
+  public static class Manager implements CollectorManager<DocSetCollector,DocSet> {
+    private final int maxDoc;
+
+    public Manager(int maxDoc) {
+      this.maxDoc = maxDoc;
+    }
+
+    @Override
+    public DocSetCollector newCollector() {
+      return new DocSetCollector(maxDoc);
+    }
+
+    @Override
+    public DocSet reduce(Collection<DocSetCollector> collectors) {
+      int size = 0;
+      for (DocSetCollector collector : collectors) {
+        size += collector.pos;
+      }
+
+      if (size <= DocSetUtil.smallSetSize(maxDoc)) {
+        // every collector kept its docs in the scratch array
+        int[] docs = new int[size];
+        int upto = 0;
+        for (DocSetCollector collector : collectors) {
+          int[] collected = collector.scratch.toArray();
+          System.arraycopy(collected, 0, docs, upto, collected.length);
+          upto += collected.length;
+        }
+        assert upto == size;
+        Arrays.sort(docs);
+        return new SortedIntDocSet(docs, size);
+      }
+
+      // slices cover disjoint doc ranges so the bit sets can simply be OR'ed together
+      FixedBitSet bits = null;
+      for (DocSetCollector collector : collectors) {
+        if (collector.bits != null) {
+          if (bits == null) {
+            bits = collector.bits;
+          } else {
+            bits.or(collector.bits);
+          }
+        }
+      }
+      if (bits == null) {
+        bits = new FixedBitSet(maxDoc);
+      }
+      for (DocSetCollector collector : collectors) {
+        collector.scratch.copyTo(bits);
+      }
+      return new BitDocSet(bits, size);
+    }
+  }
+
   protected static class ExpandingIntArray {
     private static final int[] EMPTY = new int[0];
     private int[] currentAddArray = null;
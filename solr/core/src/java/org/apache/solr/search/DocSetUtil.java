@@ -29,13 +29,18 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RoaringDocIdSet;
 import org.apache.solr.common.SolrException;
 
 /** @lucene.experimental */
@@ -138,6 +143,9 @@ public class DocSetUtil {
   public static DocSet createDocSetGeneric(SolrIndexSearcher searcher, Query query) throws IOException {
 
     int maxDoc = searcher.getIndexReader().maxDoc();
+    if (searcher.isMultiThreadedRequest()) {
+      return getDocSet(searcher.searchParallel(query, new DocSetCollector.Manager(maxDoc)), searcher);
+    }
     DocSetCollector collector = new DocSetCollector(maxDoc);
 
     // This may throw an ExitableDirectoryReader.ExitingReaderException
@@ -147,6 +155,74 @@ public class DocSetUtil {
     return getDocSet(collector, searcher);
   }
 
+  /**
+   * Computes the DocSet of a positive query one segment at a time, using <code>segmentCache</code> for the
+   * segments whose matches were already computed. After a commit only new segments have to be searched,
+   * which makes warming the filterCache of a new searcher cheap.
+   * <p>
+   * Segment sets are cached without live docs applied, since a segment's core cache key survives deletes.
+   * Segments that aren't cacheable for the query (see {@link Weight#isCacheable(LeafReaderContext)}) are
+   * searched every time. The entries of a segment are removed from <code>segmentCache</code> when the
+   * segment is closed.
+   */
+  public static DocSet createDocSetBySegment(SolrIndexSearcher searcher, Query query,
+                                             SegmentFilterCache segmentCache) throws IOException {
+    IndexReader reader = searcher.getIndexReader();
+    int maxDoc = reader.maxDoc();
+    long[] bits = new long[FixedBitSet.bits2words(maxDoc)];
+    int sz = 0;
+    Weight weight = null;
+
+    for (LeafReaderContext ctx : reader.leaves()) {
+      IndexReader.CacheHelper cacheHelper = ctx.reader().getCoreCacheHelper();
+      SegmentFilterKey key = cacheHelper == null ? null : new SegmentFilterKey(cacheHelper.getKey(), query);
+      DocIdSet segmentSet = key == null ? null : segmentCache.get(key);
+      DocIdSetIterator it;
+      if (segmentSet != null) {
+        it = segmentSet.iterator();
+      } else {
+        if (weight == null) {
+          weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        }
+        Scorer scorer = weight.scorer(ctx);
+        it = scorer == null ? null : scorer.iterator();
+        if (key != null && weight.isCacheable(ctx)) {
+          segmentSet = it == null ? DocIdSet.EMPTY : cacheSegment(it, ctx.reader().maxDoc());
+          segmentCache.put(cacheHelper, key, segmentSet);
+          it = segmentSet.iterator();
+        }
+      }
+      if (it == null) continue;
+
+      Bits liveDocs = ctx.reader().getLiveDocs();
+      int base = ctx.docBase;
+      for (int subId = it.nextDoc(); subId != DocIdSetIterator.NO_MORE_DOCS; subId = it.nextDoc()) {
+        if (liveDocs != null && !liveDocs.get(subId)) continue;
+        int globalId = subId + base;
+        bits[globalId >> 6] |= (1L << globalId);
+        sz++;
+      }
+    }
+
+    if (sz == 0) {
+      return DocSet.empty();
+    }
+    BitDocSet docSet = new BitDocSet(new FixedBitSet(bits, maxDoc), sz);
+    if (sz < smallSetSize(maxDoc)) {
+      return toSmallSet(docSet);
+    }
+    return getDocSet(docSet, searcher);
+  }
+
+  private static DocIdSet cacheSegment(DocIdSetIterator it, int maxDoc) throws IOException {
+    // same representation as Lucene's LRUQueryCache: compact for both sparse and dense sets
+    RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(maxDoc);
+    for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+      builder.add(doc);
+    }
+    return builder.build();
+  }
+
   public static DocSet createDocSet(SolrIndexSearcher searcher, Term term) throws IOException {
     DirectoryReader reader = searcher.getRawReader();  // raw reader to avoid extra wrapping overhead
     int maxDoc = searcher.getIndexReader().maxDoc();
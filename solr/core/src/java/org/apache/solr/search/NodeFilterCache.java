@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.PluginInfo;
+import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A filter cache shared by all the cores of a node, configured with the <code>&lt;nodeFilterCache&gt;</code>
+ * element of <code>solr.xml</code>.
+ * <p>
+ * Instead of sizing a filterCache per core, a single Caffeine cache with one <code>maxRamMB</code> budget
+ * holds the filters of every core, weighted by {@link DocSet#ramBytesUsed()}. Busy cores can use the memory
+ * that idle cores leave unused. Each {@link SolrIndexSearcher} gets its own view of the shared cache from
+ * {@link #newSearcherCache(String, CacheConfig)}; entries are keyed by that view (i.e. the core and searcher
+ * generation) and the query, and are dropped when the searcher closes. The views keep the usual per-core
+ * <code>CACHE.searcher.filterCache</code> metrics, including the evictions caused by other cores.
+ */
+public class NodeFilterCache implements SolrMetricProducer, Accountable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(NodeFilterCache.class);
+
+  private static final long KEY_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+  private final long maxRamBytes;
+  private final Cache<Key,DocSet> cache;
+
+  private MetricsMap cacheMap;
+  private SolrMetricsContext solrMetricsContext;
+
+  public NodeFilterCache(int maxRamMB) {
+    if (maxRamMB <= 0) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "nodeFilterCache requires a positive " + SolrCache.MAX_RAM_MB_PARAM + ", got " + maxRamMB);
+    }
+    this.maxRamBytes = maxRamMB * 1024L * 1024L;
+    this.cache = Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .maximumWeight(maxRamBytes)
+        .weigher((Key k, DocSet v) -> (int) Math.min(Integer.MAX_VALUE, weigh(k, v)))
+        .removalListener((Key k, DocSet v, RemovalCause cause) -> {
+          if (k != null && v != null) {
+            k.owner.onRemoval(k, v, cause);
+          }
+        })
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Creates the node filter cache described by the <code>&lt;nodeFilterCache&gt;</code> element of solr.xml,
+   * or returns null if there is none.
+   */
+  public static NodeFilterCache newInstance(PluginInfo info) {
+    if (info == null) {
+      return null;
+    }
+    NamedList<?> args = info.initArgs;
+    Object maxRamMB = args == null ? null : args.get(SolrCache.MAX_RAM_MB_PARAM);
+    if (maxRamMB == null) {
+      maxRamMB = info.attributes.get(SolrCache.MAX_RAM_MB_PARAM);
+    }
+    if (maxRamMB == null) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "nodeFilterCache requires " + SolrCache.MAX_RAM_MB_PARAM);
+    }
+    return new NodeFilterCache(Double.valueOf(maxRamMB.toString()).intValue());
+  }
+
+  private static long weigh(Key key, DocSet value) {
+    return KEY_RAM_BYTES_USED
+        + RamUsageEstimator.sizeOfObject(key.query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED)
+        + value.ramBytesUsed()
+        + RamUsageEstimator.LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY;
+  }
+
+  /**
+   * Returns a filterCache for one searcher of the given core, backed by this node level cache.
+   * The <code>autowarmCount</code> and <code>regenerator</code> of the core's filterCache config
+   * are honored, its size limits are not.
+   */
+  public SolrCache<Query,DocSet> newSearcherCache(String coreName, CacheConfig config) {
+    SearcherFilterCache searcherCache = new SearcherFilterCache(this, coreName);
+    Map<String,String> args = new HashMap<>();
+    config.toMap(new HashMap<>()).forEach((k, v) -> args.put(k, String.valueOf(v)));
+    searcherCache.init(args, null, config.getRegenerator());
+    return searcherCache;
+  }
+
+  public int getMaxRamMB() {
+    return (int) (maxRamBytes / 1024L / 1024L);
+  }
+
+  public int size() {
+    return cache.asMap().size();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+  }
+
+  /** Returns up to <code>limit</code> of the hottest entries belonging to <code>owner</code>. */
+  private List<Map.Entry<Key,DocSet>> hottest(SearcherFilterCache owner, int limit) {
+    List<Map.Entry<Key,DocSet>> result = new ArrayList<>(limit);
+    Eviction<Key,DocSet> eviction = cache.policy().eviction().get();
+    // the hottest entries of the whole node are not necessarily this core's, so widen the scan until enough are found
+    int scan = limit;
+    while (true) {
+      Map<Key,DocSet> hottest = eviction.hottest(scan);
+      result.clear();
+      for (Map.Entry<Key,DocSet> e : hottest.entrySet()) {
+        if (e.getKey().owner == owner) {
+          result.add(e);
+          if (result.size() >= limit) {
+            return result;
+          }
+        }
+      }
+      if (hottest.size() < scan || scan >= Integer.MAX_VALUE / 4) {
+        return result;
+      }
+      scan *= 4;
+    }
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    solrMetricsContext = parentContext.getChildContext(this);
+    cacheMap = new MetricsMap(map -> {
+      CacheStats stats = cache.stats();
+      map.put(SolrCache.LOOKUPS_PARAM, stats.requestCount());
+      map.put(SolrCache.HITS_PARAM, stats.hitCount());
+      map.put(SolrCache.HIT_RATIO_PARAM, stats.hitRate());
+      map.put(SolrCache.EVICTIONS_PARAM, stats.evictionCount());
+      map.put(SolrCache.SIZE_PARAM, cache.asMap().size());
+      map.put(SolrCache.RAM_BYTES_USED_PARAM, ramBytesUsed());
+      map.put(SolrCache.MAX_RAM_MB_PARAM, getMaxRamMB());
+    });
+    solrMetricsContext.gauge(cacheMap, true, scope, SolrInfoBean.Category.CACHE.toString());
+  }
+
+  @Override
+  public SolrMetricsContext getSolrMetricsContext() {
+    return solrMetricsContext;
+  }
+
+  @Override
+  public void close() throws IOException {
+    SolrMetricProducer.super.close();
+    cache.invalidateAll();
+    cache.cleanUp();
+  }
+
+  /** Cache key: the searcher's view of the cache, standing for the core and searcher generation, and the filter. */
+  private static final class Key {
+    final SearcherFilterCache owner;
+    final Query query;
+    final int hash;
+
+    Key(SearcherFilterCache owner, Query query) {
+      this.owner = owner;
+      this.query = query;
+      this.hash = 31 * System.identityHashCode(owner) + query.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return owner == other.owner && query.equals(other.query);
+    }
+
+    @Override
+    public String toString() {
+      return owner.coreName + ":" + query;
+    }
+  }
+
+  /** The filterCache of a single searcher, stored in the node level cache. */
+  static class SearcherFilterCache extends SolrCacheBase implements SolrCache<Query,DocSet>, Accountable {
+    private final NodeFilterCache nodeCache;
+    private final String coreName;
+    // this searcher's keys in the node cache, so clearing doesn't have to scan the entries of every core
+    private final Set<Key> keys = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder size = new LongAdder();
+    private final LongAdder ramBytes = new LongAdder();
+
+    private long priorLookups;
+    private long priorHits;
+    private long priorInserts;
+    private long priorEvictions;
+    private long warmupTime;
+
+    private String description;
+    private MetricsMap cacheMap;
+    private SolrMetricsContext solrMetricsContext;
+
+    SearcherFilterCache(NodeFilterCache nodeCache, String coreName) {
+      this.nodeCache = nodeCache;
+      this.coreName = coreName;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object init(Map args, Object persistence, CacheRegenerator regenerator) {
+      super.init(args, regenerator);
+      description = String.format(Locale.ROOT, "Node Filter Cache(core=%s, maxRamMB=%d%s)", coreName,
+          nodeCache.getMaxRamMB(), isAutowarmingOn() ? (", " + getAutowarmDescription()) : "");
+      return persistence;
+    }
+
+    void onRemoval(Key key, DocSet value, RemovalCause cause) {
+      ramBytes.add(-weigh(key, value));
+      if (cause != RemovalCause.REPLACED) {
+        keys.remove(key);
+        size.decrement();
+      }
+      if (cause.wasEvicted()) {
+        evictions.increment();
+      }
+    }
+
+    @Override
+    public DocSet get(Query key) {
+      lookups.increment();
+      DocSet value = nodeCache.cache.getIfPresent(new Key(this, key));
+      if (value != null) {
+        hits.increment();
+      }
+      return value;
+    }
+
+    @Override
+    public DocSet computeIfAbsent(Query key, Function<? super Query, ? extends DocSet> mappingFunction) {
+      lookups.increment();
+      boolean[] computed = new boolean[1];
+      DocSet value = nodeCache.cache.get(new Key(this, key), k -> {
+        computed[0] = true;
+        DocSet v = mappingFunction.apply(k.query);
+        if (v != null) {
+          keys.add(k);
+          inserts.increment();
+          size.increment();
+          ramBytes.add(weigh(k, v));
+        }
+        return v;
+      });
+      if (!computed[0] && value != null) {
+        hits.increment();
+      }
+      return value;
+    }
+
+    @Override
+    public DocSet put(Query key, DocSet value) {
+      inserts.increment();
+      Key k = new Key(this, key);
+      // account before inserting, the insert may evict this very entry
+      ramBytes.add(weigh(k, value));
+      size.increment();
+      keys.add(k);
+      DocSet old = nodeCache.cache.asMap().put(k, value);
+      if (old != null) {
+        size.decrement();
+      }
+      return old;
+    }
+
+    @Override
+    public DocSet remove(Query key) {
+      return nodeCache.cache.asMap().remove(new Key(this, key));
+    }
+
+    @Override
+    public void clear() {
+      // the removal listener drops each key from the index
+      nodeCache.cache.invalidateAll(keys);
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.max(0, size.sum());
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return ramBytes.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+      SolrCache.super.close();
+      clear();
+    }
+
+    /** The size is bounded by the node level <code>maxRamMB</code>; this is a no-op. */
+    @Override
+    public void setMaxSize(int maxSize) {
+    }
+
+    @Override
+    public int getMaxSize() {
+      return -1;
+    }
+
+    /** The size is bounded by the node level <code>maxRamMB</code>; this is a no-op. */
+    @Override
+    public void setMaxRamMB(int maxRamMB) {
+    }
+
+    @Override
+    public int getMaxRamMB() {
+      return nodeCache.getMaxRamMB();
+    }
+
+    @Override
+    public void warm(SolrIndexSearcher searcher, SolrCache<Query,DocSet> old) {
+      if (regenerator == null) {
+        return;
+      }
+      long warmingStartTime = System.nanoTime();
+      SearcherFilterCache other = (SearcherFilterCache) old;
+
+      if (isAutowarmingOn()) {
+        int warmCount = autowarm.getWarmCount(other.size());
+        List<Map.Entry<Key,DocSet>> hottest = warmCount > 0 ? nodeCache.hottest(other, warmCount) : List.of();
+        for (Map.Entry<Key,DocSet> entry : hottest) {
+          try {
+            boolean continueRegen = regenerator.regenerateItem(
+                searcher, this, old, entry.getKey().query, entry.getValue());
+            if (!continueRegen) {
+              break;
+            }
+          } catch (Exception e) {
+            SolrException.log(log, "Error during auto-warming of key:" + entry.getKey(), e);
+          }
+        }
+      }
+
+      inserts.reset();
+      priorLookups = other.lookups.sum() + other.priorLookups;
+      priorHits = other.hits.sum() + other.priorHits;
+      priorInserts = other.inserts.sum() + other.priorInserts;
+      priorEvictions = other.evictions.sum() + other.priorEvictions;
+      warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+    }
+
+    //////////////////////// SolrInfoBean methods //////////////////////
+
+    @Override
+    public String getName() {
+      return NodeFilterCache.class.getName();
+    }
+
+    @Override
+    public String getDescription() {
+      return description;
+    }
+
+    // for unit tests only
+    @VisibleForTesting
+    MetricsMap getMetricsMap() {
+      return cacheMap;
+    }
+
+    @Override
+    public SolrMetricsContext getSolrMetricsContext() {
+      return solrMetricsContext;
+    }
+
+    @Override
+    public String toString() {
+      return name() + (cacheMap != null ? cacheMap.getValue().toString() : "");
+    }
+
+    @Override
+    public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+      solrMetricsContext = parentContext.getChildContext(this);
+      cacheMap = new MetricsMap(map -> {
+        long lookupCount = lookups.sum();
+        long hitCount = hits.sum();
+        long insertCount = inserts.sum();
+        long evictionCount = evictions.sum();
+
+        map.put(LOOKUPS_PARAM, lookupCount);
+        map.put(HITS_PARAM, hitCount);
+        map.put(HIT_RATIO_PARAM, calcHitRatio(lookupCount, hitCount));
+        map.put(INSERTS_PARAM, insertCount);
+        map.put(EVICTIONS_PARAM, evictionCount);
+        map.put(SIZE_PARAM, size());
+        map.put("warmupTime", warmupTime);
+        map.put(RAM_BYTES_USED_PARAM, ramBytesUsed());
+        map.put(MAX_RAM_MB_PARAM, getMaxRamMB());
+        map.put("nodeRamBytesUsed", nodeCache.ramBytesUsed());
+
+        long cumulativeLookups = priorLookups + lookupCount;
+        long cumulativeHits = priorHits + hitCount;
+        map.put("cumulative_lookups", cumulativeLookups);
+        map.put("cumulative_hits", cumulativeHits);
+        map.put("cumulative_hitratio", calcHitRatio(cumulativeLookups, cumulativeHits));
+        map.put("cumulative_inserts", priorInserts + insertCount);
+        map.put("cumulative_evictions", priorEvictions + evictionCount);
+      });
+      solrMetricsContext.gauge(cacheMap, true, scope, getCategory().toString());
+    }
+  }
+}
@@ -39,6 +39,7 @@ public class QueryCommand {
   private long timeAllowed = -1;
   private int minExactCount = Integer.MAX_VALUE;
   private CursorMark cursorMark;
+  private boolean multiThreaded = false;
   
   public CursorMark getCursorMark() {
     return cursorMark;
@@ -193,6 +194,20 @@ public class QueryCommand {
     return this;
   }
   
+  public boolean isMultiThreaded() {
+    return multiThreaded;
+  }
+
+  /**
+   * Whether the search may be fanned out over the index segments on the searcher's executor.
+   * Ignored when the searcher has no executor or for searches that can't be split (post filters,
+   * rank queries, early termination, timeAllowed).
+   */
+  public QueryCommand setMultiThreaded(boolean multiThreaded) {
+    this.multiThreaded = multiThreaded;
+    return this;
+  }
+
   public boolean isNeedDocSet() {
     return (flags & SolrIndexSearcher.GET_DOCSET) != 0;
   }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Key of the segmentFacetCountCache: the reader cache key of a segment, a field and the query of a facet domain.
+ * Unlike the core cache key used by {@link SegmentFilterKey}, the reader cache key changes when documents of the
+ * segment are deleted or updated, which changes the counts.
+ *
+ * @see SegmentFacetCounts
+ * @lucene.internal
+ */
+public final class SegmentFacetCountKey implements Accountable {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentFacetCountKey.class);
+
+  private final Object segmentKey;
+  private final String field;
+  private final Query domain;
+  private final int hash;
+
+  public SegmentFacetCountKey(Object segmentKey, String field, Query domain) {
+    this.segmentKey = segmentKey;
+    this.field = field;
+    this.domain = domain;
+    this.hash = 31 * (31 * segmentKey.hashCode() + field.hashCode()) + domain.hashCode();
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) return true;
+    if (!(obj instanceof SegmentFacetCountKey)) return false;
+    SegmentFacetCountKey other = (SegmentFacetCountKey) obj;
+    return segmentKey == other.segmentKey && field.equals(other.field) && domain.equals(other.domain);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(field)
+        + RamUsageEstimator.sizeOfObject(domain, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+  }
+
+  @Override
+  public String toString() {
+    return "SegmentFacetCountKey(" + segmentKey + "," + field + "," + domain + ")";
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+import org.apache.solr.core.SolrCore;
+
+/**
+ * Term counts of a facet domain per segment, kept in the core's segmentFacetCountCache so that repeated facet
+ * requests over the same query and filters only have to count the segments that changed since they were last
+ * seen, typically the ones added by the latest commit. The counts of a segment are in its own ordinal space and
+ * are mapped to global ordinals by the caller.
+ * <p>
+ * Counts are laid out like the per-segment counts of {@link org.apache.solr.request.DocValuesFacets}: index 0
+ * holds the number of domain documents without a value and index <code>1+ord</code> the count of segment
+ * ordinal <code>ord</code>. Cached arrays are shared and must not be modified.
+ *
+ * @lucene.internal
+ */
+public final class SegmentFacetCounts {
+  private final SolrIndexSearcher searcher;
+  private final SolrCache<SegmentFacetCountKey,int[]> cache;
+  private final Query domain;
+  private Weight weight;
+
+  private SegmentFacetCounts(SolrIndexSearcher searcher, SolrCache<SegmentFacetCountKey,int[]> cache, Query domain) {
+    this.searcher = searcher;
+    this.cache = cache;
+    this.domain = domain;
+  }
+
+  /**
+   * Returns the segment counts of the documents matching <code>query</code> and all <code>filters</code>, or null
+   * if the core has no segmentFacetCountCache or the domain can't be cached per segment.
+   */
+  public static SegmentFacetCounts forDomain(SolrIndexSearcher searcher, Query query, List<Query> filters) {
+    SolrCore core = searcher.getCore();
+    SolrCache<SegmentFacetCountKey,int[]> cache = core == null ? null : core.getSegmentFacetCountCache();
+    if (cache == null || query == null) {
+      return null;
+    }
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    builder.add(query, BooleanClause.Occur.FILTER);
+    if (filters != null) {
+      for (Query filter : filters) {
+        if (filter instanceof PostFilter) {
+          // e.g. collapse, which picks documents by looking at other segments
+          return null;
+        }
+        builder.add(filter, BooleanClause.Occur.FILTER);
+      }
+    }
+    return new SegmentFacetCounts(searcher, cache, builder.build());
+  }
+
+  /**
+   * Returns the counts of <code>field</code> over the domain documents of a segment, from the cache or by counting
+   * <code>domainDocs</code>, which must iterate the domain's documents in <code>leaf</code>.
+   *
+   * @param values the values of the field in <code>leaf</code>; a singleton view for single-valued fields
+   */
+  public int[] getCounts(LeafReaderContext leaf, String field, SortedSetDocValues values, DocIdSetIterator domainDocs) throws IOException {
+    IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+    SegmentFacetCountKey key = cacheHelper == null || !isCacheable(leaf) ? null
+        : new SegmentFacetCountKey(cacheHelper.getKey(), field, domain);
+    int[] counts = key == null ? null : cache.get(key);
+    if (counts == null) {
+      counts = count(values, domainDocs);
+      if (key != null) {
+        cache.put(key, counts);
+      }
+    }
+    return counts;
+  }
+
+  // matches of queries like {!join} depend on other segments
+  private synchronized boolean isCacheable(LeafReaderContext leaf) throws IOException {
+    if (weight == null) {
+      weight = searcher.createWeight(searcher.rewrite(domain), ScoreMode.COMPLETE_NO_SCORES, 1f);
+    }
+    return weight.isCacheable(leaf);
+  }
+
+  static int[] count(SortedSetDocValues values, DocIdSetIterator docs) throws IOException {
+    final int[] counts = new int[1 + (int) values.getValueCount()];
+    final SortedDocValues single = DocValues.unwrapSingleton(values);
+    int doc;
+    if (single != null) {
+      while ((doc = docs.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        counts[single.advanceExact(doc) ? 1 + single.ordValue() : 0]++;
+      }
+    } else {
+      while ((doc = docs.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        if (values.advanceExact(doc)) {
+          for (long ord = values.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = values.nextOrd()) {
+            counts[1 + (int) ord]++;
+          }
+        } else {
+          counts[0]++;
+        }
+      }
+    }
+    return counts;
+  }
+}
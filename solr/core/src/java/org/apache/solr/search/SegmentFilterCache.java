@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.DocIdSet;
+
+/**
+ * The segmentFilterCache of a core together with the keys each open segment has in it, so that the entries of
+ * a segment are removed when the segment is closed rather than taking up capacity until they are evicted.
+ * The key index is owned by the core and cleared when it closes; segments may outlive the core (for example
+ * across a reload, which shares the index writer), and their closed listeners must not keep the cache reachable.
+ *
+ * @see DocSetUtil#createDocSetBySegment(SolrIndexSearcher, org.apache.lucene.search.Query, SegmentFilterCache)
+ * @lucene.internal
+ */
+public final class SegmentFilterCache implements Closeable {
+  // null once closed
+  private volatile SolrCache<SegmentFilterKey,DocIdSet> cache;
+  private final Map<IndexReader.CacheKey,Set<SegmentFilterKey>> segmentKeys = new ConcurrentHashMap<>();
+
+  public SegmentFilterCache(SolrCache<SegmentFilterKey,DocIdSet> cache) {
+    this.cache = cache;
+  }
+
+  /** The underlying cache, or null once closed. */
+  public SolrCache<SegmentFilterKey,DocIdSet> getCache() {
+    return cache;
+  }
+
+  public DocIdSet get(SegmentFilterKey key) {
+    SolrCache<SegmentFilterKey,DocIdSet> cache = this.cache;
+    return cache == null ? null : cache.get(key);
+  }
+
+  /** Caches the set of the segment with the given cache helper, and removes it again when the segment closes. */
+  public void put(IndexReader.CacheHelper cacheHelper, SegmentFilterKey key, DocIdSet segmentSet) {
+    SolrCache<SegmentFilterKey,DocIdSet> cache = this.cache;
+    if (cache == null) return;
+    cache.put(key, segmentSet);
+    Set<SegmentFilterKey> keys = segmentKeys.computeIfAbsent(cacheHelper.getKey(), coreKey -> {
+      cacheHelper.addClosedListener(this::purge);
+      return new LinkedHashSet<>();
+    });
+    synchronized (keys) {
+      keys.remove(key);
+      keys.add(key);
+      // a segment can't have more entries than the cache holds; forget the oldest keys, those were evicted first
+      int max = Math.max(cache.getMaxSize(), cache.size());
+      for (Iterator<SegmentFilterKey> it = keys.iterator(); keys.size() > max && it.hasNext(); ) {
+        it.next();
+        it.remove();
+      }
+    }
+  }
+
+  private void purge(IndexReader.CacheKey coreKey) {
+    Set<SegmentFilterKey> keys = segmentKeys.remove(coreKey);
+    SolrCache<SegmentFilterKey,DocIdSet> cache = this.cache;
+    if (keys == null || cache == null) return;
+    synchronized (keys) {
+      keys.forEach(cache::remove);
+    }
+  }
+
+  /** The number of open segments that have entries in the cache. */
+  int getSegmentCount() {
+    return segmentKeys.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    SolrCache<SegmentFilterKey,DocIdSet> cache = this.cache;
+    this.cache = null;
+    segmentKeys.clear();
+    if (cache != null) {
+      cache.close();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Key of the segmentFilterCache: the core cache key of a segment and a positive filter query.
+ * The core cache key does not change when documents of the segment are deleted, so cached
+ * segment sets contain deleted documents and live docs are applied when they are used.
+ *
+ * @see DocSetUtil#createDocSetBySegment(SolrIndexSearcher, Query, SegmentFilterCache)
+ * @lucene.internal
+ */
+public final class SegmentFilterKey implements Accountable {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentFilterKey.class);
+
+  private final Object segmentKey;
+  private final Query query;
+  private final int hash;
+
+  public SegmentFilterKey(Object segmentKey, Query query) {
+    this.segmentKey = segmentKey;
+    this.query = query;
+    this.hash = 31 * segmentKey.hashCode() + query.hashCode();
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) return true;
+    if (!(obj instanceof SegmentFilterKey)) return false;
+    SegmentFilterKey other = (SegmentFilterKey) obj;
+    return segmentKey == other.segmentKey && query.equals(other.query);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOfObject(query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+  }
+
+  @Override
+  public String toString() {
+    return "SegmentFilterKey(" + segmentKey + "," + query + ")";
+  }
+}
@@ -64,6 +64,7 @@ import org.apache.lucene.util.NumericUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentBase;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.core.SolrConfig;
 import org.apache.solr.response.DocsStreamer;
 import org.apache.solr.response.ResultContext;
@@ -224,7 +225,7 @@ public class SolrDocumentFetcher {
       AtomicReference<IOException> exceptionRef = new AtomicReference<>();
       d = documentCache.computeIfAbsent(i, docId -> {
         try {
-          return docNC(docId, getFields);
+          return docNC(docId, getFields, true);
         } catch (IOException e) {
           exceptionRef.set(e);
           return null;
@@ -235,18 +236,18 @@ public class SolrDocumentFetcher {
       }
       if (d == null) {
         // failed to retrieve due to an earlier exception, try again?
-        return docNC(i, fields);
+        return docNC(i, fields, false);
       } else {
         return d;
       }
     } else {
-      return docNC(i, fields);
+      return docNC(i, fields, false);
     }
   }
 
-  private Document docNC(int i, Set<String> fields) throws IOException {
+  private Document docNC(int i, Set<String> fields, boolean toCache) throws IOException {
     final DirectoryReader reader = searcher.getIndexReader();
-    final SolrDocumentStoredFieldVisitor visitor = new SolrDocumentStoredFieldVisitor(fields, reader, i);
+    final SolrDocumentStoredFieldVisitor visitor = new SolrDocumentStoredFieldVisitor(fields, reader, i, toCache);
     reader.document(i, visitor);
     return visitor.getDocument();
   }
@@ -296,10 +297,12 @@ public class SolrDocumentFetcher {
     private final LazyDocument lazyFieldProducer; // arguably a better name than LazyDocument; at least how we use it here
     private final int docId;
     private final boolean addLargeFieldsLazily;
+    private final boolean toCache;
 
-    SolrDocumentStoredFieldVisitor(Set<String> toLoad, IndexReader reader, int docId) {
+    SolrDocumentStoredFieldVisitor(Set<String> toLoad, IndexReader reader, int docId, boolean toCache) {
       super(toLoad);
       this.docId = docId;
+      this.toCache = toCache;
       this.doc = getDocument();
       this.lazyFieldProducer = toLoad != null && enableLazyFieldLoading ? new LazyDocument(reader, docId) : null;
       this.addLargeFieldsLazily = (documentCache != null && !largeFields.isEmpty());
@@ -317,7 +320,14 @@ public class SolrDocumentFetcher {
         ft.setOmitNorms(fieldInfo.omitsNorms());
         ft.setIndexOptions(fieldInfo.getIndexOptions());
         Objects.requireNonNull(value, "String value should not be null");
-        doc.add(new StoredField(fieldInfo.name, value, ft));
+        if (toCache) {
+          // encoded once, so javabin can copy the bytes of the cached document on every later hit
+          final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+          doc.add(new StoredField(fieldInfo.name, new ByteArrayUtf8CharSequence(utf8, 0, utf8.length), ft));
+        } else {
+          // for a single use, writing the String is cheaper than encoding it first
+          doc.add(new StoredField(fieldInfo.name, value, ft));
+        }
       } else {
         super.stringField(fieldInfo, value);
       }
@@ -30,12 +30,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Iterables;
 
 import org.apache.lucene.document.Document;
@@ -60,6 +67,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.core.DirectoryFactory;
@@ -123,6 +131,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
   private final boolean cachingEnabled;
   private final SolrCache<Query,DocSet> filterCache;
+  private final SegmentFilterCache segmentFilterCache;
   private final SolrCache<QueryResultKey,DocList> queryResultCache;
   private final SolrCache<String,UnInvertedField> fieldValueCache;
 
@@ -145,6 +154,16 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
   private final StatsCache statsCache;
 
+  // used to search leaf slices in parallel for requests that opt in, may be null
+  private final ExecutorService collectorExecutor;
+  private volatile LeafSlice[] parallelSlices;
+  private volatile Histogram parallelSlicesHistogram;
+  private volatile Timer parallelQueueWaitTimer;
+
+  // same slicing as lucene's IndexSearcher
+  private static final int MAX_DOCS_PER_SLICE = 250_000;
+  private static final int MAX_SEGMENTS_PER_SLICE = 5;
+
   private Set<String> metricNames = ConcurrentHashMap.newKeySet();
   private SolrMetricsContext solrMetricsContext;
 
@@ -249,6 +268,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     this.leafReader = SlowCompositeReaderWrapper.wrap(this.reader);
     this.core = core;
     this.statsCache = core.createStatsCache();
+    this.collectorExecutor = core.getCoreContainer().getCollectorExecutor();
     this.schema = schema;
     this.name = "Searcher@" + Integer.toHexString(hashCode()) + "[" + core.getName() + "]"
         + (name != null ? " " + name : "");
@@ -283,8 +303,16 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       fieldValueCache = solrConfig.fieldValueCacheConfig == null ? null
           : solrConfig.fieldValueCacheConfig.newInstance();
       if (fieldValueCache != null) clist.add(fieldValueCache);
-      filterCache = solrConfig.filterCacheConfig == null ? null : solrConfig.filterCacheConfig.newInstance();
+      NodeFilterCache nodeFilterCache = core.getCoreContainer().getNodeFilterCache();
+      if (solrConfig.filterCacheConfig == null) {
+        filterCache = null;
+      } else if (nodeFilterCache != null) {
+        filterCache = nodeFilterCache.newSearcherCache(core.getName(), solrConfig.filterCacheConfig);
+      } else {
+        filterCache = solrConfig.filterCacheConfig.newInstance();
+      }
       if (filterCache != null) clist.add(filterCache);
+      segmentFilterCache = core.getSegmentFilterCache();
       queryResultCache = solrConfig.queryResultCacheConfig == null ? null
           : solrConfig.queryResultCacheConfig.newInstance();
       if (queryResultCache != null) clist.add(queryResultCache);
@@ -307,6 +335,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       cacheList = clist.toArray(new SolrCache[clist.size()]);
     } else {
       this.filterCache = null;
+      this.segmentFilterCache = null;
       this.queryResultCache = null;
       this.fieldValueCache = null;
       this.cacheMap = NO_GENERIC_CACHES;
@@ -828,7 +857,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
     }
 
-    DocSet absAnswer = getDocSetNC(absQ, null);
+    DocSet absAnswer = getDocSetToCache(absQ);
     DocSet answer = positive ? absAnswer : getLiveDocSet().andNot(absAnswer);
 
     if (filterCache != null) {
@@ -846,11 +875,21 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       answer = filterCache.get(q);
       if (answer != null) return answer;
     }
-    answer = getDocSetNC(q, null);
+    answer = getDocSetToCache(q);
     if (filterCache != null) filterCache.put(q, answer);
     return answer;
   }
 
+  // query must be positive; computes a filter that is about to be put in the filterCache,
+  // going through the segmentFilterCache when there is one
+  private DocSet getDocSetToCache(Query query) throws IOException {
+    if (segmentFilterCache == null || query instanceof DocSetProducer || query instanceof MatchAllDocsQuery) {
+      // DocSetProducers compute top-level sets; match-all is cheaper to recompute than to cache per segment
+      return getDocSetNC(query, null);
+    }
+    return DocSetUtil.createDocSetBySegment(this, query, segmentFilterCache);
+  }
+
   private static Query matchAllDocsQuery = new MatchAllDocsQuery();
   private volatile BitDocSet liveDocs;
 
@@ -919,6 +958,12 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
     }
 
+    Query query = pf.filter != null ? pf.filter : matchAllDocsQuery;
+
+    if (pf.postFilter == null && isMultiThreadedRequest()) {
+      return DocSetUtil.getDocSet(searchParallel(query, new DocSetCollector.Manager(maxDoc())), this);
+    }
+
     DocSetCollector setCollector = new DocSetCollector(maxDoc());
     Collector collector = setCollector;
     if (pf.postFilter != null) {
@@ -926,8 +971,6 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       collector = pf.postFilter;
     }
 
-    Query query = pf.filter != null ? pf.filter : matchAllDocsQuery;
-
     search(query, collector);
 
     if (collector instanceof DelegatingCollector) {
@@ -1205,7 +1248,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     if (filterCache != null) {
       first = filterCache.get(absQ);
       if (first == null) {
-        first = getDocSetNC(absQ, null);
+        first = getDocSetToCache(absQ);
         filterCache.put(absQ, first);
       }
       return positive ? first.intersection(filter) : filter.andNot(first);
@@ -1519,6 +1562,268 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
   }
 
+  /**
+   * The {@link CollectorManager} equivalent of {@link #buildTopDocsCollector(int, QueryCommand)}, for commands
+   * that don't use a {@link RankQuery}.
+   */
+  private CollectorManager<? extends TopDocsCollector<?>,? extends TopDocs> buildTopDocsCollectorManager(int len,
+      QueryCommand cmd) throws IOException {
+    int minNumFound = cmd.getMinExactCount();
+    assert !(cmd.getQuery() instanceof RankQuery);
+
+    if (null == cmd.getSort()) {
+      assert null == cmd.getCursorMark() : "have cursor but no sort";
+      return TopScoreDocCollector.createSharedManager(len, null, minNumFound);
+    } else {
+      final Sort weightedSort = weightSort(cmd.getSort());
+      final CursorMark cursor = cmd.getCursorMark();
+
+      final FieldDoc searchAfter = (null != cursor ? cursor.getSearchAfterFieldDoc() : null);
+      return TopFieldCollector.createSharedManager(weightedSort, len, searchAfter, minNumFound);
+    }
+  }
+
+  private static final CollectorManager<TotalHitCountCollector,Integer> TOTAL_HIT_COUNT_MANAGER =
+      new CollectorManager<>() {
+        @Override
+        public TotalHitCountCollector newCollector() {
+          return new TotalHitCountCollector();
+        }
+
+        @Override
+        public Integer reduce(Collection<TotalHitCountCollector> collectors) {
+          int totalHits = 0;
+          for (TotalHitCountCollector collector : collectors) {
+            totalHits += collector.getTotalHits();
+          }
+          return totalHits;
+        }
+      };
+
+  private static final CollectorManager<MaxScoreCollector,Float> MAX_SCORE_MANAGER =
+      new CollectorManager<>() {
+        @Override
+        public MaxScoreCollector newCollector() {
+          return new MaxScoreCollector();
+        }
+
+        @Override
+        public Float reduce(Collection<MaxScoreCollector> collectors) {
+          float maxScore = Float.NaN;
+          for (MaxScoreCollector collector : collectors) {
+            float score = collector.getMaxScore();
+            if (Float.isNaN(maxScore) || score > maxScore) {
+              maxScore = score;
+            }
+          }
+          return maxScore;
+        }
+      };
+
+  private LeafSlice[] getParallelSlices() {
+    LeafSlice[] slices = parallelSlices;
+    if (slices == null) {
+      parallelSlices = slices = IndexSearcher.slices(leafContexts, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+    }
+    return slices;
+  }
+
+  /** Whether this searcher has an executor and an index big enough to be searched in parallel. */
+  private boolean canSearchParallel() {
+    return collectorExecutor != null && getParallelSlices().length > 1;
+  }
+
+  /**
+   * Whether the command asked for, and supports, searching the leaf slices in parallel. Post filters, rank
+   * queries and early termination depend on a single collector seeing every document, and timeAllowed relies
+   * on thread local state, so they are always searched sequentially.
+   */
+  private boolean useParallelSearch(QueryCommand cmd, ProcessedFilter pf) {
+    return cmd.isMultiThreaded()
+        && pf.postFilter == null
+        && cmd.getTimeAllowed() <= 0
+        && !cmd.getTerminateEarly()
+        && !cmd.getSegmentTerminateEarly()
+        && !(cmd.getQuery() instanceof RankQuery)
+        && canSearchParallel();
+  }
+
+  /**
+   * Whether the current request opted in to parallel search with {@link CommonParams#MULTI_THREADED}, for
+   * code paths that aren't driven by a {@link QueryCommand}.
+   *
+   * @lucene.internal
+   */
+  public boolean isMultiThreadedRequest() {
+    final SolrRequestInfo reqInfo = SolrRequestInfo.getRequestInfo();
+    return reqInfo != null && reqInfo.getReq() != null
+        && reqInfo.getReq().getParams().getBool(CommonParams.MULTI_THREADED, CommonParams.MULTI_THREADED_DEFAULT)
+        && reqInfo.getReq().getParams().getLong(CommonParams.TIME_ALLOWED, -1L) <= 0
+        && canSearchParallel();
+  }
+
+  /**
+   * Searches the query over the leaf slices of this searcher concurrently, using one collector of the
+   * manager per slice, and returns the reduced result. Slices are handed to the node's collector executor;
+   * the calling thread searches any slice no executor thread has picked up yet, so a saturated executor
+   * degrades to sequential search rather than piling up requests.
+   */
+  <C extends Collector, T> T searchParallel(Query query, CollectorManager<C,T> manager) throws IOException {
+    final LeafSlice[] slices = getParallelSlices();
+    final List<C> collectors = new ArrayList<>(slices.length);
+    ScoreMode scoreMode = null;
+    for (int i = 0; i < slices.length; i++) {
+      C collector = manager.newCollector();
+      if (scoreMode == null) {
+        scoreMode = collector.scoreMode();
+      } else if (scoreMode != collector.scoreMode()) {
+        throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
+      }
+      collectors.add(collector);
+    }
+    final Weight weight = createWeight(rewrite(query), scoreMode, 1);
+
+    final Timer queueWaitTimer = parallelQueueWaitTimer;
+    final List<Callable<C>> tasks = new ArrayList<>(slices.length);
+    for (int i = 0; i < slices.length; i++) {
+      final List<LeafReaderContext> leaves = Arrays.asList(slices[i].leaves);
+      final C collector = collectors.get(i);
+      final long submitTime = System.nanoTime();
+      tasks.add(() -> {
+        if (queueWaitTimer != null) {
+          queueWaitTimer.update(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+        }
+        search(leaves, weight, collector);
+        return collector;
+      });
+    }
+    invokeParallel(tasks);
+
+    final Histogram slicesHistogram = parallelSlicesHistogram;
+    if (slicesHistogram != null) {
+      slicesHistogram.update(slices.length);
+    }
+    return manager.reduce(collectors);
+  }
+
+  /**
+   * Runs the tasks on the node's collector executor and returns their results in task order. The first task,
+   * and any task no executor thread has picked up by the time the calling thread gets to it, is run by the
+   * calling thread, so a saturated (or absent) executor degrades to running the tasks sequentially.
+   *
+   * @lucene.internal
+   */
+  public <T> List<T> invokeParallel(List<? extends Callable<T>> callables) throws IOException {
+    final List<FutureTask<T>> tasks = new ArrayList<>(callables.size());
+    for (Callable<T> callable : callables) {
+      tasks.add(new FutureTask<>(callable));
+    }
+
+    // the first task is always run by this thread
+    if (collectorExecutor != null) {
+      for (int i = 1; i < tasks.size(); i++) {
+        try {
+          collectorExecutor.execute(tasks.get(i));
+        } catch (RejectedExecutionException e) {
+          // the task is run by this thread below
+        }
+      }
+    }
+    for (FutureTask<T> task : tasks) {
+      task.run(); // no-op if an executor thread already started it
+    }
+    final List<T> results = new ArrayList<>(tasks.size());
+    for (FutureTask<T> task : tasks) {
+      try {
+        results.add(task.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(ErrorCode.SERVER_ERROR, "Interrupted while running parallel tasks", e);
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new SolrException(ErrorCode.SERVER_ERROR, cause);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Parallel variant of {@link #getDocListNC} and {@link #getDocListAndSetNC}: fills in the DocList of the
+   * result, and its DocSet if {@code needDocSet}.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void getDocListParallel(QueryResult qr, QueryCommand cmd, Query query, int lastDocRequested,
+      boolean needDocSet) throws IOException {
+    final int len = cmd.getSupersetMaxDoc();
+    final boolean needScores = (cmd.getFlags() & GET_SCORES) != 0;
+    final boolean needTopDocs = lastDocRequested > 0;
+
+    final List<CollectorManager> managers = new ArrayList<>(3);
+    if (needTopDocs) {
+      managers.add(buildTopDocsCollectorManager(len, cmd));
+    } else if (!needDocSet) {
+      managers.add(TOTAL_HIT_COUNT_MANAGER);
+    }
+    if (needDocSet) {
+      managers.add(new DocSetCollector.Manager(maxDoc()));
+    }
+    if (needScores) {
+      managers.add(MAX_SCORE_MANAGER);
+    }
+    final Object[] results = searchParallel(query,
+        new MultiCollectorManager(managers.toArray(new CollectorManager[managers.size()])));
+
+    int idx = 0;
+    final TopDocs topDocs = needTopDocs ? (TopDocs) results[idx++] : null;
+    final Integer hitCount = !needTopDocs && !needDocSet ? (Integer) results[idx++] : null;
+    final DocSet set = needDocSet ? DocSetUtil.getDocSet((DocSet) results[idx++], this) : null;
+    final Float maxScoreFound = needScores ? (Float) results[idx++] : null;
+
+    final int totalHits;
+    final float maxScore;
+    final Relation hitsRelation;
+    final int[] ids;
+    final float[] scores;
+    if (topDocs != null) {
+      totalHits = (int) topDocs.totalHits.value;
+      hitsRelation = topDocs.totalHits.relation;
+      if (cmd.getSort() != null && needScores) {
+        TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
+      }
+      populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
+      maxScore = totalHits > 0 ? (maxScoreFound == null ? Float.NaN : maxScoreFound) : 0.0f;
+      ids = new int[topDocs.scoreDocs.length];
+      scores = needScores ? new float[ids.length] : null;
+      for (int i = 0; i < ids.length; i++) {
+        ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+        ids[i] = scoreDoc.doc;
+        if (scores != null) scores[i] = scoreDoc.score;
+      }
+    } else {
+      totalHits = set != null ? set.size() : hitCount;
+      hitsRelation = Relation.EQUAL_TO;
+      maxScore = totalHits > 0 ? (maxScoreFound == null ? Float.NEGATIVE_INFINITY : maxScoreFound) : 0.0f;
+      ids = new int[0];
+      scores = new float[0];
+      // no docs on this page, so cursor doesn't change
+      qr.setNextCursorMark(cmd.getCursorMark());
+    }
+
+    int sliceLen = Math.min(lastDocRequested, ids.length);
+    if (sliceLen < 0) sliceLen = 0;
+    qr.setDocList(new DocSlice(0, sliceLen, ids, scores, totalHits, maxScore, hitsRelation));
+    if (needDocSet) {
+      qr.setDocSet(set);
+    }
+  }
+
   private void getDocListNC(QueryResult qr, QueryCommand cmd) throws IOException {
     int len = cmd.getSupersetMaxDoc();
     int last = len;
@@ -1536,6 +1841,11 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     final Query query = QueryUtils.combineQueryAndFilter(QueryUtils.makeQueryable(cmd.getQuery()), pf.filter);
     Relation hitsRelation;
 
+    if (useParallelSearch(cmd, pf)) {
+      getDocListParallel(qr, cmd, query, lastDocRequested, false);
+      return;
+    }
+
     // handle zero case...
     if (lastDocRequested <= 0) {
       final float[] topscore = new float[] {Float.NEGATIVE_INFINITY};
@@ -1647,6 +1957,11 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     ProcessedFilter pf = getProcessedFilter(cmd.getFilter(), cmd.getFilterList());
     final Query query = QueryUtils.combineQueryAndFilter(QueryUtils.makeQueryable(cmd.getQuery()), pf.filter);
 
+    if (useParallelSearch(cmd, pf)) {
+      getDocListParallel(qr, cmd, query, lastDocRequested, true);
+      return pf.filter == null ? qr.getDocSet() : null;
+    }
+
     // handle zero case...
     if (lastDocRequested <= 0) {
       final float[] topscore = new float[] {Float.NEGATIVE_INFINITY};
@@ -2296,6 +2611,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         return parentContext.nullNumber();
       }
     }, true, "indexCommitSize", Category.SEARCHER.toString(), scope);
+    // parallel segment search
+    parallelSlicesHistogram = parentContext.histogram("parallelSlices", Category.SEARCHER.toString(), scope);
+    parallelQueueWaitTimer = parentContext.timer("parallelQueueWait", Category.SEARCHER.toString(), scope);
     // statsCache metrics
     parentContext.gauge(
         new MetricsMap(map -> {
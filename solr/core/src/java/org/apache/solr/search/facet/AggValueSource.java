@@ -57,5 +57,13 @@ public abstract class AggValueSource extends ValueSource {
 
   public abstract FacetMerger createFacetMerger(Object prototype);
 
+  /**
+   * True if the value grows in proportion to the number of documents it's computed over, like a sum or a
+   * count, so that the value for a sample of the domain can be scaled up to estimate the whole domain.
+   */
+  public boolean isAdditive() {
+    return false;
+  }
+
 }
 
@@ -94,7 +94,7 @@ public class AvgAgg extends SimpleAggValueSource {
 
     public AvgSortedNumericAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
       super(fcontext, sf, numSlots, 0);
-      this.counts = new int[numSlots];
+      this.counts = SlotArrayPool.ints(numSlots);
     }
 
     @Override
@@ -138,6 +138,13 @@ public class AvgAgg extends SimpleAggValueSource {
       super.resize(resizer);
       this.counts = resizer.resize(counts, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      counts = null;
+      super.close();
+    }
   }
 
   class AvgSortedSetAcc extends DocValuesAcc.DoubleSortedSetDVAcc {
@@ -145,7 +152,7 @@ public class AvgAgg extends SimpleAggValueSource {
 
     public AvgSortedSetAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
       super(fcontext, sf, numSlots, 0);
-      this.counts = new int[numSlots];
+      this.counts = SlotArrayPool.ints(numSlots);
     }
 
     @Override
@@ -193,6 +200,13 @@ public class AvgAgg extends SimpleAggValueSource {
       super.resize(resizer);
       this.counts = resizer.resize(counts, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      counts = null;
+      super.close();
+    }
   }
 
   class AvgUnInvertedFieldAcc extends UnInvertedFieldAcc.DoubleUnInvertedFieldAcc {
@@ -200,7 +214,7 @@ public class AvgAgg extends SimpleAggValueSource {
 
     public AvgUnInvertedFieldAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
       super(fcontext, sf, numSlots, 0);
-      this.counts = new int[numSlots];
+      this.counts = SlotArrayPool.ints(numSlots);
     }
 
     @Override
@@ -250,5 +264,12 @@ public class AvgAgg extends SimpleAggValueSource {
       super.resize(resizer);
       this.counts = resizer.resize(counts, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      counts = null;
+      super.close();
+    }
   }
 }
@@ -32,4 +32,9 @@ public class CountAgg extends SimpleAggValueSource {
   public FacetMerger createFacetMerger(Object prototype) {
     return new FacetModule.FacetLongMerger();
   }
+
+  @Override
+  public boolean isAdditive() {
+    return true;
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.Hash;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+/**
+ * A count-min sketch of the bucket counts a shard did not return for a terms facet with
+ * <code>refine:"sketch"</code>. The estimate for a bucket is never lower than its actual count, so an
+ * estimate of 0 proves the shard has no documents in the bucket, and any estimate is an upper bound the
+ * merger can use instead of asking the shard for the exact count.
+ */
+class CountMinSketch {
+  static final int DEPTH = 4;
+  private static final int MIN_WIDTH = 64;
+  private static final int MAX_WIDTH = 4096;
+
+  private final int width;
+  private final long[] counts;
+  private long max; // largest count added, itself an upper bound for every estimate
+
+  private CountMinSketch(int width, long[] counts, long max) {
+    this.width = width;
+    this.counts = counts;
+    this.max = max;
+  }
+
+  /** A sketch sized for about {@code numBuckets} buckets */
+  static CountMinSketch forBuckets(long numBuckets) {
+    int width = MIN_WIDTH;
+    while (width < numBuckets && width < MAX_WIDTH) {
+      width <<= 1;
+    }
+    return new CountMinSketch(width, new long[DEPTH * width], 0);
+  }
+
+  void add(Object bucketVal, long count) {
+    final long hash = hash(bucketVal);
+    final int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+    for (int row = 0; row < DEPTH; row++) {
+      counts[row * width + index(h1, h2, row)] += count;
+    }
+    max = Math.max(max, count);
+  }
+
+  long estimate(Object bucketVal) {
+    final long hash = hash(bucketVal);
+    final int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+    long estimate = max;
+    for (int row = 0; row < DEPTH && estimate > 0; row++) {
+      estimate = Math.min(estimate, counts[row * width + index(h1, h2, row)]);
+    }
+    return estimate;
+  }
+
+  private int index(int h1, int h2, int row) {
+    return ((h1 + row * h2) & Integer.MAX_VALUE) & (width - 1);
+  }
+
+  /** Hashes a bucket value the same way on shards and on the merger, after it was serialized in between. */
+  private static long hash(Object bucketVal) {
+    final long bits;
+    if (bucketVal instanceof CharSequence) {
+      CharSequence s = (CharSequence) bucketVal;
+      bits = Hash.murmurhash3_x86_32(s, 0, s.length(), 0);
+    } else if (bucketVal instanceof Double || bucketVal instanceof Float) {
+      bits = Double.doubleToLongBits(((Number) bucketVal).doubleValue());
+    } else if (bucketVal instanceof Number) {
+      bits = ((Number) bucketVal).longValue();
+    } else if (bucketVal instanceof Date) {
+      bits = ((Date) bucketVal).getTime();
+    } else {
+      String s = String.valueOf(bucketVal);
+      bits = Hash.murmurhash3_x86_32(s, 0, s.length(), 0);
+    }
+    return Hash.fmix64(bits);
+  }
+
+  /** The sketch as it's sent from a shard; counters are variable length encoded since most are small */
+  SimpleOrderedMap<Object> toResponse() {
+    final byte[] bytes = new byte[counts.length * 10];
+    int pos = 0;
+    for (long count : counts) {
+      while ((count & ~0x7FL) != 0L) {
+        bytes[pos++] = (byte) ((count & 0x7FL) | 0x80L);
+        count >>>= 7;
+      }
+      bytes[pos++] = (byte) count;
+    }
+    final SimpleOrderedMap<Object> res = new SimpleOrderedMap<>();
+    res.add("width", width);
+    res.add("max", max);
+    res.add("counts", Arrays.copyOf(bytes, pos));
+    return res;
+  }
+
+  static CountMinSketch fromResponse(Object response) {
+    if (!(response instanceof SimpleOrderedMap)) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Unexpected facet sketch from shard: " + response);
+    }
+    final SimpleOrderedMap<?> map = (SimpleOrderedMap<?>) response;
+    final int width = ((Number) map.get("width")).intValue();
+    final long max = ((Number) map.get("max")).longValue();
+    final byte[] bytes = (byte[]) map.get("counts");
+    final long[] counts = new long[DEPTH * width];
+    int pos = 0;
+    for (int i = 0; i < counts.length; i++) {
+      long count = 0;
+      for (int shift = 0; ; shift += 7) {
+        final byte b = bytes[pos++];
+        count |= (b & 0x7FL) << shift;
+        if (b >= 0) break;
+      }
+      counts[i] = count;
+    }
+    return new CountMinSketch(width, counts, max);
+  }
+}
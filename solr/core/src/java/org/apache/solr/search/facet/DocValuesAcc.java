@@ -110,7 +110,7 @@ public abstract class DocValuesAcc extends SlotAcc {
 
     public LongSortedNumericDVAcc(FacetContext fcontext, SchemaField sf, int numSlots, long initialValue) throws IOException {
       super(fcontext, sf, numSlots);
-      this.result = new long[numSlots];
+      this.result = SlotArrayPool.longs(numSlots);
       this.initialValue = initialValue;
       if (initialValue != 0) {
         Arrays.fill(result, initialValue);
@@ -137,6 +137,13 @@ public abstract class DocValuesAcc extends SlotAcc {
     this.result = resizer.resize(result, initialValue);
     }
 
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
+
   }
 
   abstract static class DoubleSortedNumericDVAcc extends SortedNumericDVAcc {
@@ -145,7 +152,7 @@ public abstract class DocValuesAcc extends SlotAcc {
 
     public DoubleSortedNumericDVAcc(FacetContext fcontext, SchemaField sf, int numSlots, double initialValue) throws IOException {
       super(fcontext, sf, numSlots);
-      this.result = new double[numSlots];
+      this.result = SlotArrayPool.doubles(numSlots);
       this.initialValue = initialValue;
       if (initialValue != 0) {
         Arrays.fill(result, initialValue);
@@ -172,6 +179,13 @@ public abstract class DocValuesAcc extends SlotAcc {
     this.result = resizer.resize(result, initialValue);
     }
 
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
+
     /**
      * converts given long value to double based on field type
      */
@@ -202,8 +216,8 @@ public abstract class DocValuesAcc extends SlotAcc {
 
     public SDVSortedNumericAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
       super(fcontext, sf, numSlots, 0);
-      this.counts = new int[numSlots];
-      this.sum = new double[numSlots];
+      this.counts = SlotArrayPool.ints(numSlots);
+      this.sum = SlotArrayPool.doubles(numSlots);
     }
 
     @Override
@@ -250,6 +264,15 @@ public abstract class DocValuesAcc extends SlotAcc {
     this.counts = resizer.resize(counts, 0);
     this.sum = resizer.resize(sum, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      SlotArrayPool.release(sum);
+      counts = null;
+      sum = null;
+      super.close();
+    }
   }
 
   /**
@@ -302,7 +325,7 @@ public abstract class DocValuesAcc extends SlotAcc {
 
     public LongSortedSetDVAcc(FacetContext fcontext, SchemaField sf, int numSlots, long initialValue) throws IOException {
       super(fcontext, sf, numSlots);
-      result = new long[numSlots];
+      result = SlotArrayPool.longs(numSlots);
       this.initialValue = initialValue;
       if (initialValue != 0) {
         Arrays.fill(result, initialValue);
@@ -328,6 +351,13 @@ public abstract class DocValuesAcc extends SlotAcc {
     public void resize(Resizer resizer) {
     this.result = resizer.resize(result, initialValue);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   abstract static class DoubleSortedSetDVAcc extends SortedSetDVAcc {
@@ -336,7 +366,7 @@ public abstract class DocValuesAcc extends SlotAcc {
 
     public DoubleSortedSetDVAcc(FacetContext fcontext, SchemaField sf, int numSlots, long initialValue) throws IOException {
       super(fcontext, sf, numSlots);
-      result = new double[numSlots];
+      result = SlotArrayPool.doubles(numSlots);
       this.initialValue = initialValue;
       if (initialValue != 0) {
         Arrays.fill(result, initialValue);
@@ -362,6 +392,13 @@ public abstract class DocValuesAcc extends SlotAcc {
     public void resize(Resizer resizer) {
     this.result = resizer.resize(result, initialValue);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   /**
@@ -373,8 +410,8 @@ public abstract class DocValuesAcc extends SlotAcc {
 
     public SDVSortedSetAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
       super(fcontext, sf, numSlots, 0);
-      this.counts = new int[numSlots];
-      this.sum = new double[numSlots];
+      this.counts = SlotArrayPool.ints(numSlots);
+      this.sum = SlotArrayPool.doubles(numSlots);
     }
 
     @Override
@@ -424,5 +461,14 @@ public abstract class DocValuesAcc extends SlotAcc {
     this.counts = resizer.resize(counts, 0);
     this.sum = resizer.resize(sum, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      SlotArrayPool.release(sum);
+      counts = null;
+      sum = null;
+      super.close();
+    }
   }
 }
@@ -22,6 +22,7 @@ import org.apache.lucene.search.Query;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.QueryContext;
+import org.apache.solr.search.SegmentFacetCounts;
 import org.apache.solr.search.SolrIndexSearcher;
 
 public class FacetContext {
@@ -29,6 +30,7 @@ public class FacetContext {
   public static final int IS_SHARD=0x01;
   public static final int IS_REFINEMENT=0x02;
   public static final int SKIP_FACET=0x04;  // refinement: skip calculating this immediate facet, but proceed to specific sub-facets based on facetInfo
+  public static final int STREAM_BUCKETS=0x08;  // the response goes straight to the response writer, so buckets may be made lazily
 
   FacetProcessor<?> processor;
   Map<String,Object> facetInfo; // refinement info for this node
@@ -40,7 +42,10 @@ public class FacetContext {
   FacetContext parent;
   boolean cache = true;
   int flags;
+  double sampleRate = 1.0; // fraction of the documents kept by sampling in this and all ancestor domains
   FacetDebugInfo debugInfo;
+  SegmentFacetCounts segmentCounts; // cached per-segment counts of segmentCountsBase, may be null
+  DocSet segmentCountsBase;
 
   public void setDebugInfo(FacetDebugInfo debugInfo) {
     this.debugInfo = debugInfo;
@@ -82,6 +87,11 @@ public class FacetContext {
     return base;
   }
 
+  /** Cached per-segment counts of the current base domain, or null if there are none for it. */
+  SegmentFacetCounts getSegmentCounts() {
+    return base == segmentCountsBase ? segmentCounts : null;
+  }
+
   public FacetContext getParent() {
     return parent;
   }
@@ -103,6 +113,9 @@ public class FacetContext {
     // carry over from parent
     ctx.cache = cache;
     ctx.flags = flags;
+    ctx.sampleRate = sampleRate;
+    ctx.segmentCounts = segmentCounts;
+    ctx.segmentCountsBase = segmentCountsBase;
     ctx.qcontext = qcontext;
     ctx.req = req;
     ctx.searcher = searcher;
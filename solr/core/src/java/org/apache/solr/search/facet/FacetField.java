@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.solr.common.SolrException;
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.NumberType;
 import org.apache.solr.schema.SchemaField;
@@ -78,7 +79,7 @@ public class FacetField extends FacetRequestSorted {
 
     if (fcontext.facetInfo != null) {
       // refinement... we will end up either skipping the entire facet, or doing calculating only specific facet buckets
-      if (multiToken && !sf.hasDocValues() && method!=FacetMethod.DV && sf.isUninvertible()) {
+      if (multiToken && !sf.hasDocValues() && method!=FacetMethod.DV && sf.isUninvertible() && !uninvertPerSegment(fcontext)) {
         // Match the access method from the first phase.
         // It won't always matter, but does currently for an all-values bucket
         return new FacetFieldProcessorByArrayUIF(fcontext, this, sf);
@@ -121,10 +122,14 @@ public class FacetField extends FacetRequestSorted {
 
     // TODO if method=UIF and not single-valued numerics then simply choose that now? TODO add FieldType.getDocValuesType()
 
+    if (method == FacetMethod.SMART && ntype == null && sf.hasDocValues() && mincount > 0 && prefix == null
+        && FacetFieldProcessorByHashTerms.isSparse(fcontext, sf)) {
+      // term cardinality is much greater than DocSet cardinality; don't allocate counts for every term
+      return new FacetFieldProcessorByHashTerms(fcontext, this, sf);
+    }
+
     if (!multiToken) {
       if (mincount > 0 && prefix == null && (ntype != null || method == FacetMethod.DVHASH)) {
-        // TODO can we auto-pick for strings when term cardinality is much greater than DocSet cardinality?
-        //   or if we don't know cardinality but DocSet size is very small
         return new FacetFieldProcessorByHashDV(fcontext, this, sf);
       } else if (ntype == null) {
         // single valued string...
@@ -146,10 +151,25 @@ public class FacetField extends FacetRequestSorted {
       return new FacetFieldProcessorByArrayDV(fcontext, this, sf);
     }
 
+    if (uninvertPerSegment(fcontext)) {
+      // the UninvertingReader's per-segment DocTermOrds survive new searchers, unlike the top-level UIF
+      return new FacetFieldProcessorByArrayDV(fcontext, this, sf);
+    }
+
     // Top-level multi-valued field cache (UIF)
     return new FacetFieldProcessorByArrayUIF(fcontext, this, sf);
   }
 
+  /**
+   * True if multi-valued fields without docValues should be uninverted per segment, see
+   * {@link org.apache.solr.core.SolrConfig#facetUninvertPerSegment}, rather than with a top-level
+   * {@link UnInvertedField} that has to be rebuilt for every new searcher.
+   */
+  private static boolean uninvertPerSegment(FacetContext fcontext) {
+    SolrCore core = fcontext.searcher.getCore();
+    return core != null && core.getSolrConfig().facetUninvertPerSegment;
+  }
+
   @Override
   public FacetMerger createFacetMerger(Object prototype) {
     return new FacetFieldMerger(this);
@@ -34,9 +34,13 @@ import java.util.function.IntFunction;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntroSorter;
 import org.apache.lucene.util.PriorityQueue;
+import org.apache.solr.common.IteratorWriter;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DocSet;
@@ -72,10 +76,14 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
 
   SpecialSlotAcc allBucketsAcc;  // this can internally refer to otherAccs and/or collectAcc. setNextReader should be called on otherAccs directly if they exist.
 
+  boolean streamingBuckets; // the buckets are made while the response is written, see streamsBuckets()
+
   FacetFieldProcessor(FacetContext fcontext, FacetField freq, SchemaField sf) {
     super(fcontext, freq);
     this.sf = sf;
-    this.effectiveMincount = (int)(fcontext.isShard() ? Math.min(1 , freq.mincount) : freq.mincount);
+    // counts are compared to mincount before a sampled response is scaled
+    this.effectiveMincount = (int)(fcontext.isShard() ? Math.min(1 , freq.mincount)
+        : FacetSampling.sampledMincount(freq.mincount, fcontext.sampleRate * FacetSampling.sampleOf(freq)));
     this.singlePassSlotAccCollection = (freq.limit == -1 && freq.subFacets.size() == 0);
 
     if ( null == freq.prelim_sort ) {
@@ -292,6 +300,25 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     }
   }
 
+  @Override
+  void closeAccs() throws IOException {
+    if (streamingBuckets) {
+      return; // still needed to make the buckets, closed once they're written
+    }
+    super.closeAccs();
+    // these may alias each other or the accs closed above, but closing an acc twice is harmless
+    for (SlotAcc acc : new SlotAcc[] {collectAcc, sortAcc, indexOrderAcc, allBucketsAcc}) {
+      if (acc != null) {
+        acc.close();
+      }
+    }
+    if (otherAccs != null) {
+      for (SlotAcc acc : otherAccs) {
+        acc.close();
+      }
+    }
+  }
+
   /** Processes the collected data to finds the top slots, and composes it in the response NamedList. */
   SimpleOrderedMap<Object> findTopSlots(final int numSlots, final int slotCardinality,
                                         @SuppressWarnings("rawtypes") IntFunction<Comparable> bucketValFromSlotNumFunc,
@@ -336,10 +363,13 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
         return cmp == 0 ? b.slot < a.slot : cmp < 0;
       };
     }
-    final PriorityQueue<Slot> queue = new PriorityQueue<>(maxTopVals) {
+    streamingBuckets = streamsBuckets();
+    final PriorityQueue<Slot> queue = new PriorityQueue<>(streamingBuckets ? 0 : maxTopVals) {
       @Override
       protected boolean lessThan(Slot a, Slot b) { return orderPredicate.test(a, b); }
     };
+    int[] streamSlots = streamingBuckets ? new int[Math.min(maxTopVals, 1024)] : null;
+    int numStreamSlots = 0;
 
     // note: We avoid object allocation by having a Slot and re-using the 'bottom'.
     Slot bottom = null;
@@ -359,7 +389,11 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
 
       numBuckets++;
 
-      if (bottom != null) {
+      if (streamingBuckets) {
+        // no limit: every bucket is returned, only 4 bytes are kept per bucket until they're written
+        streamSlots = ArrayUtil.grow(streamSlots, numStreamSlots + 1);
+        streamSlots[numStreamSlots++] = slotNum;
+      } else if (bottom != null) {
         shardHasMoreBuckets = true;
         scratchSlot.slot = slotNum; // scratchSlot is only used to hold this slotNum for the following line
         if (orderPredicate.test(bottom, scratchSlot)) {
@@ -401,7 +435,7 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     }
 
     SimpleOrderedMap<Object> missingBucket = new SimpleOrderedMap<>();
-    if (freq.missing) {
+    if (freq.missing && !streamingBuckets) {
       res.add("missing", missingBucket);
       // moved missing fillBucket after we fill facet since it will reset all the accumulators.
     }
@@ -411,6 +445,24 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
       createOtherAccs(-1, 1);
     }
 
+    if (streamingBuckets) {
+      final boolean closeWhenWritten = inStreamedBucket();
+      if (!closeWhenWritten) {
+        SolrRequestInfo.getRequestInfo().addCloseHook(() -> {
+          streamingBuckets = false;
+          closeAccs();
+        });
+      }
+      sortStreamSlots(streamSlots, numStreamSlots, orderPredicate);
+      res.add("buckets", new StreamedBuckets(streamSlots, Math.min(off, numStreamSlots), numStreamSlots,
+          missingBucket, needFilter, closeWhenWritten, bucketValFromSlotNumFunc, fieldQueryValFunc));
+      if (freq.missing) {
+        // filled in once the buckets have been written, after which the writer gets to it
+        res.add("missing", missingBucket);
+      }
+      return res;
+    }
+
     // if we are deep paging, we don't have to order the highest "offset" counts...
     // ...unless we need to resort.
     int collectCount = Math.max(0, queue.size() - (null == this.resort ? off : 0));
@@ -457,6 +509,9 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     if (fcontext.isShard() && shardHasMoreBuckets) {
       // Currently, "more" is an internal implementation detail and only returned for distributed sub-requests
       res.add("more", true);
+      if (sendsSketch()) {
+        res.add("sketch", sketchOtherBuckets(numSlots, numBuckets - sortedSlots.length, sortedSlots, bucketValFromSlotNumFunc));
+      }
     }
 
     if (freq.missing) {
@@ -467,6 +522,152 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     return res;
   }
 
+  /**
+   * Whether the buckets are made one at a time while the response is written, rather than all up front, which
+   * keeps the memory used by a facet without a limit on a field with millions of terms proportional to one
+   * bucket. Only done for requests of the {@link FacetModule}, where nothing but the response writer reads the
+   * buckets, and not where sampled counts still have to be scaled. Facets nested in a bucket only stream if
+   * every bucket above them was streamed too, see {@link #streamsSubFacets()}. The accumulators are closed
+   * with the request, so there has to be a {@link SolrRequestInfo}.
+   */
+  private boolean streamsBuckets() {
+    return freq.limit < 0 && resort == null
+        && (fcontext.flags & FacetContext.STREAM_BUCKETS) != 0
+        && SolrRequestInfo.getRequestInfo() != null
+        && (fcontext.flags & FacetContext.IS_REFINEMENT) == 0
+        && (fcontext.isShard() || (fcontext.sampleRate == 1.0 && !FacetSampling.samplesBelow(freq)));
+  }
+
+  @Override
+  protected boolean streamsSubFacets() {
+    return streamingBuckets;
+  }
+
+  /**
+   * Whether this facet is in a bucket of a facet that streams its buckets. Such a facet is processed again each
+   * time that bucket is made, so its own buckets are written once and its accumulators can be closed right after.
+   */
+  private boolean inStreamedBucket() {
+    for (FacetContext ctx = fcontext.getParent(); ctx != null; ctx = ctx.getParent()) {
+      if (ctx.processor instanceof FacetFieldProcessor && ((FacetFieldProcessor) ctx.processor).streamingBuckets) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Sorts slot numbers into the order of the buckets, best first */
+  private static void sortStreamSlots(int[] slots, int numSlots, BiPredicate<Slot,Slot> orderPredicate) {
+    final Slot a = new Slot(), b = new Slot();
+    new IntroSorter() {
+      int pivot;
+
+      @Override
+      protected void swap(int i, int j) {
+        int tmp = slots[i];
+        slots[i] = slots[j];
+        slots[j] = tmp;
+      }
+
+      @Override
+      protected void setPivot(int i) {
+        pivot = slots[i];
+      }
+
+      @Override
+      protected int comparePivot(int j) {
+        a.slot = pivot;
+        b.slot = slots[j];
+        // orderPredicate is "lessThan" of the priority queue, whose top is the worst bucket
+        return orderPredicate.test(b, a) ? -1 : (orderPredicate.test(a, b) ? 1 : 0);
+      }
+    }.sort(0, numSlots);
+  }
+
+  /**
+   * The buckets of a facet without a limit, made by the response writer one at a time, see {@link #streamsBuckets()}.
+   * The buckets are made again each time the response is written, and the accumulators are closed with the request,
+   * unless this facet is itself in a streamed bucket, see {@link #inStreamedBucket()}.
+   */
+  private class StreamedBuckets implements IteratorWriter {
+    private final int[] slots;
+    private final int start, end;
+    private final SimpleOrderedMap<Object> missingBucket;
+    private final boolean needFilter;
+    private final boolean closeWhenWritten;
+    @SuppressWarnings({"rawtypes"})
+    private final IntFunction<Comparable> bucketValFromSlotNumFunc;
+    @SuppressWarnings({"rawtypes"})
+    private final Function<Comparable, String> fieldQueryValFunc;
+
+    StreamedBuckets(int[] slots, int start, int end, SimpleOrderedMap<Object> missingBucket, boolean needFilter,
+                    boolean closeWhenWritten,
+                    @SuppressWarnings("rawtypes") IntFunction<Comparable> bucketValFromSlotNumFunc,
+                    @SuppressWarnings("rawtypes") Function<Comparable, String> fieldQueryValFunc) {
+      this.slots = slots;
+      this.start = start;
+      this.end = end;
+      this.missingBucket = missingBucket;
+      this.needFilter = needFilter;
+      this.closeWhenWritten = closeWhenWritten;
+      this.bucketValFromSlotNumFunc = bucketValFromSlotNumFunc;
+      this.fieldQueryValFunc = fieldQueryValFunc;
+    }
+
+    @Override
+    public void writeIter(ItemWriter iw) throws IOException {
+      try {
+        final Slot slot = new Slot();
+        for (int i = start; i < end; i++) {
+          slot.slot = slots[i];
+          slot.bucketVal = bucketValFromSlotNumFunc.apply(slot.slot);
+          if (needFilter) {
+            slot.bucketFilter = makeBucketQuery(fieldQueryValFunc.apply(slot.bucketVal));
+          }
+          SimpleOrderedMap<Object> bucket = new SimpleOrderedMap<>();
+          bucket.add("val", slot.bucketVal);
+          fillBucketFromSlot(bucket, slot, null);
+          iw.add(bucket);
+        }
+        if (freq.missing) {
+          missingBucket.clear();
+          fillBucket(missingBucket, getFieldMissingQuery(fcontext.searcher, freq.field), null, false, null);
+        }
+      } finally {
+        if (closeWhenWritten) {
+          streamingBuckets = false;
+          closeAccs();
+        }
+      }
+    }
+  }
+
+  /** Whether this shard sends a sketch of the counts of the buckets it doesn't return, see {@link CountMinSketch} */
+  private boolean sendsSketch() {
+    // the merger can only fill in counts, so anything else in the buckets needs real refinement
+    return freq.refine == FacetRequest.RefineMethod.SKETCH
+        && (fcontext.flags & FacetContext.IS_REFINEMENT) == 0
+        && freq.getFacetStats().isEmpty()
+        && freq.getSubFacets().isEmpty();
+  }
+
+  private SimpleOrderedMap<Object> sketchOtherBuckets(int numSlots, long numOtherBuckets, Slot[] returnedSlots,
+                                                      @SuppressWarnings("rawtypes") IntFunction<Comparable> bucketValFromSlotNumFunc) {
+    final FixedBitSet returned = new FixedBitSet(numSlots);
+    for (Slot slot : returnedSlots) {
+      returned.set(slot.slot);
+    }
+    final CountMinSketch sketch = CountMinSketch.forBuckets(numOtherBuckets);
+    for (int slotNum = 0; slotNum < numSlots; slotNum++) {
+      // buckets under mincount are sketched too, the merged count may still reach it
+      final long count = countAcc.getCount(slotNum);
+      if (count > 0 && !returned.get(slotNum)) {
+        sketch.add(bucketValFromSlotNumFunc.apply(slotNum), count);
+      }
+    }
+    return sketch.toResponse();
+  }
+
   /**
    * Trivial helper method for building up a bucket query given the (Stringified) bucket value
    */
@@ -17,8 +17,10 @@
 package org.apache.solr.search.facet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
@@ -26,12 +28,14 @@ import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.UnicodeUtil;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SegmentFacetCounts;
 import org.apache.solr.search.facet.SlotAcc.CountSlotAcc;
 import org.apache.solr.search.facet.SlotAcc.SweepCountAccStruct;
 import org.apache.solr.search.facet.SlotAcc.SweepingCountSlotAcc;
@@ -127,6 +131,18 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
 
     final int maxSize = others.size() + 1; // others + base
     final List<LeafReaderContext> leaves = fcontext.searcher.getIndexReader().leaves();
+
+    final SegmentFacetCounts segmentCounts = fcontext.getSegmentCounts();
+    if (segmentCounts != null && canDoPerSeg && others.isEmpty() && base.docSet == fcontext.base) {
+      collectCachedPerSeg(segmentCounts, base, leaves);
+      return;
+    }
+
+    if (accumSeg && leaves.size() > 1 && fcontext.searcher.isMultiThreadedRequest()) {
+      collectPerSegParallel(base, others, leaves, maxSize);
+      return;
+    }
+
     final DocIdSetIterator[] subIterators = new DocIdSetIterator[maxSize];
     final CountSlotAcc[] activeCountAccs = new CountSlotAcc[maxSize];
 
@@ -204,10 +220,130 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     return si.lookupOrd(ord);
   }
 
+  /**
+   * Gets the segment-local counts of each segment from the domain's {@link SegmentFacetCounts}, which only counts
+   * segments it hasn't seen before, and maps them to global ords.
+   */
+  private void collectCachedPerSeg(SegmentFacetCounts segmentCounts, SweepCountAccStruct base,
+                                   List<LeafReaderContext> leaves) throws IOException {
+    for (int subIdx = 0; subIdx < leaves.size(); subIdx++) {
+      LeafReaderContext subCtx = leaves.get(subIdx);
+      DocIdSet docIdSet = base.docSet.getTopFilter().getDocIdSet(subCtx, null); // solr docsets already exclude any deleted docs
+      DocIdSetIterator disi = docIdSet == null ? null : docIdSet.iterator();
+      if (disi == null) {
+        continue;
+      }
+
+      SortedSetDocValues values;
+      if (multiValuedField) {
+        values = subCtx.reader().getSortedSetDocValues(sf.getName());
+      } else {
+        SortedDocValues singleDv = subCtx.reader().getSortedDocValues(sf.getName());
+        values = singleDv == null ? null : DocValues.singleton(singleDv);
+      }
+      if (values == null || values.getValueCount() < 1) {
+        continue;
+      }
+
+      // index 0 of the segment counts is the missing count, which isn't needed here
+      int[] segCounts = segmentCounts.getCounts(subCtx, sf.getName(), values, disi);
+      LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subIdx);
+      for (int segOrd = 0; segOrd < segCounts.length - 1; segOrd++) {
+        int count = segCounts[segOrd + 1];
+        if (count > 0) {
+          base.countAcc.incrementCount(toGlobal == null ? segOrd : (int) toGlobal.get(segOrd), count);
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts each segment on its own task into segment-local arrays, then maps the segment counts to global
+   * ords on the calling thread.  Only used for {@code accumSeg}, where nothing but the count accs is collected.
+   */
+  private void collectPerSegParallel(SweepCountAccStruct base, List<SweepCountAccStruct> others,
+                                     List<LeafReaderContext> leaves, int maxSize) throws IOException {
+    final List<Callable<SegCounts>> tasks = new ArrayList<>(leaves.size());
+    for (LeafReaderContext subCtx : leaves) {
+      tasks.add(() -> countSegment(base, others, subCtx, maxSize));
+    }
+    final List<SegCounts> results = fcontext.searcher.invokeParallel(tasks);
+
+    // CountSlotAcc isn't thread safe, so merging stays sequential
+    for (int subIdx = 0; subIdx < leaves.size(); subIdx++) {
+      setNextReaderFirstPhase(leaves.get(subIdx));
+      final SegCounts segCounts = results.get(subIdx);
+      if (segCounts != null) {
+        LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subIdx);
+        segCounts.segCounter.register(segCounts.countAccs, toGlobal, segCounts.segMax - 1);
+      }
+    }
+  }
+
+  /** Segment-local counts of a single leaf; null if nothing in the leaf was counted. */
+  private SegCounts countSegment(SweepCountAccStruct base, List<SweepCountAccStruct> others,
+                                 LeafReaderContext subCtx, int maxSize) throws IOException {
+    // everything here is private to the task: the shared reuse arrays can't be used
+    final SweepDISI disi = SweepDISI.newInstance(base, others, new DocIdSetIterator[maxSize], new CountSlotAcc[maxSize], subCtx);
+    if (disi == null) {
+      return null;
+    }
+
+    SortedDocValues singleDv = null;
+    SortedSetDocValues multiDv = null;
+    final int segMax;
+    if (multiValuedField) {
+      multiDv = subCtx.reader().getSortedSetDocValues(sf.getName());
+      if (multiDv == null || multiDv.getValueCount() < 1) {
+        return null;
+      }
+      if (unwrap_singleValued_multiDv) {
+        singleDv = DocValues.unwrapSingleton(multiDv);
+      }
+      segMax = (int) multiDv.getValueCount();
+    } else {
+      singleDv = subCtx.reader().getSortedDocValues(sf.getName());
+      if (singleDv == null || singleDv.getValueCount() < 1) {
+        return null;
+      }
+      segMax = singleDv.getValueCount();
+    }
+
+    final int[][] segCounts = new int[disi.size][];
+    for (int i = 0; i < segCounts.length; i++) {
+      segCounts[i] = new int[segMax + 1];
+    }
+    final SegCountPerSeg segCounter = new SegCountPerSeg(segCounts, new boolean[segMax + 1], segMax, disi.size);
+    if (singleDv != null) {
+      countPerSeg(singleDv, disi, segCounter);
+    } else {
+      countPerSeg(multiDv, disi, segCounter);
+    }
+    return new SegCounts(segCounter, disi.countAccs, segMax);
+  }
+
+  private static class SegCounts {
+    final SegCountPerSeg segCounter;
+    final CountSlotAcc[] countAccs;
+    final int segMax;
+
+    SegCounts(SegCountPerSeg segCounter, CountSlotAcc[] countAccs, int segMax) {
+      this.segCounter = segCounter;
+      this.countAccs = countAccs;
+      this.segMax = segMax;
+    }
+  }
+
   private void collectPerSeg(SortedDocValues singleDv, SweepDISI disi, LongValues toGlobal) throws IOException {
     int segMax = singleDv.getValueCount();
     final SegCountPerSeg segCounter = getSegCountPerSeg(disi, segMax);
+    countPerSeg(singleDv, disi, segCounter);
+
+    // convert segment-local counts to global counts
+    segCounter.register(disi.countAccs, toGlobal, segMax - 1);
+  }
 
+  private static void countPerSeg(SortedDocValues singleDv, SweepDISI disi, SegCountPerSeg segCounter) throws IOException {
     /** alternate trial implementations
      // ord
      // FieldUtil.visitOrds(singleDv, disi,  (doc,ord)->{counts[ord+1]++;} );
@@ -241,9 +377,6 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         }
       }
     }
-
-    // convert segment-local counts to global counts
-    segCounter.register(disi.countAccs, toGlobal, segMax - 1);
   }
 
   private SegCountPerSeg getSegCountPerSeg(SweepDISI disi, int segMax) {
@@ -262,7 +395,11 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
   private void collectPerSeg(SortedSetDocValues multiDv, SweepDISI disi, LongValues toGlobal) throws IOException {
     int segMax = (int)multiDv.getValueCount();
     final SegCountPerSeg segCounter = getSegCountPerSeg(disi, segMax);
+    countPerSeg(multiDv, disi, segCounter);
+    segCounter.register(disi.countAccs, toGlobal, segMax - 1);
+  }
 
+  private static void countPerSeg(SortedSetDocValues multiDv, SweepDISI disi, SegCountPerSeg segCounter) throws IOException {
     int doc;
     while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
       if (multiDv.advanceExact(doc)) {
@@ -274,8 +411,6 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         }
       }
     }
-
-    segCounter.register(disi.countAccs, toGlobal, segMax - 1);
   }
 
   private boolean[] reuseBool;
@@ -84,6 +84,11 @@ class FacetFieldProcessorByEnumTermsStream extends FacetFieldProcessor implement
     }
   }
 
+  @Override
+  void closeAccs() {
+    // the accumulators are still used while the response is streamed
+  }
+
   @Override
   @SuppressWarnings({"rawtypes"})
   public void process() throws IOException {
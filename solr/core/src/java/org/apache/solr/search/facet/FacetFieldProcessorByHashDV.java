@@ -217,7 +217,9 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
   public void process() throws IOException {
     super.process();
     response = calcFacets();
-    table = null;//gc
+    if (!streamingBuckets) {
+      table = null;//gc
+    }
   }
 
   private SimpleOrderedMap<Object> calcFacets() throws IOException {
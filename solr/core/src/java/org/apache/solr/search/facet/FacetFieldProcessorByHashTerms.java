@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.DocSetUtil;
+import org.apache.solr.search.facet.SlotAcc.SlotContext;
+
+/**
+ * Facets string docValues terms into a hash table sized to the domain rather than to the field's cardinality.
+ * Per-segment ordinals are resolved to their term bytes only the first time they're seen in that segment,
+ * so neither global ordinals nor ordinal-sized count arrays are needed.  This wins when the domain is
+ * much smaller than the number of unique terms; see {@link #isSparse}.
+ * Limitations:
+ * <ul>
+ *   <li>doesn't handle prefix</li>
+ *   <li>doesn't handle mincount==0 -- you're better off with an array alg</li>
+ * </ul>
+ */
+class FacetFieldProcessorByHashTerms extends FacetFieldProcessor {
+  static int MAXIMUM_STARTING_TABLE_SIZE=1024;  // must be a power of two, non-final to support setting by tests
+  static int SPARSE_RATIO=8;  // non-final to support setting by tests
+
+  /**
+   * True if the domain is small enough compared to the number of unique terms of the field that
+   * hashing terms is cheaper than an array over all ordinals.  The largest per-segment value count
+   * is used as a cheap lower bound of the field's cardinality.
+   */
+  static boolean isSparse(FacetContext fcontext, SchemaField sf) {
+    long domainSize = fcontext.base.size();
+    try {
+      for (LeafReaderContext leaf : fcontext.searcher.getTopReaderContext().leaves()) {
+        long valueCount = DocValues.getSortedSet(leaf.reader(), sf.getName()).getValueCount();
+        if (domainSize * SPARSE_RATIO < valueCount) {
+          return true;
+        }
+      }
+    } catch (IOException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+    }
+    return false;
+  }
+
+  BytesRefHash terms;  // term bytes by slot; slots are dense and never move
+  long[] counts;
+  int numSlots;  // current capacity of the accs, a power of two
+  int allBucketsSlot = -1;
+
+  FacetFieldProcessorByHashTerms(FacetContext fcontext, FacetField freq, SchemaField sf) {
+    super(fcontext, freq, sf);
+    if (freq.mincount == 0) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          getClass()+" doesn't support mincount=0");
+    }
+    if (freq.prefix != null) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          getClass()+" doesn't support prefix");
+    }
+  }
+
+  @Override
+  public void process() throws IOException {
+    super.process();
+    response = calcFacets();
+    if (!streamingBuckets) {
+      terms = null;//gc
+      counts = null;
+    }
+  }
+
+  private SimpleOrderedMap<Object> calcFacets() throws IOException {
+    int possibleValues = fcontext.base.size();
+    numSlots = Math.min(BitUtil.nextHighestPowerOfTwo(possibleValues + 1), MAXIMUM_STARTING_TABLE_SIZE);
+    terms = new BytesRefHash();
+    counts = new long[numSlots];
+
+    // note: these methods/phases align with FacetFieldProcessorByArray's
+
+    createCollectAcc();
+
+    collectDocs();
+
+    return super.findTopSlots(terms.size(), terms.size(),
+        this::slotValue, // getBucketValFromSlotNum
+        Object::toString); // getFieldQueryVal
+  }
+
+  @SuppressWarnings({"rawtypes"})
+  private Comparable slotValue(int slotNum) {
+    return (Comparable) sf.getType().toObject(sf, terms.get(slotNum, new BytesRef()));
+  }
+
+  private void createCollectAcc() throws IOException {
+    int numAccSlots = numSlots;
+
+    if (freq.allBuckets) {
+      allBucketsSlot = numAccSlots++;
+    }
+
+    indexOrderAcc = new SlotAcc(fcontext) {
+      final BytesRef scratchA = new BytesRef();
+      final BytesRef scratchB = new BytesRef();
+
+      @Override
+      public void collect(int doc, int slot, IntFunction<SlotContext> slotContext) throws IOException {
+      }
+
+      @Override
+      public int compare(int slotA, int slotB) {
+        return terms.get(slotA, scratchA).compareTo(terms.get(slotB, scratchB));
+      }
+
+      @Override
+      public Object getValue(int slotNum) throws IOException {
+        return null;
+      }
+
+      @Override
+      public void reset() {
+      }
+
+      @Override
+      public void resize(Resizer resizer) {
+      }
+    };
+
+    countAcc = new SlotAcc.CountSlotAcc(fcontext) {
+      @Override
+      public void incrementCount(int slot, long count) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getCount(int slot) {
+        return counts[slot];
+      }
+
+      @Override
+      public Object getValue(int slotNum) {
+        return getCount(slotNum);
+      }
+
+      @Override
+      public void reset() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void collect(int doc, int slot, IntFunction<SlotContext> slotContext) throws IOException {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int compare(int slotA, int slotB) {
+        return Long.compare(counts[slotA], counts[slotB]);
+      }
+
+      @Override
+      public void resize(Resizer resizer) {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    // we set the countAcc & indexAcc first so generic ones won't be created for us.
+    super.createCollectAcc(fcontext.base.size(), numAccSlots);
+
+    if (freq.allBuckets) {
+      allBucketsAcc = new SpecialSlotAcc(fcontext, collectAcc, allBucketsSlot, otherAccs, 0);
+    }
+  }
+
+  private void collectDocs() throws IOException {
+    DocSetUtil.collectSortedDocSet(fcontext.base, fcontext.searcher.getIndexReader(), new SimpleCollector() {
+      SortedSetDocValues multiValues; //NN
+      SortedDocValues singleValues; // non-null if the segment is single valued
+      IntIntHashMap segOrdToSlot; //NN, only holds the ordinals seen so far in this segment
+
+      @Override public ScoreMode scoreMode() { return ScoreMode.COMPLETE_NO_SCORES; }
+
+      @Override
+      protected void doSetNextReader(LeafReaderContext ctx) throws IOException {
+        setNextReaderFirstPhase(ctx);
+        multiValues = DocValues.getSortedSet(ctx.reader(), sf.getName());
+        singleValues = DocValues.unwrapSingleton(multiValues);
+        segOrdToSlot = new IntIntHashMap();
+      }
+
+      @Override
+      public void collect(int segDoc) throws IOException {
+        if (singleValues != null) {
+          if (singleValues.advanceExact(segDoc)) {
+            collectValFirstPhase(segDoc, slot(singleValues.ordValue()));
+          }
+        } else if (multiValues.advanceExact(segDoc)) {
+          for (;;) {
+            int segOrd = (int) multiValues.nextOrd();
+            if (segOrd < 0) break;
+            collectValFirstPhase(segDoc, slot(segOrd));
+          }
+        }
+      }
+
+      private int slot(int segOrd) throws IOException {
+        int slot = segOrdToSlot.getOrDefault(segOrd, -1);
+        if (slot < 0) {
+          BytesRef term = singleValues != null ? singleValues.lookupOrd(segOrd) : multiValues.lookupOrd(segOrd);
+          slot = terms.add(term);
+          if (slot < 0) {
+            slot = -slot - 1; // seen in an earlier segment
+          } else if (slot >= numSlots) {
+            grow();
+          }
+          segOrdToSlot.put(segOrd, slot);
+        }
+        return slot;
+      }
+    });
+  }
+
+  private void collectValFirstPhase(int segDoc, int slot) throws IOException {
+    counts[slot]++;
+
+    // Our countAcc is virtual, so this is not needed:
+    // countAcc.incrementCount(slot, 1);
+
+    super.collectFirstPhase(segDoc, slot, slotContext);
+  }
+
+  /**
+   * SlotContext to use during all {@link SlotAcc} collection.
+   *
+   * This avoids a memory allocation for each invocation of collectValFirstPhase.
+   */
+  private IntFunction<SlotContext> slotContext = (slotNum) -> new SlotContext(makeBucketQuery(slotValue(slotNum).toString()));
+
+  /** Doubles the number of slots.  Term slots keep their number, only the allBuckets slot moves. */
+  private void grow() {
+    final int oldNumSlots = numSlots;
+    numSlots = oldNumSlots << 1;
+    counts = Arrays.copyOf(counts, numSlots);
+
+    if (collectAcc == null && allBucketsAcc == null) return;
+
+    int numAccSlots = numSlots;
+    final int oldAllBucketsSlot = allBucketsSlot;
+    if (oldAllBucketsSlot >= 0) {
+      allBucketsSlot = numAccSlots++;
+    }
+
+    final int finalNumAccSlots = numAccSlots;
+    SlotAcc.Resizer resizer = new SlotAcc.Resizer() {
+      @Override
+      public int getNewSize() {
+        return finalNumAccSlots;
+      }
+
+      @Override
+      public int getNewSlot(int oldSlot) {
+        if (oldSlot < oldNumSlots) {
+          return oldSlot;
+        }
+        if (oldSlot == oldAllBucketsSlot) {
+          return allBucketsSlot;
+        }
+        return -1;
+      }
+    };
+
+    if (collectAcc != null) {
+      collectAcc.resize(resizer);
+    }
+    if (allBucketsAcc != null) {
+      allBucketsAcc.resize(resizer);
+    }
+  }
+}
@@ -177,6 +177,9 @@ public class FacetHeatmap extends FacetRequest {
       this.facet = new FacetHeatmap(argsMap, strategy, boundsShape, gridLevel, maxCells, format);
 
       parseCommonParams(argsObj); // e.g. domain change
+      if (facet.domain != null && facet.domain.sample < 1.0) {
+        throw err("'sample' is not supported for heatmap facets");
+      }
 
       return this.facet;
     }
@@ -24,7 +24,8 @@ import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
-import static org.apache.solr.search.facet.FacetRequest.RefineMethod.SIMPLE;
+import org.apache.solr.util.hll.HLLSlots;
+
 
 
 public abstract class FacetMerger {
@@ -54,6 +55,17 @@ public abstract class FacetMerger {
     int maxBucket;  // the current max bucket across all bucket types... incremented as we encounter more
     int shardNum = -1;  // TODO: keep same mapping across multiple phases...
     boolean bucketWasMissing;
+    long numSketchedBuckets;  // bucket/shard pairs completed from shard sketches instead of refinement
+    long numRefinedBuckets;  // bucket/shard pairs requested in refinement
+    private HLLSlots hllSlots;  // merged hll() values of all buckets, instead of an HLL object per bucket
+
+    /** The HLLs that hll() mergers of this request union shard values into, a slot per bucket */
+    HLLSlots getHLLSlots(int log2m, int regwidth) {
+      if (hllSlots == null) {
+        hllSlots = new HLLSlots(log2m, regwidth, 0);
+      }
+      return hllSlots;
+    }
 
     public void newShard(String shard) {
       Integer prev = shardmap.put(shard, ++shardNum);
@@ -69,6 +81,10 @@ public abstract class FacetMerger {
       return maxBucket++;
     }
 
+    public void setShardFlag(int bucketNum, int shardNum) {
+      sawShard.set( bucketNum * numShards + shardNum );
+    }
+
     public void setShardFlag(int bucketNum) {
       // rely on normal bitset expansion (uses a doubling strategy)
       sawShard.set( bucketNum * numShards + shardNum );
@@ -100,7 +116,7 @@ public abstract class FacetMerger {
 
       for (Map.Entry<String,FacetRequest> entry : freq.subFacets.entrySet()) {
         Collection<String> childSubs = getSubsWithRefinement(entry.getValue());
-        if (childSubs.size() > 0 || entry.getValue().getRefineMethod() == SIMPLE) {
+        if (childSubs.size() > 0 || entry.getValue().doRefine()) {
           if (subs == null) {
             subs = new ArrayList<>(freq.getSubFacets().size());
           }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.codahale.metrics.Counter;
 import org.apache.solr.client.solrj.SolrResponse;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
@@ -36,6 +37,7 @@ import org.apache.solr.handler.component.ResponseBuilder;
 import org.apache.solr.handler.component.SearchComponent;
 import org.apache.solr.handler.component.ShardRequest;
 import org.apache.solr.handler.component.ShardResponse;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.search.QueryContext;
 import org.noggit.CharArr;
@@ -54,6 +56,11 @@ public class FacetModule extends SearchComponent {
   public final static int PURPOSE_GET_JSON_FACETS = 0x00100000;
   public final static int PURPOSE_REFINE_JSON_FACETS = 0x00200000;
 
+  private Counter distribRequests;
+  private Counter refineRequests;
+  private Counter sketchedBuckets;
+  private Counter refinedBuckets;
+
   // Internal information passed down from the top level to shards for distributed faceting.
   private final static String FACET_INFO = "_facet_";
   private final static String FACET_REFINE = "refine";
@@ -135,6 +142,9 @@ public class FacetModule extends SearchComponent {
     fcontext.searcher = rb.req.getSearcher();
     fcontext.qcontext = QueryContext.newContext(fcontext.searcher);
     fcontext.cache = cache;
+    fcontext.flags |= FacetContext.STREAM_BUCKETS;
+    fcontext.segmentCounts = rb.getSegmentFacetCounts();
+    fcontext.segmentCountsBase = fcontext.base;
     if (isShard) {
       fcontext.flags |= FacetContext.IS_SHARD;
       fcontext.facetInfo = facetState.facetInfo.isEmpty() ? null : (Map<String, Object>) facetState.facetInfo.get(FACET_REFINE);
@@ -150,6 +160,9 @@ public class FacetModule extends SearchComponent {
     }
 
     Object results = facetState.facetRequest.process(fcontext);
+    if (!isShard) {
+      FacetSampling.scaleResponse(results, facetState.facetRequest);
+    }
     // ExitableDirectory timeout causes absent "facets"
     rb.rsp.add("facets", results);
   }
@@ -174,12 +187,18 @@ public class FacetModule extends SearchComponent {
       return ResponseBuilder.STAGE_DONE;
     }
 
+    if (facetState.mcontext != null && distribRequests != null) {
+      distribRequests.inc();
+    }
+
     // Check if there are any refinements possible
     if ((facetState.mcontext == null) || facetState.mcontext.getSubsWithRefinement(facetState.facetRequest).isEmpty()) {
       clearFaceting(rb.outgoing);
       return ResponseBuilder.STAGE_DONE;
     }
 
+    boolean refined = false;
+
     // Overlap facet refinement requests (those shards that we need a count
     // for particular facet values from), where possible, with
     // the requests to get fields (because we know that is the
@@ -194,6 +213,7 @@ public class FacetModule extends SearchComponent {
       // shard-specific refinement
       Map<String, Object> refinement = facetState.merger.getRefinement(facetState.mcontext);
       if (refinement == null) continue;
+      refined = true;
 
       boolean newRequest = false;
       ShardRequest shardsRefineRequest = null;
@@ -253,6 +273,14 @@ public class FacetModule extends SearchComponent {
       }
     }
 
+    if (refineRequests != null) {
+      if (refined) {
+        refineRequests.inc();
+      }
+      sketchedBuckets.inc(facetState.mcontext.numSketchedBuckets);
+      refinedBuckets.inc(facetState.mcontext.numRefinedBuckets);
+    }
+
     // clearFaceting(rb.outgoing);
     return ResponseBuilder.STAGE_DONE;
   }
@@ -321,10 +349,27 @@ public class FacetModule extends SearchComponent {
 
     if (facetState.merger != null) {
       // TODO: merge any refinements
-      rb.rsp.add("facets", facetState.merger.getMergedResult());
+      Object results = facetState.merger.getMergedResult();
+      FacetSampling.scaleResponse(results, facetState.facetRequest);
+      rb.rsp.add("facets", results);
     }
   }
 
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    super.initializeMetrics(parentContext, scope);
+    // refineRequests / distribRequests is the share of distributed facet requests that took a refinement round
+    distribRequests = solrMetricsContext.counter("distribRequests", getCategory().toString(), scope);
+    refineRequests = solrMetricsContext.counter("refineRequests", getCategory().toString(), scope);
+    sketchedBuckets = solrMetricsContext.counter("sketchedBuckets", getCategory().toString(), scope);
+    refinedBuckets = solrMetricsContext.counter("refinedBuckets", getCategory().toString(), scope);
+    // the slot array pool is shared by all cores, so these are node wide
+    solrMetricsContext.gauge(() -> SlotArrayPool.hits.sum(), true, "slotArrayPoolHits", getCategory().toString(), scope);
+    solrMetricsContext.gauge(() -> SlotArrayPool.misses.sum(), true, "slotArrayPoolMisses", getCategory().toString(), scope);
+    solrMetricsContext.gauge(() -> SlotArrayPool.discards.sum(), true, "slotArrayPoolDiscards", getCategory().toString(), scope);
+    solrMetricsContext.gauge(SlotArrayPool::getPooledBytes, true, "slotArrayPoolBytes", getCategory().toString(), scope);
+  }
+
   @Override
   public String getDescription() {
     return "Facet Module";
@@ -431,9 +476,11 @@ public class FacetModule extends SearchComponent {
   // base class for facets that create buckets (and can hence have sub-facets)
   abstract static class FacetBucketMerger<FacetRequestT extends FacetRequest> extends FacetMerger {
     FacetRequestT freq;
+    double sampleRate; // fraction of the documents kept by sampling in this and all ancestor facets
 
     public FacetBucketMerger(FacetRequestT freq) {
       this.freq = freq;
+      this.sampleRate = FacetSampling.sampleOf(freq);
     }
 
     /**
@@ -456,7 +503,11 @@ public class FacetModule extends SearchComponent {
     FacetMerger createFacetMerger(String key, Object val) {
       FacetRequest sub = freq.getSubFacets().get(key);
       if (sub != null) {
-        return sub.createFacetMerger(val);
+        FacetMerger merger = sub.createFacetMerger(val);
+        if (merger instanceof FacetBucketMerger) {
+          ((FacetBucketMerger<?>) merger).sampleRate *= sampleRate;
+        }
+        return merger;
       }
 
       AggValueSource subStat = freq.getFacetStats().get(key);
@@ -206,6 +206,14 @@ abstract class FacetParser<FacetRequestT extends FacetRequest> {
         getDomain().excludeTags = excludeTags;
       }
 
+      Double sample = getDoubleOrNull(m, "sample", false);
+      if (sample != null) {
+        if (!(sample > 0.0 && sample <= 1.0)) {
+          throw err("'sample' must be greater than 0 and at most 1, received " + sample);
+        }
+        getDomain().sample = sample;
+      }
+
       Object domainObj =  m.get("domain");
       if (domainObj instanceof Map) {
         @SuppressWarnings({"unchecked"})
@@ -549,6 +557,13 @@ abstract class FacetParser<FacetRequestT extends FacetRequest> {
 
         // TODO: pull up to higher level?
         facet.refine = FacetRequest.RefineMethod.fromObj(m.get("refine"));
+        Double sketchError = getDoubleOrNull(m, "sketchError", false);
+        if (sketchError != null) {
+          if (!(sketchError >= 0.0 && sketchError < 1.0)) {
+            throw err("'sketchError' must be at least 0 and less than 1, received " + sketchError);
+          }
+          facet.sketchError = sketchError;
+        }
 
         facet.perSeg = getBooleanOrNull(m, "perSeg");
 
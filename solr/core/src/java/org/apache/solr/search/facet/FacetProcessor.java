@@ -69,6 +69,21 @@ public abstract class FacetProcessor<FacetRequestT extends FacetRequest>  {
     handleDomainChanges();
   }
 
+  /**
+   * Called once the response is complete to close the accumulators, which returns their slot arrays
+   * to the {@link SlotArrayPool}.  Processors that compute their response lazily must not close them here.
+   */
+  void closeAccs() throws IOException {
+    if (accs != null) {
+      for (SlotAcc acc : accs) {
+        acc.close();
+      }
+    }
+    if (countAcc != null) {
+      countAcc.close();
+    }
+  }
+
   private void evalFilters() throws IOException {
     if (freq.domain.filters == null || freq.domain.filters.isEmpty()) return;
     this.filter = fcontext.searcher.getDocSet(evalJSONFilterQueryStruct(fcontext, freq.domain.filters));
@@ -173,6 +188,22 @@ public abstract class FacetProcessor<FacetRequestT extends FacetRequest>  {
     if (this.filter != null && !appliedFilters) {
       fcontext.base = fcontext.base.intersection( filter );
     }
+
+    handleSample();
+  }
+
+  /**
+   * modifies the context base if this facet samples its domain, or if the domain was changed to
+   * documents outside of the sample of an ancestor facet
+   */
+  private void handleSample() throws IOException {
+    final double rate = fcontext.sampleRate * freq.domain.sample;
+    if (rate >= 1.0) return;
+
+    if (freq.domain.sample < 1.0 || freq.domain.canTransformDomain() || freq.domain.graphField != null) {
+      fcontext.base = FacetSampling.sample(fcontext.base, rate, fcontext.searcher.maxDoc());
+    }
+    fcontext.sampleRate = rate;
   }
 
   private void handleFilterExclusions() throws IOException {
@@ -467,6 +498,7 @@ public abstract class FacetProcessor<FacetRequestT extends FacetRequest>  {
       FacetContext subContext = fcontext.sub(filter, domain);
       subContext.facetInfo = facetInfoSub;
       if (!skip) subContext.flags &= ~FacetContext.SKIP_FACET;  // turn off the skip flag if we're not skipping this bucket
+      if (!streamsSubFacets()) subContext.flags &= ~FacetContext.STREAM_BUCKETS;
 
       if (fcontext.getDebugInfo() != null) {   // if fcontext.debugInfo != null, it means rb.debug() == true
         FacetDebugInfo fdebug = new FacetDebugInfo();
@@ -480,6 +512,15 @@ public abstract class FacetProcessor<FacetRequestT extends FacetRequest>  {
     }
   }
 
+  /**
+   * Whether the sub-facets of the bucket being filled may stream their buckets. Only true while this facet's own
+   * buckets are made one at a time by the response writer, otherwise every sub-facet of every bucket would keep
+   * its accumulators until the whole response has been written.
+   */
+  protected boolean streamsSubFacets() {
+    return false;
+  }
+
   @SuppressWarnings("unused")
   static DocSet getFieldMissing(SolrIndexSearcher searcher, DocSet docs, String fieldName) throws IOException {
     SchemaField sf = searcher.getSchema().getField(fieldName);
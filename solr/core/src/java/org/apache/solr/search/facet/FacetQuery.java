@@ -65,6 +65,12 @@ class FacetQueryProcessor extends FacetProcessor<FacetQuery> {
     fillBucket(response, freq.q, null, (fcontext.flags & FacetContext.SKIP_FACET)!=0, fcontext.facetInfo);
   }
 
+  @Override
+  protected boolean streamsSubFacets() {
+    // the single bucket is written along with the bucket of the parent, so streaming is up to the parent
+    return true;
+  }
+
 
 }
 
@@ -146,7 +146,7 @@ public class FacetRangeMerger extends FacetRequestSortedMerger<FacetRange> {
     List<SimpleOrderedMap> resultBuckets = new ArrayList<>(buckets.size());
 
     for (FacetBucket bucket : buckets.values()) {
-       if (bucket.getCount() < freq.mincount) {
+       if (bucket.getCount() < getEffectiveMincount()) {
          continue;
        }
       resultBuckets.add( bucket.getMergedBucket() );
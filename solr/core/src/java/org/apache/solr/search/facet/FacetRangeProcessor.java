@@ -99,7 +99,8 @@ class FacetRangeProcessor extends FacetProcessor<FacetRange> {
     // Rather then do that, which could be complicated by non trivial field types, we'll force the sub-shard effectiveMincount
     // to be 0, ensuring that we can trivially merge all the buckets from every shard
     // (we have to filter the merged buckets by the original mincount either way)
-    effectiveMincount = fcontext.isShard() ? 0 : freq.mincount;
+    effectiveMincount = fcontext.isShard() ? 0
+        : FacetSampling.sampledMincount(freq.mincount, fcontext.sampleRate * FacetSampling.sampleOf(freq));
   }
 
   @Override
@@ -111,7 +111,9 @@ public abstract class FacetRequest {
 
   public static enum RefineMethod {
     NONE,
-    SIMPLE;
+    SIMPLE,
+    /** like {@link #SIMPLE}, but shards send sketches of their other counts so fewer buckets need refining */
+    SKETCH;
     // NONE is distinct from null since we may want to know if refinement was explicitly turned off.
     public static FacetRequest.RefineMethod fromObj(Object method) {
       if (method == null) return null;
@@ -120,6 +122,8 @@ public abstract class FacetRequest {
       }
       if ("simple".equals(method)) {
         return SIMPLE;
+      } else if ("sketch".equals(method)) {
+        return SKETCH;
       } else if ("none".equals(method)) {
         return NONE;
       } else {
@@ -152,6 +156,8 @@ public abstract class FacetRequest {
     public boolean toChildren;
     public String parents; // identifies the parent filter... the full set of parent documents for any block join operation
     public List<Object> filters; // list of symbolic filters (JSON query format)
+    /** Fraction of the domain to process, with counts scaled up accordingly; 1 if the domain isn't sampled. */
+    public double sample = 1.0;
 
     // True if a starting set of documents can be mapped onto a different set of documents not originally in the starting set.
     public boolean canTransformDomain() {
@@ -440,7 +446,9 @@ public abstract class FacetRequest {
       }
     }
 
-    return facetProcessor.getResponse(); 
+    Object response = facetProcessor.getResponse();
+    facetProcessor.closeAccs();
+    return response;
   }
 
   @SuppressWarnings("rawtypes")
@@ -44,7 +44,13 @@ abstract class FacetRequestSorted extends FacetRequest {
    * (after refinement)
    */
   FacetSort prelim_sort;
-  RefineMethod refine; // null, NONE, or SIMPLE
+  RefineMethod refine; // null, NONE, SIMPLE or SKETCH
+  /**
+   * With {@link RefineMethod#SKETCH}, the largest fraction of a bucket's count that may come from shard
+   * sketches instead of exact shard counts. The default of 0 only skips refinement where a sketch proves
+   * the shard has no documents in the bucket.
+   */
+  double sketchError;
 
   @Override
   public RefineMethod getRefineMethod() {
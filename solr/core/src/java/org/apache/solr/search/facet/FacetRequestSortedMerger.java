@@ -35,12 +35,19 @@ abstract class FacetRequestSortedMerger<FacetRequestT extends FacetRequestSorted
   LinkedHashMap<Object,FacetBucket> buckets = new LinkedHashMap<>();
   List<FacetBucket> sortedBuckets;
   BitSet shardHasMoreBuckets;  // null, or "true" if we saw a result from this shard and it indicated that there are more results
+  CountMinSketch[] shardSketches;  // null, or the sketch of the buckets each shard didn't return (refine:sketch)
+  boolean sketchesApplied;
   Context mcontext;  // HACK: this should be passed in getMergedResult as well!
 
   public FacetRequestSortedMerger(FacetRequestT freq) {
     super(freq);
   }
 
+  /** The mincount to compare merged counts to; sampled counts are only scaled after merging */
+  long getEffectiveMincount() {
+    return FacetSampling.sampledMincount(freq.mincount, sampleRate);
+  }
+
   @Override
   public void merge(Object facetResult, Context mcontext) {
     this.mcontext = mcontext;
@@ -54,6 +61,47 @@ abstract class FacetRequestSortedMerger<FacetRequestT extends FacetRequestSorted
       }
       shardHasMoreBuckets.set(mcontext.shardNum);
     }
+    Object sketch = res.get("sketch");
+    if (sketch != null) {
+      if (shardSketches == null) {
+        shardSketches = new CountMinSketch[mcontext.numShards];
+      }
+      shardSketches[mcontext.shardNum] = CountMinSketch.fromResponse(sketch);
+    }
+  }
+
+  /**
+   * Completes the buckets that can be decided from the shard sketches: the sketches of all shards that
+   * might have a bucket without returning it bound its missing count, and if that bound is within
+   * {@link FacetRequestSorted#sketchError} of the bucket's count, the bound is added to the count and the
+   * shards are treated as having returned the bucket, so it isn't refined.
+   */
+  void applySketches(Context mcontext) {
+    if (shardSketches == null || sketchesApplied) return;
+    sketchesApplied = true;
+
+    for (FacetBucket bucket : buckets.values()) {
+      long missing = 0;
+      boolean bounded = true;
+      for (int shard = 0; shard < mcontext.numShards; shard++) {
+        if (mcontext.getShardFlag(bucket.bucketNumber, shard) || !shardHasMoreBuckets.get(shard)) continue;
+        if (shardSketches[shard] == null) {
+          bounded = false;
+          break;
+        }
+        missing += shardSketches[shard].estimate(bucket.bucketValue);
+      }
+      if (!bounded || missing > freq.sketchError * (bucket.count + missing)) {
+        continue;
+      }
+      bucket.count += missing;
+      for (int shard = 0; shard < mcontext.numShards; shard++) {
+        if (!mcontext.getShardFlag(bucket.bucketNumber, shard) && shardHasMoreBuckets.get(shard)) {
+          mcontext.setShardFlag(bucket.bucketNumber, shard);
+          mcontext.numSketchedBuckets++;
+        }
+      }
+    }
   }
 
   private static class SortVal implements Comparable<SortVal> {
@@ -188,6 +236,8 @@ abstract class FacetRequestSortedMerger<FacetRequestT extends FacetRequestSorted
       return null;
     }
 
+    applySketches(mcontext);
+
     final FacetRequest.FacetSort initial_sort = null == freq.prelim_sort ? freq.sort : freq.prelim_sort;
     
     // Tags for sub facets that have partial facets somewhere in their children.
@@ -215,7 +265,7 @@ abstract class FacetRequestSortedMerger<FacetRequestT extends FacetRequestSorted
 
         // when we don't have to worry about mincount pruning, there is no need for any
         // over refinement for these sorts..
-        if (freq.mincount <= 1 && ("index".equals(initial_sort.sortVariable)
+        if (getEffectiveMincount() <= 1 && ("index".equals(initial_sort.sortVariable)
                                    || ("count".equals(initial_sort.sortVariable)
                                        && FacetRequest.SortDirection.desc == initial_sort.sortDirection))) {
           // No-Op
@@ -287,6 +337,7 @@ abstract class FacetRequestSortedMerger<FacetRequestT extends FacetRequestSorted
           if (leafBuckets == null) leafBuckets = new ArrayList<>();
           leafBuckets.add(bucket.bucketValue);
         }
+        mcontext.numRefinedBuckets++;
 
       } else if (!tags.isEmpty()) {
         // we had this bucket, but we need to recurse to certain children that have refinements
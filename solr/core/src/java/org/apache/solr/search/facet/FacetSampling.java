@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.common.util.Hash;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.DocIterator;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.DocSetCollector;
+
+/**
+ * Support for the {@code sample} option of a facet, which processes a random subset of the facet domain and
+ * scales counts and other additive statistics back up to estimates for the whole domain.
+ * <p>
+ * Documents are chosen by hashing their docid, so a given searcher always picks the same sample for the same
+ * rate, and a sample at a lower rate is a subset of the sample at any higher rate. This is what lets nested
+ * facets sample again at their cumulative rate, and lets refinement requests see the same documents as the
+ * first phase. Shards never scale their results; that's done once on the merged response, so mincount is
+ * compared to unscaled counts by lowering it to {@link #sampledMincount the equivalent sample count}.
+ */
+final class FacetSampling {
+
+  /** Buckets of a terms or range facet that aren't in the "buckets" list */
+  private static final String[] OTHER_BUCKETS = {"allBuckets", "missing", "before", "after", "between"};
+
+  private FacetSampling() {}
+
+  /** Whether {@code doc} is in the sample of the given rate */
+  static boolean inSample(int doc, double rate) {
+    final long hash = Hash.fmix64(doc * 0x9E3779B97F4A7C15L);
+    return (hash >>> 11) * 0x1.0p-53 < rate;
+  }
+
+  /** Returns the documents of {@code docs} that are in the sample of the given rate. */
+  static DocSet sample(DocSet docs, double rate, int maxDoc) throws IOException {
+    final DocSetCollector collector = new DocSetCollector(maxDoc);
+    for (DocIterator it = docs.iterator(); it.hasNext(); ) {
+      final int doc = it.nextDoc();
+      if (inSample(doc, rate)) {
+        collector.collect(doc);
+      }
+    }
+    return collector.getDocSet();
+  }
+
+  /**
+   * Scales the counts and additive statistics of a complete (non-shard) facet response, which was computed
+   * by {@code freq}, and adds a standard error to every sampled count.
+   */
+  static void scaleResponse(Object response, FacetRequest freq) {
+    scaleBucket(response, freq, 1.0);
+  }
+
+  /**
+   * The count a bucket of a facet that sampled its domain at the given cumulative rate must reach before
+   * scaling, for its estimated count to reach {@code mincount}.
+   */
+  static long sampledMincount(long mincount, double rate) {
+    if (rate >= 1.0 || mincount <= 1) {
+      return mincount;
+    }
+    // the tolerance keeps products like 10 * 0.3 from rounding up past the exact threshold
+    return Math.max(1, (long) Math.ceil(mincount * rate - 1e-9));
+  }
+
+  static double sampleOf(FacetRequest freq) {
+    return freq.domain == null ? 1.0 : freq.domain.sample;
+  }
+
+  /** Whether any facet below {@code freq} samples its domain */
+  static boolean samplesBelow(FacetRequest freq) {
+    for (FacetRequest sub : freq.getSubFacets().values()) {
+      if (sampleOf(sub) < 1.0 || samplesBelow(sub)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void scaleFacet(Object response, FacetRequest freq, double rate) {
+    if (freq instanceof FacetQuery) {
+      scaleBucket(response, freq, rate);
+      return;
+    }
+    if (!(response instanceof NamedList)) {
+      return;
+    }
+    final NamedList<?> facet = (NamedList<?>) response;
+    final Object buckets = facet.get("buckets");
+    if (buckets instanceof List) {
+      for (Object bucket : (List<?>) buckets) {
+        scaleBucket(bucket, freq, rate);
+      }
+    }
+    for (String name : OTHER_BUCKETS) {
+      scaleBucket(facet.get(name), freq, rate);
+    }
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static void scaleBucket(Object response, FacetRequest freq, double rate) {
+    if (!(response instanceof NamedList)) {
+      return;
+    }
+    final NamedList<Object> bucket = (NamedList<Object>) response;
+
+    if (rate < 1.0) {
+      final int countIdx = bucket.indexOf("count", 0);
+      if (countIdx >= 0 && bucket.getVal(countIdx) instanceof Number) {
+        final long count = ((Number) bucket.getVal(countIdx)).longValue();
+        bucket.setVal(countIdx, scale(count, rate));
+        // standard error of the estimate of a count under Bernoulli sampling
+        bucket.add("countError", Math.sqrt(count * (1.0 - rate)) / rate);
+      }
+      for (Map.Entry<String,AggValueSource> stat : freq.getFacetStats().entrySet()) {
+        if (stat.getValue().isAdditive()) {
+          final int idx = bucket.indexOf(stat.getKey(), 0);
+          if (idx >= 0 && bucket.getVal(idx) instanceof Number) {
+            bucket.setVal(idx, scale((Number) bucket.getVal(idx), rate));
+          }
+        }
+      }
+    }
+
+    for (Map.Entry<String,FacetRequest> sub : freq.getSubFacets().entrySet()) {
+      scaleFacet(bucket.get(sub.getKey()), sub.getValue(), rate * sampleOf(sub.getValue()));
+    }
+  }
+
+  private static Number scale(Number value, double rate) {
+    if (value instanceof Double || value instanceof Float) {
+      return value.doubleValue() / rate;
+    }
+    return Math.round(value.longValue() / rate);
+  }
+}
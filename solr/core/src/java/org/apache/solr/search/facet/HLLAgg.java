@@ -26,6 +26,7 @@ import org.apache.solr.common.util.Hash;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.util.hll.HLL;
+import org.apache.solr.util.hll.HLLSlots;
 import org.apache.solr.util.hll.HLLType;
 
 public class HLLAgg extends StrAggValueSource {
@@ -47,6 +48,11 @@ public class HLLAgg extends StrAggValueSource {
       return new HLL(log2m, regwidth, -1 /* auto explict threshold */,
           false /* no sparse representation */, HLLType.EMPTY);
     }
+
+    /** HLLs for many slots, with the same parameters as {@link #getHLL()} and register pages from the {@link SlotArrayPool} */
+    HLLSlots getHLLSlots(int numSlots) {
+      return new HLLSlots(log2m, regwidth, numSlots, SlotArrayPool::longs, SlotArrayPool::release);
+    }
   }
 
   @Override
@@ -72,13 +78,19 @@ public class HLLAgg extends StrAggValueSource {
 
   @Override
   public FacetMerger createFacetMerger(Object prototype) {
-    return new Merger();
+    return new Merger(factory);
   }
 
   private static class Merger extends FacetModule.FacetSortableMerger {
-    HLL aggregate = null;
+    final HLLFactory factory;
+    HLLSlots aggregates = null; // shared by all buckets of the request, see FacetMerger.Context#getHLLSlots
+    int slot = -1;
     long answer = -1; // -1 means unset
 
+    Merger(HLLFactory factory) {
+      this.factory = factory;
+    }
+
     @Override
     public void merge(Object facetResult, Context mcontext) {
       if (facetResult instanceof Number) {
@@ -92,16 +104,17 @@ public class HLLAgg extends StrAggValueSource {
       SimpleOrderedMap map = (SimpleOrderedMap)facetResult;
       byte[] serialized = ((byte[])map.get("hll"));
       HLL subHLL = HLL.fromBytes(serialized);
-      if (aggregate == null) {
-        aggregate = subHLL;
-      } else {
-        aggregate.union(subHLL);
+      if (aggregates == null) {
+        aggregates = mcontext != null ? mcontext.getHLLSlots(factory.log2m, factory.regwidth)
+            : new HLLSlots(factory.log2m, factory.regwidth, 0);
+        slot = aggregates.newSlot();
       }
+      aggregates.union(slot, subHLL);
     }
 
     private long getLong() {
       if (answer < 0) {
-        answer = aggregate == null ? 0 : aggregate.cardinality();
+        answer = aggregates == null ? 0 : aggregates.cardinality(slot);
       }
       return answer;
     }
@@ -122,33 +135,38 @@ public class HLLAgg extends StrAggValueSource {
   // todo - better efficiency for sorting?
 
   abstract class BaseNumericAcc extends DocValuesAcc {
-    HLL[] sets;
+    HLLSlots sets;
 
     public BaseNumericAcc(FacetContext fcontext, String field, int numSlots) throws IOException {
       super(fcontext, fcontext.qcontext.searcher().getSchema().getField(field));
-      sets = new HLL[numSlots];
+      sets = factory.getHLLSlots(numSlots);
     }
 
     @Override
     public void reset() {
-      sets = new HLL[sets.length];
+      sets.reset();
     }
 
     @Override
     public void resize(Resizer resizer) {
-      sets = resizer.resize(sets, null);
+      sets.resize(resizer.getNewSize(), resizer::getNewSlot);
     }
 
     @Override
-    protected void collectValues(int doc, int slot) throws IOException {
-      HLL hll = sets[slot];
-      if (hll == null) {
-        hll = sets[slot] = factory.getHLL();
+    public void close() throws IOException {
+      if (sets != null) {
+        sets.close();
+        sets = null;
       }
-      collectValues(doc, hll);
+      super.close();
+    }
+
+    @Override
+    protected void collectValues(int doc, int slot) throws IOException {
+      collectValues(doc, slot, sets);
     }
 
-    protected abstract void collectValues(int doc, HLL hll) throws IOException;
+    protected abstract void collectValues(int doc, int slot, HLLSlots hlls) throws IOException;
 
     @Override
     public Object getValue(int slot) throws IOException {
@@ -159,16 +177,14 @@ public class HLLAgg extends StrAggValueSource {
     }
 
     private long getCardinality(int slot) {
-      HLL set = sets[slot];
-      return set == null ? 0 : set.cardinality();
+      return sets.cardinality(slot);
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     public Object getShardValue(int slot) throws IOException {
-      HLL hll = sets[slot];
-      if (hll == null) return NO_VALUES;
+      if (sets.isEmpty(slot)) return NO_VALUES;
       SimpleOrderedMap map = new SimpleOrderedMap();
-      map.add("hll", hll.toBytes());
+      map.add("hll", sets.toHLL(slot).toBytes());
       // optionally use explicit values
       return map;
     }
@@ -199,10 +215,10 @@ public class HLLAgg extends StrAggValueSource {
     }
 
     @Override
-    protected void collectValues(int doc, HLL hll) throws IOException {
+    protected void collectValues(int doc, int slot, HLLSlots hlls) throws IOException {
       long val = values.longValue();
       long hash = Hash.fmix64(val);
-      hll.addRaw(hash);
+      hlls.addRaw(slot, hash);
     }
   }
 
@@ -225,12 +241,12 @@ public class HLLAgg extends StrAggValueSource {
     }
 
     @Override
-    protected void collectValues(int doc, HLL hll) throws IOException {
+    protected void collectValues(int doc, int slot, HLLSlots hlls) throws IOException {
       for (int i = 0, count = values.docValueCount(); i < count; i++) {
         // duplicates may be produced for a single doc, but won't matter here.
         long val = values.nextValue();
         long hash = Hash.fmix64(val);
-        hll.addRaw(hash);
+        hlls.addRaw(slot, hash);
       }
     }
   }
@@ -157,13 +157,18 @@ public abstract class SlotAcc implements Closeable {
   public void close() throws IOException {
   }
 
+  /**
+   * Maps the slots of an accumulator to a new number of slots.  The primitive array methods take the new
+   * array from the {@link SlotArrayPool} and return the old array to it, so the old array must not be
+   * used after it was resized.
+   */
   public static abstract class Resizer {
     public abstract int getNewSize();
 
     public abstract int getNewSlot(int oldSlot);
 
     public double[] resize(double[] old, double defaultValue) {
-      double[] values = new double[getNewSize()];
+      double[] values = SlotArrayPool.doubles(getNewSize());
       if (defaultValue != 0) {
         Arrays.fill(values, 0, values.length, defaultValue);
       }
@@ -176,11 +181,12 @@ public abstract class SlotAcc implements Closeable {
           }
         }
       }
+      SlotArrayPool.release(old);
       return values;
     }
 
     public int[] resize(int[] old, int defaultValue) {
-      int[] values = new int[getNewSize()];
+      int[] values = SlotArrayPool.ints(getNewSize());
       if (defaultValue != 0) {
         Arrays.fill(values, 0, values.length, defaultValue);
       }
@@ -193,11 +199,12 @@ public abstract class SlotAcc implements Closeable {
           }
         }
       }
+      SlotArrayPool.release(old);
       return values;
     }
 
     public long[] resize(long[] old, long defaultValue) {
-      long[] values = new long[getNewSize()];
+      long[] values = SlotArrayPool.longs(getNewSize());
       if (defaultValue != 0) {
         Arrays.fill(values, 0, values.length, defaultValue);
       }
@@ -210,6 +217,7 @@ public abstract class SlotAcc implements Closeable {
           }
         }
       }
+      SlotArrayPool.release(old);
       return values;
     }
 
@@ -312,7 +320,7 @@ public abstract class SlotAcc implements Closeable {
     public DoubleFuncSlotAcc(ValueSource values, FacetContext fcontext, int numSlots, double initialValue) {
       super(values, fcontext, numSlots);
       this.initialValue = initialValue;
-      result = new double[numSlots];
+      result = SlotArrayPool.doubles(numSlots);
       if (initialValue != 0) {
         reset();
       }
@@ -337,6 +345,13 @@ public abstract class SlotAcc implements Closeable {
     public void resize(Resizer resizer) {
       result = resizer.resize(result, initialValue);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   public abstract static class LongFuncSlotAcc extends FuncSlotAcc {
@@ -346,7 +361,7 @@ public abstract class SlotAcc implements Closeable {
     public LongFuncSlotAcc(ValueSource values, FacetContext fcontext, int numSlots, long initialValue) {
       super(values, fcontext, numSlots);
       this.initialValue = initialValue;
-      result = new long[numSlots];
+      result = SlotArrayPool.longs(numSlots);
       if (initialValue != 0) {
         reset();
       }
@@ -371,6 +386,13 @@ public abstract class SlotAcc implements Closeable {
     public void resize(Resizer resizer) {
       result = resizer.resize(result, initialValue);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   public abstract static class IntSlotAcc extends SlotAcc {
@@ -380,7 +402,7 @@ public abstract class SlotAcc implements Closeable {
     public IntSlotAcc(FacetContext fcontext, int numSlots, int initialValue) {
       super(fcontext);
       this.initialValue = initialValue;
-      result = new int[numSlots];
+      result = SlotArrayPool.ints(numSlots);
       if (initialValue != 0) {
         reset();
       }
@@ -405,6 +427,13 @@ public abstract class SlotAcc implements Closeable {
     public void resize(Resizer resizer) {
       result = resizer.resize(result, initialValue);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   static class SumSlotAcc extends DoubleFuncSlotAcc {
@@ -437,7 +466,7 @@ public abstract class SlotAcc implements Closeable {
 
     public AvgSlotAcc(ValueSource values, FacetContext fcontext, int numSlots) {
       super(values, fcontext, numSlots);
-      counts = new int[numSlots];
+      counts = SlotArrayPool.ints(numSlots);
     }
 
     @Override
@@ -483,6 +512,13 @@ public abstract class SlotAcc implements Closeable {
       super.resize(resizer);
       counts = resizer.resize(counts, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      counts = null;
+      super.close();
+    }
   }
 
   static class VarianceSlotAcc extends DoubleFuncSlotAcc {
@@ -491,8 +527,8 @@ public abstract class SlotAcc implements Closeable {
 
     public VarianceSlotAcc(ValueSource values, FacetContext fcontext, int numSlots) {
       super(values, fcontext, numSlots);
-      counts = new int[numSlots];
-      sum = new double[numSlots];
+      counts = SlotArrayPool.ints(numSlots);
+      sum = SlotArrayPool.doubles(numSlots);
     }
 
     @Override
@@ -509,6 +545,15 @@ public abstract class SlotAcc implements Closeable {
       this.sum = resizer.resize(this.sum, 0);
     }
 
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      SlotArrayPool.release(sum);
+      counts = null;
+      sum = null;
+      super.close();
+    }
+
     private double variance(int slot) {
       return AggUtil.variance(result[slot], sum[slot], counts[slot]); // calc once and cache in result?
     }
@@ -548,8 +593,8 @@ public abstract class SlotAcc implements Closeable {
 
     public StddevSlotAcc(ValueSource values, FacetContext fcontext, int numSlots) {
       super(values, fcontext, numSlots);
-      counts = new int[numSlots];
-      sum = new double[numSlots];
+      counts = SlotArrayPool.ints(numSlots);
+      sum = SlotArrayPool.doubles(numSlots);
     }
 
     @Override
@@ -563,7 +608,16 @@ public abstract class SlotAcc implements Closeable {
     public void resize(Resizer resizer) {
       super.resize(resizer);
       this.counts = resizer.resize(this.counts, 0);
-      this.result = resizer.resize(this.result, 0);
+      this.sum = resizer.resize(this.sum, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      SlotArrayPool.release(sum);
+      counts = null;
+      sum = null;
+      super.close();
     }
 
     private double stdDev(int slot) {
@@ -726,6 +780,14 @@ public abstract class SlotAcc implements Closeable {
       return ret.roCountAcc();
     }
 
+    @Override
+    public void close() throws IOException {
+      for (SweepCountAccStruct other : others) {
+        other.countAcc.close();
+      }
+      super.close();
+    }
+
     /**
      * When a {@link SweepableSlotAcc} replaces itself (for the purpose of collection) with a different {@link SlotAcc}
      * instance, it must register that replacement by calling this method with itself as the fromAcc param, and with the
@@ -885,7 +947,7 @@ public abstract class SlotAcc implements Closeable {
 
     public CountSlotArrAcc(FacetContext fcontext, int numSlots) {
       super(fcontext);
-      result = new long[numSlots];
+      result = SlotArrayPool.longs(numSlots);
     }
 
     @Override
@@ -929,6 +991,13 @@ public abstract class SlotAcc implements Closeable {
     public void resize(Resizer resizer) {
       result = resizer.resize(result, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   static class SortSlotAcc extends SlotAcc {
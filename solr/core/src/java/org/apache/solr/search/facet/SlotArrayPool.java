@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A node-wide pool of the primitive arrays that {@link SlotAcc}s keep a value per slot in.
+ * Facet requests allocate arrays of the same length over and over -- once for every sub-facet bucket,
+ * and once per request for the same field and searcher -- so the arrays of finished accumulators are
+ * kept for the next accumulator that needs the same length, up to {@link #MAX_POOLED_BYTES} in total.
+ * <p>
+ * Arrays are handed out zero filled.  An array must not be used after it was released.
+ *
+ * @lucene.internal
+ */
+final class SlotArrayPool {
+  /** Maximum bytes of free arrays retained by the node */
+  static final long MAX_POOLED_BYTES = Long.getLong("solr.facet.slotArrayPool.maxBytes", 32L << 20);
+  /** Arrays shorter than this are cheaper to allocate than to pool */
+  static final int MIN_POOLED_LENGTH = 64;
+
+  static final LongAdder hits = new LongAdder();      // arrays handed out from the pool
+  static final LongAdder misses = new LongAdder();    // poolable arrays that had to be allocated
+  static final LongAdder discards = new LongAdder();  // released arrays dropped because the pool was full
+
+  private static final int INT = 0, LONG = 1, DOUBLE = 2;
+
+  // reserved before an array is added, so a full pool turns arrays away without taking the lock
+  private static final AtomicLong pooledBytes = new AtomicLong();
+  // guarded by itself
+  private static final Map<Long, ArrayDeque<Object>> free = new HashMap<>();
+
+  private SlotArrayPool() {}
+
+  static int[] ints(int length) {
+    int[] arr = (int[]) take(INT, length);
+    if (arr == null) return new int[length];
+    Arrays.fill(arr, 0);
+    return arr;
+  }
+
+  static long[] longs(int length) {
+    long[] arr = (long[]) take(LONG, length);
+    if (arr == null) return new long[length];
+    Arrays.fill(arr, 0L);
+    return arr;
+  }
+
+  static double[] doubles(int length) {
+    double[] arr = (double[]) take(DOUBLE, length);
+    if (arr == null) return new double[length];
+    Arrays.fill(arr, 0.0);
+    return arr;
+  }
+
+  static void release(int[] arr) {
+    if (arr != null) put(INT, arr.length, arr, (long) arr.length * Integer.BYTES);
+  }
+
+  static void release(long[] arr) {
+    if (arr != null) put(LONG, arr.length, arr, (long) arr.length * Long.BYTES);
+  }
+
+  static void release(double[] arr) {
+    if (arr != null) put(DOUBLE, arr.length, arr, (long) arr.length * Double.BYTES);
+  }
+
+  /** Bytes held by the free arrays in the pool */
+  static long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  private static long key(int type, int length) {
+    return ((long) length << 2) | type;
+  }
+
+  private static Object take(int type, int length) {
+    if (length < MIN_POOLED_LENGTH) {
+      return null;
+    }
+    final Long key = key(type, length);
+    Object arr;
+    synchronized (free) {
+      ArrayDeque<Object> arrays = free.get(key);
+      arr = arrays == null ? null : arrays.poll();
+      if (arrays != null && arrays.isEmpty()) {
+        free.remove(key);
+      }
+    }
+    if (arr == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    pooledBytes.addAndGet(-(long) length * (type == INT ? Integer.BYTES : Long.BYTES));
+    return arr;
+  }
+
+  private static void put(int type, int length, Object arr, long bytes) {
+    if (length < MIN_POOLED_LENGTH) {
+      return;
+    }
+    if (pooledBytes.addAndGet(bytes) > MAX_POOLED_BYTES) {
+      pooledBytes.addAndGet(-bytes);
+      discards.increment();
+      return;
+    }
+    synchronized (free) {
+      free.computeIfAbsent(key(type, length), k -> new ArrayDeque<>()).push(arr);
+    }
+  }
+}
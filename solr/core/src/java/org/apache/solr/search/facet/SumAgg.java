@@ -67,6 +67,11 @@ public class SumAgg extends SimpleAggValueSource {
     return new Merger();
   }
 
+  @Override
+  public boolean isAdditive() {
+    return true;
+  }
+
   public static class Merger extends FacetModule.FacetDoubleMerger {
     double val;
 
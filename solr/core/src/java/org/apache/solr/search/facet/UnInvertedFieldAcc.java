@@ -60,7 +60,7 @@ public abstract class UnInvertedFieldAcc extends SlotAcc implements UnInvertedFi
 
     public DoubleUnInvertedFieldAcc(FacetContext fcontext, SchemaField sf, int numSlots, double initialValue) throws IOException {
       super(fcontext, sf, numSlots);
-      result = new double[numSlots];
+      result = SlotArrayPool.doubles(numSlots);
       if (initialValue != 0) {
         this.initialValue = initialValue;
         Arrays.fill(result, initialValue);
@@ -93,6 +93,13 @@ public abstract class UnInvertedFieldAcc extends SlotAcc implements UnInvertedFi
     public void resize(Resizer resizer) {
     this.result = resizer.resize(result, initialValue);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(result);
+      result = null;
+      super.close();
+    }
   }
 
   /**
@@ -104,8 +111,8 @@ public abstract class UnInvertedFieldAcc extends SlotAcc implements UnInvertedFi
 
     public SDVUnInvertedFieldAcc(FacetContext fcontext, SchemaField sf, int numSlots) throws IOException {
       super(fcontext, sf, numSlots, 0);
-      this.counts = new int[numSlots];
-      this.sum = new double[numSlots];
+      this.counts = SlotArrayPool.ints(numSlots);
+      this.sum = SlotArrayPool.doubles(numSlots);
     }
 
     @Override
@@ -157,5 +164,14 @@ public abstract class UnInvertedFieldAcc extends SlotAcc implements UnInvertedFi
     this.counts = resizer.resize(counts, 0);
     this.sum = resizer.resize(sum, 0);
     }
+
+    @Override
+    public void close() throws IOException {
+      SlotArrayPool.release(counts);
+      SlotArrayPool.release(sum);
+      counts = null;
+      sum = null;
+      super.close();
+    }
   }
 }
@@ -279,7 +279,8 @@ public class GraphQuery extends Query {
 
     @Override
     public boolean isCacheable(LeafReaderContext ctx) {
-      return true;
+      // the matches in a segment depend on the edges found in all the other segments
+      return false;
     }
     
   }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.common.annotation.SolrThreadSafe;
+import org.apache.solr.core.RateLimiterConfig;
+
+/**
+ * A concurrency limit that adjusts itself from observed request latencies, used by {@link RequestRateLimiter}
+ * when {@link RateLimiterConfig#isAdaptive} is set.
+ *
+ * Latencies are aggregated over windows of {@link #WINDOW_SIZE} completed requests. The average latency of
+ * each window is compared against a slowly moving long term average; while the two are close the limit grows
+ * by a fraction of its square root per window, and when the window latency rises above
+ * {@link #LATENCY_TOLERANCE} times the long term average the limit shrinks proportionally (gradient style).
+ * Since queueing shows up as rising latency, a node sheds load as soon as requests begin to queue, well before
+ * the latency of every request has collapsed. The limit stays between
+ * {@link RateLimiterConfig#minAllowedRequests} and {@link RateLimiterConfig#allowedRequests}, starting at the
+ * latter.
+ */
+@SolrThreadSafe
+public class AdaptiveConcurrencyLimit {
+  /** Number of completed requests aggregated before the limit is recomputed. */
+  static final int WINDOW_SIZE = 20;
+  /** Number of windows used to seed the long term latency before it becomes an exponential average. */
+  static final int WARMUP_WINDOWS = 10;
+  /** Weight of each window in the long term latency average. */
+  static final double LONG_TERM_ALPHA = 2.0 / (600 + 1);
+  /** How much the window latency may exceed the long term latency before the limit is reduced. */
+  static final double LATENCY_TOLERANCE = 1.5;
+  /** Weight of a newly computed limit against the previous one. */
+  static final double SMOOTHING = 0.2;
+
+  private final RateLimiterConfig rateLimiterConfig;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile int limit;
+
+  // guarded by this
+  private double estimatedLimit;
+  private double longTermLatency;
+  private long windows;
+  private int windowCount;
+  private long windowLatencySum;
+  private int windowMaxInFlight;
+
+  public AdaptiveConcurrencyLimit(RateLimiterConfig rateLimiterConfig) {
+    this.rateLimiterConfig = rateLimiterConfig;
+    this.estimatedLimit = rateLimiterConfig.allowedRequests;
+    this.limit = rateLimiterConfig.allowedRequests;
+  }
+
+  /**
+   * Acquires a slot if fewer than {@link #getLimit()} requests are in flight. Returns the slot, which must be
+   * released through {@link RequestRateLimiter.SlotMetadata#decrementRequest()} once the request completes,
+   * or null if the limit has been reached.
+   */
+  RequestRateLimiter.SlotMetadata tryAcquire() {
+    for (;;) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        return null;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return new AdaptiveSlotMetadata(System.nanoTime(), current + 1);
+      }
+    }
+  }
+
+  /** The current concurrency limit. */
+  public int getLimit() {
+    return limit;
+  }
+
+  /** The number of requests currently holding a slot. */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private void release(AdaptiveSlotMetadata slot) {
+    inFlight.decrementAndGet();
+    addSample(System.nanoTime() - slot.startNanos, slot.inFlight);
+  }
+
+  /**
+   * Records the latency of a completed request along with the number of requests that were in flight
+   * when it started, recomputing the limit once a window is complete.
+   */
+  synchronized void addSample(long latencyNanos, int inFlightAtStart) {
+    windowLatencySum += latencyNanos;
+    windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+    if (++windowCount < WINDOW_SIZE) {
+      return;
+    }
+
+    double windowLatency = Math.max(1, windowLatencySum) / (double) windowCount;
+    int maxInFlight = windowMaxInFlight;
+    windowCount = 0;
+    windowLatencySum = 0;
+    windowMaxInFlight = 0;
+
+    if (++windows <= WARMUP_WINDOWS) {
+      longTermLatency += (windowLatency - longTermLatency) / windows;
+    } else {
+      longTermLatency += (windowLatency - longTermLatency) * LONG_TERM_ALPHA;
+    }
+    // After a burst of slow requests the long term latency is inflated and would let the limit grow far too
+    // quickly; pull it back down once requests are fast again.
+    if (longTermLatency > 2 * windowLatency) {
+      longTermLatency *= 0.95;
+    }
+
+    int maxLimit = Math.max(1, rateLimiterConfig.allowedRequests);
+    int minLimit = Math.max(1, Math.min(rateLimiterConfig.minAllowedRequests, maxLimit));
+
+    double newLimit = estimatedLimit;
+    // Don't adjust the limit based on a window that never came close to using it
+    if (maxInFlight >= estimatedLimit / 2) {
+      double gradient = Math.max(0.5, Math.min(1.0, LATENCY_TOLERANCE * longTermLatency / windowLatency));
+      newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+      newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+    }
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    limit = (int) estimatedLimit;
+  }
+
+  private class AdaptiveSlotMetadata extends RequestRateLimiter.SlotMetadata {
+    private final long startNanos;
+    private final int inFlight;
+
+    AdaptiveSlotMetadata(long startNanos, int inFlight) {
+      super(null);
+      this.startNanos = startNanos;
+      this.inFlight = inFlight;
+    }
+
+    @Override
+    public void decrementRequest() {
+      release(this);
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return true;
+    }
+  }
+}
@@ -114,5 +114,13 @@ public class QueryRateLimiter extends RequestRateLimiter {
     if (rateLimiterMeta.slotAcquisitionTimeoutInMS != null) {
       rateLimiterConfig.waitForSlotAcquisition = rateLimiterMeta.slotAcquisitionTimeoutInMS.longValue();
     }
+
+    if (rateLimiterMeta.adaptive != null) {
+      rateLimiterConfig.isAdaptive = rateLimiterMeta.adaptive;
+    }
+
+    if (rateLimiterMeta.minAllowedRequests != null) {
+      rateLimiterConfig.minAllowedRequests = rateLimiterMeta.minAllowedRequests;
+    }
   }
 }
@@ -28,6 +28,9 @@ import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.common.annotation.SolrThreadSafe;
 import org.apache.solr.common.cloud.ClusterPropertiesListener;
 import org.apache.solr.common.cloud.SolrZkClient;
+import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,16 +45,21 @@ import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_TYPE_PARAM
  * The actual rate limiting and the limits should be implemented in the corresponding RequestRateLimiter
  * implementation. RateLimitManager is responsible for the orchestration but not the specifics of how the
  * rate limiting is being done for a specific request type.
+ *
+ * For each registered rate limiter, the current limit, the number of active requests and the number
+ * of rejected requests are reported as node level metrics.
  */
 @SolrThreadSafe
-public class RateLimitManager implements ClusterPropertiesListener {
+public class RateLimitManager implements ClusterPropertiesListener, SolrMetricProducer {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   public final static int DEFAULT_CONCURRENT_REQUESTS= (Runtime.getRuntime().availableProcessors()) * 3;
   public final static long DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS = -1;
+  public final static int DEFAULT_MIN_CONCURRENT_REQUESTS = Runtime.getRuntime().availableProcessors();
   private final Map<String, RequestRateLimiter> requestRateLimiterMap;
 
   private final Map<HttpServletRequest, RequestRateLimiter.SlotMetadata> activeRequestsMap;
+  private SolrMetricsContext solrMetricsContext;
 
   public RateLimitManager() {
     this.requestRateLimiterMap = new HashMap<>();
@@ -117,6 +125,7 @@ public class RateLimitManager implements ClusterPropertiesListener {
       return true;
     }
 
+    requestRateLimiter.incrementRejectedRequests();
     return false;
   }
 
@@ -182,6 +191,23 @@ public class RateLimitManager implements ClusterPropertiesListener {
     return requestRateLimiterMap.get(requestType.toString());
   }
 
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    solrMetricsContext = parentContext.getChildContext(this);
+    String category = SolrInfoBean.Category.CONTAINER.toString();
+    for (Map.Entry<String, RequestRateLimiter> entry : requestRateLimiterMap.entrySet()) {
+      RequestRateLimiter requestRateLimiter = entry.getValue();
+      solrMetricsContext.gauge(requestRateLimiter::getCurrentLimit, true, "limit", category, scope, entry.getKey());
+      solrMetricsContext.gauge(requestRateLimiter::getActiveRequests, true, "active", category, scope, entry.getKey());
+      solrMetricsContext.gauge(requestRateLimiter::getRejectedRequests, true, "rejected", category, scope, entry.getKey());
+    }
+  }
+
+  @Override
+  public SolrMetricsContext getSolrMetricsContext() {
+    return solrMetricsContext;
+  }
+
   public static class Builder {
     protected SolrZkClient solrZkClient;
 
@@ -19,6 +19,7 @@ package org.apache.solr.servlet;
 
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.solr.common.annotation.SolrThreadSafe;
 import org.apache.solr.core.RateLimiterConfig;
@@ -29,6 +30,9 @@ import org.apache.solr.core.RateLimiterConfig;
  * The control flow is as follows:
  * Handle request -- Check if slot is available -- If available, acquire slot and proceed --
  * else reject the same.
+ *
+ * If the configuration is {@link RateLimiterConfig#isAdaptive adaptive}, slots are handed out by an
+ * {@link AdaptiveConcurrencyLimit} instead of the fixed guaranteed and borrowable pools.
  */
 @SolrThreadSafe
 public class RequestRateLimiter {
@@ -43,7 +47,11 @@ public class RequestRateLimiter {
   private final RateLimiterConfig rateLimiterConfig;
   private final SlotMetadata guaranteedSlotMetadata;
   private final SlotMetadata borrowedSlotMetadata;
-  private static final SlotMetadata nullSlotMetadata = new SlotMetadata(null);
+  // Size of the fixed pools, which does not follow later changes to the configuration
+  private final int totalSlots;
+  private final AdaptiveConcurrencyLimit adaptiveLimit;
+  private final LongAdder rejectedRequests = new LongAdder();
+  static final SlotMetadata nullSlotMetadata = new SlotMetadata(null);
 
   public RequestRateLimiter(RateLimiterConfig rateLimiterConfig) {
     this.rateLimiterConfig = rateLimiterConfig;
@@ -51,6 +59,8 @@ public class RequestRateLimiter {
     this.borrowableSlotsPool = new Semaphore(rateLimiterConfig.allowedRequests - rateLimiterConfig.guaranteedSlotsThreshold);
     this.guaranteedSlotMetadata = new SlotMetadata(guaranteedSlotsPool);
     this.borrowedSlotMetadata = new SlotMetadata(borrowableSlotsPool);
+    this.totalSlots = rateLimiterConfig.allowedRequests;
+    this.adaptiveLimit = new AdaptiveConcurrencyLimit(rateLimiterConfig);
   }
 
   /**
@@ -63,6 +73,11 @@ public class RequestRateLimiter {
       return nullSlotMetadata;
     }
 
+    if (rateLimiterConfig.isAdaptive) {
+      // Waiting for a slot would only add to the queueing the adaptive limit is trying to avoid
+      return adaptiveLimit.tryAcquire();
+    }
+
     if (guaranteedSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
       return guaranteedSlotMetadata;
     }
@@ -83,6 +98,11 @@ public class RequestRateLimiter {
    * @lucene.experimental -- Can cause slots to be blocked if a request borrows a slot and is itself long lived.
    */
   public SlotMetadata allowSlotBorrowing() throws InterruptedException {
+    if (rateLimiterConfig.isAdaptive) {
+      // An adaptive limit has no spare capacity to lend: any slot under the limit may be needed by its own type
+      return nullSlotMetadata;
+    }
+
     if (borrowableSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
       return borrowedSlotMetadata;
     }
@@ -94,6 +114,28 @@ public class RequestRateLimiter {
     return rateLimiterConfig;
   }
 
+  /** The number of requests of this type that may currently be active. */
+  public int getCurrentLimit() {
+    return rateLimiterConfig.isAdaptive ? adaptiveLimit.getLimit() : totalSlots;
+  }
+
+  /** The number of requests currently holding a slot of this rate limiter, including borrowed slots. */
+  public int getActiveRequests() {
+    if (rateLimiterConfig.isAdaptive) {
+      return adaptiveLimit.getInFlight();
+    }
+    return totalSlots - guaranteedSlotsPool.availablePermits() - borrowableSlotsPool.availablePermits();
+  }
+
+  /** The number of requests of this type rejected so far. */
+  public long getRejectedRequests() {
+    return rejectedRequests.sum();
+  }
+
+  void incrementRejectedRequests() {
+    rejectedRequests.increment();
+  }
+
   // Represents the metadata for a slot
   static class SlotMetadata {
     private final Semaphore usedPool;
@@ -83,6 +83,7 @@ import org.apache.solr.metrics.MetricsMap;
 import org.apache.solr.metrics.OperatingSystemMetricSet;
 import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.security.AuditEvent;
 import org.apache.solr.security.AuthenticationPlugin;
@@ -202,6 +203,8 @@ public class SolrDispatchFilter extends BaseSolrFilter {
       RateLimitManager.Builder builder = new RateLimitManager.Builder(zkClient);
       
       this.rateLimitManager = builder.build();
+      this.rateLimitManager.initializeMetrics(new SolrMetricsContext(metricManager,
+          SolrMetricManager.getRegistryName(SolrInfoBean.Group.node), metricTag), "rateLimiters");
       
       if (zkController != null) {
         zkController.zkStateReader.registerClusterPropertiesListener(this.rateLimitManager);
@@ -409,6 +412,9 @@ public class SolrDispatchFilter extends BaseSolrFilter {
     try {
       if (metricManager != null) {
         try {
+          if (rateLimitManager != null) {
+            rateLimitManager.close();
+          }
           metricManager.unregisterGauges(registryName, metricTag);
         } catch (NullPointerException e) {
           // okay
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.update.UpdateLog.LogPtr;
+
+/**
+ * A compact map from indexed ids to {@link LogPtr}s for the {@link UpdateLog}'s real-time lookup maps.
+ * <p>
+ * A {@link java.util.HashMap} holds a node, a {@link BytesRef}, a byte[] and a {@link LogPtr} per id, which
+ * between commits on a busy collection adds up to millions of small objects. This map instead keeps the id bytes
+ * in the block pool of an open-addressed {@link BytesRefHash} and the pointer, version and previous pointer of
+ * each id in parallel long[] arrays indexed by the id's ord, so its footprint is a handful of large arrays.
+ * {@link LogPtr}s are only materialized by {@link #get(Object)}.
+ * <p>
+ * Entries can be added, overwritten and cleared but not removed individually. Like the maps it replaces this
+ * class is not thread safe, the {@link UpdateLog} accesses it while holding its own lock.
+ *
+ * @lucene.experimental
+ */
+public class CompactVersionMap extends AbstractMap<BytesRef,LogPtr> implements Accountable {
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CompactVersionMap.class);
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Counter bytesUsed = Counter.newCounter();
+  private final BytesRefHash ids;
+  private long[] pointers;
+  private long[] versions;
+  private long[] previousPointers;
+
+  public CompactVersionMap() {
+    ids = new BytesRefHash(new ByteBlockPool(new ByteBlockPool.DirectTrackingAllocator(bytesUsed)), INITIAL_CAPACITY,
+        new BytesRefHash.DirectBytesStartArray(INITIAL_CAPACITY, bytesUsed));
+    allocateValues(INITIAL_CAPACITY);
+  }
+
+  private void allocateValues(int size) {
+    pointers = new long[size];
+    versions = new long[size];
+    previousPointers = new long[size];
+  }
+
+  @Override
+  public LogPtr get(Object key) {
+    if (!(key instanceof BytesRef)) {
+      return null;
+    }
+    int ord = ids.find((BytesRef) key);
+    if (ord < 0) {
+      return null;
+    }
+    return new LogPtr(pointers[ord], versions[ord], previousPointers[ord]);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof BytesRef && ids.find((BytesRef) key) >= 0;
+  }
+
+  /**
+   * Adds or replaces the entry for the given id.
+   *
+   * @return always null; the previous entry isn't materialized
+   */
+  @Override
+  public LogPtr put(BytesRef key, LogPtr value) {
+    int ord = ids.add(key);
+    if (ord < 0) {
+      ord = -ord - 1;
+    } else if (ord == pointers.length) {
+      int newLength = ArrayUtil.oversize(ord + 1, Long.BYTES);
+      pointers = ArrayUtil.growExact(pointers, newLength);
+      versions = ArrayUtil.growExact(versions, newLength);
+      previousPointers = ArrayUtil.growExact(previousPointers, newLength);
+    }
+    pointers[ord] = value.pointer;
+    versions[ord] = value.version;
+    previousPointers[ord] = value.previousPointer;
+    return null;
+  }
+
+  @Override
+  public int size() {
+    return ids.size();
+  }
+
+  @Override
+  public void clear() {
+    // release the memory as well, a cleared map may sit around until the next commit
+    ids.clear();
+    ids.reinit();
+    allocateValues(INITIAL_CAPACITY);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + bytesUsed.get()
+        + 3 * RamUsageEstimator.sizeOf(pointers)
+        // the hash table of the BytesRefHash
+        + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * Math.max(INITIAL_CAPACITY, 2 * ids.size());
+  }
+
+  @Override
+  public Set<Entry<BytesRef,LogPtr>> entrySet() {
+    return new AbstractSet<Entry<BytesRef,LogPtr>>() {
+      @Override
+      public Iterator<Entry<BytesRef,LogPtr>> iterator() {
+        return new Iterator<Entry<BytesRef,LogPtr>>() {
+          final int size = ids.size();
+          int ord = 0;
+
+          @Override
+          public boolean hasNext() {
+            return ord < size;
+          }
+
+          @Override
+          public Entry<BytesRef,LogPtr> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            BytesRef id = BytesRef.deepCopyOf(ids.get(ord, new BytesRef()));
+            LogPtr ptr = new LogPtr(pointers[ord], versions[ord], previousPointers[ord]);
+            ord++;
+            return new SimpleImmutableEntry<>(id, ptr);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ids.size();
+      }
+    };
+  }
+}
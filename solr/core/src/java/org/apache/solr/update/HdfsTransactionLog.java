@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import com.codahale.metrics.Histogram;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -302,6 +303,12 @@ public class HdfsTransactionLog extends TransactionLog {
     }
   }
 
+  @Override
+  public void finish(UpdateLog.SyncLevel syncLevel, long maxSyncDelayNanos, Histogram syncBatchSizes) {
+    // hsync is not group committed
+    finish(syncLevel);
+  }
+
   @Override
   public void finish(UpdateLog.SyncLevel syncLevel) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
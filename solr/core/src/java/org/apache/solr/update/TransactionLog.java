@@ -19,6 +19,7 @@ package org.apache.solr.update;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.lang.invoke.MethodHandles;
@@ -34,8 +35,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.codahale.metrics.Histogram;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
@@ -83,6 +86,12 @@ public class TransactionLog implements Closeable {
   protected volatile boolean deleteOnClose = true;  // we can delete old tlogs since they are currently only used for real-time-get (and in the future, recovery)
 
   AtomicInteger refcount = new AtomicInteger(1);
+
+  // group commit state for FSYNC, all guarded by syncLock
+  private final Object syncLock = new Object();
+  private long syncedPosition;  // everything before this position is known to be on disk
+  private boolean syncing;      // a thread is currently leading an fsync
+  private int syncWaiters;      // threads in finish(FSYNC) waiting for their position to be synced
   Map<String, Integer> globalStringMap = new HashMap<>();
   List<String> globalStringList = new ArrayList<>();
 
@@ -565,17 +574,33 @@ public class TransactionLog implements Closeable {
   }
 
   public void finish(UpdateLog.SyncLevel syncLevel) {
+    finish(syncLevel, 0, null);
+  }
+
+  /**
+   * Flushes the log and, for {@link UpdateLog.SyncLevel#FSYNC}, makes sure everything written so far is on disk.
+   * <p>
+   * Concurrent FSYNC calls are group committed: one caller performs the fsync on behalf of all callers whose
+   * data was flushed before it started, the others wait for it and return without syncing themselves. A caller
+   * whose data was already synced by someone else returns right away.
+   *
+   * @param maxSyncDelayNanos how long the fsync leader waits for more callers to join its fsync; 0 syncs immediately
+   * @param syncBatchSizes if not null, updated with the number of callers covered by each fsync
+   */
+  public void finish(UpdateLog.SyncLevel syncLevel, long maxSyncDelayNanos, Histogram syncBatchSizes) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
+      long position;
       synchronized (this) {
         fos.flushBuffer();
+        position = fos.size();
       }
 
       if (syncLevel == UpdateLog.SyncLevel.FSYNC) {
         // Since fsync is outside of synchronized block, we can end up with a partial
         // last record on power failure (which is OK, and does not represent an error...
         // we just need to be aware of it when reading).
-        raf.getFD().sync();
+        groupSync(position, maxSyncDelayNanos, syncBatchSizes);
       }
 
     } catch (IOException e) {
@@ -583,6 +608,84 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  private void groupSync(long position, long maxSyncDelayNanos, Histogram syncBatchSizes) throws IOException {
+    synchronized (syncLock) {
+      syncWaiters++;
+      try {
+        while (syncing && syncedPosition < position) {
+          syncLock.wait();
+        }
+      } catch (InterruptedException e) {
+        syncWaiters--;
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for tlog fsync: " + tlogFile);
+      }
+      if (syncedPosition >= position) {
+        // another thread synced our data while we were waiting
+        syncWaiters--;
+        return;
+      }
+      syncing = true;
+    }
+
+    long syncPosition = 0;
+    boolean synced = false;
+    try {
+      if (maxSyncDelayNanos > 0) {
+        // give concurrent updates a chance to get their data into this fsync
+        long deadline = System.nanoTime() + maxSyncDelayNanos;
+        synchronized (syncLock) {
+          long remaining;
+          while ((remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(syncLock, remaining);
+          }
+        }
+      }
+
+      int batchSize;
+      synchronized (this) {
+        fos.flushBuffer();
+        syncPosition = fos.size();
+      }
+      synchronized (syncLock) {
+        // everyone registered so far flushed before we captured syncPosition
+        batchSize = syncWaiters;
+      }
+
+      syncChannel();
+      synced = true;
+
+      if (syncBatchSizes != null) {
+        syncBatchSizes.update(batchSize);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for tlog fsync: " + tlogFile);
+    } finally {
+      synchronized (syncLock) {
+        if (synced) {
+          syncedPosition = Math.max(syncedPosition, syncPosition);
+        }
+        syncing = false;
+        syncWaiters--;
+        // wake up the callers we synced for; if the fsync failed one of them takes over
+        syncLock.notifyAll();
+      }
+    }
+  }
+
+  /** Forces the log file to disk. */
+  protected void syncChannel() throws IOException {
+    raf.getFD().sync();
+  }
+
+  // for tests
+  int getSyncWaiters() {
+    synchronized (syncLock) {
+      return syncWaiters;
+    }
+  }
+
   public void close() {
     try {
       if (debug) {
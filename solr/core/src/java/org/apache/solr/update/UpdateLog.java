@@ -48,9 +48,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.solr.common.SolrDocumentBase;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
@@ -96,6 +99,12 @@ import static org.apache.solr.update.processor.DistributingUpdateProcessorFactor
  */
 public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   private static final long STATUS_TIME = TimeUnit.NANOSECONDS.convert(60, TimeUnit.SECONDS);
+  // hash table slot, map node, BytesRef, byte[] header and LogPtr of a HashMap entry
+  private static final long HASH_MAP_ENTRY_BYTES = RamUsageEstimator.NUM_BYTES_OBJECT_REF
+      + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + Integer.BYTES)
+      + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class)
+      + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+      + RamUsageEstimator.shallowSizeOfInstance(LogPtr.class);
   public static String LOG_FILENAME_PATTERN = "%s.%019d";
   public static String TLOG_NAME="tlog";
   public static String BUFFER_TLOG_NAME="buffer.tlog";
@@ -195,6 +204,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected LinkedList<TransactionLog> newestLogsOnStartup = new LinkedList<>();
   protected int numOldRecords;  // number of records in the recent logs
 
+  protected boolean compactVersionMap = false;  // use CompactVersionMap instead of HashMap for the maps below
   protected Map<BytesRef,LogPtr> map = new HashMap<>();
   protected Map<BytesRef,LogPtr> prevMap;  // used while committing/reopening is happening
   protected Map<BytesRef,LogPtr> prevMap2;  // used while committing/reopening is happening
@@ -242,6 +252,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected VersionInfo versionInfo;
 
   protected SyncLevel defaultSyncLevel = SyncLevel.FLUSH;
+  // how long an fsync waits for concurrent updates to join it (group commit), 0 to sync right away
+  protected long fsyncMaxDelayNanos = 0;
 
   volatile UpdateHandler uhandler;    // a core reload can change this reference!
   protected volatile boolean cancelApplyBufferUpdate;
@@ -252,6 +264,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected Meter applyingBufferedOpsMeter;
   protected Meter replayOpsMeter;
   protected Meter copyOverOldUpdatesMeter;
+  protected Histogram fsyncBatchSizeHistogram;
   protected SolrMetricsContext solrMetricsContext;
 
   public static class LogPtr {
@@ -338,16 +351,31 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   public void init(PluginInfo info) {
     dataDir = (String)info.initArgs.get("dir");
     defaultSyncLevel = SyncLevel.getSyncLevel((String)info.initArgs.get("syncLevel"));
+    fsyncMaxDelayNanos = TimeUnit.NANOSECONDS.convert(objToInt(info.initArgs.get("fsyncMaxDelayMs"), 0), TimeUnit.MILLISECONDS);
+    if (fsyncMaxDelayNanos < 0)
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "fsyncMaxDelayMs must not be negative!");
 
     numRecordsToKeep = objToInt(info.initArgs.get("numRecordsToKeep"), 100);
     maxNumLogsToKeep = objToInt(info.initArgs.get("maxNumLogsToKeep"), 10);
     numVersionBuckets = objToInt(info.initArgs.get("numVersionBuckets"), 65536);
+    String versionMap = (String)info.initArgs.get("versionMap");
+    if (versionMap == null || "hash".equals(versionMap)) {
+      compactVersionMap = false;
+    } else if ("compact".equals(versionMap)) {
+      compactVersionMap = true;
+    } else {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "Unknown versionMap: " + versionMap + ", must be one of hash, compact");
+    }
+    map = newVersionMap();
     if (numVersionBuckets <= 0)
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
 
-    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
-        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets);
+    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} fsyncMaxDelayMs={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={} compactVersionMap={}",
+        dataDir, defaultSyncLevel, TimeUnit.MILLISECONDS.convert(fsyncMaxDelayNanos, TimeUnit.NANOSECONDS),
+        numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets, compactVersionMap);
   }
 
   /* Note, when this is called, uhandler is not completely constructed.
@@ -460,6 +488,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     applyingBufferedOpsMeter = solrMetricsContext.meter("ops", scope, "applyingBuffered");
     replayOpsMeter = solrMetricsContext.meter("ops", scope, "replay");
     copyOverOldUpdatesMeter = solrMetricsContext.meter("ops", scope, "copyOverOldUpdates");
+    fsyncBatchSizeHistogram = solrMetricsContext.histogram("batchSize", scope, "fsync");
+    solrMetricsContext.gauge(() -> getVersionMapSize(), true, "entries", scope, "versionMap");
+    solrMetricsContext.gauge(() -> getVersionMapRamBytesUsed(), true, "ramBytesUsed", scope, "versionMap");
     solrMetricsContext.gauge(() -> state.getValue(), true, "state", scope);
   }
 
@@ -791,7 +822,43 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     prevMap = map;
     prevMapLog = tlog;
 
-    map = new HashMap<>();
+    map = newVersionMap();
+  }
+
+  /** Returns a new, empty map for looking up the latest update of an id in the tlogs. */
+  protected Map<BytesRef,LogPtr> newVersionMap() {
+    return compactVersionMap ? new CompactVersionMap() : new HashMap<>();
+  }
+
+  /** Returns the number of entries in the id lookup maps (including the ones kept around during commits). */
+  public int getVersionMapSize() {
+    synchronized (this) {
+      int size = 0;
+      for (Map<BytesRef,LogPtr> currentMap : Arrays.asList(map, prevMap, prevMap2)) {
+        if (currentMap != null) {
+          size += currentMap.size();
+        }
+      }
+      return size;
+    }
+  }
+
+  /**
+   * Returns the heap used by the id lookup maps. For {@link HashMap}s this is an estimate that leaves out
+   * the id bytes themselves.
+   */
+  public long getVersionMapRamBytesUsed() {
+    synchronized (this) {
+      long bytes = 0;
+      for (Map<BytesRef,LogPtr> currentMap : Arrays.asList(map, prevMap, prevMap2)) {
+        if (currentMap instanceof Accountable) {
+          bytes += ((Accountable) currentMap).ramBytesUsed();
+        } else if (currentMap != null) {
+          bytes += currentMap.size() * HASH_MAP_ENTRY_BYTES;
+        }
+      }
+      return bytes;
+    }
   }
 
   private void clearOldMaps() {
@@ -870,7 +937,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       // any added documents will make it into this commit or not.
       // But we do know that any updates already added will definitely
       // show up in the latest reader after the commit succeeds.
-      map = new HashMap<>();
+      map = newVersionMap();
 
       if (debug) {
         log.debug("TLOG: preSoftCommit: prevMap={} new map={}", System.identityHashCode(prevMap), System.identityHashCode(map));
@@ -1111,7 +1178,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     }
 
     try {
-      currLog.finish(syncLevel);
+      currLog.finish(syncLevel, fsyncMaxDelayNanos, fsyncBatchSizeHistogram);
     } finally {
       currLog.decref();
     }
@@ -60,6 +60,8 @@ import org.apache.solr.parser.QueryParser;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestHandler;
 import org.apache.solr.request.json.RequestUtil;
+import org.apache.solr.response.BinaryResponseWriter;
+import org.apache.solr.response.ResultContext;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
@@ -253,10 +255,21 @@ public class SolrPluginUtils {
           fieldFilter.add(keyField.getName());
       }
 
-      // get documents
-      DocIterator iter = docs.iterator();
-      for (int i=0; i<docs.size(); i++) {
-        searcher.doc(iter.nextDoc(), fieldFilter);
+      // javabin will write these documents, fetch their strings as UTF-8 the way it would for the documentCache
+      boolean readAsBytes = req.getCore().getQueryResponseWriter(req) instanceof BinaryResponseWriter;
+      if (readAsBytes) {
+        ResultContext.READASBYTES.set(ResultContext.utf8Fields(req.getSchema()));
+      }
+      try {
+        // get documents
+        DocIterator iter = docs.iterator();
+        for (int i=0; i<docs.size(); i++) {
+          searcher.doc(iter.nextDoc(), fieldFilter);
+        }
+      } finally {
+        if (readAsBytes) {
+          ResultContext.READASBYTES.remove();
+        }
       }
 
     }
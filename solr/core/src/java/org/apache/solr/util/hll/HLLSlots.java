@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util.hll;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.cursors.IntByteCursor;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import org.apache.solr.util.LongIterator;
+
+/**
+ * A set of {@link HLL}s, one per slot, that keeps the registers of all {@link HLLType#FULL} slots in
+ * shared <code>long[]</code> pages instead of one {@link HLL} object with its own register array per slot.
+ * This is meant for faceting, where an aggregation over many buckets would otherwise create an HLL
+ * per bucket.
+ * <p>
+ * Slots behave like an HLL with an automatic explicit threshold and no sparse representation:
+ * values are kept exactly until there are more of them than the registers take space, and are then
+ * added to a block of registers in a page.  Cardinalities and serialized forms are the same as those
+ * of such an {@link HLL} with the same values.
+ *
+ * @lucene.internal
+ */
+public final class HLLSlots {
+    // number of register blocks per page
+    private static final int BLOCKS_PER_PAGE = 16;
+
+    private final int log2m;
+    private final int regwidth;
+    private final int m;
+    private final int mBitsMask;
+    private final long registerMask;
+    private final long pwMaxMask;
+    private final double alphaMSquared;
+    private final double smallEstimatorCutoff;
+    private final double largeEstimatorCutoff;
+    private final int explicitThreshold;
+    // the number of longs holding the registers of one slot, same as BitVector
+    private final int wordsPerBlock;
+
+    private final IntFunction<long[]> pageAllocator;
+    private final Consumer<long[]> pageReleaser;
+
+    // values of EXPLICIT slots, null for EMPTY and FULL slots
+    private LongHashSet[] explicit;
+    // register block of FULL slots plus one, zero for EMPTY and EXPLICIT slots
+    private int[] blocks;
+    private long[][] pages = new long[0][];
+    private int numBlocks;
+    private int numSlots;
+
+    /**
+     * @param log2m log-base-2 of the number of registers of each slot
+     * @param regwidth number of bits used per register
+     * @param numSlots the initial number of slots
+     * @param pageAllocator returns a zero filled array of the given length for a new page
+     * @param pageReleaser called with each page on {@link #close}
+     */
+    public HLLSlots(int log2m, int regwidth, int numSlots, IntFunction<long[]> pageAllocator, Consumer<long[]> pageReleaser) {
+        // let HLL validate the parameters
+        new HLL(log2m, regwidth, -1, false, HLLType.EMPTY);
+        this.log2m = log2m;
+        this.regwidth = regwidth;
+        this.m = 1 << log2m;
+        this.mBitsMask = m - 1;
+        this.registerMask = (1L << regwidth) - 1;
+        this.pwMaxMask = HLLUtil.pwMaxMask(regwidth);
+        this.alphaMSquared = HLLUtil.alphaMSquared(m);
+        this.smallEstimatorCutoff = HLLUtil.smallEstimatorCutoff(m);
+        this.largeEstimatorCutoff = HLLUtil.largeEstimatorCutoff(log2m, regwidth);
+        // NOTE:  matches the automatic threshold of HLL
+        final long fullRepresentationSize = (regwidth * (long) m + 7) / Byte.SIZE;
+        this.explicitThreshold = (int) Math.min(fullRepresentationSize / 8, HLL.MAXIMUM_EXPLICIT_THRESHOLD);
+        this.wordsPerBlock = (int) (((regwidth * (long) m) + Long.SIZE - 1) >>> 6);
+        this.pageAllocator = pageAllocator;
+        this.pageReleaser = pageReleaser;
+        this.numSlots = numSlots;
+        this.explicit = new LongHashSet[numSlots];
+        this.blocks = new int[numSlots];
+    }
+
+    /** Slots whose pages are plain arrays. */
+    public HLLSlots(int log2m, int regwidth, int numSlots) {
+        this(log2m, regwidth, numSlots, long[]::new, page -> {});
+    }
+
+    public int numSlots() {
+        return numSlots;
+    }
+
+    /** Adds a slot at the end and returns its number. */
+    public int newSlot() {
+        if (numSlots == blocks.length) {
+            int newLength = Math.max(16, numSlots << 1);
+            explicit = Arrays.copyOf(explicit, newLength);
+            blocks = Arrays.copyOf(blocks, newLength);
+        }
+        return numSlots++;
+    }
+
+    /**
+     * Changes the number of slots, moving each slot to the number given by <code>newSlot</code>, or dropping
+     * it if that is negative.  Register blocks aren't moved, so this is cheap.
+     */
+    public void resize(int newNumSlots, IntUnaryOperator newSlot) {
+        LongHashSet[] newExplicit = new LongHashSet[newNumSlots];
+        int[] newBlocks = new int[newNumSlots];
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (explicit[slot] == null && blocks[slot] == 0) continue;
+            int to = newSlot.applyAsInt(slot);
+            if (to >= 0) {
+                newExplicit[to] = explicit[slot];
+                newBlocks[to] = blocks[slot];
+            }
+        }
+        explicit = newExplicit;
+        blocks = newBlocks;
+        numSlots = newNumSlots;
+    }
+
+    /** Empties all slots, keeping the pages for reuse. */
+    public void reset() {
+        Arrays.fill(explicit, null);
+        Arrays.fill(blocks, 0);
+        numBlocks = 0;
+    }
+
+    /** Returns the pages to the page releaser.  The slots must not be used afterwards. */
+    public void close() {
+        for (long[] page : pages) {
+            pageReleaser.accept(page);
+        }
+        pages = new long[0][];
+        numBlocks = 0;
+        explicit = null;
+        blocks = null;
+    }
+
+    public boolean isEmpty(int slot) {
+        return explicit[slot] == null && blocks[slot] == 0;
+    }
+
+    /**
+     * Adds a value to a slot, see {@link HLL#addRaw(long)}.
+     *
+     * @param rawValue the value to be added.  It must already be hashed.
+     */
+    public void addRaw(int slot, long rawValue) {
+        int block = blocks[slot];
+        if (block != 0) {
+            addRawProbabilistic(block - 1, rawValue);
+            return;
+        }
+        LongHashSet values = explicit[slot];
+        if (values == null) {
+            values = explicit[slot] = new LongHashSet();
+        }
+        values.add(rawValue);
+        if (values.size() > explicitThreshold) {
+            promote(slot);
+        }
+    }
+
+    /** Adds all values of an HLL with the same parameters to a slot, see {@link HLL#union(HLL)}. */
+    public void union(int slot, HLL other) {
+        switch (other.getType()) {
+            case EMPTY:
+                return;
+            case EXPLICIT:
+                for (LongCursor c : other.explicitStorage) {
+                    addRaw(slot, c.value);
+                }
+                return;
+            case SPARSE: {
+                int block = fullBlock(slot);
+                for (IntByteCursor c : other.sparseProbabilisticStorage) {
+                    setMaxRegister(block, c.key, c.value);
+                }
+                return;
+            }
+            case FULL: {
+                BitVector registers = other.probabilisticStorage;
+                if (registers.registerWidth() != regwidth || registers.wordCount() != wordsPerBlock) {
+                    throw new IllegalArgumentException("Can't union an HLL with different parameters");
+                }
+                int block = fullBlock(slot);
+                LongIterator iter = registers.registerIterator();
+                for (int j = 0; iter.hasNext(); j++) {
+                    setMaxRegister(block, j, iter.next());
+                }
+                return;
+            }
+            default:
+                throw new RuntimeException("Unsupported HLL type " + other.getType());
+        }
+    }
+
+    /** The cardinality of a slot, see {@link HLL#cardinality()}. */
+    public long cardinality(int slot) {
+        int block = blocks[slot];
+        if (block != 0) {
+            return (long) Math.ceil(fullProbabilisticAlgorithmCardinality(block - 1));
+        }
+        LongHashSet values = explicit[slot];
+        return values == null ? 0 : values.size();
+    }
+
+    /** A new {@link HLL} with the values of a slot, for serializing with {@link HLL#toBytes()}. */
+    public HLL toHLL(int slot) {
+        int block = blocks[slot];
+        if (block != 0) {
+            HLL hll = new HLL(log2m, regwidth, -1, false, HLLType.FULL);
+            System.arraycopy(page(block - 1), offset(block - 1), hll.probabilisticStorage.words(), 0, wordsPerBlock);
+            return hll;
+        }
+        HLL hll = new HLL(log2m, regwidth, -1, false, HLLType.EMPTY);
+        LongHashSet values = explicit[slot];
+        if (values != null) {
+            for (LongCursor c : values) {
+                hll.addRaw(c.value);
+            }
+        }
+        return hll;
+    }
+
+    // ------------------------------------------------------------------------
+    // register blocks
+
+    private int fullBlock(int slot) {
+        if (blocks[slot] == 0) {
+            promote(slot);
+        }
+        return blocks[slot] - 1;
+    }
+
+    private void promote(int slot) {
+        int block = allocateBlock();
+        LongHashSet values = explicit[slot];
+        if (values != null) {
+            for (LongCursor c : values) {
+                addRawProbabilistic(block, c.value);
+            }
+            explicit[slot] = null;
+        }
+        blocks[slot] = block + 1;
+    }
+
+    private int allocateBlock() {
+        int block = numBlocks++;
+        int pageNum = block / BLOCKS_PER_PAGE;
+        if (pageNum == pages.length) {
+            pages = Arrays.copyOf(pages, pageNum + 1);
+            pages[pageNum] = pageAllocator.apply(BLOCKS_PER_PAGE * wordsPerBlock);
+        } else {
+            // pages are reused after reset()
+            int offset = offset(block);
+            Arrays.fill(pages[pageNum], offset, offset + wordsPerBlock, 0L);
+        }
+        return block;
+    }
+
+    private long[] page(int block) {
+        return pages[block / BLOCKS_PER_PAGE];
+    }
+
+    private int offset(int block) {
+        return (block % BLOCKS_PER_PAGE) * wordsPerBlock;
+    }
+
+    // NOTE:  matches HLL#addRawProbabilistic()
+    private void addRawProbabilistic(int block, long rawValue) {
+        final long substreamValue = (rawValue >>> log2m);
+        if (substreamValue == 0L) {
+            // p(0x0) is 0, which leaves the register unchanged
+            return;
+        }
+        final long p_w = 1 + BitUtil.leastSignificantBit(substreamValue | pwMaxMask);
+        setMaxRegister(block, (int) (rawValue & mBitsMask), p_w);
+    }
+
+    // NOTE:  matches BitVector#setMaxRegister(), within a block
+    private void setMaxRegister(int block, int registerIndex, long value) {
+        final long[] words = page(block);
+        final int base = offset(block);
+        final long bitIndex = (long) registerIndex * regwidth;
+        final int firstWordIndex = base + (int) (bitIndex >>> 6);
+        final int secondWordIndex = base + (int) ((bitIndex + regwidth - 1) >>> 6);
+        final int bitRemainder = (int) (bitIndex & 63);
+
+        final long registerValue;
+        if (firstWordIndex == secondWordIndex) {
+            registerValue = ((words[firstWordIndex] >>> bitRemainder) & registerMask);
+        } else {
+            registerValue = (words[firstWordIndex] >>> bitRemainder)
+                          | (words[secondWordIndex] << (Long.SIZE - bitRemainder)) & registerMask;
+        }
+
+        if (value > registerValue) {
+            if (firstWordIndex == secondWordIndex) {
+                words[firstWordIndex] &= ~(registerMask << bitRemainder);
+                words[firstWordIndex] |= (value << bitRemainder);
+            } else {
+                words[firstWordIndex] &= (1L << bitRemainder) - 1;
+                words[firstWordIndex] |= (value << bitRemainder);
+
+                words[secondWordIndex] &= ~(registerMask >>> (Long.SIZE - bitRemainder));
+                words[secondWordIndex] |= (value >>> (Long.SIZE - bitRemainder));
+            }
+        }
+    }
+
+    // NOTE:  matches HLL#fullProbabilisticAlgorithmCardinality()
+    private double fullProbabilisticAlgorithmCardinality(int block) {
+        final long[] words = page(block);
+        final int base = offset(block);
+
+        double sum = 0;
+        int numberOfZeroes = 0;
+        long bitIndex = 0;
+        for (int j = 0; j < m; j++, bitIndex += regwidth) {
+            final int firstWordIndex = base + (int) (bitIndex >>> 6);
+            final int secondWordIndex = base + (int) ((bitIndex + regwidth - 1) >>> 6);
+            final int bitRemainder = (int) (bitIndex & 63);
+            final long register;
+            if (firstWordIndex == secondWordIndex) {
+                register = (words[firstWordIndex] >>> bitRemainder) & registerMask;
+            } else {
+                register = (words[firstWordIndex] >>> bitRemainder)
+                         | (words[secondWordIndex] << (Long.SIZE - bitRemainder)) & registerMask;
+            }
+
+            sum += 1.0 / (1L << register);
+            if (register == 0L) numberOfZeroes++;
+        }
+
+        final double estimator = alphaMSquared / sum;
+        if ((numberOfZeroes != 0) && (estimator < smallEstimatorCutoff)) {
+            return HLLUtil.smallEstimator(m, numberOfZeroes);
+        } else if (estimator <= largeEstimatorCutoff) {
+            return estimator;
+        } else {
+            return HLLUtil.largeEstimator(log2m, regwidth, estimator);
+        }
+    }
+}
@@ -25,6 +25,8 @@ import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.ContentStreamBase;
 import org.apache.solr.common.util.Utils;
 import org.apache.solr.handler.loader.JsonLoader;
@@ -998,4 +1000,61 @@ public class JsonLoaderTest extends SolrTestCaseJ4 {
 
   }
 
+  @Test
+  public void testUtf8Values() throws Exception {
+    String longValue = String.join("", Collections.nCopies(3000, "\u00e9x"));
+    StringBuilder str = new StringBuilder("{'add':[");
+    int numDocs = 1000;
+    for (int i = 0; i < numDocs; i++) {
+      if (i > 0) str.append(',');
+      str.append("{'id':'").append(i).append("','foo_s':'caf\u00e9 \\\"").append(i).append("\\\" \ud83d\ude00'")
+          .append(",'bar_t':'some text','n_i':").append(i);
+      if (i == 10) {
+        str.append(",'long_s':'").append(longValue).append("'");
+      }
+      str.append('}');
+    }
+    str.append("]}");
+
+    SolrQueryRequest req = req(JsonLoader.UTF8_VALUES, "true");
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    BufferingRequestProcessor p = new BufferingRequestProcessor(null);
+    JsonLoader loader = new JsonLoader();
+    loader.load(req, rsp, new ContentStreamBase.StringStream(str.toString().replace('\'', '"')), p);
+
+    assertEquals(numDocs, p.addCommands.size());
+    for (int i = 0; i < numDocs; i++) {
+      SolrInputDocument doc = p.addCommands.get(i).solrDoc;
+      // the uniqueKey and non string fields are left alone
+      assertEquals(String.valueOf(i), doc.getFieldValue("id"));
+      assertEquals("some text", doc.getFieldValue("bar_t"));
+      assertEquals((long) i, doc.getFieldValue("n_i"));
+
+      Object foo = doc.getFieldValue("foo_s");
+      assertTrue(foo.getClass().getName(), foo instanceof ByteArrayUtf8CharSequence);
+      assertEquals("caf\u00e9 \"" + i + "\" \ud83d\ude00", foo.toString());
+    }
+    Object longField = p.addCommands.get(10).solrDoc.getFieldValue("long_s");
+    assertTrue(longField instanceof ByteArrayUtf8CharSequence);
+    assertEquals(longValue, longField.toString());
+    req.close();
+
+    // without the parameter all strings stay Strings
+    req = req();
+    p = new BufferingRequestProcessor(null);
+    loader.load(req, rsp, new ContentStreamBase.StringStream("{'add':{'doc':{'id':'1','foo_s':'x'}}}".replace('\'', '"')), p);
+    assertEquals("x", p.addCommands.get(0).solrDoc.getFieldValue("foo_s"));
+    req.close();
+
+    // and the values make it into the index
+    ModifiableSolrParams params = params(JsonLoader.UTF8_VALUES, "true");
+    updateJ(json("[{'id':'utf8-1','foo_s':'caf\u00e9','bar_t':'hello'}]"), params);
+    assertU(commit());
+    assertJQ(req("q", "foo_s:caf\u00e9", "fl", "id,foo_s"),
+        "/response/numFound==1",
+        "/response/docs/[0]/foo_s=='caf\u00e9'");
+    assertU(delQ("id:utf8-1"));
+    assertU(commit());
+  }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class LatencyAwareReplicaListTransformerTest extends SolrTestCase {
+
+  private static final String FAST = "http://host1:8983/solr/c1_shard1_replica_n1/";
+  private static final String SLOW = "http://host2:8983/solr/c1_shard1_replica_n2/";
+  private static final String OTHER = "http://host3:8983/solr/c1_shard1_replica_n3/";
+
+  private static void addRequests(ReplicaLatencyTracker tracker, String url, int count, long latencyMs) {
+    for (int i = 0; i < count; i++) {
+      tracker.requestStarted(url).finish(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+  }
+
+  @Test
+  public void testScores() {
+    ReplicaLatencyTracker tracker = new ReplicaLatencyTracker(60000);
+    assertEquals(ReplicaLatencyTracker.LATENCY_FLOOR_NANOS, tracker.getScore(FAST), 0);
+
+    addRequests(tracker, FAST, 10, 5);
+    addRequests(tracker, SLOW, 10, 500);
+    assertTrue(tracker.getScore(FAST) > 0);
+    assertTrue(tracker.getScore(SLOW) > tracker.getScore(FAST));
+    // the scheme and trailing slash don't matter
+    assertEquals(tracker.getScore("host2:8983/solr/c1_shard1_replica_n2"), tracker.getScore(SLOW), tracker.getScore(SLOW) / 100);
+
+    // in-flight requests make a replica less attractive, and cancelled ones release it without a sample
+    double idle = tracker.getScore(FAST);
+    List<ReplicaLatencyTracker.InFlightRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      requests.add(tracker.requestStarted(FAST));
+    }
+    assertTrue(tracker.getScore(FAST) > 3 * idle);
+    for (ReplicaLatencyTracker.InFlightRequest request : requests) {
+      request.cancel();
+      request.finish(TimeUnit.SECONDS.toNanos(10)); // no effect after cancel
+    }
+    assertEquals(idle, tracker.getScore(FAST), idle / 100);
+
+    // a single slow response is reflected immediately
+    addRequests(tracker, FAST, 1, 1000);
+    assertTrue(tracker.getScore(FAST) > tracker.getScore(SLOW));
+  }
+
+  @Test
+  public void testScoreDecays() throws Exception {
+    ReplicaLatencyTracker tracker = new ReplicaLatencyTracker(10);
+    addRequests(tracker, SLOW, 1, 500);
+    double score = tracker.getScore(SLOW);
+    Thread.sleep(50);
+    assertTrue(tracker.getScore(SLOW) < score / 2);
+  }
+
+  @Test
+  public void testTransform() {
+    ReplicaLatencyTracker tracker = new ReplicaLatencyTracker(60000);
+    addRequests(tracker, FAST, 10, 5);
+    addRequests(tracker, SLOW, 10, 500);
+    LatencyAwareReplicaListTransformer transformer = new LatencyAwareReplicaListTransformer(tracker, random());
+
+    for (int i = 0; i < 20; i++) {
+      List<String> choices = new ArrayList<>(Arrays.asList(SLOW, FAST));
+      transformer.transform(choices);
+      assertEquals(Arrays.asList(FAST, SLOW), choices);
+    }
+
+    // with three replicas the slow one may still be picked as one of the two choices, but never first
+    int fastFirst = 0;
+    for (int i = 0; i < 100; i++) {
+      List<String> choices = new ArrayList<>(Arrays.asList(SLOW, FAST, OTHER));
+      transformer.transform(choices);
+      assertEquals(3, choices.size());
+      assertNotEquals(SLOW, choices.get(0));
+      if (FAST.equals(choices.get(0))) {
+        fastFirst++;
+      }
+    }
+    // OTHER has no samples yet and scores the average latency, between FAST and SLOW
+    assertTrue(fastFirst < 100);
+  }
+
+  @Test
+  public void testUnobservedReplicas() {
+    ReplicaLatencyTracker tracker = new ReplicaLatencyTracker(60000);
+    // without any samples, requests in flight still count
+    List<ReplicaLatencyTracker.InFlightRequest> requests = new ArrayList<>();
+    requests.add(tracker.requestStarted(OTHER));
+    assertTrue(tracker.getScore(OTHER) > tracker.getScore(FAST));
+
+    // a replica that hasn't responded yet is assumed to be as fast as the average one
+    addRequests(tracker, FAST, 10, 10);
+    addRequests(tracker, SLOW, 10, 30);
+    double average = TimeUnit.MILLISECONDS.toNanos(20) + ReplicaLatencyTracker.LATENCY_FLOOR_NANOS;
+    assertEquals(2 * average, tracker.getScore(OTHER), average / 100);
+    for (int i = 0; i < 4; i++) {
+      requests.add(tracker.requestStarted(OTHER));
+    }
+    // so piling requests onto it makes it less attractive than a replica with known latency
+    assertTrue(tracker.getScore(OTHER) > tracker.getScore(SLOW));
+    for (ReplicaLatencyTracker.InFlightRequest request : requests) {
+      request.cancel();
+    }
+  }
+
+  @Test
+  public void testPrune() throws Exception {
+    ReplicaLatencyTracker tracker = new ReplicaLatencyTracker(5);
+    ReplicaLatencyTracker.InFlightRequest inFlight = tracker.requestStarted(SLOW);
+    addRequests(tracker, FAST, 1, 5);
+    Thread.sleep(100);
+
+    // the idle replica is removed along with its latency, but not one with requests in flight, nor one that
+    // was just added even though it has no samples and nothing in flight
+    tracker.requestStarted(OTHER).cancel();
+    tracker.prune(System.nanoTime());
+    assertEquals(2, tracker.size());
+    assertEquals(ReplicaLatencyTracker.LATENCY_FLOOR_NANOS, tracker.getScore(FAST), 0);
+
+    Thread.sleep(100);
+    tracker.prune(System.nanoTime());
+    assertEquals(1, tracker.size());
+
+    inFlight.finish(TimeUnit.MILLISECONDS.toNanos(5));
+    tracker.prune(System.nanoTime());
+    assertEquals(1, tracker.size());
+  }
+}
@@ -20,17 +20,21 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.impl.LBSolrClient;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.PluginInfo;
 import org.apache.solr.handler.component.HttpShardHandlerFactory.WhitelistHostChecker;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -135,6 +139,47 @@ public class TestHttpShardHandlerFactory extends SolrTestCaseJ4 {
     }
   }
   
+  @Test
+  public void testHedgeDelay() throws Exception {
+    try (HttpShardHandlerFactory factory = new HttpShardHandlerFactory()) {
+      factory.init(new PluginInfo("shardHandlerFactory", Collections.emptyMap()));
+      factory.recordShardLatency(TimeUnit.MILLISECONDS.toNanos(100));
+      assertEquals("hedging is disabled by default", -1, factory.getHedgeDelayNanos());
+    }
+
+    NamedList<Object> args = new NamedList<>();
+    args.add("hedgePercentile", 90f);
+    args.add("hedgeMinDelayMs", 5);
+    try (HttpShardHandlerFactory factory = new HttpShardHandlerFactory()) {
+      factory.init(new PluginInfo("shardHandlerFactory", Collections.emptyMap(), args, null));
+      for (int i = 1; i < HttpShardHandlerFactory.HEDGE_MIN_SAMPLES; i++) {
+        factory.recordShardLatency(TimeUnit.MILLISECONDS.toNanos(i));
+      }
+      assertEquals("too few samples to hedge", -1, factory.getHedgeDelayNanos());
+      factory.recordShardLatency(TimeUnit.MILLISECONDS.toNanos(100));
+
+      long delayMs = TimeUnit.NANOSECONDS.toMillis(factory.getHedgeDelayNanos());
+      assertTrue("delayMs=" + delayMs, delayMs >= 85 && delayMs <= 95);
+    }
+
+    args = new NamedList<>();
+    args.add("hedgePercentile", 99f);
+    args.add("hedgeMinDelayMs", 50);
+    try (HttpShardHandlerFactory factory = new HttpShardHandlerFactory()) {
+      factory.init(new PluginInfo("shardHandlerFactory", Collections.emptyMap(), args, null));
+      for (int i = 0; i < HttpShardHandlerFactory.HEDGE_MIN_SAMPLES; i++) {
+        factory.recordShardLatency(TimeUnit.MILLISECONDS.toNanos(1));
+      }
+      assertEquals(TimeUnit.MILLISECONDS.toNanos(50), factory.getHedgeDelayNanos());
+    }
+
+    NamedList<Object> invalidArgs = new NamedList<>();
+    invalidArgs.add("hedgePercentile", 100f);
+    try (HttpShardHandlerFactory factory = new HttpShardHandlerFactory()) {
+      expectThrows(SolrException.class, () -> factory.init(new PluginInfo("shardHandlerFactory", Collections.emptyMap(), invalidArgs, null)));
+    }
+  }
+
   @Test
   public void testLiveNodesToHostUrl() throws Exception {
     Set<String> liveNodes = new HashSet<>(Arrays.asList(new String[]{
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
+import org.apache.solr.client.solrj.util.AsyncListener;
+import org.apache.solr.client.solrj.util.Cancellable;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.PluginInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Hedged shard requests against replicas whose latency and outcome are scripted, see {@link ScriptedLBClient}.
+ */
+public class TestHttpShardHandlerHedging extends SolrTestCaseJ4 {
+
+  private static final long HEDGE_DELAY_MS = 100;
+  // long enough to never complete within a test unless waited for
+  private static final long SLOW_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private HttpShardHandlerFactory factory;
+  private ScriptedLBClient lbClient;
+  private String shard;
+  private String first, second;
+
+  @Before
+  public void setUpFactory() {
+    NamedList<Object> args = new NamedList<>();
+    args.add("hedgePercentile", 50f);
+    args.add("hedgeMinDelayMs", 5);
+    factory = new HttpShardHandlerFactory();
+    factory.init(new PluginInfo("shardHandlerFactory", Collections.emptyMap(), args, null));
+    for (int i = 0; i < HttpShardHandlerFactory.HEDGE_MIN_SAMPLES; i++) {
+      factory.recordShardLatency(TimeUnit.MILLISECONDS.toNanos(HEDGE_DELAY_MS));
+    }
+    factory.loadbalancer.close();
+    lbClient = new ScriptedLBClient();
+    factory.loadbalancer = lbClient;
+
+    shard = "host1:8983/solr/collection1|host2:8983/solr/collection1";
+    List<String> urls = factory.buildURLList(shard);
+    first = urls.get(0);
+    second = urls.get(1);
+  }
+
+  @After
+  public void tearDownFactory() {
+    lbClient.shutdown();
+    factory.close();
+  }
+
+  @Test
+  public void testHedgeWins() {
+    lbClient.replica(first, SLOW_MS, false);
+    lbClient.replica(second, 0, false);
+
+    ShardResponse rsp = request();
+    assertNull(rsp.getException());
+    assertEquals(second, rsp.getShardAddress());
+    assertEquals(second, rsp.getSolrResponse().getResponse().get("server"));
+
+    assertEquals(2, lbClient.requests.size());
+    assertTrue("the slower request is cancelled", lbClient.requests.get(0).cancelled);
+    assertFalse(lbClient.requests.get(1).cancelled);
+    assertEquals(1, factory.hedgedRequests.sum());
+    assertEquals(1, factory.hedgeWins.sum());
+  }
+
+  @Test
+  public void testPrimaryWinsOverHedge() {
+    lbClient.replica(first, HEDGE_DELAY_MS * 3, false);
+    lbClient.replica(second, SLOW_MS, false);
+
+    ShardResponse rsp = request();
+    assertNull(rsp.getException());
+    assertEquals(first, rsp.getShardAddress());
+
+    assertEquals(2, lbClient.requests.size());
+    assertFalse(lbClient.requests.get(0).cancelled);
+    assertTrue("the slower hedge is cancelled", lbClient.requests.get(1).cancelled);
+    assertEquals(1, factory.hedgedRequests.sum());
+    assertEquals(0, factory.hedgeWins.sum());
+  }
+
+  @Test
+  public void testFailureWaitsForTheOtherRequest() {
+    lbClient.replica(first, HEDGE_DELAY_MS * 2, true);
+    lbClient.replica(second, HEDGE_DELAY_MS * 4, false);
+
+    // the primary fails while the hedge is running, which still succeeds
+    ShardResponse rsp = request();
+    assertNull(rsp.getException());
+    assertEquals(second, rsp.getShardAddress());
+    assertEquals(1, factory.hedgeWins.sum());
+  }
+
+  @Test
+  public void testFailureOnceEveryRequestFailed() {
+    lbClient.replica(first, HEDGE_DELAY_MS * 2, true);
+    lbClient.replica(second, HEDGE_DELAY_MS * 4, true);
+
+    ShardResponse rsp = request();
+    assertNotNull(rsp.getException());
+    // the failure of the request that failed last is reported, so the response waited for both
+    assertEquals(second + " failed", rsp.getException().getMessage());
+    assertTrue(lbClient.requests.get(0).completed);
+    assertTrue(lbClient.requests.get(1).completed);
+  }
+
+  @Test
+  public void testNoHedgeAfterCompletion() throws Exception {
+    lbClient.replica(first, 0, false);
+    lbClient.replica(second, 0, false);
+
+    ShardResponse rsp = request();
+    assertEquals(first, rsp.getShardAddress());
+    // give a hedge that wasn't cancelled the time to be sent
+    Thread.sleep(HEDGE_DELAY_MS * 3);
+    assertEquals(1, lbClient.requests.size());
+    assertEquals(0, factory.hedgedRequests.sum());
+
+    lbClient.replica(first, 0, true);
+    lbClient.requests.clear();
+    rsp = request();
+    assertNotNull(rsp.getException());
+    Thread.sleep(HEDGE_DELAY_MS * 3);
+    assertEquals("no hedge once the only request failed", 1, lbClient.requests.size());
+    assertEquals(0, factory.hedgedRequests.sum());
+  }
+
+  private ShardResponse request() {
+    ShardHandler shardHandler = factory.getShardHandler();
+    ShardRequest sreq = new ShardRequest();
+    sreq.purpose = ShardRequest.PURPOSE_GET_TOP_IDS;
+    sreq.actualShards = new String[] {shard};
+    shardHandler.submit(sreq, shard, new ModifiableSolrParams());
+    return shardHandler.takeCompletedIncludingErrors();
+  }
+
+  /**
+   * Answers each request from the replica it was sent to first, after the delay configured for that replica,
+   * and records whether the request was cancelled before.
+   */
+  private static class ScriptedLBClient extends LBHttp2SolrClient {
+    final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+    final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+    final ScheduledExecutorService scheduler =
+        new ScheduledThreadPoolExecutor(2, new SolrNamedThreadFactory("scriptedReplica"));
+
+    ScriptedLBClient() {
+      super(null);
+    }
+
+    void replica(String url, long delayMs, boolean fails) {
+      replicas.put(url, new Replica(delayMs, fails));
+    }
+
+    void shutdown() {
+      ExecutorUtil.shutdownNowAndAwaitTermination(scheduler);
+    }
+
+    @Override
+    public Cancellable asyncReq(Req req, AsyncListener<Rsp> listener) {
+      final String url = req.getServers().get(0);
+      final Replica replica = replicas.get(url);
+      final Request request = new Request();
+      requests.add(request);
+      listener.onStart();
+      ScheduledFuture<?> response = scheduler.schedule(() -> {
+        request.completed = true;
+        if (replica.fails) {
+          listener.onFailure(new SolrException(SolrException.ErrorCode.SERVER_ERROR, url + " failed"));
+        } else {
+          NamedList<Object> nl = new SimpleOrderedMap<>();
+          nl.add("server", url);
+          listener.onSuccess(new Rsp() {
+            {
+              server = url;
+              rsp = nl;
+            }
+          });
+        }
+      }, replica.delayMs, TimeUnit.MILLISECONDS);
+      return () -> {
+        request.cancelled = true;
+        response.cancel(false);
+      };
+    }
+  }
+
+  private static class Replica {
+    final long delayMs;
+    final boolean fails;
+
+    Replica(long delayMs, boolean fails) {
+      this.delayMs = delayMs;
+      this.fails = fails;
+    }
+  }
+
+  private static class Request {
+    volatile boolean completed;
+    volatile boolean cancelled;
+  }
+}
@@ -782,6 +782,40 @@ public class TestExportWriter extends SolrTestCaseJ4 {
     assertTrue("wrong exception message", doc.get(StreamParams.EXCEPTION).toString().contains("Must have useDocValuesAsStored='true'"));
   }
 
+  @Test
+  public void testBuffersAndParallelFill() throws Exception {
+    assertU(delQ("*:*"));
+    assertU(commit());
+    int numDocs = 2000;
+    for (int i = 0; i < numDocs; i++) {
+      assertU(adoc("id", String.valueOf(i),
+          "stringdv", TestUtil.randomSimpleString(random(), 1, 2),
+          "intdv", String.valueOf(random().nextInt(50))));
+      if (i % 150 == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    // small batches and segment queues so that every segment is collected in many passes
+    // and many buffers travel between the filler and the writer
+    String expected = h.query(req("q", "*:*", "qt", "/export", "fl", "id,stringdv,intdv", "sort", "stringdv asc,intdv desc",
+        "batchSize", "37", "queueSize", "100", "bufferCount", "2", "parallelFill", "false"));
+    for (String bufferCount : new String[] {"2", "3", "7"}) {
+      String actual = h.query(req("q", "*:*", "qt", "/export", "fl", "id,stringdv,intdv", "sort", "stringdv asc,intdv desc",
+          "batchSize", "37", "queueSize", "100", "bufferCount", bufferCount, "parallelFill", "true"));
+      assertJsonEquals(actual, expected);
+    }
+    assertJsonEquals(h.query(req("q", "*:*", "qt", "/export", "fl", "id,stringdv,intdv", "sort", "stringdv asc,intdv desc")),
+        expected);
+
+    String expr = "top(n=5,input(),sort=\"intdv asc\")";
+    expected = h.query(req("q", "*:*", "qt", "/export", "fl", "id,intdv", "sort", "intdv desc,id asc", "expr", expr,
+        "batchSize", "11", "queueSize", "100", "bufferCount", "2", "parallelFill", "false"));
+    assertJsonEquals(h.query(req("q", "*:*", "qt", "/export", "fl", "id,intdv", "sort", "intdv desc,id asc", "expr", expr,
+        "batchSize", "11", "queueSize", "100", "bufferCount", "5", "parallelFill", "true")), expected);
+  }
+
   @SuppressWarnings("rawtypes")
   private void validateSort(int numDocs) throws Exception {
     // 10 fields
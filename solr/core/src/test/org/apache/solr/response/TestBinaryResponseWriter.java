@@ -24,8 +24,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
+import org.apache.lucene.document.Document;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrDocument;
@@ -35,12 +37,15 @@ import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.ByteUtils;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.Utf8CharSequence;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.BinaryResponseWriter.Resolver;
+import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrReturnFields;
 import org.apache.solr.util.SimplePostTool;
 import org.junit.BeforeClass;
+import org.noggit.JSONUtil;
 
 /**
  * Test for BinaryResponseWriter
@@ -120,6 +125,80 @@ public class TestBinaryResponseWriter extends SolrTestCaseJ4 {
     req.close();
   }
 
+  public void testDocBatches() throws Exception {
+    assertU(adoc("id", "201", "uuid", UUID.randomUUID().toString().toLowerCase(Locale.ROOT)));
+    assertU(adoc("id", "202"));
+    assertU(commit());
+
+    try {
+      SolrDocumentList v2 = writeAndRead("id:(201 OR 202)", "2");
+      SolrDocumentList v3 = writeAndRead("id:(201 OR 202)", "3");
+      assertEquals(2, v3.size());
+      assertEquals(v2.getNumFound(), v3.getNumFound());
+      for (int i = 0; i < v2.size(); i++) {
+        assertEquals(v2.get(i).getFieldNames(), v3.get(i).getFieldNames());
+        for (String field : v2.get(i).getFieldNames()) {
+          assertEquals(v2.get(i).getFieldValue(field), v3.get(i).getFieldValue(field));
+        }
+      }
+    } finally {
+      // testUUID expects every document in the index to have its uuid
+      assertU(delQ("id:(201 OR 202)"));
+      assertU(commit());
+    }
+  }
+
+  public void testUtf8StoredFieldsInDocumentCache() throws Exception {
+    final String val = "q\"b\\s\n\t \u00e9\u20ac\ud83d\ude00\u2028";
+    assertU(adoc("id", "301", "uuid", UUID.randomUUID().toString().toLowerCase(Locale.ROOT), "name", val, "val_s", val));
+    assertU(commit());
+
+    try {
+      // javabin fetches the stored values of the document it puts in the documentCache as UTF-8
+      try (SolrQueryRequest req = req("q", "id:301", "fl", "name,val_s", "wt", "javabin")) {
+        SolrQueryResponse rsp = h.queryAndResponse(null, req);
+        SolrDocument doc = ((SolrDocumentList) BinaryResponseWriter.getParsedResponse(req, rsp).get("response")).get(0);
+        assertEquals(val, doc.getFirstValue("name").toString());
+        assertEquals(val, doc.getFirstValue("val_s").toString());
+      }
+      h.getCore().withSearcher(searcher -> {
+        SolrCache<Integer,Document> documentCache = searcher.getDocFetcher().getDocumentCache();
+        assertNotNull(documentCache);
+        Document cached = documentCache.get(searcher.getFirstMatch(new Term("id", "301")));
+        assertNotNull(cached);
+        assertTrue(cached.getField("name").getCharSequenceValue() instanceof Utf8CharSequence);
+        assertTrue(cached.getField("val_s").getCharSequenceValue() instanceof Utf8CharSequence);
+        return null;
+      });
+
+      // the text writers read the cached values back as Strings
+      assertJQ(req("q", "id:301", "fl", "name,val_s"),
+          "/response/docs/[0]/name==" + JSONUtil.toJSON(val),
+          "/response/docs/[0]/val_s==[" + JSONUtil.toJSON(val) + "]");
+      assertQ(req("q", "id:301", "fl", "name,val_s"),
+          "//str[@name='name'][.='" + val + "']",
+          "//arr[@name='val_s']/str[.='" + val + "']");
+    } finally {
+      assertU(delI("301"));
+      assertU(commit());
+    }
+  }
+
+  private SolrDocumentList writeAndRead(String q, String version) throws Exception {
+    try (SolrQueryRequest req = req("q", q, "sort", "id asc", "fl", "id,uuid", CommonParams.VERSION, version)) {
+      SolrQueryResponse rsp = h.queryAndResponse(null, req);
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ((BinaryQueryResponseWriter) h.getCore().getQueryResponseWriter("javabin")).write(baos, req, rsp);
+      byte[] bytes = baos.toByteArray();
+      assertEquals(Byte.parseByte(version), bytes[0]);
+      try (JavaBinCodec jbc = new JavaBinCodec()) {
+        @SuppressWarnings({"rawtypes"})
+        NamedList res = (NamedList) jbc.unmarshal(new ByteArrayInputStream(bytes));
+        return (SolrDocumentList) res.get("response");
+      }
+    }
+  }
+
   public void testOmitHeader() throws Exception {
     SolrQueryRequest req = req("q", "*:*", "omitHeader", "true");
     SolrQueryResponse rsp = h.queryAndResponse(null, req);
@@ -21,13 +21,16 @@ package org.apache.solr.response;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.JavabinTupleStreamParser;
 import org.apache.solr.client.solrj.io.stream.StreamContext;
@@ -37,6 +40,7 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamExplanation;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.StreamParams;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.common.util.Utils;
@@ -100,48 +104,7 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     l.add(Utils.makeMap("id", 2, "f", 2.0f, "s", "Some str 2"));
     l.add(Utils.makeMap("id", 3, "f", 1.0f, "s", "Some str 3"));
     l.add(Utils.makeMap("EOF", true, "RESPONSE_TIME", 206, "sleepMillis", 1000));
-    Iterator<Map<String, Object>> iterator = l.iterator();
-    TupleStream tupleStream = new TupleStream() {
-      @Override
-      public void setStreamContext(StreamContext context) {
-
-      }
-
-      @Override
-      public List<TupleStream> children() {
-        return null;
-      }
-
-      @Override
-      public void open() throws IOException {
-      }
-
-      @Override
-      public void close() throws IOException {
-      }
-
-      @Override
-      public Tuple read() throws IOException {
-        if (iterator.hasNext()) return new Tuple(iterator.next());
-        else return null;
-      }
-
-      @Override
-      public StreamComparator getStreamSort() {
-        return null;
-      }
-
-      @Override
-      public Explanation toExplanation(StreamFactory factory) throws IOException {
-        return new StreamExplanation(getStreamNodeId().toString())
-            .withFunctionName("Dummy")
-            .withImplementingClass(this.getClass().getName())
-            .withExpressionType(Explanation.ExpressionType.STREAM_SOURCE)
-            .withExpression("--non-expressible--");
-      }
-    };
-
-    byte[] bytes = serialize(tupleStream);
+    byte[] bytes = serialize(tupleStream(l));
     JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), true);
     @SuppressWarnings({"rawtypes"})
     Map m = parser.next();
@@ -194,6 +157,180 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     }
 
   }
+  public void testBatch() throws IOException {
+    List<Map<String, Object>> l = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      // negative ints and longs are written as INT and LONG, the others as SINT and SLONG
+      l.add(Utils.makeMap("id", i - 2, "f", i + 0.5f, "l", (i - 2) * (1L << 40), "d", i + 0.25, "s", "str " + i,
+          "dt", new Date(1000L * i)));
+    }
+    byte[] bytes = serialize(tupleStream(l));
+
+    for (boolean onlyJsonTypes : new boolean[]{true, false}) {
+      TupleBatch batch = new TupleBatch(2);
+      int count = 0;
+      try (JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), onlyJsonTypes)) {
+        boolean more;
+        do {
+          batch.clear();
+          more = parser.next(batch);
+          assertEquals(more, batch.isFull());
+          for (int row = 0; row < batch.size(); row++, count++) {
+            int i = count;
+            if (onlyJsonTypes) {
+              assertEquals(TupleBatch.Type.LONG, batch.getColumn("id").getType());
+              assertEquals(i - 2, batch.getColumn("id").getLong(row));
+              assertEquals(TupleBatch.Type.DOUBLE, batch.getColumn("f").getType());
+              assertEquals(i + 0.5, batch.getColumn("f").getDouble(row), 0.0);
+              assertEquals(Instant.ofEpochMilli(1000L * i).toString(), batch.getColumn("dt").get(row));
+            } else {
+              assertEquals(TupleBatch.Type.OBJECT, batch.getColumn("id").getType());
+              assertEquals(i - 2, batch.getColumn("id").get(row));
+              assertEquals(TupleBatch.Type.OBJECT, batch.getColumn("f").getType());
+              assertEquals(i + 0.5f, batch.getColumn("f").get(row));
+              assertEquals(new Date(1000L * i), batch.getColumn("dt").get(row));
+            }
+            assertEquals(TupleBatch.Type.LONG, batch.getColumn("l").getType());
+            assertEquals((i - 2) * (1L << 40), batch.getColumn("l").getLong(row));
+            assertEquals(TupleBatch.Type.DOUBLE, batch.getColumn("d").getType());
+            assertEquals(i + 0.25, batch.getColumn("d").getDouble(row), 0.0);
+            assertEquals("str " + i, batch.getColumn("s").get(row));
+          }
+        } while (more);
+      }
+      assertEquals(l.size(), count);
+    }
+  }
+
+  public void testBatchEOF() throws IOException {
+    List<Map<String, Object>> l = new ArrayList<>();
+    l.add(Utils.makeMap("id", 1L, "s", "Some str 1"));
+    l.add(Utils.makeMap("id", 2L, "s", "Some str 2"));
+    l.add(Utils.makeMap("EOF", true, "RESPONSE_TIME", 206));
+    byte[] bytes = serialize(tupleStream(l));
+
+    // the server's EOF tuple is read into the batch like any other, the stream has to look for it
+    TupleBatch batch = new TupleBatch(10);
+    try (JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), true)) {
+      assertFalse(parser.next(batch));
+    }
+    assertEquals(3, batch.size());
+    TupleBatch.Column eof = batch.getColumn(StreamParams.EOF);
+    assertFalse(eof.isSet(0));
+    assertFalse(eof.isSet(1));
+    assertEquals(Boolean.TRUE, eof.get(2));
+    assertEquals(206L, batch.getColumn("RESPONSE_TIME").get(2));
+    assertNull(batch.getColumn(StreamParams.EXCEPTION));
+
+    Tuple tuple = batch.getTuple(2);
+    batch.truncate(2);
+    assertEquals(2, batch.size());
+    assertEquals(2L, batch.getColumn("id").getLong(1));
+    assertTrue(tuple.EOF);
+  }
+
+  public void testBatchException() throws IOException {
+    List<Map<String, Object>> l = new ArrayList<>();
+    l.add(Utils.makeMap("id", 1L));
+    l.add(Utils.makeMap("EXCEPTION", "Some error", "EOF", true));
+    byte[] bytes = serialize(tupleStream(l));
+
+    TupleBatch batch = new TupleBatch(10);
+    try (JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), true)) {
+      assertFalse(parser.next(batch));
+    }
+    assertEquals(2, batch.size());
+    TupleBatch.Column exception = batch.getColumn(StreamParams.EXCEPTION);
+    assertNull(exception.get(0));
+    assertEquals("Some error", exception.get(1));
+    assertEquals("Some error", batch.getTuple(1).getException());
+  }
+
+  public void testBatchSolrDocumentList() throws IOException {
+    SolrQueryResponse response = new SolrQueryResponse();
+    SolrDocumentList l = constructSolrDocList(response);
+    byte[] bytes = serialize(response.getValues());
+
+    for (boolean onlyJsonTypes : new boolean[]{true, false}) {
+      List<Map<String, Object>> maps = new ArrayList<>();
+      try (JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), onlyJsonTypes)) {
+        Map<String, Object> m;
+        while ((m = parser.next()) != null) {
+          maps.add(m);
+        }
+      }
+      assertEquals(l.size(), maps.size());
+
+      List<Tuple> tuples = new ArrayList<>();
+      TupleBatch batch = new TupleBatch(3);
+      try (JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), onlyJsonTypes)) {
+        boolean more;
+        do {
+          batch.clear();
+          more = parser.next(batch);
+          for (int row = 0; row < batch.size(); row++) {
+            tuples.add(batch.getTuple(row));
+          }
+        } while (more);
+      }
+      assertEquals(maps.size(), tuples.size());
+      for (int i = 0; i < maps.size(); i++) {
+        Map<Object, Object> fields = tuples.get(i).getFields();
+        assertEquals(maps.get(i).keySet(), fields.keySet());
+        for (Map.Entry<String, Object> e : maps.get(i).entrySet()) {
+          if (e.getValue() instanceof byte[]) {
+            assertArrayEquals((byte[]) e.getValue(), (byte[]) fields.get(e.getKey()));
+          } else {
+            assertEquals(e.getValue(), fields.get(e.getKey()));
+          }
+        }
+      }
+    }
+  }
+
+  private static TupleStream tupleStream(List<Map<String, Object>> l) {
+    Iterator<Map<String, Object>> iterator = l.iterator();
+    return new TupleStream() {
+      @Override
+      public void setStreamContext(StreamContext context) {
+
+      }
+
+      @Override
+      public List<TupleStream> children() {
+        return null;
+      }
+
+      @Override
+      public void open() throws IOException {
+      }
+
+      @Override
+      public void close() throws IOException {
+      }
+
+      @Override
+      public Tuple read() throws IOException {
+        if (iterator.hasNext()) return new Tuple(iterator.next());
+        else return null;
+      }
+
+      @Override
+      public StreamComparator getStreamSort() {
+        return null;
+      }
+
+      @Override
+      public Explanation toExplanation(StreamFactory factory) throws IOException {
+        return new StreamExplanation(getStreamNodeId().toString())
+            .withFunctionName("Dummy")
+            .withImplementingClass(this.getClass().getName())
+            .withExpressionType(Explanation.ExpressionType.STREAM_SOURCE)
+            .withExpression("--non-expressible--");
+      }
+    };
+  }
+
   @SuppressWarnings({"unchecked"})
   public static byte[] serialize(Object o) throws IOException {
     SolrQueryResponse response = new SolrQueryResponse();
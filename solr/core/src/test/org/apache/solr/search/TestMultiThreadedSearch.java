@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+
+import com.codahale.metrics.Histogram;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.BeforeClass;
+
+public class TestMultiThreadedSearch extends SolrTestCaseJ4 {
+
+  private final static int NUM_SEGMENTS = 30;
+  private final static int DOCS_PER_SEGMENT = 20;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // we need many segments so that the searcher has more than one leaf slice
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig.xml", "schema.xml");
+
+    int id = 0;
+    for (int seg = 0; seg < NUM_SEGMENTS; seg++) {
+      for (int i = 0; i < DOCS_PER_SEGMENT; i++, id++) {
+        assertU(adoc("id", String.valueOf(id),
+            "field1_s", "foo",
+            "field2_s", String.valueOf(id % 3),
+            "field3_i", String.valueOf(random().nextInt(1000)),
+            "field4_t", id % 7 == 0 ? "hello hello world" : "hello world"));
+      }
+      assertU(commit());
+    }
+  }
+
+  public void testTopDocs() throws IOException {
+    assertSameResults(new TermQuery(new Term("field4_t", "hello")), null, 10, false, SolrIndexSearcher.GET_SCORES);
+    assertSameResults(new TermQuery(new Term("field2_s", "1")), null, 50, false, 0);
+    assertSameResults(new TermQuery(new Term("field1_s", "foo")),
+        new Sort(new SortField("field3_i", SortField.Type.INT), SortField.FIELD_DOC), 25, false, 0);
+    assertSameResults(new TermQuery(new Term("field4_t", "hello")),
+        new Sort(new SortField("field3_i", SortField.Type.INT, true), SortField.FIELD_DOC), 25, false,
+        SolrIndexSearcher.GET_SCORES);
+  }
+
+  public void testTopDocsAndDocSet() throws IOException {
+    assertSameResults(new TermQuery(new Term("field4_t", "hello")), null, 10, true, SolrIndexSearcher.GET_SCORES);
+    assertSameResults(new TermQuery(new Term("field2_s", "2")),
+        new Sort(new SortField("field3_i", SortField.Type.INT), SortField.FIELD_DOC), 10, true, 0);
+  }
+
+  public void testCountsOnly() throws IOException {
+    assertSameResults(new TermQuery(new Term("field4_t", "hello")), null, 0, false, SolrIndexSearcher.GET_SCORES);
+    assertSameResults(new TermQuery(new Term("field2_s", "0")), null, 0, false, 0);
+    assertSameResults(new TermQuery(new Term("field2_s", "0")), null, 0, true, 0);
+  }
+
+  public void testDocSetOfRequest() throws Exception {
+    assertU(adoc("id", "multiThreadedDocSet", "field2_s", "docset"));
+    assertU(commit());
+    long parallelSearches = getParallelSlicesHistogram().getCount();
+    // a boolean filter isn't a single TermQuery, so its DocSet is collected by the generic, now parallel, path
+    assertQ(req("q", "*:*", "fq", "field2_s:(0 OR docset)", "multiThreaded", "true", "rows", "0")
+        , "//result[@numFound='" + (1 + (NUM_SEGMENTS * DOCS_PER_SEGMENT + 2) / 3) + "']");
+    assertTrue(getParallelSlicesHistogram().getCount() > parallelSearches);
+  }
+
+  public void testFacetCountsPerSegment() throws Exception {
+    // perSeg forces the segment-local counting that multiThreaded spreads over the collector executor
+    final String facet = "{f:{type:terms, field:field2_s, method:dv, perSeg:true, limit:-1, sort:'index asc'}}";
+    final String expected = "facets=={count:600, f:{buckets:[{val:'0',count:200},{val:'1',count:200},{val:'2',count:200}]}}";
+    assertJQ(req("q", "field1_s:foo", "rows", "0", "json.facet", facet), expected);
+    assertJQ(req("q", "field1_s:foo", "rows", "0", "json.facet", facet, "multiThreaded", "true"), expected);
+    assertJQ(req("q", "field1_s:foo", "fq", "field4_t:hello", "rows", "0", "multiThreaded", "true", "json.facet",
+        "{f:{type:terms, field:field2_s, method:dv, perSeg:true, limit:1, sort:'count desc', domain:{filter:'field2_s:1'}}}"),
+        "facets=={count:600, f:{buckets:[{val:'1',count:200}]}}");
+  }
+
+  private Histogram getParallelSlicesHistogram() {
+    return h.getCore().getSolrMetricsContext().getMetricRegistry().histogram("SEARCHER.searcher.parallelSlices");
+  }
+
+  private void assertSameResults(Query query, Sort sort, int len, boolean needDocSet, int flags) throws IOException {
+    try (SolrQueryRequest req = req()) {
+      SolrIndexSearcher searcher = req.getSearcher();
+      long parallelSearches = getParallelSlicesHistogram().getCount();
+
+      QueryResult sequential = search(searcher, query, sort, len, needDocSet, flags, false);
+      assertEquals(parallelSearches, getParallelSlicesHistogram().getCount());
+      QueryResult parallel = search(searcher, query, sort, len, needDocSet, flags, true);
+      assertEquals(parallelSearches + 1, getParallelSlicesHistogram().getCount());
+
+      DocList expected = sequential.getDocList();
+      DocList actual = parallel.getDocList();
+      assertEquals(expected.matches(), actual.matches());
+      assertEquals(expected.hitCountRelation(), actual.hitCountRelation());
+      assertEquals(expected.size(), actual.size());
+      if ((flags & SolrIndexSearcher.GET_SCORES) != 0) {
+        assertEquals(expected.maxScore(), actual.maxScore(), 0f);
+      }
+      DocIterator expectedIt = expected.iterator();
+      DocIterator actualIt = actual.iterator();
+      while (expectedIt.hasNext()) {
+        assertEquals(expectedIt.nextDoc(), actualIt.nextDoc());
+        if ((flags & SolrIndexSearcher.GET_SCORES) != 0) {
+          assertEquals(expectedIt.score(), actualIt.score(), 0f);
+        }
+      }
+      if (needDocSet) {
+        assertEquals(sequential.getDocSet().size(), parallel.getDocSet().size());
+        assertEquals(sequential.getDocSet().size(), sequential.getDocSet().intersectionSize(parallel.getDocSet()));
+      }
+    }
+  }
+
+  private QueryResult search(SolrIndexSearcher searcher, Query query, Sort sort, int len, boolean needDocSet,
+                             int flags, boolean multiThreaded) throws IOException {
+    QueryCommand cmd = new QueryCommand()
+        .setQuery(query)
+        .setSort(sort)
+        .setLen(len)
+        .setSupersetMaxDoc(len)
+        .setFlags(flags | SolrIndexSearcher.NO_CHECK_QCACHE | SolrIndexSearcher.NO_SET_QCACHE)
+        .setNeedDocSet(needDocSet)
+        .setMultiThreaded(multiThreaded);
+    QueryResult result = new QueryResult();
+    searcher.search(result, cmd);
+    return result;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.junit.Test;
+
+/**
+ * Test for {@link NodeFilterCache}.
+ */
+public class TestNodeFilterCache extends SolrTestCase {
+
+  SolrMetricManager metricManager = new SolrMetricManager();
+  String registry = TestUtil.randomSimpleString(random(), 2, 10);
+  String scope = TestUtil.randomSimpleString(random(), 2, 10);
+
+  private static CacheConfig config(String autowarmCount) {
+    Map<String,String> args = new HashMap<>();
+    args.put("name", "filterCache");
+    if (autowarmCount != null) {
+      args.put("autowarmCount", autowarmCount);
+    }
+    return new CacheConfig(CaffeineCache.class, args, new NoOpRegenerator());
+  }
+
+  private static Query query(int i) {
+    return new TermQuery(new Term("f", "v" + i));
+  }
+
+  private static DocSet docSet(int numBits) {
+    return new BitDocSet(new FixedBitSet(numBits));
+  }
+
+  private static NodeFilterCache.SearcherFilterCache searcherCache(NodeFilterCache nodeCache, String core,
+                                                                    CacheConfig config) {
+    return (NodeFilterCache.SearcherFilterCache) nodeCache.newSearcherCache(core, config);
+  }
+
+  @Test
+  public void testSearchersDoNotShareEntries() throws IOException {
+    NodeFilterCache nodeCache = new NodeFilterCache(10);
+    NodeFilterCache.SearcherFilterCache core1 = searcherCache(nodeCache, "core1", config(null));
+    NodeFilterCache.SearcherFilterCache core2 = searcherCache(nodeCache, "core2", config(null));
+
+    DocSet set1 = docSet(100);
+    DocSet set2 = docSet(200);
+    core1.put(query(1), set1);
+    assertNull(core2.get(query(1)));
+    core2.put(query(1), set2);
+    assertSame(set1, core1.get(query(1)));
+    assertSame(set2, core2.get(query(1)));
+    assertSame(set2, core2.computeIfAbsent(query(1), q -> docSet(300)));
+    assertEquals(2, nodeCache.size());
+    assertEquals(1, core1.size());
+    assertTrue(core1.ramBytesUsed() > 0);
+
+    core1.close();
+    assertEquals(0, core1.size());
+    assertEquals(0, core1.ramBytesUsed());
+    assertEquals(1, nodeCache.size());
+    assertSame(set2, core2.get(query(1)));
+
+    assertNotNull(core2.remove(query(1)));
+    assertEquals(0, core2.size());
+    assertEquals(0, core2.ramBytesUsed());
+    nodeCache.close();
+  }
+
+  @Test
+  public void testMemoryBudgetIsShared() throws IOException {
+    NodeFilterCache nodeCache = new NodeFilterCache(1);
+    SolrMetricsContext solrMetricsContext = new SolrMetricsContext(metricManager, registry, "foo");
+    NodeFilterCache.SearcherFilterCache busy = searcherCache(nodeCache, "busy", config(null));
+    NodeFilterCache.SearcherFilterCache idle = searcherCache(nodeCache, "idle", config(null));
+    busy.initializeMetrics(solrMetricsContext, scope + "-busy");
+    idle.initializeMetrics(solrMetricsContext, scope + "-idle");
+
+    // each set takes 128KB, so the busy core alone can use most of the 1MB budget
+    idle.put(query(0), docSet(1 << 20));
+    for (int i = 0; i < 20; i++) {
+      busy.put(query(i), docSet(1 << 20));
+    }
+
+    assertTrue(nodeCache.ramBytesUsed() <= 1024 * 1024 + 1024);
+    assertTrue(busy.size() > 1);
+    assertEquals(nodeCache.size(), busy.size() + idle.size());
+
+    Map<String,Object> busyStats = busy.getMetricsMap().getValue();
+    Map<String,Object> idleStats = idle.getMetricsMap().getValue();
+    long evictions = (Long) busyStats.get("evictions") + (Long) idleStats.get("evictions");
+    assertEquals(21 - nodeCache.size(), evictions);
+    assertEquals(20L, busyStats.get("inserts"));
+    assertEquals(1, busyStats.get(SolrCache.MAX_RAM_MB_PARAM));
+
+    // clearing one core, including the keys of its evicted entries, leaves the other core's entries alone
+    int idleSize = idle.size();
+    busy.clear();
+    assertEquals(0, busy.size());
+    assertEquals(0, busy.ramBytesUsed());
+    assertEquals(idleSize, nodeCache.size());
+    busy.put(query(0), docSet(100));
+    assertEquals(idleSize + 1, nodeCache.size());
+    nodeCache.close();
+  }
+
+  @Test
+  public void testWarming() throws IOException {
+    NodeFilterCache nodeCache = new NodeFilterCache(10);
+    SolrMetricsContext solrMetricsContext = new SolrMetricsContext(metricManager, registry, "foo");
+    NodeFilterCache.SearcherFilterCache oldSearcher = searcherCache(nodeCache, "core", config("2"));
+    NodeFilterCache.SearcherFilterCache other = searcherCache(nodeCache, "other", config(null));
+    for (int i = 0; i < 5; i++) {
+      oldSearcher.put(query(i), docSet(100));
+      other.put(query(i), docSet(100));
+    }
+    assertNotNull(oldSearcher.get(query(3)));
+
+    NodeFilterCache.SearcherFilterCache newSearcher = searcherCache(nodeCache, "core", config("2"));
+    newSearcher.initializeMetrics(solrMetricsContext, scope);
+    newSearcher.warm(null, oldSearcher);
+    oldSearcher.close();
+
+    assertEquals(2, newSearcher.size());
+    assertEquals(7, nodeCache.size());
+    Map<String,Object> stats = newSearcher.getMetricsMap().getValue();
+    assertEquals(0L, stats.get("inserts"));
+    assertEquals(5L, stats.get("cumulative_inserts"));
+    assertEquals(1L, stats.get("cumulative_lookups"));
+    nodeCache.close();
+  }
+}
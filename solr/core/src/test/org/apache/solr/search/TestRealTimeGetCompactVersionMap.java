@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.update.UpdateLog;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Real-time get and optimistic concurrency with the UpdateLog's <code>versionMap</code> set to
+ * <code>compact</code>, so that versions are looked up in {@link org.apache.solr.update.CompactVersionMap}s.
+ */
+public class TestRealTimeGetCompactVersionMap extends TestRTGBase {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solr.ulog.versionMap", "compact");
+    initCore("solrconfig-tlog.xml","schema_latest.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.ulog.versionMap");
+  }
+
+  @Test
+  public void testCompactVersionMapInUse() throws Exception {
+    clearIndex();
+    assertU(commit());
+    UpdateLog ulog = h.getCore().getUpdateHandler().getUpdateLog();
+    // unlike an empty HashMap, an empty CompactVersionMap accounts for its preallocated arrays
+    assertEquals(0, ulog.getVersionMapSize());
+    assertTrue(ulog.getVersionMapRamBytesUsed() > 0);
+
+    assertU(adoc("id", "1"));
+    assertU(adoc("id", "2"));
+    assertEquals(2, ulog.getVersionMapSize());
+  }
+
+  @Test
+  public void testGetRealtime() throws Exception {
+    clearIndex();
+    assertU(commit());
+
+    // enough ids for the map to grow a few times
+    int numDocs = 1000;
+    long[] versions = new long[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      versions[i] = addAndGetVersion(sdoc("id", Integer.toString(i), "val_i", Integer.toString(i)), null);
+    }
+    assertJQ(req("q","*:*"), "/response/numFound==0");
+    for (int i = 0; i < numDocs; i += 37) {
+      assertJQ(req("qt","/get", "id",Integer.toString(i), "fl","id,val_i,_version_")
+          ,"=={'doc':{'id':'" + i + "', val_i:" + i + ", '_version_':" + versions[i] + "}}"
+      );
+    }
+
+    // after a soft commit the versions are found in the previous map
+    assertU(commit("softCommit","true"));
+    for (int i = 1; i < numDocs; i += 2) {
+      versions[i] = addAndGetVersion(sdoc("id", Integer.toString(i), "val_i", Integer.toString(-i)), null);
+    }
+    for (int i = 0; i < numDocs; i += 37) {
+      assertJQ(req("qt","/get", "id",Integer.toString(i), "fl","id,val_i,_version_")
+          ,"=={'doc':{'id':'" + i + "', val_i:" + (i % 2 == 0 ? i : -i) + ", '_version_':" + versions[i] + "}}"
+      );
+    }
+
+    deleteAndGetVersion("3", null);
+    assertJQ(req("qt","/get","id","3"), "=={'doc':null}");
+
+    // once committed, the versions come from the index
+    assertU(commit());
+    assertJQ(req("q","*:*"), "/response/numFound==" + (numDocs - 1));
+    assertJQ(req("qt","/get","id","3"), "=={'doc':null}");
+    assertJQ(req("qt","/get","id","5", "fl","id,val_i,_version_")
+        ,"=={'doc':{'id':'5', val_i:-5, '_version_':" + versions[5] + "}}"
+    );
+  }
+
+  @Test
+  public void testOptimisticLocking() throws Exception {
+    clearIndex();
+    assertU(commit());
+
+    final long version = addAndGetVersion(sdoc("id","1"), null);
+    for (int i = 2; i < 200; i++) {
+      addAndGetVersion(sdoc("id", Integer.toString(i)), null);
+    }
+
+    SolrException se = expectThrows(SolrException.class, "version should cause an error",
+        () -> addAndGetVersion(sdoc("id","1", "_version_", Long.toString(version-1)), null));
+    assertEquals("version should cause a conflict", 409, se.code());
+
+    // the document exists in the update log only
+    se = expectThrows(SolrException.class, "negative version should cause a conflict",
+        () -> addAndGetVersion(sdoc("id","1"), params("_version_", "-1")));
+    assertEquals("version should cause a conflict", 409, se.code());
+
+    se = expectThrows(SolrException.class, "document does not exist should cause an error",
+        () -> deleteAndGetVersion("I_do_not_exist", params("_version_", Long.toString(version))));
+    assertEquals("version should cause a conflict", 409, se.code());
+
+    long version2 = addAndGetVersion(sdoc("id","1", "_version_", Long.toString(version)), null);
+    assertTrue(version2 > version);
+
+    // the previous version is gone, across a soft commit too
+    assertU(commit("softCommit","true"));
+    se = expectThrows(SolrException.class, "overwriting previous version should fail",
+        () -> addAndGetVersion(sdoc("id","1"), params("_version_", Long.toString(version))));
+    assertEquals(409, se.code());
+
+    final long prevVersion = version2;
+    version2 = deleteAndGetVersion("1", params("_version_", Long.toString(prevVersion)));
+    assertTrue(version2 < 0);
+
+    se = expectThrows(SolrException.class, "overwriting the deleted doc should fail",
+        () -> addAndGetVersion(sdoc("id","1"), params("_version_", Long.toString(prevVersion))));
+    assertEquals(409, se.code());
+
+    // a document that must not exist can be added now that it's deleted
+    version2 = addAndGetVersion(sdoc("id","1"), params("_version_", "-1"));
+    assertTrue(version2 > prevVersion);
+    assertJQ(req("qt","/get","id","1")
+        ,"=={'doc':{'id':'1','_version_':" + version2 + "}}"
+    );
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestSegmentFacetCountCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    System.setProperty("solr.segmentFacetCountCache.enabled", "true");
+    // the assertions count segments
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig.xml", "schema_latest.xml");
+  }
+
+  @AfterClass
+  public static void afterTests() {
+    System.clearProperty("solr.segmentFacetCountCache.enabled");
+    systemClearPropertySolrTestsMergePolicyFactory();
+  }
+
+  private static long metric(String name) {
+    SolrCache<SegmentFacetCountKey,int[]> cache = h.getCore().getSegmentFacetCountCache();
+    return ((Number) ((CaffeineCache<SegmentFacetCountKey,int[]>) cache).getMetricsMap().getValue().get(name)).longValue();
+  }
+
+  private static void assertFacets(String q, String fq, String expectedJson, String... expectedXPaths) throws Exception {
+    assertJQ(req("q", q, "fq", fq, "rows", "0",
+        "json.facet", "{cat:{type:terms, field:cat_sd, method:dv}, tags:{type:terms, field:tags_sds, method:dv}}"),
+        expectedJson);
+    assertQ(req("q", q, "fq", fq, "rows", "0", "facet", "true", "facet.method", "fc", "facet.missing", "true",
+        "facet.field", "cat_sd", "facet.field", "tags_sds"),
+        expectedXPaths);
+  }
+
+  @Test
+  public void testOnlyNewSegmentsAreCounted() throws Exception {
+    clearIndex();
+    assertU(adoc("id", "1", "cat_sd", "a", "tags_sds", "x", "tags_sds", "y", "type_s", "t"));
+    assertU(adoc("id", "2", "cat_sd", "a", "tags_sds", "x", "type_s", "t"));
+    assertU(adoc("id", "3", "cat_sd", "b", "type_s", "t"));
+    assertU(commit());
+    assertU(adoc("id", "4", "cat_sd", "b", "tags_sds", "y", "type_s", "t"));
+    assertU(adoc("id", "5", "tags_sds", "z", "type_s", "u"));
+    assertU(commit());
+
+    long inserts = metric("inserts");
+    long hits = metric("hits");
+    assertFacets("*:*", "type_s:t",
+        "facets=={count:4, cat:{buckets:[{val:a,count:2},{val:b,count:2}]}, tags:{buckets:[{val:x,count:2},{val:y,count:2}]}}",
+        "//lst[@name='cat_sd']/int[@name='a'][.='2']",
+        "//lst[@name='cat_sd']/int[@name='b'][.='2']",
+        "//lst[@name='cat_sd']/int[not(@name)][.='0']",
+        "//lst[@name='tags_sds']/int[@name='x'][.='2']",
+        "//lst[@name='tags_sds']/int[@name='y'][.='2']",
+        "//lst[@name='tags_sds']/int[not(@name)][.='1']");
+
+    // both kinds of faceting share the counts of each (segment, field, domain)
+    assertEquals(inserts + 4, metric("inserts"));
+    assertEquals(hits + 4, metric("hits"));
+    inserts = metric("inserts");
+    hits = metric("hits");
+
+    // after a commit only the new segment is counted
+    assertU(adoc("id", "6", "cat_sd", "c", "tags_sds", "x", "type_s", "t"));
+    assertU(commit());
+    assertFacets("*:*", "type_s:t",
+        "facets=={count:5, cat:{buckets:[{val:a,count:2},{val:b,count:2},{val:c,count:1}]}, tags:{buckets:[{val:x,count:3},{val:y,count:2}]}}",
+        "//lst[@name='cat_sd']/int[@name='c'][.='1']",
+        "//lst[@name='tags_sds']/int[@name='x'][.='3']");
+    assertEquals(inserts + 2, metric("inserts"));
+    assertEquals(hits + 2 + 6, metric("hits"));
+
+    // deletes change the counts of a segment
+    assertU(delI("1"));
+    assertU(commit());
+    assertFacets("*:*", "type_s:t",
+        "facets=={count:4, cat:{buckets:[{val:b,count:2},{val:a,count:1},{val:c,count:1}]}, tags:{buckets:[{val:x,count:2},{val:y,count:1}]}}",
+        "//lst[@name='cat_sd']/int[@name='a'][.='1']",
+        "//lst[@name='tags_sds']/int[@name='y'][.='1']");
+
+    // other domains are cached separately
+    assertFacets("id:[3 TO 6]", "type_s:t",
+        "facets=={count:3, cat:{buckets:[{val:b,count:2},{val:c,count:1}]}, tags:{buckets:[{val:x,count:1},{val:y,count:1}]}}",
+        "//lst[@name='cat_sd']/int[@name='b'][.='2']",
+        "//lst[@name='tags_sds']/int[@name='x'][.='1']");
+  }
+
+  @Test
+  public void testUncachedDomains() throws Exception {
+    clearIndex();
+    assertU(adoc("id", "1", "cat_sd", "a"));
+    assertU(adoc("id", "2", "cat_sd", "b"));
+    assertU(commit());
+
+    long inserts = metric("inserts");
+    // cache=false, excluded filters and sub-domains aren't the query's domain
+    assertJQ(req("q", "*:*", "rows", "0", "cache", "false",
+        "json.facet", "{cat:{type:terms, field:cat_sd, method:dv}}"),
+        "facets=={count:2, cat:{buckets:[{val:a,count:1},{val:b,count:1}]}}");
+    assertJQ(req("q", "*:*", "fq", "{!tag=c}cat_sd:a", "rows", "0",
+        "json.facet", "{cat:{type:terms, field:cat_sd, method:dv, perSeg:true, domain:{excludeTags:c}}}"),
+        "facets=={count:1, cat:{buckets:[{val:a,count:1},{val:b,count:1}]}}");
+    assertQ(req("q", "*:*", "fq", "{!tag=c}cat_sd:a", "rows", "0", "facet", "true", "facet.method", "fc",
+        "facet.field", "{!ex=c}cat_sd"),
+        "//lst[@name='cat_sd']/int[@name='b'][.='1']");
+    assertEquals(inserts, metric("inserts"));
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Query;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestSegmentFilterCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    System.setProperty("solr.segmentFilterCache.enabled", "true");
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterTests() {
+    System.clearProperty("solr.segmentFilterCache.enabled");
+  }
+
+  private static long hits(SegmentFilterCache cache) {
+    return (Long) ((CaffeineCache<SegmentFilterKey,DocIdSet>) cache.getCache()).getMetricsMap().getValue().get("hits");
+  }
+
+  @Test
+  public void testSameAsTopLevelDocSet() throws Exception {
+    clearIndex();
+    for (int i = 0; i < 30; i++) {
+      assertU(adoc("id", Integer.toString(i), "val_s", Integer.toString(i % 3)));
+      if (i == 14) {
+        assertU(commit());
+      }
+    }
+    assertU(delI("4"));
+    assertU(delI("5"));
+    assertU(commit());
+
+    SegmentFilterCache cache = h.getCore().getSegmentFilterCache();
+    assertNotNull(cache);
+
+    String[] queries = {
+        "val_s:0",
+        "val_s:[0 TO 1]",
+        "id:[10 TO 20]",
+        "val_s:2 OR id:7",
+        "val_s:nomatch"
+    };
+
+    SolrQueryRequest req = req();
+    try {
+      SolrIndexSearcher searcher = req.getSearcher();
+      int numLeaves = searcher.getIndexReader().leaves().size();
+      for (String qstr : queries) {
+        Query q = QParser.getParser(qstr, req).getQuery();
+        DocSet expected = DocSetUtil.createDocSet(searcher, q, null);
+        DocSet bySegment = DocSetUtil.createDocSetBySegment(searcher, q, cache);
+        assertEquals(qstr, expected.size(), bySegment.size());
+        assertTrue(qstr, DocSetUtil.equals(expected, bySegment));
+
+        // the second time every segment comes from the cache
+        long hitsBefore = hits(cache);
+        bySegment = DocSetUtil.createDocSetBySegment(searcher, q, cache);
+        assertTrue(qstr, DocSetUtil.equals(expected, bySegment));
+        assertEquals(qstr, hitsBefore + numLeaves, hits(cache));
+      }
+    } finally {
+      req.close();
+    }
+  }
+
+  @Test
+  public void testDeletesAfterCaching() throws Exception {
+    clearIndex();
+    for (int i = 0; i < 10; i++) {
+      assertU(adoc("id", Integer.toString(i), "val_s", "x"));
+    }
+    assertU(commit());
+    assertQ(req("q", "*:*", "fq", "val_s:x"), "//*[@numFound='10']");
+
+    // the new searcher warms val_s:x from the cached segment plus the new one
+    assertU(adoc("id", "10", "val_s", "x"));
+    assertU(commit());
+    assertQ(req("q", "*:*", "fq", "val_s:x"), "//*[@numFound='11']");
+
+    // deleting doesn't change the segment's cache key, live docs must still be applied
+    assertU(delI("3"));
+    assertU(commit());
+    assertQ(req("q", "*:*", "fq", "val_s:x"), "//*[@numFound='10']");
+    assertQ(req("q", "*:*", "fq", "-val_s:x"), "//*[@numFound='0']");
+  }
+
+  @Test
+  public void testClosedSegmentsArePurged() throws Exception {
+    clearIndex();
+    for (int i = 0; i < 30; i++) {
+      assertU(adoc("id", Integer.toString(i), "val_s", Integer.toString(i % 3)));
+      if (i % 10 == 9) {
+        assertU(commit());
+      }
+    }
+
+    SegmentFilterCache cache = h.getCore().getSegmentFilterCache();
+    String[] queries = {"id:[0 TO 12]", "val_s:1 AND id:[5 TO 25]"};
+    List<Object> segmentKeys = new ArrayList<>();
+    List<Query> parsed = new ArrayList<>();
+    SolrQueryRequest req = req();
+    try {
+      SolrIndexSearcher searcher = req.getSearcher();
+      for (LeafReaderContext ctx : searcher.getIndexReader().leaves()) {
+        segmentKeys.add(ctx.reader().getCoreCacheHelper().getKey());
+      }
+      assertTrue(segmentKeys.size() > 1);
+      for (String qstr : queries) {
+        Query q = QParser.getParser(qstr, req).getQuery();
+        parsed.add(q);
+        DocSetUtil.createDocSetBySegment(searcher, q, cache);
+      }
+    } finally {
+      req.close();
+    }
+    for (Object segmentKey : segmentKeys) {
+      for (Query q : parsed) {
+        assertNotNull(cache.get(new SegmentFilterKey(segmentKey, q)));
+      }
+    }
+
+    // fully deleted segments are dropped and closed once their last searcher is gone
+    assertU(delQ("*:*"));
+    assertU(commit());
+    for (Object segmentKey : segmentKeys) {
+      for (Query q : parsed) {
+        assertNull(q.toString(), cache.get(new SegmentFilterKey(segmentKey, q)));
+      }
+    }
+  }
+
+  @Test
+  public void testCloseClearsSegmentIndex() throws Exception {
+    clearIndex();
+    for (int i = 0; i < 10; i++) {
+      assertU(adoc("id", Integer.toString(i), "val_s", "x"));
+    }
+    assertU(commit());
+
+    // a cache of its own, as the segments of the core's index outlive it like they outlive a reloaded core
+    CaffeineCache<SegmentFilterKey,DocIdSet> caffeineCache = new CaffeineCache<>();
+    caffeineCache.init(new HashMap<>(Map.of("size", "10")), null, null);
+    SegmentFilterCache cache = new SegmentFilterCache(caffeineCache);
+    SolrQueryRequest req = req();
+    try {
+      SolrIndexSearcher searcher = req.getSearcher();
+      Query q = QParser.getParser("val_s:x", req).getQuery();
+      DocSetUtil.createDocSetBySegment(searcher, q, cache);
+      assertEquals(searcher.getIndexReader().leaves().size(), cache.getSegmentCount());
+      assertEquals(cache.getSegmentCount(), caffeineCache.size());
+
+      cache.close();
+      assertEquals(0, cache.getSegmentCount());
+      assertNull(cache.getCache());
+      assertNull(cache.get(new SegmentFilterKey(searcher.getIndexReader().leaves().get(0).reader().getCoreCacheHelper().getKey(), q)));
+      // a closed cache is still usable, it just doesn't cache anymore
+      assertEquals(10, DocSetUtil.createDocSetBySegment(searcher, q, cache).size());
+      assertEquals(0, cache.getSegmentCount());
+    } finally {
+      req.close();
+    }
+  }
+}
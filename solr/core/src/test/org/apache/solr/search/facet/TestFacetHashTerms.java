@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Faceting on string docValues terms with {@link FacetFieldProcessorByHashTerms}, picked automatically
+ * when the domain is much smaller than the number of unique terms.
+ */
+public class TestFacetHashTerms extends SolrTestCaseJ4 {
+
+  private static final String DOMAIN = "id:(3 7 103 107 150)";
+  private static int origTableSize;
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    // several segments, with terms repeated across them
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig.xml", "schema_latest.xml");
+
+    origTableSize = FacetFieldProcessorByHashTerms.MAXIMUM_STARTING_TABLE_SIZE;
+    FacetFieldProcessorByHashTerms.MAXIMUM_STARTING_TABLE_SIZE = 2; // stress test resizing
+
+    for (int i = 0; i < 200; i++) {
+      assertU(adoc("id", String.valueOf(i), "num_i", String.valueOf(i),
+          "cat_sd", "v" + (i % 100), "cat_sds", "v" + (i % 100), "cat_sds", "w" + (i % 7)));
+      if (i % 50 == 49) {
+        assertU(commit());
+      }
+    }
+  }
+
+  @AfterClass
+  public static void afterTests() {
+    FacetFieldProcessorByHashTerms.MAXIMUM_STARTING_TABLE_SIZE = origTableSize;
+  }
+
+  @Test
+  public void testPicked() throws Exception {
+    assertJQ(req("q", DOMAIN, "rows", "0", "debugQuery", "true",
+        "json.facet", "{c:{type:terms, field:cat_sd, method:smart}}"),
+        "debug/facet-trace/sub-facet/[0]/processor=='FacetFieldProcessorByHashTerms'");
+
+    // a domain that isn't sparse uses ordinals
+    assertJQ(req("q", "*:*", "rows", "0", "debugQuery", "true",
+        "json.facet", "{c:{type:terms, field:cat_sd, method:smart}}"),
+        "debug/facet-trace/sub-facet/[0]/processor=='FacetFieldProcessorByArrayDV'");
+  }
+
+  @Test
+  public void testSingleValued() throws Exception {
+    for (String method : new String[] {"smart", "dv"}) {
+      assertJQ(req("q", DOMAIN, "rows", "0",
+          "json.facet", "{c:{type:terms, field:cat_sd, method:" + method + ", numBuckets:true, allBuckets:true,"
+              + " facet:{x:'sum(num_i)'}}}"),
+          "facets=={count:5, c:{numBuckets:3, allBuckets:{count:5, x:470.0},"
+              + " buckets:[{val:v3, count:2, x:106.0}, {val:v7, count:2, x:114.0}, {val:v50, count:1, x:150.0}]}}");
+
+      assertJQ(req("q", DOMAIN, "rows", "0",
+          "json.facet", "{c:{type:terms, field:cat_sd, method:" + method + ", sort:'index desc', limit:2,"
+              + " facet:{q:{type:query, q:'num_i:[100 TO *]'}}}}"),
+          "facets=={count:5, c:{buckets:[{val:v7, count:2, q:{count:1}}, {val:v50, count:1, q:{count:1}}]}}");
+    }
+  }
+
+  @Test
+  public void testMultiValued() throws Exception {
+    for (String method : new String[] {"smart", "dv"}) {
+      assertJQ(req("q", DOMAIN, "rows", "0",
+          "json.facet", "{c:{type:terms, field:cat_sds, method:" + method + ", sort:'index asc', limit:-1}}"),
+          "facets=={count:5, c:{buckets:[{val:v3, count:2}, {val:v50, count:1}, {val:v7, count:2},"
+              + " {val:w0, count:1}, {val:w2, count:1}, {val:w3, count:2}, {val:w5, count:1}]}}");
+    }
+  }
+}
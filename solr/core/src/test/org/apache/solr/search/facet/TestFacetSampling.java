@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Faceting over a sample of the domain with the <code>sample</code> option.
+ */
+public class TestFacetSampling extends SolrTestCaseJ4 {
+
+  private static final int NUM_DOCS = 1000;
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    // docids are the order the docs were added in, so the test can tell which docs are sampled
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig.xml", "schema_latest.xml");
+
+    for (int i = 0; i < NUM_DOCS; i++) {
+      assertU(adoc("id", String.valueOf(i), "cat_s", cat(i), "num_i", String.valueOf(i)));
+    }
+    assertU(commit());
+  }
+
+  private static String cat(int doc) {
+    return doc % 3 == 0 ? "a" : "b";
+  }
+
+  @Test
+  public void testInSample() {
+    int sampled = 0;
+    for (int doc = 0; doc < 100_000; doc++) {
+      if (FacetSampling.inSample(doc, 0.1)) {
+        sampled++;
+        assertTrue(FacetSampling.inSample(doc, 0.5));
+      }
+      assertTrue(FacetSampling.inSample(doc, 1.0));
+    }
+    assertTrue("sampled " + sampled, sampled > 9_000 && sampled < 11_000);
+  }
+
+  @Test
+  public void testFullSample() throws Exception {
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{c:{type:terms, field:cat_s, sample:1.0, sort:'index asc'}}"),
+        "facets=={count:" + NUM_DOCS + ", c:{buckets:[{val:a, count:334}, {val:b, count:666}]}}");
+  }
+
+  @Test
+  public void testScaledCounts() throws Exception {
+    final double rate = 0.25;
+    long total = 0, a = 0, b = 0;
+    double sum = 0, aSum = 0;
+    for (int doc = 0; doc < NUM_DOCS; doc++) {
+      if (FacetSampling.inSample(doc, rate)) {
+        total++;
+        sum += doc;
+        if ("a".equals(cat(doc))) {
+          a++;
+          aSum += doc;
+        } else {
+          b++;
+        }
+      }
+    }
+
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{q:{type:query, q:'*:*', sample:0.25, facet:{x:'sum(num_i)', y:'avg(num_i)'}}}"),
+        "facets=={count:" + NUM_DOCS + ", q:{count:" + (total * 4) + ", countError:" + err(total, rate)
+            + ", x:" + (sum * 4) + ", y:" + (sum / total) + "}}");
+
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{c:{type:terms, field:cat_s, sample:0.25, sort:'index asc', facet:{x:'sum(num_i)'}}}"),
+        "facets=={count:" + NUM_DOCS + ", c:{buckets:["
+            + "{val:a, count:" + (a * 4) + ", countError:" + err(a, rate) + ", x:" + (aSum * 4) + "},"
+            + "{val:b, count:" + (b * 4) + ", countError:" + err(b, rate) + ", x:" + ((sum - aSum) * 4) + "}]}}");
+
+    // a nested sample is taken from the parent's sample, and scaled for both
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{q:{type:query, q:'*:*', sample:0.5, facet:{c:{type:terms, field:cat_s, sample:0.5, sort:'index asc'}}}}"),
+        "facets/q/c=={buckets:["
+            + "{val:a, count:" + (a * 4) + ", countError:" + err(a, rate) + "},"
+            + "{val:b, count:" + (b * 4) + ", countError:" + err(b, rate) + "}]}");
+  }
+
+  @Test
+  public void testMincount() throws Exception {
+    final double rate = 0.25;
+    long a = 0;
+    for (int doc = 0; doc < NUM_DOCS; doc++) {
+      if (FacetSampling.inSample(doc, rate) && "a".equals(cat(doc))) {
+        a++;
+      }
+    }
+
+    // mincount applies to the estimated counts, not to the counts in the sample
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{c:{type:terms, field:cat_s, sample:0.25, sort:'count asc', limit:1, mincount:" + (a * 4) + "}}"),
+        "facets/c/buckets/[0]/val=='a'");
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{c:{type:terms, field:cat_s, sample:0.25, sort:'count asc', limit:1, mincount:" + (a * 4 + 1) + "}}"),
+        "facets/c/buckets/[0]/val=='b'");
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{q:{type:query, q:'*:*', sample:0.5, facet:{c:{type:range, field:num_i, start:0, end:" + NUM_DOCS
+            + ", gap:" + NUM_DOCS + ", sample:0.5, mincount:" + (NUM_DOCS / 2) + "}}}}"),
+        "facets/q/c/buckets/[0]/val==0");
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testMergedMincount() throws Exception {
+    SolrQueryRequest req = req();
+    try {
+      FacetRequest freq = FacetRequest.parse(req, (Map<String,Object>) Utils.fromJSONString(
+          "{q:{type:query, q:'*:*', sample:0.5, facet:{c:{type:terms, field:cat_s, sample:0.5, mincount:12}}}}"));
+      // shards return unscaled counts: a=2 and b=3 in the sample, 8 and 12 once scaled by the cumulative rate
+      SimpleOrderedMap[] shardResponses = {
+          facetResponse(bucket("a", 1), bucket("b", 1)),
+          facetResponse(bucket("a", 1), bucket("b", 2))
+      };
+      FacetMerger merger = freq.createFacetMerger(shardResponses[0]);
+      FacetMerger.Context mcontext = new FacetMerger.Context(shardResponses.length);
+      for (int i = 0; i < shardResponses.length; i++) {
+        mcontext.root = shardResponses[i];
+        mcontext.newShard("shard" + i);
+        merger.merge(shardResponses[i], mcontext);
+      }
+      SimpleOrderedMap merged = (SimpleOrderedMap) merger.getMergedResult();
+      List<SimpleOrderedMap> buckets = (List<SimpleOrderedMap>)
+          ((SimpleOrderedMap) ((SimpleOrderedMap) merged.get("q")).get("c")).get("buckets");
+      assertEquals(1, buckets.size());
+      assertEquals("b", buckets.get(0).get("val"));
+      assertEquals(3L, buckets.get(0).get("count"));
+    } finally {
+      req.close();
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static SimpleOrderedMap facetResponse(SimpleOrderedMap... buckets) {
+    SimpleOrderedMap c = new SimpleOrderedMap();
+    c.add("buckets", Arrays.asList(buckets));
+    SimpleOrderedMap q = new SimpleOrderedMap();
+    q.add("count", 500L);
+    q.add("c", c);
+    SimpleOrderedMap facets = new SimpleOrderedMap();
+    facets.add("count", NUM_DOCS / 2L);
+    facets.add("q", q);
+    return facets;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static SimpleOrderedMap bucket(String val, long count) {
+    SimpleOrderedMap bucket = new SimpleOrderedMap();
+    bucket.add("val", val);
+    bucket.add("count", count);
+    return bucket;
+  }
+
+  private static double err(long count, double rate) {
+    return Math.sqrt(count * (1.0 - rate)) / rate;
+  }
+
+  @Test
+  public void testInvalidSample() {
+    assertQEx("sample must be a fraction", req("q", "*:*", "rows", "0",
+        "json.facet", "{c:{type:terms, field:cat_s, sample:2}}"), 400);
+    assertQEx("sample must be a fraction", req("q", "*:*", "rows", "0",
+        "json.facet", "{c:{type:terms, field:cat_s, sample:0}}"), 400);
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.IteratorWriter;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Terms facets without a limit, whose buckets are made while the response is written.
+ */
+public class TestFacetStreamedBuckets extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    initCore("solrconfig.xml", "schema_latest.xml");
+
+    assertU(adoc("id", "1", "cat_sd", "a", "tags_sds", "x", "tags_sds", "y", "num_id", "1", "price_id", "10"));
+    assertU(adoc("id", "2", "cat_sd", "b", "tags_sds", "x", "num_id", "2", "price_id", "20"));
+    assertU(commit());
+    assertU(adoc("id", "3", "cat_sd", "b", "tags_sds", "z", "num_id", "2", "price_id", "30"));
+    assertU(adoc("id", "4", "cat_sd", "c", "num_id", "3", "price_id", "40"));
+    assertU(adoc("id", "5", "tags_sds", "x", "price_id", "50"));
+    assertU(commit());
+  }
+
+  // the accumulators of streamed buckets are closed with the request info
+  private static SolrQueryResponse queryAndResponse(SolrQueryRequest req) throws Exception {
+    SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, new SolrQueryResponse()));
+    return h.queryAndResponse("/select", req);
+  }
+
+  private static String write(String wt, SolrQueryRequest req, SolrQueryResponse rsp) throws IOException {
+    StringWriter out = new StringWriter();
+    h.getCore().getQueryResponseWriter(wt).write(out, req, rsp);
+    return out.toString();
+  }
+
+  @Test
+  public void testBucketsAreStreamed() throws Exception {
+    SolrQueryRequest req = req("q", "*:*", "rows", "0",
+        "json.facet", "{f:{type:terms, field:cat_sd, limit:-1}, g:{type:terms, field:cat_sd, limit:2}," +
+            " h:{type:terms, field:cat_sd, limit:-1, facet:{t:{type:terms, field:tags_sds, sample:0.5}}}}");
+    try {
+      SolrQueryResponse rsp = queryAndResponse(req);
+      NamedList<?> facets = (NamedList<?>) rsp.getValues().get("facets");
+      assertTrue(((NamedList<?>) facets.get("f")).get("buckets") instanceof IteratorWriter);
+      assertFalse(((NamedList<?>) facets.get("g")).get("buckets") instanceof IteratorWriter);
+      // scaling sampled counts needs the buckets
+      assertFalse(((NamedList<?>) facets.get("h")).get("buckets") instanceof IteratorWriter);
+    } finally {
+      req.close();
+      SolrRequestInfo.clearRequestInfo();
+    }
+  }
+
+  @Test
+  public void testNestedUnderBucketsThatAreNotStreamed() throws Exception {
+    final String sub = "facet:{s:{type:terms, field:tags_sds, limit:-1}}";
+    SolrQueryRequest req = req("q", "*:*", "rows", "0",
+        "json.facet", "{g:{type:terms, field:cat_sd, limit:2, " + sub + "}," +
+            " r:{type:range, field:num_id, start:0, end:4, gap:2, " + sub + "}," +
+            " q:{type:query, q:'cat_sd:b', " + sub + "}," +
+            " gq:{type:terms, field:cat_sd, limit:2, facet:{q:{type:query, q:'tags_sds:x', " + sub + "}}}}");
+    try {
+      SolrQueryResponse rsp = queryAndResponse(req);
+      NamedList<?> facets = (NamedList<?>) rsp.getValues().get("facets");
+      for (String parent : new String[] {"g", "r"}) {
+        List<?> buckets = (List<?>) ((NamedList<?>) facets.get(parent)).get("buckets");
+        assertEquals(parent, 2, buckets.size());
+        for (Object bucket : buckets) {
+          Object subBuckets = ((NamedList<?>) ((NamedList<?>) bucket).get("s")).get("buckets");
+          assertTrue(parent + ": " + subBuckets, subBuckets instanceof List);
+        }
+      }
+      for (Object bucket : (List<?>) ((NamedList<?>) facets.get("gq")).get("buckets")) {
+        NamedList<?> q = (NamedList<?>) ((NamedList<?>) bucket).get("q");
+        assertTrue(((NamedList<?>) q.get("s")).get("buckets") instanceof List);
+      }
+      // the only bucket of a query facet is written along with the bucket it's in
+      NamedList<?> q = (NamedList<?>) facets.get("q");
+      assertTrue(((NamedList<?>) q.get("s")).get("buckets") instanceof IteratorWriter);
+    } finally {
+      req.close();
+      SolrRequestInfo.clearRequestInfo();
+    }
+
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{g:{type:terms, field:cat_sd, limit:2, facet:{s:{type:terms, field:tags_sds, limit:-1}}}," +
+            " r:{type:range, field:num_id, start:0, end:4, gap:2, facet:{s:{type:terms, field:tags_sds, limit:-1}}}}"),
+        "facets=={count:5," +
+            " g:{buckets:[{val:b,count:2,s:{buckets:[{val:x,count:1},{val:z,count:1}]}}," +
+            "{val:a,count:1,s:{buckets:[{val:x,count:1},{val:y,count:1}]}}]}," +
+            " r:{buckets:[{val:0,count:1,s:{buckets:[{val:x,count:1},{val:y,count:1}]}}," +
+            "{val:2,count:3,s:{buckets:[{val:x,count:1},{val:z,count:1}]}}]}}");
+  }
+
+  @Test
+  public void testSameBucketsAsWithLimit() throws Exception {
+    for (String method : new String[] {"dv", "uif", "dvhash", "smart"}) {
+      assertJQ(req("q", "*:*", "rows", "0",
+          "json.facet", "{f:{type:terms, field:cat_sd, limit:-1, method:" + method + "}}"),
+          "facets=={count:5, f:{buckets:[{val:b,count:2},{val:a,count:1},{val:c,count:1}]}}");
+      assertJQ(req("q", "*:*", "rows", "0",
+          "json.facet", "{f:{type:terms, field:tags_sds, limit:-1, offset:1, sort:'index desc', method:" + method + "}}"),
+          "facets=={count:5, f:{buckets:[{val:y,count:1},{val:x,count:3}]}}");
+    }
+
+    // numbers, stats sorts, numBuckets, allBuckets and missing
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{f:{type:terms, field:num_id, limit:-1, sort:'p desc', facet:{p:'sum(price_id)'}," +
+            " numBuckets:true, allBuckets:true, missing:true}}"),
+        "facets=={count:5, f:{numBuckets:3, allBuckets:{count:4, p:100.0}, missing:{count:1, p:50.0}," +
+            " buckets:[{val:2,count:2,p:50.0},{val:3,count:1,p:40.0},{val:1,count:1,p:10.0}]}}");
+
+    // nested facets without a limit stream within each streamed bucket
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{f:{type:terms, field:cat_sd, limit:-1, sort:'index asc', facet:{" +
+            "t:{type:terms, field:tags_sds, limit:-1, missing:true}, m:'sum(price_id)'}}}"),
+        "facets=={count:5, f:{buckets:[" +
+            "{val:a,count:1,m:10.0,t:{missing:{count:0},buckets:[{val:x,count:1},{val:y,count:1}]}}," +
+            "{val:b,count:2,m:50.0,t:{missing:{count:0},buckets:[{val:x,count:1},{val:z,count:1}]}}," +
+            "{val:c,count:1,m:40.0,t:{missing:{count:1},buckets:[]}}]}}");
+
+    // other response writers
+    assertQ(req("q", "*:*", "rows", "0", "json.facet", "{f:{type:terms, field:cat_sd, limit:-1}}"),
+        "//lst[@name='facets']/lst[@name='f']/arr[@name='buckets']/lst[1]/str[@name='val'][.='b']",
+        "count(//lst[@name='facets']/lst[@name='f']/arr[@name='buckets']/lst)=3");
+  }
+
+  @Test
+  public void testWrittenTwice() throws Exception {
+    SolrQueryRequest req = req("q", "*:*", "rows", "0", "json.facet",
+        "{f:{type:terms, field:cat_sd, limit:-1, missing:true, facet:{t:{type:terms, field:tags_sds, limit:-1}}}}");
+    try {
+      SolrQueryResponse rsp = queryAndResponse(req);
+      NamedList<?> facets = (NamedList<?>) rsp.getValues().get("facets");
+      assertTrue(((NamedList<?>) facets.get("f")).get("buckets") instanceof IteratorWriter);
+      String first = write("json", req, rsp);
+      assertTrue(first, first.contains("\"val\":\"b\""));
+      assertEquals(first, write("json", req, rsp));
+    } finally {
+      req.close();
+      SolrRequestInfo.clearRequestInfo();
+    }
+  }
+
+  @Test
+  public void testOtherResponseWriters() throws Exception {
+    final String facet = "{f:{type:terms, field:cat_sd, limit:-1, facet:{t:{type:terms, field:tags_sds, limit:-1}}}}";
+
+    // serialized PHP needs the size of an array before its items
+    String phps = h.query(req("q", "*:*", "rows", "0", "wt", "phps", "json.facet", facet));
+    assertTrue(phps, phps.contains("s:1:\"f\";a:1:{s:7:\"buckets\";a:3:{" +
+        "i:0;a:3:{s:3:\"val\";s:1:\"b\";s:5:\"count\";i:2;s:1:\"t\";a:1:{s:7:\"buckets\";a:2:{" +
+        "i:0;a:2:{s:3:\"val\";s:1:\"x\";s:5:\"count\";i:1;}i:1;a:2:{s:3:\"val\";s:1:\"z\";s:5:\"count\";i:1;}}}}" +
+        "i:1;a:3:{s:3:\"val\";s:1:\"a\";s:5:\"count\";i:1;s:1:\"t\";a:1:{s:7:\"buckets\";a:2:{" +
+        "i:0;a:2:{s:3:\"val\";s:1:\"x\";s:5:\"count\";i:1;}i:1;a:2:{s:3:\"val\";s:1:\"y\";s:5:\"count\";i:1;}}}}" +
+        "i:2;a:3:{s:3:\"val\";s:1:\"c\";s:5:\"count\";i:1;s:1:\"t\";a:1:{s:7:\"buckets\";a:0:{}}}}}"));
+
+    String php = h.query(req("q", "*:*", "rows", "0", "wt", "php", "indent", "false", "json.facet", facet))
+        .replaceAll("\\s", "");
+    assertTrue(php, php.contains("'val'=>'c','count'=>1,'t'=>array('buckets'=>array())"));
+
+    String ruby = h.query(req("q", "*:*", "rows", "0", "wt", "ruby", "indent", "false", "json.facet", facet))
+        .replaceAll("\\s", "");
+    assertTrue(ruby, ruby.contains("'val'=>'a','count'=>1,'t'=>{'buckets'=>[{'val'=>'x','count'=>1},{'val'=>'y','count'=>1}]}"));
+
+    assertQ(req("q", "*:*", "rows", "0", "wt", "xml", "json.facet", facet),
+        "count(//lst[@name='facets']/lst[@name='f']/arr[@name='buckets']/lst)=3",
+        "//lst[@name='f']/arr[@name='buckets']/lst[2]/lst[@name='t']/arr[@name='buckets']/lst[2]/str[@name='val'][.='y']");
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Faceting on multi-valued fields without docValues when <code>facetUninvertPerSegment</code> is enabled.
+ */
+public class TestFacetUninvertPerSegment extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    System.setProperty("solr.facetUninvertPerSegment", "true");
+    initCore("solrconfig.xml", "schema_latest.xml");
+  }
+
+  @AfterClass
+  public static void afterTests() {
+    System.clearProperty("solr.facetUninvertPerSegment");
+  }
+
+  @Test
+  public void testUifUsesPerSegmentValues() throws Exception {
+    clearIndex();
+    assertU(adoc("id", "1", "tags_ss", "a", "tags_ss", "b"));
+    assertU(adoc("id", "2", "tags_ss", "a"));
+    assertU(adoc("id", "3", "tags_ss", "b", "tags_ss", "c"));
+    assertU(commit());
+    assertU(adoc("id", "4", "tags_ss", "a", "tags_ss", "c"));
+    assertU(adoc("id", "5", "tags_ss", "c"));
+    assertU(commit());
+
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{t:{type:terms, field:tags_ss, method:uif}}"),
+        "facets=={'count':5, 't':{'buckets':[{'val':'a','count':3}, {'val':'c','count':3}, {'val':'b','count':2}]}}");
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{t:{type:terms, field:tags_ss, method:uif, prefix:b}}"),
+        "facets=={'count':5, 't':{'buckets':[{'val':'b','count':2}]}}");
+    assertQ(req("q", "id:[1 TO 3]", "rows", "0", "facet", "true", "facet.field", "tags_ss",
+        "facet.method", "uif", "facet.mincount", "1"),
+        "//lst[@name='tags_ss']/int[@name='a'][.='2']",
+        "//lst[@name='tags_ss']/int[@name='b'][.='2']",
+        "//lst[@name='tags_ss']/int[@name='c'][.='1']");
+
+    // no top-level UnInvertedField was built
+    h.getCore().withSearcher(searcher -> {
+      assertNull(searcher.getFieldValueCache().get("tags_ss"));
+      return null;
+    });
+
+    // a new searcher sees the new segment merged in
+    assertU(adoc("id", "6", "tags_ss", "d", "tags_ss", "b"));
+    assertU(commit());
+    assertJQ(req("q", "*:*", "rows", "0",
+        "json.facet", "{t:{type:terms, field:tags_ss, method:uif}}"),
+        "facets=={'count':6, 't':{'buckets':[{'val':'a','count':3}, {'val':'b','count':3}, {'val':'c','count':3}, {'val':'d','count':1}]}}");
+  }
+}
@@ -26,7 +26,10 @@ import org.apache.lucene.util.TestUtil;
 import org.apache.solr.JSONTestUtil;
 import org.apache.solr.SolrTestCaseHS;
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
 import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.common.util.Utils;
 import org.apache.solr.request.SolrQueryRequest;
@@ -1021,6 +1024,93 @@ public class TestJsonFacetRefinement extends SolrTestCaseHS {
   }
 
   
+  @Test
+  public void testCountMinSketch() {
+    CountMinSketch sketch = CountMinSketch.forBuckets(3);
+    sketch.add("A", 3);
+    sketch.add(42L, 1000L);
+    sketch.add(1.5d, 7);
+    CountMinSketch copy = CountMinSketch.fromResponse(sketch.toResponse());
+    for (CountMinSketch s : Arrays.asList(sketch, copy)) {
+      assertTrue(s.estimate("A") >= 3);
+      assertTrue(s.estimate(42L) >= 1000L);
+      assertTrue(s.estimate(1.5d) >= 7);
+      assertEquals(sketch.estimate("B"), s.estimate("B"));
+    }
+  }
+
+  @Test
+  public void testSketchRefinement() throws Exception {
+    initServers();
+    final Client client = servers.getClient(random().nextInt());
+    client.queryDefaults().set("shards", servers.getShards()).set("debugQuery", Boolean.toString(random().nextBoolean()));
+
+    List<SolrClient> clients = client.getClientProvider().all();
+    assertTrue(clients.size() >= 3); // the third shard stays empty
+    final SolrClient c0 = clients.get(0);
+    final SolrClient c1 = clients.get(1);
+
+    client.deleteByQuery("*:*", null);
+    int id = 0;
+    // shard0: A=5, B=4, C=1
+    for (int i = 0; i < 5; i++) c0.add(sdoc("id", id++, "cat_s", "A"));
+    for (int i = 0; i < 4; i++) c0.add(sdoc("id", id++, "cat_s", "B"));
+    c0.add(sdoc("id", id++, "cat_s", "C"));
+    // shard1: B=5, D=4 ... and no A, which its sketch proves
+    for (int i = 0; i < 5; i++) c1.add(sdoc("id", id++, "cat_s", "B"));
+    for (int i = 0; i < 4; i++) c1.add(sdoc("id", id++, "cat_s", "D"));
+    client.commit();
+
+    // with limit:1 shard0 only returns A and shard1 only returns B. shard1's sketch proves it has no A,
+    // but shard0's has a count for B, so B still has to be refined on shard0
+    long[] before = sketchCounters();
+    client.testJQ(params("q", "*:*", "rows", "0", "json.facet",
+        "{cat:{type:terms, field:cat_s, limit:1, overrequest:0, overrefine:1, refine:sketch}}"),
+        "facets=={count:" + id + ", cat:{buckets:[{val:B, count:9}]}}");
+    assertSketchCounters(before, 1, 1, 1);
+
+    // a large enough sketchError takes shard0's estimate for B instead, which is exact here, and the
+    // shards get no refinement request at all
+    before = sketchCounters();
+    client.testJQ(params("q", "*:*", "rows", "0", "json.facet",
+        "{cat:{type:terms, field:cat_s, limit:1, overrequest:0, overrefine:1, refine:sketch, sketchError:0.5}}"),
+        "facets=={count:" + id + ", cat:{buckets:[{val:B, count:9}]}}");
+    assertSketchCounters(before, 0, 2, 0);
+
+    // stats in the buckets can't be estimated, so they fall back to regular refinement
+    before = sketchCounters();
+    client.testJQ(params("q", "*:*", "rows", "0", "json.facet",
+        "{cat:{type:terms, field:cat_s, limit:1, overrequest:0, overrefine:1, refine:sketch, sketchError:0.5,"
+            + " facet:{u:'unique(id)'}}}"),
+        "facets=={count:" + id + ", cat:{buckets:[{val:B, count:9, u:9}]}}");
+    assertSketchCounters(before, 1, 0, 2);
+  }
+
+  /** refineRequests, sketchedBuckets and refinedBuckets of the facet module, summed over all servers */
+  private static long[] sketchCounters() throws Exception {
+    String[] names = {"refineRequests", "sketchedBuckets", "refinedBuckets"};
+    long[] counters = new long[names.length];
+    for (SolrInstance instance : servers.slist) {
+      try (SolrClient admin = getHttpSolrClient(instance.getBaseURL())) {
+        for (int i = 0; i < names.length; i++) {
+          String key = "solr.core.collection1:QUERY.facet_module." + names[i];
+          NamedList<Object> rsp = admin.request(new GenericSolrRequest(SolrRequest.METHOD.GET, "/admin/metrics",
+              params("key", key)));
+          counters[i] += ((Number) ((NamedList<?>) rsp.get("metrics")).get(key)).longValue();
+        }
+      }
+    }
+    return counters;
+  }
+
+  private static void assertSketchCounters(long[] before, long refineRequests, long sketchedBuckets,
+                                           long refinedBuckets) throws Exception {
+    long[] after = sketchCounters();
+    assertEquals("refineRequests", refineRequests, after[0] - before[0]);
+    assertEquals("sketchedBuckets", sketchedBuckets, after[1] - before[1]);
+    assertEquals("refinedBuckets", refinedBuckets, after[2] - before[2]);
+  }
+
   @Test
   public void testBasicRefinement() throws Exception {
     ModifiableSolrParams p;
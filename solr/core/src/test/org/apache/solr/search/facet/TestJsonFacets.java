@@ -55,6 +55,7 @@ public class TestJsonFacets extends SolrTestCaseHS {
   
   private static SolrInstances servers;  // for distributed testing
   private static int origTableSize;
+  private static int origHashTermsTableSize;
   private static FacetField.FacetMethod origDefaultFacetMethod;
 
   @SuppressWarnings("deprecation")
@@ -65,6 +66,8 @@ public class TestJsonFacets extends SolrTestCaseHS {
 
     origTableSize = FacetFieldProcessorByHashDV.MAXIMUM_STARTING_TABLE_SIZE;
     FacetFieldProcessorByHashDV.MAXIMUM_STARTING_TABLE_SIZE=2; // stress test resizing
+    origHashTermsTableSize = FacetFieldProcessorByHashTerms.MAXIMUM_STARTING_TABLE_SIZE;
+    FacetFieldProcessorByHashTerms.MAXIMUM_STARTING_TABLE_SIZE=2;
 
     origDefaultFacetMethod = FacetField.FacetMethod.DEFAULT_METHOD;
     // instead of the following, see the constructor
@@ -91,6 +94,7 @@ public class TestJsonFacets extends SolrTestCaseHS {
     systemClearPropertySolrDisableShardsWhitelist();
     JSONTestUtil.failRepeatedKeys = false;
     FacetFieldProcessorByHashDV.MAXIMUM_STARTING_TABLE_SIZE=origTableSize;
+    FacetFieldProcessorByHashTerms.MAXIMUM_STARTING_TABLE_SIZE=origHashTermsTableSize;
     FacetField.FacetMethod.DEFAULT_METHOD = origDefaultFacetMethod;
     if (servers != null) {
       servers.stop();
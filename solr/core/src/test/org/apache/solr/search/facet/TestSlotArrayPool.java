@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestSlotArrayPool extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    initCore("solrconfig.xml", "schema_latest.xml");
+
+    for (int i = 0; i < 300; i++) {
+      assertU(adoc("id", String.valueOf(i), "cat_s", "c" + (i % 100), "num_i", String.valueOf(i)));
+    }
+    assertU(commit());
+  }
+
+  @Test
+  public void testReuse() {
+    final int length = SlotArrayPool.MIN_POOLED_LENGTH * 3 + 1;
+    long[] longs = SlotArrayPool.longs(length);
+    longs[length - 1] = 42;
+    SlotArrayPool.release(longs);
+
+    long hits = SlotArrayPool.hits.sum();
+    long[] reused = SlotArrayPool.longs(length);
+    assertSame(longs, reused);
+    assertEquals(0, reused[length - 1]);
+    assertEquals(hits + 1, SlotArrayPool.hits.sum());
+
+    // arrays of another type or length aren't handed out
+    assertNotSame(longs, SlotArrayPool.longs(length + 1));
+    SlotArrayPool.release(reused);
+    assertEquals(length, SlotArrayPool.doubles(length).length);
+    assertSame(longs, SlotArrayPool.longs(length));
+  }
+
+  @Test
+  public void testLimits() {
+    int[] small = SlotArrayPool.ints(SlotArrayPool.MIN_POOLED_LENGTH - 1);
+    SlotArrayPool.release(small);
+    assertNotSame(small, SlotArrayPool.ints(SlotArrayPool.MIN_POOLED_LENGTH - 1));
+
+    long discards = SlotArrayPool.discards.sum();
+    int[] huge = new int[(int) (SlotArrayPool.MAX_POOLED_BYTES / Integer.BYTES) + 1];
+    SlotArrayPool.release(huge);
+    assertEquals(discards + 1, SlotArrayPool.discards.sum());
+    assertNotSame(huge, SlotArrayPool.ints(huge.length));
+  }
+
+  @Test
+  public void testSharedByAllThreads() throws Exception {
+    final int length = SlotArrayPool.MIN_POOLED_LENGTH * 5 + 3;
+    final int[] released = new int[length];
+    Thread thread = new Thread(() -> SlotArrayPool.release(released));
+    thread.start();
+    thread.join();
+    assertSame(released, SlotArrayPool.ints(length));
+
+    // one budget for the whole node, however many threads release arrays
+    final int perThread = (int) (SlotArrayPool.MAX_POOLED_BYTES / Long.BYTES / 4) + 1;
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      final int threadLength = perThread + i;
+      threads[i] = new Thread(() -> SlotArrayPool.release(new long[threadLength]));
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue(SlotArrayPool.getPooledBytes() <= SlotArrayPool.MAX_POOLED_BYTES);
+    for (int i = 0; i < threads.length; i++) {
+      SlotArrayPool.release(SlotArrayPool.longs(perThread + i));
+    }
+    assertTrue(SlotArrayPool.getPooledBytes() <= SlotArrayPool.MAX_POOLED_BYTES);
+  }
+
+  @Test
+  public void testFacetsReuseArrays() throws Exception {
+    final String facet = "{c:{type:terms, field:cat_s, limit:2, sort:'x desc', facet:{x:'sum(num_i)', y:'avg(num_i)'}}}";
+    final String expected = "facets=={count:300, c:{buckets:["
+        + "{val:c99, count:3, x:597.0, y:199.0}, {val:c98, count:3, x:594.0, y:198.0}]}}";
+
+    assertJQ(req("q", "*:*", "rows", "0", "json.facet", facet), expected);
+    long hits = SlotArrayPool.hits.sum();
+    // the same request gets the arrays released by the first one, and still has right answers
+    assertJQ(req("q", "*:*", "rows", "0", "json.facet", facet), expected);
+    assertTrue(SlotArrayPool.hits.sum() > hits);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.core.RateLimiterConfig;
+import org.junit.Test;
+
+public class TestAdaptiveConcurrencyLimit extends SolrTestCase {
+
+  private static RateLimiterConfig adaptiveConfig(int minAllowedRequests, int allowedRequests) {
+    RateLimiterConfig config = new RateLimiterConfig(SolrRequest.SolrRequestType.QUERY, true, allowedRequests / 2,
+        RateLimitManager.DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS, allowedRequests, true);
+    config.isAdaptive = true;
+    config.minAllowedRequests = minAllowedRequests;
+    return config;
+  }
+
+  private static void addWindows(AdaptiveConcurrencyLimit limit, int windows, long latencyMs, int inFlight) {
+    for (int i = 0; i < windows * AdaptiveConcurrencyLimit.WINDOW_SIZE; i++) {
+      limit.addSample(TimeUnit.MILLISECONDS.toNanos(latencyMs), inFlight);
+    }
+  }
+
+  @Test
+  public void testSlotsBoundedByLimit() throws Exception {
+    RequestRateLimiter rateLimiter = new RequestRateLimiter(adaptiveConfig(2, 10));
+    assertEquals(10, rateLimiter.getCurrentLimit());
+
+    List<RequestRateLimiter.SlotMetadata> slots = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      RequestRateLimiter.SlotMetadata slot = rateLimiter.handleRequest();
+      assertNotNull(slot);
+      assertTrue(slot.isReleasable());
+      slots.add(slot);
+    }
+    assertEquals(10, rateLimiter.getActiveRequests());
+    assertNull(rateLimiter.handleRequest());
+    // an adaptive limiter never lends slots to other request types
+    assertFalse(rateLimiter.allowSlotBorrowing().isReleasable());
+
+    slots.remove(0).decrementRequest();
+    assertEquals(9, rateLimiter.getActiveRequests());
+    assertNotNull(rateLimiter.handleRequest());
+
+    for (RequestRateLimiter.SlotMetadata slot : slots) {
+      slot.decrementRequest();
+    }
+    assertEquals(1, rateLimiter.getActiveRequests());
+  }
+
+  @Test
+  public void testLimitShrinksWhenLatencyRises() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptiveConfig(8, 100));
+    addWindows(limit, AdaptiveConcurrencyLimit.WARMUP_WINDOWS, 10, 100);
+    assertEquals(100, limit.getLimit());
+
+    addWindows(limit, 5, 50, 100);
+    int shrunk = limit.getLimit();
+    assertTrue("limit=" + shrunk, shrunk < 100);
+
+    // requests keep queueing up while the node is saturated
+    double latencyMs = 50;
+    for (int i = 0; i < 100; i++) {
+      latencyMs *= 1.05;
+      addWindows(limit, 1, (long) latencyMs, 100);
+    }
+    assertEquals("the limit should not drop below the configured minimum", 8, limit.getLimit());
+
+    // the overload has passed; requests are fast again and use the whole limit
+    for (int i = 0; i < 500 && limit.getLimit() < 100; i++) {
+      addWindows(limit, 1, 10, limit.getLimit());
+    }
+    assertEquals(100, limit.getLimit());
+  }
+
+  @Test
+  public void testMaximumFollowsConfig() {
+    RateLimiterConfig config = adaptiveConfig(4, 40);
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(config);
+    addWindows(limit, AdaptiveConcurrencyLimit.WARMUP_WINDOWS, 10, 40);
+    assertEquals(40, limit.getLimit());
+
+    // a lower maximum set through the configuration is picked up with the next window
+    config.allowedRequests = 20;
+    addWindows(limit, 1, 10, 40);
+    assertEquals(20, limit.getLimit());
+  }
+
+  @Test
+  public void testUnderutilizedWindowsDoNotChangeLimit() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(adaptiveConfig(4, 100));
+    addWindows(limit, AdaptiveConcurrencyLimit.WARMUP_WINDOWS, 10, 100);
+    // slow requests at a concurrency far below the limit say nothing about overload
+    addWindows(limit, 50, 100, 5);
+    assertEquals(100, limit.getLimit());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.update.UpdateLog.LogPtr;
+import org.junit.Test;
+
+public class CompactVersionMapTest extends SolrTestCase {
+
+  @Test
+  public void testPutGet() {
+    CompactVersionMap map = new CompactVersionMap();
+    assertEquals(0, map.size());
+    assertNull(map.get(new BytesRef("1")));
+    assertNull(map.get("1"));
+
+    map.put(new BytesRef("1"), new LogPtr(10, 100));
+    map.put(new BytesRef("2"), new LogPtr(20, 200, 10));
+    assertEquals(2, map.size());
+    assertLogPtr(10, 100, -1, map.get(new BytesRef("1")));
+    assertLogPtr(20, 200, 10, map.get(new BytesRef("2")));
+    assertTrue(map.containsKey(new BytesRef("2")));
+    assertFalse(map.containsKey(new BytesRef("3")));
+
+    // overwrite
+    map.put(new BytesRef("1"), new LogPtr(30, 300, 10));
+    assertEquals(2, map.size());
+    assertLogPtr(30, 300, 10, map.get(new BytesRef("1")));
+
+    long ramBytesUsed = map.ramBytesUsed();
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(new BytesRef("1")));
+    assertTrue(map.ramBytesUsed() <= ramBytesUsed);
+
+    // still usable after a clear
+    map.put(new BytesRef("2"), new LogPtr(40, 400));
+    assertEquals(1, map.size());
+    assertLogPtr(40, 400, -1, map.get(new BytesRef("2")));
+    assertNull(map.get(new BytesRef("1")));
+  }
+
+  @Test
+  public void testRandom() {
+    CompactVersionMap map = new CompactVersionMap();
+    Map<BytesRef,LogPtr> expected = new HashMap<>();
+    for (int iter = 0; iter < 3; iter++) {
+      int numOps = atLeast(1000);
+      long lastRamBytesUsed = map.ramBytesUsed();
+      for (int i = 0; i < numOps; i++) {
+        // small alphabet so ids get overwritten now and then
+        BytesRef id = new BytesRef(TestUtil.randomSimpleString(random(), 1, 4));
+        LogPtr ptr = new LogPtr(random().nextLong(), random().nextLong(), random().nextBoolean() ? -1 : random().nextLong());
+        BytesRef key = BytesRef.deepCopyOf(id);
+        map.put(key, ptr);
+        // the map must copy the key
+        Arrays.fill(key.bytes, (byte) 0);
+        expected.put(id, ptr);
+      }
+      assertEquals(expected.size(), map.size());
+      assertTrue(map.ramBytesUsed() >= lastRamBytesUsed);
+      for (Map.Entry<BytesRef,LogPtr> entry : map.entrySet()) {
+        LogPtr ptr = expected.get(entry.getKey());
+        assertNotNull(entry.getKey().utf8ToString(), ptr);
+        assertLogPtr(ptr.pointer, ptr.version, ptr.previousPointer, entry.getValue());
+      }
+      for (Map.Entry<BytesRef,LogPtr> entry : expected.entrySet()) {
+        LogPtr ptr = entry.getValue();
+        assertLogPtr(ptr.pointer, ptr.version, ptr.previousPointer, map.get(entry.getKey()));
+      }
+      if (random().nextBoolean()) {
+        map.clear();
+        expected.clear();
+      }
+    }
+  }
+
+  private static void assertLogPtr(long pointer, long version, long previousPointer, LogPtr actual) {
+    assertNotNull(actual);
+    assertEquals(pointer, actual.pointer);
+    assertEquals(version, actual.version);
+    assertEquals(previousPointer, actual.previousPointer);
+  }
+}
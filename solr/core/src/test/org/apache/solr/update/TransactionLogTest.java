@@ -24,9 +24,18 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.UniformReservoir;
 import org.apache.solr.SolrTestCase;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.update.TransactionLog.LogReader;
 import org.junit.Test;
 
@@ -72,4 +81,100 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testFsyncSkippedWhenAlreadySynced() {
+    AtomicInteger syncs = new AtomicInteger();
+    try (TransactionLog tlog = new TransactionLog(newLogFile(), new ArrayList<>()) {
+      @Override
+      protected void syncChannel() throws IOException {
+        syncs.incrementAndGet();
+        super.syncChannel();
+      }
+    }) {
+      tlog.write(newAdd("1"));
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      assertEquals(1, syncs.get());
+
+      // nothing new was written
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      assertEquals(1, syncs.get());
+
+      tlog.finish(UpdateLog.SyncLevel.FLUSH);
+      assertEquals(1, syncs.get());
+
+      tlog.write(newAdd("2"));
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      assertEquals(2, syncs.get());
+    }
+  }
+
+  @Test
+  public void testFsyncGroupCommit() throws Exception {
+    int numWriters = 5;
+    AtomicInteger syncs = new AtomicInteger();
+    CountDownLatch firstSyncStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstSync = new CountDownLatch(1);
+    Histogram batchSizes = new Histogram(new UniformReservoir());
+    ExecutorService executor = ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("testFsyncGroupCommit"));
+    try (TransactionLog tlog = new TransactionLog(newLogFile(), new ArrayList<>()) {
+      @Override
+      protected void syncChannel() throws IOException {
+        if (syncs.incrementAndGet() == 1) {
+          firstSyncStarted.countDown();
+          try {
+            assertTrue(releaseFirstSync.await(30, TimeUnit.SECONDS));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+          }
+        }
+        super.syncChannel();
+      }
+    }) {
+      tlog.write(newAdd("first"));
+      Future<?> first = executor.submit(() -> tlog.finish(UpdateLog.SyncLevel.FSYNC, 0, batchSizes));
+      assertTrue(firstSyncStarted.await(30, TimeUnit.SECONDS));
+
+      // these all queue up behind the blocked fsync and must be covered by a single one after it
+      List<Future<?>> writers = new ArrayList<>();
+      for (int i = 0; i < numWriters; i++) {
+        String id = String.valueOf(i);
+        writers.add(executor.submit(() -> {
+          tlog.write(newAdd(id));
+          tlog.finish(UpdateLog.SyncLevel.FSYNC, 0, batchSizes);
+        }));
+      }
+      long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (tlog.getSyncWaiters() < numWriters + 1) {
+        assertTrue("writers did not queue up for the fsync", System.nanoTime() < timeout);
+        Thread.sleep(10);
+      }
+      releaseFirstSync.countDown();
+
+      first.get(30, TimeUnit.SECONDS);
+      for (Future<?> writer : writers) {
+        writer.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(2, syncs.get());
+      assertEquals(2, batchSizes.getCount());
+      assertEquals(numWriters, batchSizes.getSnapshot().getMax());
+      assertEquals(0, tlog.getSyncWaiters());
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  private File newLogFile() {
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    return new File(createTempDir().toFile(), tlogFileName);
+  }
+
+  private static AddUpdateCommand newAdd(String id) {
+    AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+    updateCommand.solrDoc = new SolrInputDocument();
+    updateCommand.solrDoc.addField("id", id);
+    return updateCommand;
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util.hll;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+/**
+ * Tests {@link HLLSlots} against {@link HLL}s with the same values.
+ */
+public class HLLSlotsTest extends SolrTestCase {
+    private static final int LOG2M = 11;
+    private static final int REGWIDTH = 5;
+
+    private static HLL newHLL() {
+        return new HLL(LOG2M, REGWIDTH, -1, false, HLLType.EMPTY);
+    }
+
+    /**
+     * Slots of all sizes, from empty through explicit to full, give the same cardinalities
+     * and serialized forms as an {@link HLL} each.
+     */
+    @Test
+    public void addRawTest() {
+        final Random random = random();
+        final int numSlots = 40;
+        final HLLSlots slots = new HLLSlots(LOG2M, REGWIDTH, numSlots);
+        final HLL[] hlls = new HLL[numSlots];
+        for (int slot = 0; slot < numSlots; slot++) {
+            hlls[slot] = newHLL();
+            // up to well past the explicit threshold of 160
+            final int numValues = slot * slot;
+            for (int i = 0; i < numValues; i++) {
+                final long value = random.nextLong();
+                slots.addRaw(slot, value);
+                hlls[slot].addRaw(value);
+            }
+        }
+
+        for (int slot = 0; slot < numSlots; slot++) {
+            assertEquals(slot == 0, slots.isEmpty(slot));
+            assertEquals(hlls[slot].cardinality(), slots.cardinality(slot));
+            assertArrayEquals(hlls[slot].toBytes(), slots.toHLL(slot).toBytes());
+        }
+    }
+
+    /**
+     * Unions of serialized HLLs of every type match {@link HLL#union(HLL)}.
+     */
+    @Test
+    public void unionTest() {
+        final Random random = random();
+        final HLLSlots slots = new HLLSlots(LOG2M, REGWIDTH, 0);
+        final HLL[] expected = new HLL[10];
+        for (int i = 0; i < expected.length; i++) {
+            final int slot = slots.newSlot();
+            assertEquals(i, slot);
+            expected[slot] = newHLL();
+            for (int shard = 0; shard < 3; shard++) {
+                final HLL shardHLL = new HLL(LOG2M, REGWIDTH, -1, random.nextBoolean(), HLLType.EMPTY);
+                final int numValues = random.nextInt(1000);
+                for (int j = 0; j < numValues; j++) {
+                    shardHLL.addRaw(random.nextLong());
+                }
+                final HLL deserialized = HLL.fromBytes(shardHLL.toBytes());
+                slots.union(slot, deserialized);
+                expected[slot].union(HLL.fromBytes(shardHLL.toBytes()));
+            }
+        }
+
+        for (int slot = 0; slot < expected.length; slot++) {
+            assertEquals(expected[slot].cardinality(), slots.cardinality(slot));
+        }
+    }
+
+    /**
+     * Resizing moves slots without touching their registers, and pages are reused after a reset.
+     */
+    @Test
+    public void resizeAndResetTest() {
+        final long[][] released = new long[1][];
+        final HLLSlots slots = new HLLSlots(LOG2M, REGWIDTH, 4, long[]::new, page -> released[0] = page);
+        final HLL full = newHLL();
+        for (int i = 0; i < 10000; i++) {
+            final long value = random().nextLong();
+            slots.addRaw(1, value);
+            full.addRaw(value);
+        }
+        slots.addRaw(2, 42L);
+
+        // swap slots 1 and 2, drop the others, and add a slot
+        slots.resize(5, slot -> slot == 1 ? 2 : slot == 2 ? 1 : -1);
+        assertEquals(5, slots.numSlots());
+        assertEquals(1, slots.cardinality(1));
+        assertEquals(full.cardinality(), slots.cardinality(2));
+        assertTrue(slots.isEmpty(0));
+        assertTrue(slots.isEmpty(4));
+
+        slots.reset();
+        for (int slot = 0; slot < 5; slot++) {
+            assertTrue(slots.isEmpty(slot));
+        }
+        for (int i = 0; i < 1000; i++) {
+            slots.addRaw(3, i * 0x9E3779B97F4A7C15L);
+        }
+        final HLL expected = newHLL();
+        for (int i = 0; i < 1000; i++) {
+            expected.addRaw(i * 0x9E3779B97F4A7C15L);
+        }
+        assertEquals(expected.cardinality(), slots.cardinality(3));
+
+        slots.close();
+        assertNotNull(released[0]);
+        assertTrue(Arrays.stream(released[0]).anyMatch(word -> word != 0));
+    }
+}
@@ -64,9 +64,13 @@ public class BinaryResponseParser extends ResponseParser {
     return BINARY_CONTENT_TYPE;
   }
 
+  /**
+   * Version 3 lets the server write document lists as javabin doc batches, which {@link JavaBinCodec} reads
+   * along with version 2. Servers that predate it ignore the version and keep writing version 2.
+   */
   @Override
   public String getVersion() {
-    return "2";
+    return "3";
   }
 
   @Override
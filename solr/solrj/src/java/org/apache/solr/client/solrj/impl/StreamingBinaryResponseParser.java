@@ -18,6 +18,7 @@ package org.apache.solr.client.solrj.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.solr.client.solrj.FastStreamingDocsCallback;
@@ -100,7 +101,7 @@ public class StreamingBinaryResponseParser extends BinaryResponseParser {
           public void entry(DataEntry e) {
             EntryImpl entry = (EntryImpl) e;
             if( !entry.type().isContainer) return;
-            if (e.isKeyValEntry() && entry.getTag() == Tag._SOLRDOCLST) {
+            if (e.isKeyValEntry() && (entry.getTag() == Tag._SOLRDOCLST || entry.getTag() == Tag._SOLRDOCBATCH)) {
               @SuppressWarnings({"rawtypes"})
               List l = (List) e.metadata();
               e.listenContainer(fastCallback.initDocList(
@@ -168,6 +169,32 @@ public class StreamingBinaryResponseParser extends BinaryResponseParser {
         }
         return solrDocs;
       }
+
+      @Override
+      public SolrDocumentList readSolrDocumentBatch(DataInputInputStream dis) throws IOException {
+        SolrDocumentList solrDocs = new SolrDocumentList();
+        setDocListInfo(solrDocs, (List<Object>) readVal(dis));
+
+        callback.streamDocListInfo(
+            solrDocs.getNumFound(),
+            solrDocs.getStart(),
+            solrDocs.getMaxScore());
+
+        int sz = readVInt(dis);
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < sz; i++) {
+          // the children of a batched document are regular documents, they must not be streamed as parents
+          nestedLevel++;
+          SolrDocument doc = readBatchedDocument(dis, fields);
+          nestedLevel--;
+          if (nestedLevel == 0) {
+            callback.streamSolrDocument(doc);
+          } else {
+            solrDocs.add(doc);
+          }
+        }
+        return solrDocs;
+      }
     };) {
 
       return (NamedList<Object>) codec.unmarshal(body);
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A batch of tuples that is stored column by column. Long and double values are kept in primitive arrays,
+ * so streams and metrics that support batches don't need a map and boxed numbers for every tuple,
+ * see {@link org.apache.solr.client.solrj.io.stream.TupleStream#readBatch(TupleBatch)}.
+ * The columns are kept when the batch is cleared, so a batch should be reused for a whole stream.
+ */
+public class TupleBatch {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** The kind of values a column holds */
+  public enum Type {
+    LONG,
+    DOUBLE,
+    /** any values, including nulls */
+    OBJECT
+  }
+
+  private final int capacity;
+  private final Map<String, Column> columns = new LinkedHashMap<>();
+  private int size;
+  private Tuple eof;
+
+  public TupleBatch() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public TupleBatch(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity must be at least 1 but was " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /** The number of tuples in the batch, not counting the EOF tuple */
+  public int size() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * The EOF tuple once the stream has ended, null before. The batch may still hold the last tuples of the stream.
+   */
+  public Tuple getEOF() {
+    return eof;
+  }
+
+  public void setEOF(Tuple eof) {
+    this.eof = eof;
+  }
+
+  /** Removes all tuples and the EOF tuple */
+  public void clear() {
+    truncate(0);
+    eof = null;
+  }
+
+  /** Removes the tuples from the given row on */
+  public void truncate(int size) {
+    for (Column column : columns.values()) {
+      column.clear(size, this.size);
+    }
+    this.size = Math.min(size, this.size);
+  }
+
+  /** Adds a tuple without any fields and returns its row */
+  public int addRow() {
+    if (size == capacity) {
+      throw new IllegalStateException("The batch is full");
+    }
+    return size++;
+  }
+
+  /** Adds the fields of the tuple */
+  public void add(Tuple tuple) {
+    int row = addRow();
+    for (Map.Entry<Object, Object> entry : tuple.getFields().entrySet()) {
+      put(row, entry.getKey().toString(), entry.getValue());
+    }
+  }
+
+  public void put(int row, String name, Object value) {
+    Column column = column(name);
+    if (value instanceof Long) {
+      column.setLong(row, (Long) value);
+    } else if (value instanceof Double) {
+      column.setDouble(row, (Double) value);
+    } else {
+      column.set(row, value);
+    }
+  }
+
+  public void putLong(int row, String name, long value) {
+    column(name).setLong(row, value);
+  }
+
+  public void putDouble(int row, String name, double value) {
+    column(name).setDouble(row, value);
+  }
+
+  /** Copies the values of a column of a batch with the same number of tuples to the named column of this batch */
+  public void copyColumn(Column source, String name) {
+    Column target = column(name);
+    for (int row = 0; row < size; row++) {
+      if (!source.isSet(row)) continue;
+      switch (source.getType()) {
+        case LONG:
+          target.setLong(row, source.getLong(row));
+          break;
+        case DOUBLE:
+          target.setDouble(row, source.getDouble(row));
+          break;
+        default:
+          target.set(row, source.get(row));
+      }
+    }
+  }
+
+  /** The named column, or null if no tuple of this or an earlier batch had the field */
+  public Column getColumn(String name) {
+    return columns.get(name);
+  }
+
+  public Collection<Column> getColumns() {
+    return columns.values();
+  }
+
+  /** Builds a tuple with the fields of the given row */
+  public Tuple getTuple(int row) {
+    Tuple tuple = new Tuple();
+    for (Column column : columns.values()) {
+      if (column.isSet(row)) {
+        tuple.put(column.name, column.get(row));
+      }
+    }
+    return tuple;
+  }
+
+  private Column column(String name) {
+    Column column = columns.get(name);
+    if (column == null) {
+      column = new Column(name, capacity);
+      columns.put(name, column);
+    }
+    return column;
+  }
+
+  /**
+   * The values of one field. A column starts out as a {@link Type#LONG} or {@link Type#DOUBLE} column if its
+   * first value in the batch is one, and turns into an {@link Type#OBJECT} column when it gets any other value.
+   */
+  public static class Column {
+    private final String name;
+    private final boolean[] set;
+    private Type type; // null until the first value of the batch
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+
+    Column(String name, int capacity) {
+      this.name = name;
+      this.set = new boolean[capacity];
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** The type of the values in this batch, null if there are none */
+    public Type getType() {
+      return type;
+    }
+
+    /** True if the tuple of the given row has the field, its value may still be null */
+    public boolean isSet(int row) {
+      return set[row];
+    }
+
+    /** The value of the given row of a {@link Type#LONG} column */
+    public long getLong(int row) {
+      return longs[row];
+    }
+
+    /** The value of the given row of a {@link Type#DOUBLE} column */
+    public double getDouble(int row) {
+      return doubles[row];
+    }
+
+    /** The value of the given row, boxed if it is a long or a double, or null if the tuple doesn't have the field */
+    public Object get(int row) {
+      if (!set[row]) return null;
+      switch (type) {
+        case LONG:
+          return longs[row];
+        case DOUBLE:
+          return doubles[row];
+        default:
+          return objects[row];
+      }
+    }
+
+    void setLong(int row, long value) {
+      if (type == null) {
+        type = Type.LONG;
+        if (longs == null) longs = new long[set.length];
+      }
+      if (type == Type.LONG) {
+        longs[row] = value;
+        set[row] = true;
+      } else {
+        set(row, value);
+      }
+    }
+
+    void setDouble(int row, double value) {
+      if (type == null) {
+        type = Type.DOUBLE;
+        if (doubles == null) doubles = new double[set.length];
+      }
+      if (type == Type.DOUBLE) {
+        doubles[row] = value;
+        set[row] = true;
+      } else {
+        set(row, value);
+      }
+    }
+
+    void set(int row, Object value) {
+      if (type != Type.OBJECT) {
+        if (objects == null) objects = new Object[set.length];
+        if (type != null) {
+          for (int i = 0; i < set.length; i++) {
+            if (set[i]) objects[i] = get(i);
+          }
+        }
+        type = Type.OBJECT;
+      }
+      objects[row] = value;
+      set[row] = true;
+    }
+
+    void clear(int from, int to) {
+      if (from >= to) return;
+      Arrays.fill(set, from, to, false);
+      if (type == Type.OBJECT) {
+        Arrays.fill(objects, from, to, null);
+      }
+      if (from == 0) {
+        type = null;
+      }
+    }
+  }
+}
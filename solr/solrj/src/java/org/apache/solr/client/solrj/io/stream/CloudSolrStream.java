@@ -36,6 +36,7 @@ import java.util.stream.Stream;
 
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.comp.MultipleFieldComparator;
@@ -425,6 +426,22 @@ public class CloudSolrStream extends TupleStream implements Expressible {
     return _read();
   }
 
+  /**
+   * Once only one shard has tuples left they need no merging, so its batches are passed on as they are.
+   * Until then the shards are merged tuple by tuple.
+   */
+  @Override
+  public void readBatch(TupleBatch batch) throws IOException {
+    if (tuples.size() != 1 || trace) {
+      super.readBatch(batch);
+      return;
+    }
+    if (!tuples.first().next(batch)) {
+      tuples.clear();
+      batch.setEOF(Tuple.EOF());
+    }
+  }
+
   protected Tuple _read() throws IOException {
     TupleWrapper tw = tuples.pollFirst();
     if(tw != null) {
@@ -492,6 +509,27 @@ public class CloudSolrStream extends TupleStream implements Expressible {
 
       return !tuple.EOF;
     }
+
+    /**
+     * Adds the current tuple and as many of the following ones as fit to the batch. After this the wrapper
+     * no longer has a current tuple.
+     * @return false if the stream has ended
+     */
+    public boolean next(TupleBatch batch) throws IOException {
+      if (batch.isFull()) return true;
+      if (tuple != null) {
+        batch.add(tuple);
+        tuple = null;
+      }
+      stream.readBatch(batch);
+      Tuple eof = batch.getEOF();
+      if (eof != null) {
+        eofTuples.put(stream.getBaseUrl(), eof);
+        batch.setEOF(null);
+        return false;
+      }
+      return true;
+    }
   }
 
   protected class StreamOpener implements Callable<TupleWrapper> {
@@ -0,0 +1,502 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.common.util.FastInputStream;
+import org.apache.solr.common.util.FastOutputStream;
+import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.JavaBinCodec;
+
+/**
+ * A grace hash join for a {@link HashJoinStream} whose hashed tuples do not fit in its memory limit. The tuples
+ * of both streams are written to javabin-encoded partition files by the hash of their join keys, so that the
+ * hashed tuples of one partition fit in memory. Each partition is then joined on its own, and the joined
+ * partitions are merged back into the order of the full stream. A partition whose hashed tuples still don't
+ * fit is split again with a different hash seed, up to {@link #MAX_SPLITS} times.
+ *
+ * All tuples with the same join key, or with join keys of the same hash code, end up in the same partition
+ * whatever the seed. So a partition is loaded into memory as a whole, even above the memory limit, once
+ * splitting it leaves all of its hashed tuples in one partition, or after {@link #MAX_SPLITS} splits.
+ *
+ * Tuples are written with their field names and labels, and nested tuples are kept, but field values must be
+ * of a type that javabin reads back as the same type.
+ */
+class HashJoinSpill implements Closeable {
+
+  static final int MIN_PARTITIONS = 16;
+  static final int MAX_PARTITIONS = 128;
+  static final int MAX_SPLITS = 3;
+
+  private static final byte VALUE = 0;
+  private static final byte TUPLE = 1;
+  private static final byte LIST = 2;
+
+  private final Path dir;
+  private final long memoryLimit;
+  private Partition[] partitions;
+  private final List<TupleWriter> writers = new ArrayList<>();
+  private int files;
+  private int splits;
+  private long spilledBytes;
+  private PriorityQueue<TupleReader> joined;
+
+  HashJoinSpill(long memoryLimit) throws IOException {
+    this.memoryLimit = memoryLimit;
+    this.dir = Files.createTempDirectory("hashjoin");
+    this.partitions = newPartitions(MIN_PARTITIONS);
+  }
+
+  /** The number of bytes written to the partition files so far */
+  long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /** The number of partitions that were split again because their hashed tuples did not fit in memory */
+  int getSplits() {
+    return splits;
+  }
+
+  /** Adds a tuple of the hashed stream, which must have a non-null hash */
+  void addHashed(String hash, Tuple tuple) throws IOException {
+    addHashed(partitions, 0, hash, tuple);
+  }
+
+  /**
+   * Called once all hashed tuples were added. Splits the hashed tuples into more partitions if one of the
+   * partitions does not fit in memory.
+   */
+  void finishHashed() throws IOException {
+    long total = 0;
+    long max = 0;
+    for (Partition partition : partitions) {
+      partition.hashed.close();
+      total += partition.hashedBytes;
+      max = Math.max(max, partition.hashedBytes);
+    }
+    if (max <= memoryLimit || partitions.length >= MAX_PARTITIONS) {
+      return;
+    }
+
+    int size = partitions.length;
+    while (size < MAX_PARTITIONS && total / size > memoryLimit / 2) {
+      size *= 2;
+    }
+    Partition[] repartitioned = newPartitions(size);
+    for (Partition partition : partitions) {
+      try (TupleReader reader = partition.hashed.reader()) {
+        while (reader.next()) {
+          addHashed(repartitioned, 0, reader.hash, reader.tuple);
+        }
+      }
+      partition.hashed.delete();
+    }
+    for (Partition partition : repartitioned) {
+      partition.hashed.close();
+    }
+    partitions = repartitioned;
+  }
+
+  private void addHashed(Partition[] partitions, int seed, String hash, Tuple tuple) throws IOException {
+    Partition partition = partition(partitions, seed, hash);
+    partition.hashed.write(0, hash, tuple);
+    partition.hashedBytes += ramBytesUsed(hash, tuple);
+  }
+
+  /**
+   * Adds the tuple of the full stream at the given position. Tuples without a hash are only added for outer
+   * joins, as they cannot match any hashed tuple.
+   */
+  void addFull(long position, String hash, Tuple tuple, boolean outer) throws IOException {
+    addFull(partitions, 0, position, hash, tuple, outer);
+  }
+
+  private void addFull(Partition[] partitions, int seed, long position, String hash, Tuple tuple, boolean outer)
+      throws IOException {
+    if (hash == null && !outer) {
+      return;
+    }
+    Partition partition = hash == null ? partitions[0] : partition(partitions, seed, hash);
+    if (outer || partition.hashed.count > 0) {
+      partition.full.write(position, hash, tuple);
+    }
+  }
+
+  /** Called once all tuples of the full stream were added. Joins the partitions one by one. */
+  void join(boolean outer) throws IOException {
+    joined = new PriorityQueue<>(partitions.length, Comparator.comparingLong(reader -> reader.position));
+    for (Partition partition : partitions) {
+      join(partition, 0, outer);
+    }
+  }
+
+  private void join(Partition partition, int splits, boolean outer) throws IOException {
+    partition.full.close();
+    if (partition.full.count == 0) {
+      partition.hashed.delete();
+      partition.full.delete();
+      return;
+    }
+    if (partition.hashedBytes > memoryLimit && splits < MAX_SPLITS) {
+      Partition[] split = split(partition, splits + 1, outer);
+      if (split != null) {
+        for (Partition p : split) {
+          join(p, splits + 1, outer);
+        }
+        return;
+      }
+    }
+
+    Map<String, List<Tuple>> hashedTuples = new HashMap<>();
+    try (TupleReader reader = partition.hashed.reader()) {
+      while (reader.next()) {
+        hashedTuples.computeIfAbsent(reader.hash, hash -> new ArrayList<>()).add(reader.tuple);
+      }
+    }
+    partition.hashed.delete();
+
+    TupleWriter writer = newWriter();
+    try (TupleReader reader = partition.full.reader()) {
+      while (reader.next()) {
+        List<Tuple> matches = reader.hash == null ? null : hashedTuples.get(reader.hash);
+        if (matches == null) {
+          if (outer) {
+            writer.write(reader.position, null, reader.tuple);
+          }
+          continue;
+        }
+        for (Tuple match : matches) {
+          Tuple tuple = reader.tuple.clone();
+          tuple.merge(match);
+          writer.write(reader.position, null, tuple);
+        }
+      }
+    }
+    partition.full.delete();
+    writer.close();
+
+    TupleReader reader = writer.reader();
+    if (reader.next()) {
+      joined.add(reader);
+    } else {
+      reader.close();
+      writer.delete();
+    }
+  }
+
+  /**
+   * Splits a partition whose hashed tuples don't fit in memory, using the given seed to spread its join keys.
+   * Returns null, and leaves the partition as it is, if all its hashed tuples would stay in one partition.
+   */
+  private Partition[] split(Partition partition, int seed, boolean outer) throws IOException {
+    Partition[] split = newPartitions(MIN_PARTITIONS);
+    try (TupleReader reader = partition.hashed.reader()) {
+      while (reader.next()) {
+        addHashed(split, seed, reader.hash, reader.tuple);
+      }
+    }
+    boolean spread = true;
+    for (Partition p : split) {
+      p.hashed.close();
+      spread &= p.hashed.count < partition.hashed.count;
+    }
+    if (!spread) {
+      for (Partition p : split) {
+        p.hashed.delete();
+        p.full.delete();
+      }
+      return null;
+    }
+    partition.hashed.delete();
+    splits++;
+
+    try (TupleReader reader = partition.full.reader()) {
+      while (reader.next()) {
+        addFull(split, seed, reader.position, reader.hash, reader.tuple, outer);
+      }
+    }
+    partition.full.delete();
+    return split;
+  }
+
+  /** Returns the next joined tuple in the order of the full stream, or the EOF tuple */
+  Tuple read() throws IOException {
+    TupleReader reader = joined.poll();
+    if (reader == null) {
+      return Tuple.EOF();
+    }
+    Tuple tuple = reader.tuple;
+    if (reader.next()) {
+      joined.add(reader);
+    } else {
+      reader.close();
+    }
+    return tuple;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (joined != null) {
+      joined.forEach(IOUtils::closeQuietly);
+      joined = null;
+    }
+    writers.forEach(IOUtils::closeQuietly);
+    try (Stream<Path> paths = Files.list(dir)) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        Files.deleteIfExists(path);
+      }
+    }
+    Files.deleteIfExists(dir);
+  }
+
+  private Partition[] newPartitions(int size) {
+    Partition[] partitions = new Partition[size];
+    for (int i = 0; i < size; i++) {
+      partitions[i] = new Partition();
+    }
+    return partitions;
+  }
+
+  private static Partition partition(Partition[] partitions, int seed, String hash) {
+    // mix the seed into the hash code, so that the keys of a partition spread when it is split with a new seed
+    int h = hash.hashCode() ^ (seed * 0x9e3779b9);
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return partitions[(h & 0x7fffffff) % partitions.length];
+  }
+
+  private TupleWriter newWriter() {
+    TupleWriter writer = new TupleWriter(dir.resolve("part" + files++ + ".bin"));
+    writers.add(writer);
+    return writer;
+  }
+
+  /** A rough estimate of the heap used by a hashed tuple and its share of the hash map */
+  static long ramBytesUsed(String hash, Tuple tuple) {
+    return ramBytesUsed(hash) + ramBytesUsed(tuple.getFields()) + 64;
+  }
+
+  static long ramBytesUsed(Object o) {
+    if (o instanceof CharSequence) {
+      return 40 + 2L * ((CharSequence) o).length();
+    } else if (o instanceof byte[]) {
+      return 16 + ((byte[]) o).length;
+    } else if (o instanceof Map) {
+      long bytes = 48;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet()) {
+        bytes += 32 + ramBytesUsed(entry.getKey()) + ramBytesUsed(entry.getValue());
+      }
+      return bytes;
+    } else if (o instanceof Collection) {
+      long bytes = 40;
+      for (Object value : (Collection<?>) o) {
+        bytes += 8 + ramBytesUsed(value);
+      }
+      return bytes;
+    }
+    // boxed numbers, dates and the like
+    return 24;
+  }
+
+  /** True if javabin reads the value back as an equal value of the same type */
+  static boolean isSpillable(Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean || value instanceof Date
+        || value instanceof byte[]) {
+      return true;
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double
+        || value instanceof Short || value instanceof Byte) {
+      return true;
+    }
+    if (value instanceof List) {
+      for (Object v : (List<?>) value) {
+        if (!isSpillable(v)) return false;
+      }
+      return true;
+    }
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!(entry.getKey() instanceof String) || !isSpillable(entry.getValue())) return false;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private class Partition {
+    final TupleWriter hashed = newWriter();
+    final TupleWriter full = newWriter();
+    long hashedBytes;
+  }
+
+  /** Writes the position, hash and fields of tuples to a file */
+  private class TupleWriter implements Closeable {
+    final Path path;
+    FastOutputStream out;
+    JavaBinCodec codec;
+    long count;
+
+    TupleWriter(Path path) {
+      this.path = path;
+    }
+
+    void write(long position, String hash, Tuple tuple) throws IOException {
+      if (out == null) {
+        out = FastOutputStream.wrap(Files.newOutputStream(path));
+        codec = new JavaBinCodec();
+        codec.init(out);
+      }
+      out.writeLong(position);
+      codec.writeVal(hash);
+      writeTuple(tuple);
+      count++;
+    }
+
+    private void writeTuple(Tuple tuple) throws IOException {
+      codec.writeVal(tuple.getFieldNames());
+      codec.writeVal(tuple.getFieldLabels());
+      JavaBinCodec.writeVInt(tuple.getFields().size(), out);
+      for (Map.Entry<Object, Object> entry : tuple.getFields().entrySet()) {
+        codec.writeVal(entry.getKey());
+        writeValue(entry.getKey(), entry.getValue());
+      }
+    }
+
+    private void writeValue(Object key, Object value) throws IOException {
+      if (value instanceof Tuple) {
+        out.writeByte(TUPLE);
+        writeTuple((Tuple) value);
+      } else if (value instanceof List) {
+        // lists may hold tuples too, e.g. the groups of a reduce
+        List<?> values = (List<?>) value;
+        out.writeByte(LIST);
+        JavaBinCodec.writeVInt(values.size(), out);
+        for (Object v : values) {
+          writeValue(key, v);
+        }
+      } else if (isSpillable(value)) {
+        out.writeByte(VALUE);
+        codec.writeVal(value);
+      } else {
+        throw new IOException(String.format(Locale.ROOT,
+            "hashJoin can't spill field %s to disk, values of type %s are not supported", key, value.getClass().getName()));
+      }
+    }
+
+    TupleReader reader() throws IOException {
+      return new TupleReader(count == 0 ? null : FastInputStream.wrap(Files.newInputStream(path)), count);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out != null) {
+        out.flushBuffer();
+        spilledBytes += out.size();
+        out.close();
+        out = null;
+        codec = null;
+      }
+    }
+
+    void delete() throws IOException {
+      close();
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /** Reads the tuples of a {@link TupleWriter} back */
+  private static class TupleReader implements Closeable {
+    final FastInputStream in;
+    final JavaBinCodec codec = new JavaBinCodec();
+    long remaining;
+    long position;
+    String hash;
+    Tuple tuple;
+
+    TupleReader(FastInputStream in, long count) {
+      this.in = in;
+      this.remaining = count;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    boolean next() throws IOException {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      position = in.readLong();
+      hash = (String) codec.readVal(in);
+      tuple = readTuple();
+      return true;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private Tuple readTuple() throws IOException {
+      Tuple tuple = new Tuple();
+      tuple.setFieldNames((List<String>) codec.readVal(in));
+      tuple.setFieldLabels((Map<String, String>) codec.readVal(in));
+      int size = JavaBinCodec.readVInt(in);
+      for (int i = 0; i < size; i++) {
+        Object key = codec.readVal(in);
+        tuple.put(key, readValue());
+      }
+      return tuple;
+    }
+
+    private Object readValue() throws IOException {
+      byte type = in.readByte();
+      switch (type) {
+        case TUPLE:
+          return readTuple();
+        case LIST:
+          int size = JavaBinCodec.readVInt(in);
+          List<Object> values = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            values.add(readValue());
+          }
+          return values;
+        default:
+          return codec.readVal(in);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (in != null) {
+        in.close();
+      }
+    }
+  }
+}
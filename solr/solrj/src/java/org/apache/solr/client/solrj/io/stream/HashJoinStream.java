@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
@@ -40,12 +41,22 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
  * You are expected to provide a set of fields for which the hash will be calculated from. If a tuple does
  * not contain a value (ie, null) for one of the fields the hash is being computed on then that tuple will 
  * not be considered a match to anything. Ie, all fields which are part of the hash must have a non-null value.
+ * If the hashed tuples take more than memoryLimitMB megabytes of memory, both streams are partitioned to
+ * temporary files by their hash and joined one partition at a time, see {@link HashJoinSpill}.
  * @since 6.0.0
 **/
 public class HashJoinStream extends TupleStream implements Expressible {
 
   private static final long serialVersionUID = 1L;
 
+  /** The system property with the default memory limit in megabytes */
+  public static final String MEMORY_LIMIT_MB_PROP = "solr.hashJoin.memoryLimitMB";
+  /** The {@link StreamContext} entries of {@link LongAdder}s that count the joins that spilled and their bytes */
+  public static final String SPILLS_METRIC = "hashJoinSpills";
+  public static final String SPILLED_BYTES_METRIC = "hashJoinSpilledBytes";
+
+  private static final int DEFAULT_MEMORY_LIMIT_MB = Integer.getInteger(MEMORY_LIMIT_MB_PROP, 128);
+
   protected TupleStream hashStream;
   protected TupleStream fullStream;
   protected List<String> leftHashOn;
@@ -55,6 +66,11 @@ public class HashJoinStream extends TupleStream implements Expressible {
   protected Tuple workingFullTuple = null;
   protected String workingFullHash = null;
   protected int workngHashSetIdx = 0;
+
+  protected int memoryLimitMB = -1;
+  protected transient HashJoinSpill spill;
+  private transient LongAdder spills;
+  private transient LongAdder spilledBytes;
   
   public HashJoinStream(TupleStream fullStream, TupleStream hashStream, List<String> hashOn) throws IOException {
     init(fullStream, hashStream, hashOn);
@@ -65,9 +81,10 @@ public class HashJoinStream extends TupleStream implements Expressible {
     List<StreamExpression> streamExpressions = factory.getExpressionOperandsRepresentingTypes(expression, Expressible.class, TupleStream.class);
     StreamExpressionNamedParameter hashStreamExpression = factory.getNamedOperand(expression, "hashed");
     StreamExpressionNamedParameter onExpression = factory.getNamedOperand(expression, "on");
+    StreamExpressionNamedParameter memoryLimitExpression = factory.getNamedOperand(expression, "memoryLimitMB");
     
     // validate expression contains only what we want.
-    if(expression.getParameters().size() != streamExpressions.size() + 2){
+    if(expression.getParameters().size() != streamExpressions.size() + 2 + (null == memoryLimitExpression ? 0 : 1)){
       throw new IOException(String.format(Locale.ROOT,"Invalid expression %s - unknown operands found", expression));
     }
     
@@ -94,6 +111,22 @@ public class HashJoinStream extends TupleStream implements Expressible {
           factory.constructStream((StreamExpression)hashStreamExpression.getParameter()),
           hashOn
         );
+
+    if(null != memoryLimitExpression){
+      if(!(memoryLimitExpression.getParameter() instanceof StreamExpressionValue)){
+        throw new IOException(String.format(Locale.ROOT,"Invalid expression %s - expecting a single value for memoryLimitMB",expression));
+      }
+      String memoryLimitValue = ((StreamExpressionValue)memoryLimitExpression.getParameter()).getValue();
+      try{
+        memoryLimitMB = Integer.parseInt(memoryLimitValue);
+      }
+      catch(NumberFormatException e){
+        memoryLimitMB = 0;
+      }
+      if(memoryLimitMB <= 0){
+        throw new IOException(String.format(Locale.ROOT,"Invalid expression %s - expecting a positive number of megabytes for memoryLimitMB but found '%s'",expression,memoryLimitValue));
+      }
+    }
   }
   
   private void init(TupleStream fullStream, TupleStream hashStream, List<String> hashOn) throws IOException {
@@ -164,6 +197,9 @@ public class HashJoinStream extends TupleStream implements Expressible {
     }
     
     expression.addParameter(new StreamExpressionNamedParameter("on",sb.toString()));
+    if(memoryLimitMB > 0){
+      expression.addParameter(new StreamExpressionNamedParameter("memoryLimitMB", Integer.toString(memoryLimitMB)));
+    }
     return expression;   
   }
   
@@ -184,6 +220,22 @@ public class HashJoinStream extends TupleStream implements Expressible {
   public void setStreamContext(StreamContext context) {
     this.hashStream.setStreamContext(context);
     this.fullStream.setStreamContext(context);
+    this.spills = (LongAdder) context.get(SPILLS_METRIC);
+    this.spilledBytes = (LongAdder) context.get(SPILLED_BYTES_METRIC);
+  }
+
+  /** Sets the megabytes the hashed tuples may take in memory before the join spills to disk */
+  public void setMemoryLimitMB(int memoryLimitMB) {
+    this.memoryLimitMB = memoryLimitMB;
+  }
+
+  public int getMemoryLimitMB() {
+    return memoryLimitMB > 0 ? memoryLimitMB : DEFAULT_MEMORY_LIMIT_MB;
+  }
+
+  /** The bytes written to disk since this stream was opened, 0 if its hashed tuples fit in memory */
+  public long getSpilledBytes() {
+    return spill == null ? 0 : spill.getSpilledBytes();
   }
 
   public List<TupleStream> children() {
@@ -197,10 +249,17 @@ public class HashJoinStream extends TupleStream implements Expressible {
     hashStream.open();
     fullStream.open();
     
+    long memoryLimit = getMemoryLimitMB() * 1024L * 1024L;
+    long ramBytesUsed = 0;
     Tuple tuple = hashStream.read();
     while(!tuple.EOF){
       String hash = computeHash(tuple, rightHashOn);
-      if(null != hash){
+      if(null != spill){
+        if(null != hash){
+          spill.addHashed(hash, tuple);
+        }
+      }
+      else if(null != hash){
         if(hashedTuples.containsKey(hash)){
           hashedTuples.get(hash).add(tuple);
         }
@@ -209,9 +268,45 @@ public class HashJoinStream extends TupleStream implements Expressible {
           set.add(tuple);
           hashedTuples.put(hash, set);
         }
+        ramBytesUsed += HashJoinSpill.ramBytesUsed(hash, tuple);
+        if(ramBytesUsed > memoryLimit){
+          spill(memoryLimit);
+        }
       }
       tuple = hashStream.read();
     }
+
+    if(null != spill){
+      spill.finishHashed();
+      boolean outer = joinsUnmatched();
+      long position = 0;
+      for(Tuple fullTuple = fullStream.read(); !fullTuple.EOF; fullTuple = fullStream.read()){
+        spill.addFull(position++, computeHash(fullTuple, leftHashOn), fullTuple, outer);
+      }
+      spill.join(outer);
+      if(null != spills){
+        spills.increment();
+      }
+      if(null != spilledBytes){
+        spilledBytes.add(spill.getSpilledBytes());
+      }
+    }
+  }
+
+  /** Moves the hashed tuples to disk, which is where all the following ones go too */
+  private void spill(long memoryLimit) throws IOException {
+    spill = new HashJoinSpill(memoryLimit);
+    for(List<Tuple> tuples : hashedTuples.values()){
+      for(Tuple tuple : tuples){
+        spill.addHashed(computeHash(tuple, rightHashOn), tuple);
+      }
+    }
+    hashedTuples.clear();
+  }
+
+  /** Whether tuples of the fullStream without any matching hashed tuple are returned too */
+  protected boolean joinsUnmatched() {
+    return false;
   }
   
   protected String computeHash(Tuple tuple, List<String> hashOn){
@@ -229,11 +324,22 @@ public class HashJoinStream extends TupleStream implements Expressible {
   }
 
   public void close() throws IOException {
-    hashStream.close();
-    fullStream.close();
+    try {
+      hashStream.close();
+      fullStream.close();
+    } finally {
+      hashedTuples.clear();
+      if(null != spill){
+        spill.close();
+        spill = null;
+      }
+    }
   }
 
   public Tuple read() throws IOException {
+    if(null != spill){
+      return spill.read();
+    }
     
     findNextWorkingFullTuple:
     while(null == workingFullTuple){
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Iterator;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.HashKey;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -195,9 +196,42 @@ public class HashRollupStream extends TupleStream implements Expressible {
     //On the first call to read build the tupleIterator.
     if(tupleIterator == null) {
       Map<HashKey, Metric[]> metricMap = new HashMap<>();
+      TupleBatch batch = new TupleBatch();
       while (true) {
-        Tuple tuple = tupleStream.read();
-        if (tuple.EOF) {
+        batch.clear();
+        tupleStream.readBatch(batch);
+        int row = 0;
+        while (row < batch.size()) {
+          Object[] bucketValues = new Object[buckets.length];
+          for (int i = 0; i < buckets.length; i++) {
+            bucketValues[i] = buckets[i].getBucketValue(batch, row);
+          }
+          // neighbouring rows often share their buckets, their metrics are updated together
+          int start = row++;
+          while (row < batch.size() && hasBucketValues(batch, row, bucketValues)) {
+            row++;
+          }
+
+          HashKey hashKey = new HashKey(bucketValues);
+          Metric[] currentMetrics = metricMap.get(hashKey);
+
+          if (currentMetrics != null) {
+            for (Metric bucketMetric : currentMetrics) {
+              bucketMetric.update(batch, start, row);
+            }
+          } else {
+            currentMetrics = new Metric[metrics.length];
+            for (int i = 0; i < metrics.length; i++) {
+              Metric bucketMetric = metrics[i].newInstance();
+              bucketMetric.update(batch, start, row);
+              currentMetrics[i] = bucketMetric;
+            }
+            metricMap.put(hashKey, currentMetrics);
+          }
+        }
+
+        Tuple tuple = batch.getEOF();
+        if (tuple != null) {
           @SuppressWarnings({"rawtypes"})
           List tuples = new ArrayList();
           for(Map.Entry<HashKey, Metric[]> entry : metricMap.entrySet()) {
@@ -217,34 +251,21 @@ public class HashRollupStream extends TupleStream implements Expressible {
           this.tupleIterator = tuples.iterator();
           break;
         }
-
-        Object[] bucketValues = new Object[buckets.length];
-        for (int i = 0; i < buckets.length; i++) {
-          bucketValues[i] = buckets[i].getBucketValue(tuple);
-        }
-
-        HashKey hashKey = new HashKey(bucketValues);
-        Metric[] currentMetrics = metricMap.get(hashKey);
-
-        if (currentMetrics != null) {
-          for (Metric bucketMetric : currentMetrics) {
-            bucketMetric.update(tuple);
-          }
-        } else {
-          currentMetrics = new Metric[metrics.length];
-          for (int i = 0; i < metrics.length; i++) {
-            Metric bucketMetric = metrics[i].newInstance();
-            bucketMetric.update(tuple);
-            currentMetrics[i] = bucketMetric;
-          }
-          metricMap.put(hashKey, currentMetrics);
-        }
       }
     }
 
     return tupleIterator.next();
   }
 
+  private boolean hasBucketValues(TupleBatch batch, int row, Object[] bucketValues) {
+    for (int i = 0; i < buckets.length; i++) {
+      if (!bucketValues[i].equals(buckets[i].getBucketValue(batch, row))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public int getCost() {
     return 0;
   }
@@ -26,6 +26,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.JavaBinCodec;
@@ -185,6 +186,79 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
     return (Map<String, Object>) o;
   }
 
+  /**
+   * Reads tuples into the batch until it is full, without building a map for each of them. Long and double values
+   * go straight into the primitive columns of the batch.
+   * @return false if there are no more tuples
+   */
+  @SuppressWarnings({"unchecked"})
+  public boolean next(TupleBatch batch) throws IOException {
+    while (!batch.isFull()) {
+      if (arraySize == 0) return false;
+      tagByte = fis.readByte();
+      arraySize--;
+      if (tagByte == END) {
+        arraySize = 0;
+        return false;
+      }
+      int row = batch.addRow();
+      if (tagByte == MAP_ENTRY_ITER) {
+        for (; ; ) {
+          Object key = readVal(fis);
+          if (key == END_OBJ) break;
+          readField(batch, row, key.toString());
+        }
+      } else if (tagByte >>> 5 == ORDERED_MAP >>> 5 || tagByte >>> 5 == NAMED_LST >>> 5 || tagByte == MAP) {
+        int sz = tagByte == MAP ? readVInt(fis) : readSize(fis);
+        for (int i = 0; i < sz; i++) {
+          readField(batch, row, readVal(fis).toString());
+        }
+      } else {
+        Map<String, Object> m = (Map<String, Object>) readObject(fis);
+        for (Map.Entry<String, Object> e : m.entrySet()) {
+          batch.put(row, e.getKey(), e.getValue());
+        }
+      }
+    }
+    return true;
+  }
+
+  private void readField(TupleBatch batch, int row, String name) throws IOException {
+    tagByte = fis.readByte();
+    switch (tagByte >>> 5) {
+      case SLONG >>> 5:
+        batch.putLong(row, name, readSmallLong(fis));
+        return;
+      case SINT >>> 5:
+        if (onlyJsonTypes) {
+          batch.putLong(row, name, readSmallInt(fis));
+          return;
+        }
+        break;
+    }
+    switch (tagByte) {
+      case LONG:
+        batch.putLong(row, name, fis.readLong());
+        return;
+      case DOUBLE:
+        batch.putDouble(row, name, fis.readDouble());
+        return;
+      case INT:
+        if (onlyJsonTypes) {
+          batch.putLong(row, name, fis.readInt());
+          return;
+        }
+        break;
+      case FLOAT:
+        if (onlyJsonTypes) {
+          batch.putDouble(row, name, fis.readFloat());
+          return;
+        }
+        break;
+    }
+    batch.put(row, name, readObject(fis));
+  }
+
   @Override
   public void close() throws IOException {
     is.close();
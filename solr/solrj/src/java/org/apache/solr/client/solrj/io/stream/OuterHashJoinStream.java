@@ -83,11 +83,22 @@ public class OuterHashJoinStream extends HashJoinStream implements Expressible {
       }
     }
     expression.addParameter(new StreamExpressionNamedParameter("on",sb.toString()));
+    if(memoryLimitMB > 0){
+      expression.addParameter(new StreamExpressionNamedParameter("memoryLimitMB", Integer.toString(memoryLimitMB)));
+    }
     
     return expression;   
   }
 
+  @Override
+  protected boolean joinsUnmatched() {
+    return true;
+  }
+
   public Tuple read() throws IOException {
+    if(null != spill){
+      return spill.read();
+    }
     
     if(null == workingFullTuple){
       Tuple fullTuple = fullStream.read();
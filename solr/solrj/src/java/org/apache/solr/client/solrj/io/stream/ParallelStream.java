@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
@@ -211,6 +212,12 @@ public class ParallelStream extends CloudSolrStream implements Expressible {
     return l;
   }
 
+  @Override
+  public void readBatch(TupleBatch batch) throws IOException {
+    // read() does more than merging the shards
+    readTuples(batch);
+  }
+
   public Tuple read() throws IOException {
     Tuple tuple = _read();
 
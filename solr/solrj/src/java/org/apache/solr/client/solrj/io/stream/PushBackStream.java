@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Expressible;
@@ -79,6 +80,20 @@ public class PushBackStream extends TupleStream implements Expressible {
     this.tuple = tuple;
   }
 
+  @Override
+  public void readBatch(TupleBatch batch) throws IOException {
+    if (tuple != null) {
+      Tuple t = tuple;
+      tuple = null;
+      if (t.EOF) {
+        batch.setEOF(t);
+        return;
+      }
+      batch.add(t);
+    }
+    stream.readBatch(batch);
+  }
+
   public Tuple read() throws IOException {
     if(tuple != null) {
       Tuple t = tuple;
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.HashKey;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -52,6 +53,8 @@ public class RollupStream extends TupleStream implements Expressible {
   private HashKey currentKey = new HashKey("-");
   private Metric[] currentMetrics;
   private boolean finished = false;
+  private transient TupleBatch batch;
+  private int row;
 
   public RollupStream(TupleStream tupleStream,
                       Bucket[] buckets,
@@ -191,74 +194,91 @@ public class RollupStream extends TupleStream implements Expressible {
     this.currentMetrics = null;
     this.currentKey = new HashKey("-");
     this.finished = false;
+    this.batch = null;
+    this.row = 0;
   }
 
   public Tuple read() throws IOException {
+    if (batch == null) {
+      batch = new TupleBatch();
+    }
 
     while(true) {
-      Tuple tuple = tupleStream.read();
-      if(tuple.EOF) {
-        if(!finished) {
-
-          if(currentMetrics == null) {
-            return tuple;
-          }
-
-          Tuple t = new Tuple();
-          for(Metric metric : currentMetrics) {
-            t.put(metric.getIdentifier(), metric.getValue());
+      if(row == batch.size()) {
+        Tuple eof = batch.getEOF();
+        if(eof != null) {
+          if(currentMetrics == null || finished) {
+            return eof;
           }
-
-          for(int i=0; i<buckets.length; i++) {
-            t.put(buckets[i].toString(), currentKey.getParts()[i]);
-          }
-          tupleStream.pushBack(tuple);
           finished = true;
-          return t;
-        } else {
-          return tuple;
+          return bucketTuple();
         }
+        batch.clear();
+        row = 0;
+        tupleStream.readBatch(batch);
+        continue;
       }
 
-      Object[] bucketValues = new Object[buckets.length];
-      for(int i=0; i<buckets.length; i++) {
-        bucketValues[i] = buckets[i].getBucketValue(tuple);
+      // the tuples come sorted by the buckets, so the metrics are updated for each run of rows with the same key
+      int start = row;
+      if(currentMetrics != null && isCurrentKey(row)) {
+        row = endOfRun(row + 1);
+        for(Metric bucketMetric : currentMetrics) {
+          bucketMetric.update(batch, start, row);
+        }
+        continue;
       }
 
-      HashKey hashKey = new HashKey(bucketValues);
+      Tuple t = currentMetrics == null ? null : bucketTuple();
 
-      if(hashKey.equals(currentKey)) {
-        for(Metric bucketMetric : currentMetrics) {
-          bucketMetric.update(tuple);
+      Object[] bucketValues = new Object[buckets.length];
+      for(int i=0; i<buckets.length; i++) {
+        bucketValues[i] = buckets[i].getBucketValue(batch, row);
+      }
+      currentKey = new HashKey(bucketValues);
+      row = endOfRun(row + 1);
+      if (metrics != null) {
+        currentMetrics = new Metric[metrics.length];
+        for(int i=0; i<metrics.length; i++) {
+          Metric bucketMetric = metrics[i].newInstance();
+          bucketMetric.update(batch, start, row);
+          currentMetrics[i]  = bucketMetric;
         }
-      } else {
-        Tuple t = null;
-        if(currentMetrics != null) {
-          t = new Tuple();
-          for(Metric metric : currentMetrics) {
-            t.put(metric.getIdentifier(), metric.getValue());
-          }
+      }
 
-          for(int i=0; i<buckets.length; i++) {
-            t.put(buckets[i].toString(), currentKey.getParts()[i]);
-          }
-        }
+      if(t != null) {
+        return t;
+      }
+    }
+  }
 
-        currentKey = hashKey;
-        if (metrics != null) {
-          currentMetrics = new Metric[metrics.length];
-          for(int i=0; i<metrics.length; i++) {
-            Metric bucketMetric = metrics[i].newInstance();
-            bucketMetric.update(tuple);
-            currentMetrics[i]  = bucketMetric;
-          }
-        }
+  private int endOfRun(int row) {
+    while(row < batch.size() && isCurrentKey(row)) {
+      row++;
+    }
+    return row;
+  }
 
-        if(t != null) {
-          return t;
-        }
+  private boolean isCurrentKey(int row) {
+    Object[] parts = currentKey.getParts();
+    for(int i=0; i<buckets.length; i++) {
+      if(!parts[i].equals(buckets[i].getBucketValue(batch, row))) {
+        return false;
       }
     }
+    return true;
+  }
+
+  private Tuple bucketTuple() {
+    Tuple t = new Tuple();
+    for(Metric metric : currentMetrics) {
+      t.put(metric.getIdentifier(), metric.getValue());
+    }
+
+    for(int i=0; i<buckets.length; i++) {
+      t.put(buckets[i].toString(), currentKey.getParts()[i]);
+    }
+    return t;
   }
 
   public int getCost() {
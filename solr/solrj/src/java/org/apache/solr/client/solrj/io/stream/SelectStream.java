@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eval.EvaluatorException;
 import org.apache.solr.client.solrj.io.eval.StreamEvaluator;
@@ -56,6 +57,7 @@ public class SelectStream extends TupleStream implements Expressible {
   private Map<String,String> selectedFields;
   private Map<StreamEvaluator,String> selectedEvaluators;
   private List<StreamOperation> operations;
+  private transient TupleBatch input;
 
   public SelectStream(TupleStream stream, List<String> selectedFields) throws IOException {
     this.stream = stream;
@@ -250,6 +252,33 @@ public class SelectStream extends TupleStream implements Expressible {
     stream.close();
   }
 
+  /**
+   * A select that only picks and renames fields copies the columns of the incoming batch. Operations and
+   * evaluators work on tuples, so with them the stream is read tuple by tuple.
+   */
+  @Override
+  public void readBatch(TupleBatch batch) throws IOException {
+    if (!operations.isEmpty() || !selectedEvaluators.isEmpty() || batch.size() > 0) {
+      super.readBatch(batch);
+      return;
+    }
+    if (input == null || input.capacity() != batch.capacity()) {
+      input = new TupleBatch(batch.capacity());
+    }
+    input.clear();
+    stream.readBatch(input);
+    for (int row = 0; row < input.size(); row++) {
+      batch.addRow();
+    }
+    for (Map.Entry<String, String> selectedField : selectedFields.entrySet()) {
+      TupleBatch.Column column = input.getColumn(selectedField.getKey());
+      if (column != null) {
+        batch.copyColumn(column, selectedField.getValue());
+      }
+    }
+    batch.setEOF(input.getEOF());
+  }
+
   public Tuple read() throws IOException {
     Tuple original = stream.read();
     
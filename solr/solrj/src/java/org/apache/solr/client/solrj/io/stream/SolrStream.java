@@ -32,6 +32,7 @@ import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.impl.InputStreamResponseParser;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation.ExpressionType;
@@ -240,6 +241,54 @@ public class SolrStream extends TupleStream {
     }
   }
 
+  /**
+   * Reads javabin responses straight into the columns of the batch. Other responses, and streams with field
+   * mappings, are read tuple by tuple.
+   */
+  @Override
+  public void readBatch(TupleBatch batch) throws IOException {
+    if (!(tupleStreamParser instanceof JavabinTupleStreamParser) || fieldMappings != null) {
+      super.readBatch(batch);
+      return;
+    }
+    int from = batch.size();
+    try {
+      boolean more = ((JavabinTupleStreamParser) tupleStreamParser).next(batch);
+
+      if (trace) {
+        for (int row = from; row < batch.size(); row++) {
+          batch.put(row, "_CORE_", this.baseUrl);
+          if (slice != null) {
+            batch.put(row, "_SLICE_", slice);
+          }
+        }
+      }
+
+      TupleBatch.Column exception = batch.getColumn(StreamParams.EXCEPTION);
+      TupleBatch.Column eof = batch.getColumn(StreamParams.EOF);
+      for (int row = from; row < batch.size(); row++) {
+        if (exception != null && exception.get(row) != null) {
+          throw new HandledException((String) exception.get(row));
+        }
+        if (eof != null && eof.isSet(row)) {
+          // the server ended the stream with an EOF tuple of its own
+          Tuple tuple = batch.getTuple(row);
+          batch.truncate(row);
+          batch.setEOF(tuple);
+          return;
+        }
+      }
+      if (!more) {
+        batch.setEOF(Tuple.EOF());
+      }
+    } catch (HandledException e) {
+      throw new IOException("--> "+this.baseUrl+":"+e.getMessage());
+    } catch (Exception e) {
+      //The Stream source did not provide an exception in a format that the SolrStream could propagate.
+      throw new IOException("--> "+this.baseUrl+": An exception has occurred on the server, refer to server log for details.", e);
+    }
+  }
+
   public void setDistrib(boolean distrib) {
     this.distrib = distrib;
   }
@@ -37,6 +37,7 @@ import java.util.stream.Collectors;
 import org.apache.solr.client.solrj.impl.CloudSolrClient.Builder;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
@@ -358,6 +359,12 @@ public class TopicStream extends CloudSolrStream implements Expressible  {
     }
   }
 
+  @Override
+  public void readBatch(TupleBatch batch) throws IOException {
+    // read() does more than merging the shards
+    readTuples(batch);
+  }
+
   public Tuple read() throws IOException {
     Tuple tuple = _read();
 
@@ -32,6 +32,7 @@ import java.util.stream.Collectors;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -69,6 +70,28 @@ public abstract class TupleStream implements Closeable, Serializable, MapWriter
 
   public abstract Tuple read() throws IOException;
 
+  /**
+   * Adds tuples to the batch until it is full or the stream has ended, in which case the EOF tuple is set on the
+   * batch. Streams that can fill the batch without building a {@link Tuple} for every row override this, the
+   * others are read through {@link #read()}. A stream is read either with {@link #read()} or with this method,
+   * not with both.
+   */
+  public void readBatch(TupleBatch batch) throws IOException {
+    readTuples(batch);
+  }
+
+  /** Fills the batch through {@link #read()}, for subclasses whose parent reads batches in another way */
+  protected final void readTuples(TupleBatch batch) throws IOException {
+    while (!batch.isFull()) {
+      Tuple tuple = read();
+      if (tuple.EOF) {
+        batch.setEOF(tuple);
+        return;
+      }
+      batch.add(tuple);
+    }
+  }
+
   public abstract StreamComparator getStreamSort();
 
   public abstract Explanation toExplanation(StreamFactory factory) throws IOException;
@@ -17,6 +17,7 @@
 package org.apache.solr.client.solrj.io.stream.metrics;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 
 public class Bucket {
 
@@ -38,6 +39,16 @@ public class Bucket {
     }
   }
 
+  public Object getBucketValue(TupleBatch batch, int row) {
+    TupleBatch.Column column = batch.getColumn(bucketKey);
+    Object o = column == null ? null : column.get(row);
+    if(o == null) {
+      return NULL_VALUE;
+    } else {
+      return o;
+    }
+  }
+
   public String toString() {
     return bucketKey;
   }
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -72,6 +73,24 @@ public class CountMetric extends Metric {
     }
   }
 
+  @Override
+  public void update(TupleBatch batch, int fromRow, int toRow) {
+    if(isAllColumns()) {
+      count += toRow - fromRow;
+      return;
+    }
+    TupleBatch.Column column = batch.getColumn(columnName);
+    if (column == null) {
+      return;
+    }
+    boolean mayBeNull = column.getType() == TupleBatch.Type.OBJECT;
+    for (int row = fromRow; row < toRow; row++) {
+      if (column.isSet(row) && (!mayBeNull || column.get(row) != null)) {
+        ++count;
+      }
+    }
+  }
+
   public Long getValue() {
     return count;
   }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -73,7 +74,35 @@ public class MeanMetric extends Metric {
   
   public void update(Tuple tuple) {
     ++count;
-    Object o = tuple.get(columnName);
+    add(tuple.get(columnName));
+  }
+
+  @Override
+  public void update(TupleBatch batch, int fromRow, int toRow) {
+    count += toRow - fromRow;
+    TupleBatch.Column column = batch.getColumn(columnName);
+    if (column == null || column.getType() == null) {
+      return;
+    }
+    switch (column.getType()) {
+      case LONG:
+        for (int row = fromRow; row < toRow; row++) {
+          if (column.isSet(row)) longSum += column.getLong(row);
+        }
+        break;
+      case DOUBLE:
+        for (int row = fromRow; row < toRow; row++) {
+          if (column.isSet(row)) doubleSum += column.getDouble(row);
+        }
+        break;
+      default:
+        for (int row = fromRow; row < toRow; row++) {
+          add(column.get(row));
+        }
+    }
+  }
+
+  private void add(Object o) {
     if(o instanceof Double) {
       Double d = (Double) o;
       doubleSum += d;
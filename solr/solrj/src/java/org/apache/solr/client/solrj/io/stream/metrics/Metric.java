@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.UUID;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation.ExpressionType;
 import org.apache.solr.client.solrj.io.stream.expr.Expressible;
@@ -69,6 +70,16 @@ public abstract class Metric implements Expressible {
   
   public abstract Number getValue();
   public abstract void update(Tuple tuple);
+
+  /**
+   * Updates the metric with the tuples of the given rows of the batch. Metrics that can read the columns
+   * directly override this, the default builds a tuple for every row.
+   */
+  public void update(TupleBatch batch, int fromRow, int toRow) {
+    for (int row = fromRow; row < toRow; row++) {
+      update(batch.getTuple(row));
+    }
+  }
   public abstract Metric newInstance();
   public abstract String[] getColumns();
 
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -60,7 +61,34 @@ public class SumMetric extends Metric {
   }
 
   public void update(Tuple tuple) {
-    Object o = tuple.get(columnName);
+    add(tuple.get(columnName));
+  }
+
+  @Override
+  public void update(TupleBatch batch, int fromRow, int toRow) {
+    TupleBatch.Column column = batch.getColumn(columnName);
+    if (column == null || column.getType() == null) {
+      return;
+    }
+    switch (column.getType()) {
+      case LONG:
+        for (int row = fromRow; row < toRow; row++) {
+          if (column.isSet(row)) longSum += column.getLong(row);
+        }
+        break;
+      case DOUBLE:
+        for (int row = fromRow; row < toRow; row++) {
+          if (column.isSet(row)) doubleSum += column.getDouble(row);
+        }
+        break;
+      default:
+        for (int row = fromRow; row < toRow; row++) {
+          add(column.get(row));
+        }
+    }
+  }
+
+  private void add(Object o) {
     if(o instanceof Double) {
       Double d = (Double) o;
       doubleSum += d;
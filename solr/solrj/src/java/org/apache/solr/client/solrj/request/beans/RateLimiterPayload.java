@@ -41,6 +41,12 @@ public class RateLimiterPayload implements ReflectMapWriter {
   @JsonProperty
   public Integer slotAcquisitionTimeoutInMS;
 
+  @JsonProperty
+  public Boolean adaptive;
+
+  @JsonProperty
+  public Integer minAllowedRequests;
+
   public RateLimiterPayload copy() {
     RateLimiterPayload result = new RateLimiterPayload();
 
@@ -49,6 +55,8 @@ public class RateLimiterPayload implements ReflectMapWriter {
     result.allowedRequests = allowedRequests;
     result.slotBorrowingEnabled = slotBorrowingEnabled;
     result.slotAcquisitionTimeoutInMS = slotAcquisitionTimeoutInMS;
+    result.adaptive = adaptive;
+    result.minAllowedRequests = minAllowedRequests;
 
     return result;
   }
@@ -61,13 +69,16 @@ public class RateLimiterPayload implements ReflectMapWriter {
           Objects.equals(this.guaranteedSlots, that.guaranteedSlots) &&
           Objects.equals(this.allowedRequests, that.allowedRequests) &&
           Objects.equals(this.slotBorrowingEnabled, that.slotBorrowingEnabled) &&
-          Objects.equals(this.slotAcquisitionTimeoutInMS, that.slotAcquisitionTimeoutInMS);
+          Objects.equals(this.slotAcquisitionTimeoutInMS, that.slotAcquisitionTimeoutInMS) &&
+          Objects.equals(this.adaptive, that.adaptive) &&
+          Objects.equals(this.minAllowedRequests, that.minAllowedRequests);
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(enabled, guaranteedSlots, allowedRequests, slotBorrowingEnabled, slotAcquisitionTimeoutInMS);
+    return Objects.hash(enabled, guaranteedSlots, allowedRequests, slotBorrowingEnabled, slotAcquisitionTimeoutInMS,
+        adaptive, minAllowedRequests);
   }
 }
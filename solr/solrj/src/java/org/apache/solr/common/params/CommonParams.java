@@ -165,6 +165,13 @@ public interface CommonParams {
    * match a query, then the value in "numFound" may be an estimate to speedup search.
    */
   String MIN_EXACT_COUNT = "minExactCount";
+
+  /**
+   * Whether the searcher may search index segments in parallel, using the node's index searcher executor.
+   * Typically set in the defaults of the request handlers serving heavy queries on large shards.
+   */
+  String MULTI_THREADED = "multiThreaded";
+  boolean MULTI_THREADED_DEFAULT = false;
   
   /** 'true' if the header should include the handler name */
   String HEADER_ECHO_HANDLER = "echoHandler";
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A node-wide pool of the byte[] and char[] buffers that {@link FastOutputStream}, {@link FastWriter} and
+ * {@link JavaBinCodec} write responses through, so that serving many small responses doesn't allocate
+ * fresh buffers for each of them.
+ * <p>
+ * Buffers come in power of two size classes from {@link #MIN_SIZE} to {@link #MAX_SIZE}; a request is
+ * rounded up to the next class, and larger requests are simply allocated.  Each class retains at most
+ * {@link #MAX_BYTES_PER_CLASS} of free buffers.  Pooled buffers are not cleared, so their contents are
+ * undefined.  A buffer must not be used after it was released, and must be released at most once.
+ *
+ * @lucene.internal
+ */
+public final class BufferPool {
+  /** The smallest size class, the default buffer size of {@link FastOutputStream} and {@link FastWriter} */
+  public static final int MIN_SIZE = 1 << 13;
+  /** The largest size class */
+  public static final int MAX_SIZE = 1 << 16;
+  /** Maximum bytes of free buffers retained per size class, for byte[] and char[] buffers each */
+  static final long MAX_BYTES_PER_CLASS = Long.getLong("solr.bufferPool.maxBytesPerClass", 4L << 20);
+
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+  private static final int NUM_CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE) - MIN_SHIFT + 1;
+
+  private static final LongAdder hits = new LongAdder();      // buffers handed out from the pool
+  private static final LongAdder misses = new LongAdder();    // poolable buffers that had to be allocated
+  private static final LongAdder discards = new LongAdder();  // released buffers dropped because the pool was full
+
+  private static final SizeClass<byte[]>[] BYTES = newClasses(Byte.BYTES);
+  private static final SizeClass<char[]>[] CHARS = newClasses(Character.BYTES);
+
+  private BufferPool() {}
+
+  /** Returns a byte[] of at least the given size, from the pool if possible */
+  public static byte[] takeBytes(int minSize) {
+    int sizeClass = sizeClassFor(minSize);
+    if (sizeClass < 0) {
+      return new byte[minSize];
+    }
+    byte[] buf = BYTES[sizeClass].take();
+    return buf != null ? buf : new byte[MIN_SIZE << sizeClass];
+  }
+
+  /** Returns a char[] of at least the given size, from the pool if possible */
+  public static char[] takeChars(int minSize) {
+    int sizeClass = sizeClassFor(minSize);
+    if (sizeClass < 0) {
+      return new char[minSize];
+    }
+    char[] buf = CHARS[sizeClass].take();
+    return buf != null ? buf : new char[MIN_SIZE << sizeClass];
+  }
+
+  /** Returns a buffer obtained from {@link #takeBytes} to the pool; buffers of other sizes are ignored */
+  public static void release(byte[] buf) {
+    if (buf != null) {
+      int sizeClass = sizeClassOf(buf.length);
+      if (sizeClass >= 0) BYTES[sizeClass].put(buf);
+    }
+  }
+
+  /** Returns a buffer obtained from {@link #takeChars} to the pool; buffers of other sizes are ignored */
+  public static void release(char[] buf) {
+    if (buf != null) {
+      int sizeClass = sizeClassOf(buf.length);
+      if (sizeClass >= 0) CHARS[sizeClass].put(buf);
+    }
+  }
+
+  /** Number of buffers handed out from the pool */
+  public static long getHits() {
+    return hits.sum();
+  }
+
+  /** Number of poolable buffers that had to be allocated because the pool had none of their size */
+  public static long getMisses() {
+    return misses.sum();
+  }
+
+  /** Number of released buffers that were dropped because the pool already held enough of their size */
+  public static long getDiscards() {
+    return discards.sum();
+  }
+
+  /** Bytes held by the free buffers in the pool */
+  public static long getPooledBytes() {
+    long bytes = 0;
+    for (int i = 0; i < NUM_CLASSES; i++) {
+      bytes += (long) BYTES[i].size() * (MIN_SIZE << i) * Byte.BYTES;
+      bytes += (long) CHARS[i].size() * (MIN_SIZE << i) * Character.BYTES;
+    }
+    return bytes;
+  }
+
+  /** The class of the smallest buffers holding size elements, or -1 if that is more than {@link #MAX_SIZE} */
+  private static int sizeClassFor(int size) {
+    if (size <= MIN_SIZE) return 0;
+    if (size > MAX_SIZE) return -1;
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+  }
+
+  /** The class of buffers of exactly this length, or -1 if there is none */
+  private static int sizeClassOf(int length) {
+    if (length < MIN_SIZE || length > MAX_SIZE || Integer.bitCount(length) != 1) return -1;
+    return Integer.numberOfTrailingZeros(length) - MIN_SHIFT;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <T> SizeClass<T>[] newClasses(int elementBytes) {
+    SizeClass[] classes = new SizeClass[NUM_CLASSES];
+    for (int i = 0; i < NUM_CLASSES; i++) {
+      classes[i] = new SizeClass<>((int) Math.min(Integer.MAX_VALUE, MAX_BYTES_PER_CLASS / ((long) elementBytes << (MIN_SHIFT + i))));
+    }
+    return classes;
+  }
+
+  private static final class SizeClass<T> {
+    final ArrayBlockingQueue<T> free; // null if buffers of this class are never retained
+
+    SizeClass(int capacity) {
+      free = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : null;
+    }
+
+    T take() {
+      T buf = free == null ? null : free.poll();
+      if (buf != null) {
+        hits.increment();
+      } else {
+        misses.increment();
+      }
+      return buf;
+    }
+
+    int size() {
+      return free == null ? 0 : free.size();
+    }
+
+    void put(T buf) {
+      if (free == null || !free.offer(buf)) {
+        discards.increment();
+      }
+    }
+  }
+}
@@ -133,8 +133,12 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
     }
 
     public EntryImpl beginRead(EntryImpl parent) throws IOException {
+      return beginRead(parent, getTag());
+    }
+
+    EntryImpl beginRead(EntryImpl parent, Tag tag) throws IOException {
       EntryImpl entry = parent.getChildAndReset();
-      entry.tag = getTag();
+      entry.tag = tag;
       entry.tag.lazyRead(entry, this);
       if (entry.tag.type.isPrimitive) entry.consumedFully = true;
       return entry;
@@ -161,6 +165,8 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
     boolean consumedFully = false;
     int depth = 0;
     CharSequence name;
+    // the field names seen so far, if this is a doc batch
+    List<String> fieldNames;
 
 
     EntryImpl getChildAndReset() {
@@ -280,6 +286,7 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
       consumedFully = false;
       metadata = null;
       name = null;
+      fieldNames = null;
       idx = -1;
     }
 
@@ -423,6 +430,10 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
     _SOLRDOC(SOLRDOC, LOWER_5_BITS, DataEntry.Type.KEYVAL_ITER) {
       @Override
       public void stream(EntryImpl entry, StreamCodec codec) throws IOException {
+        if (isBatched(entry)) {
+          streamBatched(entry, codec);
+          return;
+        }
         try {
           codec.getTag();
           entry.size = codec.readSize(codec.dis);//  readObjSz(codec, entry.tag);
@@ -445,10 +456,74 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
         }
       }
 
+      private void streamBatched(EntryImpl entry, StreamCodec codec) throws IOException {
+        try {
+          List<String> fields = entry.parent.fieldNames;
+          codec.readBatchedFieldNames(codec.dis, fields);
+          long idx = 0;
+          for (String field : fields) {
+            Tag tag = codec.getTag();
+            if (tag == _END) continue; // the document doesn't have this field
+            callbackMapEntryListener(entry, codec.beginRead(entry, tag), field, codec, idx++);
+          }
+          int children = readVInt(codec.dis);
+          for (int i = 0; i < children; i++) {
+            EntryImpl e = entry.getChildAndReset();
+            e.tag = codec.getTag();
+            e.idx = idx++;
+            Tag.callbackIterListener(entry, e, codec);
+          }
+        } finally {
+          entry.callEnd();
+        }
+      }
+
       @Override
       public Object readObject(StreamCodec codec, EntryImpl entry) throws IOException {
+        if (isBatched(entry)) {
+          return codec.readBatchedDocument(codec.dis, entry.parent.fieldNames);
+        }
         return codec.readSolrDocument(codec.dis);
       }
+
+      private boolean isBatched(EntryImpl entry) {
+        return entry.parent != null && entry.parent.tag == _SOLRDOCBATCH;
+      }
+    },
+    _SOLRDOCBATCH(SOLRDOCBATCH, LOWER_5_BITS, DataEntry.Type.ENTRY_ITER) {
+      @Override
+      public void lazyRead(EntryImpl entry, StreamCodec codec) throws IOException {
+        entry.metadata = codec.readVal(codec.dis);
+        entry.size = readVInt(codec.dis);
+        entry.fieldNames = new ArrayList<>();
+      }
+
+      @Override
+      public void stream(EntryImpl entry, StreamCodec codec) throws IOException {
+        try {
+          for (int i = 0; i < entry.size; i++) {
+            // the documents of a batch have no tag of their own
+            EntryImpl newEntry = entry.getChildAndReset();
+            newEntry.tag = _SOLRDOC;
+            newEntry.idx = i;
+            Tag.callbackIterListener(entry, newEntry, codec);
+          }
+        } finally {
+          entry.callEnd();
+        }
+      }
+
+      @Override
+      @SuppressWarnings({"unchecked"})
+      public Object readObject(StreamCodec codec, EntryImpl entry) throws IOException {
+        SolrDocumentList solrDocs = new SolrDocumentList();
+        JavaBinCodec.setDocListInfo(solrDocs, (List<Object>) entry.metadata);
+        solrDocs.ensureCapacity(entry.size);
+        for (int i = 0; i < entry.size; i++) {
+          solrDocs.add(codec.readBatchedDocument(codec.dis, entry.fieldNames));
+        }
+        return solrDocs;
+      }
     },
     _SOLRDOCLST(SOLRDOCLST, LOWER_5_BITS, DataEntry.Type.ENTRY_ITER) {
       @Override
@@ -687,7 +762,11 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
 
     private static void callbackMapEntryListener(EntryImpl entry, CharSequence key, StreamCodec codec, long idx)
         throws IOException {
-      EntryImpl newEntry = codec.beginRead(entry);
+      callbackMapEntryListener(entry, codec.beginRead(entry), key, codec, idx);
+    }
+
+    private static void callbackMapEntryListener(EntryImpl entry, EntryImpl newEntry, CharSequence key,
+                                                 StreamCodec codec, long idx) throws IOException {
       newEntry.name = key;
       newEntry.mapEntry = true;
       newEntry.idx = idx;
@@ -29,6 +29,7 @@ public class FastOutputStream extends OutputStream implements DataOutput {
   protected byte[] buf;
   protected long written;  // how many bytes written to the underlying stream
   protected int pos;
+  private boolean pooled; // buf came from the BufferPool
 
   public FastOutputStream(OutputStream w) {
   // use default BUFSIZE of BufferedOutputStream so if we wrap that
@@ -47,6 +48,26 @@ public class FastOutputStream extends OutputStream implements DataOutput {
    return (sink instanceof FastOutputStream) ? (FastOutputStream)sink : new FastOutputStream(sink);
   }
 
+  /** Like {@link #wrap} but a new FastOutputStream takes its buffer from the {@link BufferPool}.
+   * Call {@link #release()} once done writing to it. */
+  public static FastOutputStream wrapPooled(OutputStream sink) {
+    if (sink instanceof FastOutputStream) return (FastOutputStream) sink;
+    FastOutputStream fos = new FastOutputStream(sink, BufferPool.takeBytes(BufferPool.MIN_SIZE), 0);
+    fos.pooled = true;
+    return fos;
+  }
+
+  /** Returns the buffer to the {@link BufferPool} if it was taken from there by {@link #wrapPooled}.
+   * Anything not flushed yet is dropped, and the stream must not be written to afterwards. */
+  public void release() {
+    if (pooled) {
+      pooled = false;
+      BufferPool.release(buf);
+      buf = null;
+      pos = 0;
+    }
+  }
+
   @Override
   public void write(int b) throws IOException {
     write((byte)b);
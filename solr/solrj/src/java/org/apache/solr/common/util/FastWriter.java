@@ -29,6 +29,7 @@ public class FastWriter extends Writer {
   protected final Writer sink;
   protected char[] buf;
   protected int pos;
+  private boolean pooled; // buf came from the BufferPool
 
   public FastWriter(Writer w) {
     this(w, new char[BUFSIZE], 0);
@@ -44,6 +45,26 @@ public class FastWriter extends Writer {
     return (sink instanceof FastWriter) ? (FastWriter)sink : new FastWriter(sink);
   }
 
+  /** Like {@link #wrap} but a new FastWriter takes its buffer from the {@link BufferPool}.
+   * Call {@link #release()} once done writing to it. */
+  public static FastWriter wrapPooled(Writer sink) {
+    if (sink instanceof FastWriter) return (FastWriter) sink;
+    FastWriter fw = new FastWriter(sink, BufferPool.takeChars(BUFSIZE), 0);
+    fw.pooled = true;
+    return fw;
+  }
+
+  /** Returns the buffer to the {@link BufferPool} if it was taken from there by {@link #wrapPooled}.
+   * Anything not flushed yet is dropped, and the writer must not be written to afterwards. */
+  public void release() {
+    if (pooled) {
+      pooled = false;
+      BufferPool.release(buf);
+      buf = null;
+      pos = 0;
+    }
+  }
+
   @Override
   public void write(int c) throws IOException {
     write((char)c); 
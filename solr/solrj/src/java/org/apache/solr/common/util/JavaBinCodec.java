@@ -103,6 +103,7 @@ public class JavaBinCodec implements PushWriter {
           ENUM_FIELD_VALUE = 18,
           MAP_ENTRY = 19,
           UUID = 20, // This is reserved to be used only in LogCodec
+          SOLRDOCBATCH = 21, // a SolrDocumentList with positional field values, only written in version 3 streams
           // types that combine tag + length (or other info) in a single byte
           TAG_AND_LEN = (byte) (1 << 5),
           STR = (byte) (1 << 5),
@@ -117,12 +118,15 @@ public class JavaBinCodec implements PushWriter {
 
 
   private static byte VERSION = 2;
+  // version 3 streams may contain SOLRDOCBATCH, everything else is the same as in version 2
+  private static final byte VERSION_DOC_BATCHES = 3;
   private final ObjectResolver resolver;
   protected FastOutputStream daos;
   private StringCache stringCache;
   private WritableDocFields writableDocFields;
   private boolean alreadyMarshalled;
   private boolean alreadyUnmarshalled;
+  private boolean docBatches;
   protected boolean readStringAsCharSeq = false;
 
   public JavaBinCodec() {
@@ -154,6 +158,20 @@ public class JavaBinCodec implements PushWriter {
 
   }
 
+  /**
+   * Writes document lists as {@link #SOLRDOCBATCH}es, which name each field once per list instead of once per
+   * document. Only readers of javabin version 3 understand these, so the stream is marked as version 3.
+   * Must be set before anything is marshalled.
+   */
+  public JavaBinCodec setDocBatches(boolean docBatches) {
+    this.docBatches = docBatches;
+    return this;
+  }
+
+  public boolean writesDocBatches() {
+    return docBatches;
+  }
+
   public JavaBinCodec(ObjectResolver resolver, StringCache stringCache) {
     this.resolver = resolver;
     this.stringCache = stringCache;
@@ -169,14 +187,18 @@ public class JavaBinCodec implements PushWriter {
       writeVal(nl);
     } finally {
       alreadyMarshalled = true;
-      daos.flushBuffer();
+      try {
+        daos.flushBuffer();
+      } finally {
+        releaseBuffers();
+      }
     }
   }
 
   protected void initWrite(OutputStream os) throws IOException {
     assert !alreadyMarshalled;
-    init(FastOutputStream.wrap(os));
-    daos.writeByte(VERSION);
+    init(FastOutputStream.wrapPooled(os));
+    daos.writeByte(docBatches ? VERSION_DOC_BATCHES : VERSION);
   }
 
 
@@ -209,8 +231,8 @@ public class JavaBinCodec implements PushWriter {
 
   protected FastInputStream _init(FastInputStream dis) throws IOException {
     version = dis.readByte();
-    if (version != VERSION) {
-      throw new RuntimeException("Invalid version (expected " + VERSION +
+    if (version != VERSION && version != VERSION_DOC_BATCHES) {
+      throw new RuntimeException("Invalid version (expected " + VERSION + " or " + VERSION_DOC_BATCHES +
           ", but " + version + ") or the data in not in 'javabin' format");
     }
 
@@ -332,6 +354,8 @@ public class JavaBinCodec implements PushWriter {
         return readSolrDocument(dis);
       case SOLRDOCLST:
         return readSolrDocumentList(dis);
+      case SOLRDOCBATCH:
+        return readSolrDocumentBatch(dis);
       case BYTEARR:
         return readByteArray(dis);
       case ITERATOR:
@@ -591,31 +615,201 @@ public class JavaBinCodec implements PushWriter {
     SolrDocumentList solrDocs = new SolrDocumentList();
     @SuppressWarnings("unchecked")
     List<Object> list = (List<Object>) readVal(dis);
+    setDocListInfo(solrDocs, list);
+
+    @SuppressWarnings("unchecked")
+    List<SolrDocument> l = (List<SolrDocument>) readVal(dis);
+    solrDocs.addAll(l);
+    return solrDocs;
+  }
+
+  /** Copies the header written by {@link #writeSolrDocumentList} to the given list */
+  public static void setDocListInfo(SolrDocumentList solrDocs, List<Object> list) {
     solrDocs.setNumFound((Long) list.get(0));
     solrDocs.setStart((Long) list.get(1));
     solrDocs.setMaxScore((Float) list.get(2));
     if (list.size() > 3) { //needed for back compatibility
       solrDocs.setNumFoundExact((Boolean)list.get(3));
     }
-
-    @SuppressWarnings("unchecked")
-    List<SolrDocument> l = (List<SolrDocument>) readVal(dis);
-    solrDocs.addAll(l);
-    return solrDocs;
   }
 
   public void writeSolrDocumentList(SolrDocumentList docs)
           throws IOException {
-    writeTag(SOLRDOCLST);
     List<Object> l = new ArrayList<>(4);
     l.add(docs.getNumFound());
     l.add(docs.getStart());
     l.add(docs.getMaxScore());
     l.add(docs.getNumFoundExact());
+    if (docBatches) {
+      writeSolrDocumentBatch(l, docs.size(), docs.iterator());
+      return;
+    }
+    writeTag(SOLRDOCLST);
     writeArray(l);
     writeArray(docs);
   }
 
+  /**
+   * Writes a {@link #SOLRDOCBATCH}: the doc list header, the number of documents, and then per document the names
+   * of the fields not seen in earlier documents of the batch, a value for every field seen so far in the batch
+   * ({@link #END} if the document doesn't have it) and the child documents. The number of new field names is
+   * shifted left by one; if the low bit is set, the reader drops the fields seen so far first. The writer does
+   * that once the batch has many more fields than its documents have on average, so that sparse documents don't
+   * carry an {@link #END} for every field of the batch.
+   *
+   * @param header numFound, start, maxScore and numFoundExact, as in {@link #writeSolrDocumentList}
+   * @param size the number of documents the iterator returns
+   */
+  public void writeSolrDocumentBatch(List<Object> header, int size, Iterator<SolrDocument> docs) throws IOException {
+    writeTag(SOLRDOCBATCH);
+    writeArray(header);
+    writeVInt(size, daos);
+    DocBatchWriter batch = new DocBatchWriter();
+    int written = 0;
+    while (docs.hasNext()) {
+      batch.write(docs.next());
+      written++;
+    }
+    if (written != size) {
+      throw new IllegalStateException("Expected " + size + " documents in the batch but got " + written);
+    }
+  }
+
+  private static final Object ABSENT = new Object();
+
+  /** Collects the values of a document in the order of the batch's fields */
+  private class DocBatchWriter implements MapWriter.EntryWriter {
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final List<String> fields = new ArrayList<>();
+    private Object[] row = new Object[0];
+    private int present; // the number of fields of the current document
+    private long totalPresent;
+    private long docs;
+
+    void write(SolrDocument doc) throws IOException {
+      int known = fields.size();
+      present = 0;
+      doc.writeMap(this);
+      totalPresent += present;
+      docs++;
+      boolean reset = fields.size() > 2 * Math.max(1, totalPresent / docs);
+      if (reset) {
+        resetFields();
+        known = 0;
+      }
+      writeVInt((fields.size() - known) << 1 | (reset ? 1 : 0), daos);
+      for (int i = known; i < fields.size(); i++) {
+        writeExternString(fields.get(i));
+      }
+      for (int i = 0; i < fields.size(); i++) {
+        Object val = row[i];
+        row[i] = ABSENT;
+        if (val == ABSENT) {
+          writeTag(END);
+        } else {
+          writeVal(val);
+        }
+      }
+      List<SolrDocument> children = doc.getChildDocuments();
+      writeVInt(children == null ? 0 : children.size(), daos);
+      if (children != null) {
+        try {
+          ignoreWritable = true;
+          for (SolrDocument child : children) {
+            writeSolrDocument(child);
+          }
+        } finally {
+          ignoreWritable = false;
+        }
+      }
+    }
+
+    @Override
+    public MapWriter.EntryWriter put(CharSequence k, Object v) {
+      String name = k.toString();
+      if (!toWrite(name)) return this;
+      Integer col = columns.get(name);
+      if (col == null) {
+        col = fields.size();
+        columns.put(name, col);
+        fields.add(name);
+        if (col >= row.length) {
+          int oldLength = row.length;
+          row = Arrays.copyOf(row, Math.max(8, oldLength * 2));
+          Arrays.fill(row, oldLength, row.length, ABSENT);
+        }
+      }
+      row[col] = v;
+      present++;
+      return this;
+    }
+
+    /** Starts the batch's fields over with the fields of the current document */
+    private void resetFields() {
+      List<String> names = new ArrayList<>(present);
+      List<Object> values = new ArrayList<>(present);
+      for (int i = 0; i < fields.size(); i++) {
+        if (row[i] != ABSENT) {
+          names.add(fields.get(i));
+          values.add(row[i]);
+          row[i] = ABSENT;
+        }
+      }
+      fields.clear();
+      columns.clear();
+      for (int i = 0; i < names.size(); i++) {
+        fields.add(names.get(i));
+        columns.put(names.get(i), i);
+        row[i] = values.get(i);
+      }
+    }
+  }
+
+  public SolrDocumentList readSolrDocumentBatch(DataInputInputStream dis) throws IOException {
+    SolrDocumentList solrDocs = new SolrDocumentList();
+    @SuppressWarnings("unchecked")
+    List<Object> list = (List<Object>) readVal(dis);
+    setDocListInfo(solrDocs, list);
+    int size = readVInt(dis);
+    solrDocs.ensureCapacity(size);
+    List<String> fields = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      solrDocs.add(readBatchedDocument(dis, fields));
+    }
+    return solrDocs;
+  }
+
+  /**
+   * Reads one document of a {@link #SOLRDOCBATCH}.
+   *
+   * @param fields the names of the fields seen so far in the batch, the document's new fields are added to it
+   */
+  public SolrDocument readBatchedDocument(DataInputInputStream dis, List<String> fields) throws IOException {
+    readBatchedFieldNames(dis, fields);
+    SolrDocument doc = new SolrDocument(new LinkedHashMap<>(fields.size()));
+    for (String field : fields) {
+      Object val = readVal(dis);
+      if (val != END_OBJ) doc.setField(field, val);
+    }
+    int children = readVInt(dis);
+    for (int i = 0; i < children; i++) {
+      doc.addChildDocument((SolrDocument) readVal(dis));
+    }
+    return doc;
+  }
+
+  /** Reads the field names that start a document of a {@link #SOLRDOCBATCH} into the batch's fields */
+  public void readBatchedFieldNames(DataInputInputStream dis, List<String> fields) throws IOException {
+    int header = readVInt(dis);
+    if ((header & 1) != 0) {
+      fields.clear();
+    }
+    int newFields = header >>> 1;
+    for (int i = 0; i < newFields; i++) {
+      fields.add(readVal(dis).toString());
+    }
+  }
+
   public SolrInputDocument readSolrInputDocument(DataInputInputStream dis) throws IOException {
     int sz = readVInt(dis);
     float docBoost = (Float)readVal(dis);
@@ -900,7 +1094,7 @@ public class JavaBinCodec implements PushWriter {
     int maxSize = end * ByteUtils.MAX_UTF8_BYTES_PER_CHAR;
 
     if (maxSize <= MAX_UTF8_SIZE_FOR_ARRAY_GROW_STRATEGY) {
-      if (bytes == null || bytes.length < maxSize) bytes = new byte[maxSize];
+      if (bytes == null || bytes.length < maxSize) takeBytes(maxSize);
       int sz = ByteUtils.UTF16toUTF8(s, 0, end, bytes, 0);
       writeTag(STR, sz);
       daos.write(bytes, 0, sz);
@@ -908,12 +1102,13 @@ public class JavaBinCodec implements PushWriter {
       // double pass logic for large strings, see SOLR-7971
       int sz = ByteUtils.calcUTF16toUTF8Length(s, 0, end);
       writeTag(STR, sz);
-      if (bytes == null || bytes.length < 8192) bytes = new byte[8192];
+      if (bytes == null || bytes.length < 8192) takeBytes(8192);
       ByteUtils.writeUTF16toUTF8(s, 0, end, daos, bytes);
     }
   }
 
   byte[] bytes;
+  private boolean bytesPooled; // bytes came from the BufferPool
   CharArr arr = new CharArr();
   private StringBytes bytesRef = new StringBytes(bytes,0,0);
 
@@ -930,7 +1125,10 @@ public class JavaBinCodec implements PushWriter {
   }
 
   private CharSequence _readStr(DataInputInputStream dis, StringCache stringCache, int sz) throws IOException {
-    if (bytes == null || bytes.length < sz) bytes = new byte[sz];
+    if (bytes == null || bytes.length < sz) {
+      bytes = new byte[sz];
+      bytesPooled = false;
+    }
     dis.readFully(bytes, 0, sz);
     if (stringCache != null) {
       return stringCache.get(bytesRef.reset(bytes, 0, sz));
@@ -1274,7 +1472,28 @@ public class JavaBinCodec implements PushWriter {
   @Override
   public void close() throws IOException {
     if (daos != null) {
-      daos.flushBuffer();
+      try {
+        daos.flushBuffer();
+      } finally {
+        releaseBuffers();
+      }
+    }
+  }
+
+  /** Replaces the string encoding scratch buffer by a pooled one of at least the given size */
+  private void takeBytes(int size) {
+    if (bytesPooled) BufferPool.release(bytes);
+    bytes = BufferPool.takeBytes(size);
+    bytesPooled = true;
+  }
+
+  /** Returns the buffers taken from the {@link BufferPool} for writing; the codec can't write afterwards */
+  private void releaseBuffers() {
+    daos.release();
+    if (bytesPooled) {
+      BufferPool.release(bytes);
+      bytes = null;
+      bytesPooled = false;
     }
   }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.io.stream.HashRollupStream;
+import org.apache.solr.client.solrj.io.stream.ListTupleStream;
+import org.apache.solr.client.solrj.io.stream.RollupStream;
+import org.apache.solr.client.solrj.io.stream.SelectStream;
+import org.apache.solr.client.solrj.io.stream.StreamContext;
+import org.apache.solr.client.solrj.io.stream.TupleStream;
+import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
+import org.apache.solr.client.solrj.io.stream.metrics.CountMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.MaxMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.MeanMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.Metric;
+import org.apache.solr.client.solrj.io.stream.metrics.SumMetric;
+import org.junit.Test;
+
+public class TestTupleBatch extends SolrTestCase {
+
+  @Test
+  public void testColumns() {
+    TupleBatch batch = new TupleBatch(4);
+    batch.add(new Tuple("l", 1L, "d", 1.5d, "s", "a"));
+    batch.add(new Tuple("l", 2L, "m", 3L));
+    batch.add(new Tuple("l", null, "d", 2.5d, "s", "b"));
+
+    assertEquals(3, batch.size());
+    assertFalse(batch.isFull());
+    assertEquals(TupleBatch.Type.OBJECT, batch.getColumn("l").getType());
+    assertEquals(TupleBatch.Type.DOUBLE, batch.getColumn("d").getType());
+    assertEquals(TupleBatch.Type.LONG, batch.getColumn("m").getType());
+    assertFalse(batch.getColumn("d").isSet(1));
+    assertEquals(2.5d, batch.getColumn("d").getDouble(2), 0d);
+    assertEquals(1L, batch.getColumn("l").get(0));
+    assertTrue(batch.getColumn("l").isSet(2));
+    assertNull(batch.getColumn("l").get(2));
+    assertNull(batch.getColumn("x"));
+
+    assertEquals(map("l", 2L, "m", 3L), batch.getTuple(1).getFields());
+    assertEquals(map("l", null, "d", 2.5d, "s", "b"), batch.getTuple(2).getFields());
+
+    batch.truncate(1);
+    assertEquals(1, batch.size());
+    assertEquals(map("l", 1L, "d", 1.5d, "s", "a"), batch.getTuple(0).getFields());
+
+    batch.setEOF(Tuple.EOF());
+    batch.clear();
+    assertEquals(0, batch.size());
+    assertNull(batch.getEOF());
+    assertNull(batch.getColumn("l").getType());
+
+    int row = batch.addRow();
+    batch.putLong(row, "l", 7);
+    assertEquals(TupleBatch.Type.LONG, batch.getColumn("l").getType());
+    assertEquals(map("l", 7L), batch.getTuple(row).getFields());
+    batch.addRow();
+    batch.addRow();
+    batch.addRow();
+    assertTrue(batch.isFull());
+    expectThrows(IllegalStateException.class, batch::addRow);
+  }
+
+  @Test
+  public void testMetrics() {
+    List<Tuple> tuples = tuples();
+    TupleBatch batch = new TupleBatch();
+    tuples.forEach(batch::add);
+
+    for (Metric metric : metrics()) {
+      Metric fromTuples = metric.newInstance();
+      tuples.forEach(fromTuples::update);
+      Metric fromBatch = metric.newInstance();
+      fromBatch.update(batch, 0, 2);
+      fromBatch.update(batch, 2, batch.size());
+      assertEquals(metric.getIdentifier(), fromTuples.getValue(), fromBatch.getValue());
+    }
+  }
+
+  @Test
+  public void testRollups() throws IOException {
+    Bucket[] buckets = new Bucket[]{new Bucket("a")};
+    Map<Object, Map<Object, Object>> expected = new LinkedHashMap<>();
+    for (Tuple tuple : tuples()) {
+      Map<Object, Object> values = expected.computeIfAbsent(tuple.get("a"), k -> new HashMap<>());
+      for (Metric metric : metrics()) {
+        Metric m = (Metric) values.computeIfAbsent(metric.getIdentifier(), k -> metric.newInstance());
+        m.update(tuple);
+      }
+    }
+
+    for (int rowsPerBatch : new int[]{1, 2, 1000}) {
+      assertRollup(expected, new RollupStream(new ListTupleStream(rowsPerBatch, tuples()), buckets, metrics()));
+      assertRollup(expected, new HashRollupStream(new ListTupleStream(rowsPerBatch, tuples()), buckets, metrics()));
+    }
+  }
+
+  @Test
+  public void testSelect() throws IOException {
+    Map<String, String> fields = new HashMap<>();
+    fields.put("a", "bucket");
+    fields.put("n", "n");
+    SelectStream select = new SelectStream(new ListTupleStream(2, tuples()), fields);
+    select.setStreamContext(new StreamContext());
+    select.open();
+    TupleBatch batch = new TupleBatch(3);
+    List<Map<Object, Object>> selected = new ArrayList<>();
+    while (batch.getEOF() == null) {
+      batch.clear();
+      select.readBatch(batch);
+      for (int row = 0; row < batch.size(); row++) {
+        selected.add(batch.getTuple(row).getFields());
+      }
+    }
+    select.close();
+
+    List<Tuple> tuples = tuples();
+    assertEquals(tuples.size(), selected.size());
+    for (int i = 0; i < tuples.size(); i++) {
+      Map<Object, Object> expected = new HashMap<>();
+      expected.put("bucket", tuples.get(i).get("a"));
+      if (tuples.get(i).getFields().containsKey("n")) {
+        expected.put("n", tuples.get(i).get("n"));
+      }
+      assertEquals(expected, selected.get(i));
+    }
+  }
+
+  private static void assertRollup(Map<Object, Map<Object, Object>> expected, TupleStream rollup) throws IOException {
+    Map<Object, Tuple> actual = new HashMap<>();
+    rollup.open();
+    for (Tuple tuple = rollup.read(); !tuple.EOF; tuple = rollup.read()) {
+      assertNull(actual.put(tuple.get("a"), tuple));
+    }
+    rollup.close();
+
+    assertEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<Object, Map<Object, Object>> bucket : expected.entrySet()) {
+      for (Map.Entry<Object, Object> metric : bucket.getValue().entrySet()) {
+        assertEquals(bucket.getKey() + " " + metric.getKey(),
+            ((Metric) metric.getValue()).getValue(), actual.get(bucket.getKey()).get(metric.getKey()));
+      }
+    }
+  }
+
+  private static Metric[] metrics() {
+    return new Metric[]{new SumMetric("n"), new SumMetric("d"), new SumMetric("mixed"), new CountMetric(),
+        new CountMetric("n"), new MeanMetric("n"), new MeanMetric("d"), new MaxMetric("n")};
+  }
+
+  private static List<Tuple> tuples() {
+    return new ArrayList<>(Arrays.asList(
+        new Tuple("a", "x", "n", 1L, "d", 1.5d, "mixed", 1),
+        new Tuple("a", "x", "n", 2L, "d", 2.5d, "mixed", 2.5f),
+        new Tuple("a", "x", "n", 3L),
+        new Tuple("a", "y", "n", 4L, "d", 0.5d, "mixed", 3L),
+        new Tuple("a", "y", "n", null, "mixed", 1.5d),
+        new Tuple("a", "z", "n", 6L, "d", 1d)));
+  }
+
+  private static Map<Object, Object> map(Object... keyValues) {
+    return new Tuple(keyValues).getFields();
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.junit.Test;
+
+public class HashJoinStreamTest extends SolrTestCase {
+
+  @Test
+  public void testSpill() throws IOException {
+    List<Tuple> full = fullTuples();
+    List<Tuple> hashed = hashedTuples();
+
+    assertSpilledJoin(expected(full, hashed, false), new HashJoinStream(
+        new ListTupleStream(full), new ListTupleStream(hashed), Collections.singletonList("key=hashKey")));
+    assertSpilledJoin(expected(full, hashed, true), new OuterHashJoinStream(
+        new ListTupleStream(full), new ListTupleStream(hashed), Collections.singletonList("key=hashKey")));
+  }
+
+  @Test
+  public void testRepartition() throws IOException {
+    List<Tuple> full = fullTuples();
+    List<Tuple> hashed = hashedTuples();
+
+    for (boolean outer : new boolean[]{false, true}) {
+      try (HashJoinSpill spill = new HashJoinSpill(20_000)) {
+        assertEquals(expected(full, hashed, outer), fields(spill(spill, full, hashed, outer)));
+        assertTrue(spill.getSpilledBytes() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void testSplit() throws IOException {
+    List<Tuple> full = fullTuples();
+    List<Tuple> hashed = hashedTuples();
+    // a key whose hashed tuples don't fit in memory on their own, so its partition can't be split
+    for (int i = 0; i < 100; i++) {
+      hashed.add(new Tuple("hashKey", 7L, "value", "hot" + i));
+    }
+
+    for (boolean outer : new boolean[]{false, true}) {
+      try (HashJoinSpill spill = new HashJoinSpill(2_000)) {
+        assertEquals(expected(full, hashed, outer), fields(spill(spill, full, hashed, outer)));
+        assertTrue(spill.getSplits() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void testSpillKeepsTuples() throws IOException {
+    Tuple nested = new Tuple("a", 1L, "b", "x");
+    nested.setFieldNames(Collections.singletonList("A"));
+    nested.setFieldLabels(Collections.singletonMap("A", "a"));
+    Tuple hashedTuple = new Tuple("hashKey", 1L, "nested", nested,
+        "group", Arrays.asList(new Tuple("c", 2.5), new Tuple("c", 3.5)), "date", new Date(1000L), "f", 1.5f);
+    Tuple fullTuple = new Tuple("key", 1L, "id", "1");
+    fullTuple.setFieldNames(Arrays.asList("id", "key"));
+    Map<String, String> labels = new HashMap<>();
+    labels.put("id", "id");
+    labels.put("key", "key");
+    fullTuple.setFieldLabels(labels);
+    Tuple unmatched = new Tuple("key", 2L, "id", "2");
+    unmatched.setFieldNames(Collections.singletonList("ID"));
+    unmatched.setFieldLabels(Collections.singletonMap("ID", "id"));
+
+    List<Tuple> joined;
+    try (HashJoinSpill spill = new HashJoinSpill(0)) {
+      joined = spill(spill, Arrays.asList(fullTuple, unmatched), Collections.singletonList(hashedTuple), true);
+    }
+    assertEquals(2, joined.size());
+
+    Tuple tuple = joined.get(0);
+    assertEquals("1", tuple.getString("id"));
+    assertEquals(1.5f, tuple.get("f"));
+    assertEquals(new Date(1000L), tuple.get("date"));
+    Tuple nestedTuple = (Tuple) tuple.get("nested");
+    assertEquals(nested.getFields(), nestedTuple.getFields());
+    assertEquals(nested.getFieldNames(), nestedTuple.getFieldNames());
+    assertEquals(nested.getFieldLabels(), nestedTuple.getFieldLabels());
+    List<?> group = (List<?>) tuple.get("group");
+    assertEquals(2, group.size());
+    assertEquals(3.5, ((Tuple) group.get(1)).getDouble("c"), 0.0);
+
+    // an unmatched tuple of an outer join is returned as it is, with its field names and labels
+    assertEquals(unmatched.getFields(), joined.get(1).getFields());
+    assertEquals(unmatched.getFieldNames(), joined.get(1).getFieldNames());
+    assertEquals(unmatched.getFieldLabels(), joined.get(1).getFieldLabels());
+  }
+
+  @Test
+  public void testSpillRejectsUnsupportedValues() throws IOException {
+    try (HashJoinSpill spill = new HashJoinSpill(0)) {
+      IOException e = expectThrows(IOException.class,
+          () -> spill.addHashed("1::", new Tuple("hashKey", 1L, "value", new BigDecimal("1.5"))));
+      assertTrue(e.getMessage(), e.getMessage().contains("value"));
+      expectThrows(IOException.class,
+          () -> spill.addHashed("1::", new Tuple("hashKey", 1L, "map", Collections.singletonMap("k", new Object()))));
+    }
+  }
+
+  /** Joins the tuples through the spill and returns the joined tuples */
+  private static List<Tuple> spill(HashJoinSpill spill, List<Tuple> full, List<Tuple> hashed, boolean outer)
+      throws IOException {
+    for (Tuple tuple : hashed) {
+      if (tuple.get("hashKey") != null) {
+        spill.addHashed(tuple.getString("hashKey") + "::", tuple);
+      }
+    }
+    spill.finishHashed();
+    for (int i = 0; i < full.size(); i++) {
+      Tuple tuple = full.get(i);
+      spill.addFull(i, tuple.get("key") == null ? null : tuple.getString("key") + "::", tuple, outer);
+    }
+    spill.join(outer);
+    List<Tuple> joined = new ArrayList<>();
+    for (Tuple tuple = spill.read(); !tuple.EOF; tuple = spill.read()) {
+      joined.add(tuple);
+    }
+    return joined;
+  }
+
+  private static List<Map<Object, Object>> fields(List<Tuple> tuples) {
+    List<Map<Object, Object>> fields = new ArrayList<>();
+    for (Tuple tuple : tuples) {
+      fields.add(tuple.getFields());
+    }
+    return fields;
+  }
+
+  private void assertSpilledJoin(List<Map<Object, Object>> expected, HashJoinStream join) throws IOException {
+    StreamContext context = new StreamContext();
+    LongAdder spills = new LongAdder();
+    LongAdder spilledBytes = new LongAdder();
+    context.put(HashJoinStream.SPILLS_METRIC, spills);
+    context.put(HashJoinStream.SPILLED_BYTES_METRIC, spilledBytes);
+    join.setStreamContext(context);
+    join.setMemoryLimitMB(1);
+
+    List<Map<Object, Object>> joined = new ArrayList<>();
+    join.open();
+    try {
+      for (Tuple tuple = join.read(); !tuple.EOF; tuple = join.read()) {
+        joined.add(tuple.getFields());
+      }
+      assertTrue(join.getSpilledBytes() > 0);
+      assertEquals(join.getSpilledBytes(), spilledBytes.sum());
+    } finally {
+      join.close();
+    }
+    assertEquals(1, spills.sum());
+    assertEquals(expected, joined);
+  }
+
+  /** Joins the tuples in memory, in the order of the full tuples */
+  private static List<Map<Object, Object>> expected(List<Tuple> full, List<Tuple> hashed, boolean outer) {
+    List<Map<Object, Object>> expected = new ArrayList<>();
+    for (Tuple fullTuple : full) {
+      boolean matched = false;
+      for (Tuple hashedTuple : hashed) {
+        if (fullTuple.get("key") != null && fullTuple.getString("key").equals(hashedTuple.getString("hashKey"))) {
+          Tuple tuple = fullTuple.clone();
+          tuple.merge(hashedTuple);
+          expected.add(tuple.getFields());
+          matched = true;
+        }
+      }
+      if (outer && !matched) {
+        expected.add(fullTuple.getFields());
+      }
+    }
+    return expected;
+  }
+
+  private static List<Tuple> fullTuples() {
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      tuples.add(new Tuple("id", "full" + i, "key", (long) ((i * 7) % 2500), "position", i));
+    }
+    tuples.add(new Tuple("id", "nokey"));
+    return tuples;
+  }
+
+  private static List<Tuple> hashedTuples() {
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = 0; i < 6000; i++) {
+      tuples.add(new Tuple("hashKey", (long) (i % 2000), "value", "value" + i, "values",
+          Arrays.asList(i, (double) i, "padding to make the tuples take more memory")));
+    }
+    tuples.add(new Tuple("value", "nokey"));
+    return tuples;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.apache.solr.client.solrj.io.stream.expr.Explanation;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+
+/** A stream of the given tuples, returned in batches of at most the given number of rows */
+public class ListTupleStream extends TupleStream {
+  private final List<Tuple> tuples;
+  private final int rowsPerBatch;
+  private int next;
+
+  public ListTupleStream(List<Tuple> tuples) {
+    this(Integer.MAX_VALUE, tuples);
+  }
+
+  public ListTupleStream(int rowsPerBatch, List<Tuple> tuples) {
+    this.rowsPerBatch = rowsPerBatch;
+    this.tuples = tuples;
+  }
+
+  @Override
+  public void setStreamContext(StreamContext context) {
+  }
+
+  @Override
+  public List<TupleStream> children() {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public void open() {
+    next = 0;
+  }
+
+  @Override
+  public void close() {
+  }
+
+  @Override
+  public Tuple read() {
+    return next < tuples.size() ? tuples.get(next++) : Tuple.EOF();
+  }
+
+  @Override
+  public void readBatch(TupleBatch batch) {
+    for (int i = 0; i < rowsPerBatch && !batch.isFull(); i++) {
+      Tuple tuple = read();
+      if (tuple.EOF) {
+        batch.setEOF(tuple);
+        return;
+      }
+      batch.add(tuple);
+    }
+  }
+
+  @Override
+  public StreamComparator getStreamSort() {
+    return null;
+  }
+
+  @Override
+  public Explanation toExplanation(StreamFactory factory) {
+    return null;
+  }
+}
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.LuceneTestCase.Slow;
@@ -31,6 +32,7 @@ import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.embedded.JettySolrRunner;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.eval.AddEvaluator;
@@ -1250,6 +1252,135 @@ public class StreamDecoratorTest extends SolrCloudTestCase {
     }
   }
 
+  @Test
+  public void testRollupStreamBatches() throws Exception {
+    // with a single shard CloudSolrStream passes the batches of its SolrStream on as they are
+    CollectionAdminRequest.createCollection("rollupSingleShard", "conf", 1, 1).setPerReplicaState(SolrCloudTestCase.USE_PER_REPLICA_STATE)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection("rollupSingleShard", 1, 1);
+
+    int numDocs = 2 * TupleBatch.DEFAULT_CAPACITY + random().nextInt(100);
+    UpdateRequest update = new UpdateRequest();
+    Map<String, long[]> expected = new TreeMap<>(); // sum(a_i), sum(a_f), count(*)
+    for (int i = 0; i < numDocs; i++) {
+      String bucket = "hello" + (i % 7);
+      update.add(id, Integer.toString(i), "a_s", bucket, "a_i", Integer.toString(i), "a_f", Integer.toString(i % 10));
+      long[] sums = expected.computeIfAbsent(bucket, k -> new long[3]);
+      sums[0] += i;
+      sums[1] += i % 10;
+      sums[2]++;
+    }
+    update.commit(cluster.getSolrClient(), COLLECTIONORALIAS);
+    update.commit(cluster.getSolrClient(), "rollupSingleShard");
+
+    StreamFactory factory = new StreamFactory()
+      .withCollectionZkHost(COLLECTIONORALIAS, cluster.getZkServer().getZkAddress())
+      .withCollectionZkHost("rollupSingleShard", cluster.getZkServer().getZkAddress())
+      .withFunctionName("search", CloudSolrStream.class)
+      .withFunctionName("rollup", RollupStream.class)
+      .withFunctionName("sum", SumMetric.class)
+      .withFunctionName("min", MinMetric.class)
+      .withFunctionName("max", MaxMetric.class)
+      .withFunctionName("avg", MeanMetric.class)
+      .withFunctionName("count", CountMetric.class);
+
+    StreamContext streamContext = new StreamContext();
+    SolrClientCache solrClientCache = new SolrClientCache();
+    streamContext.setSolrClientCache(solrClientCache);
+    try {
+      for (String collection : new String[]{COLLECTIONORALIAS, "rollupSingleShard"}) {
+        for (String qt : new String[]{"/select", "/export"}) {
+          for (String wt : new String[]{"javabin", "json"}) {
+            TupleStream stream = factory.constructStream("rollup("
+                + "search(" + collection + ", q=*:*, fl=\"a_s,a_i,a_f\", sort=\"a_s asc\", rows=" + numDocs
+                + ", qt=\"" + qt + "\", wt=" + wt + "),"
+                + "over=\"a_s\","
+                + "sum(a_i),"
+                + "sum(a_f),"
+                + "min(a_i),"
+                + "max(a_f),"
+                + "avg(a_i),"
+                + "count(*))");
+            stream.setStreamContext(streamContext);
+            List<Tuple> tuples = getTuples(stream);
+
+            String message = collection + " " + qt + " " + wt;
+            assertEquals(message, expected.size(), tuples.size());
+            int b = 0;
+            for (Map.Entry<String, long[]> e : expected.entrySet()) {
+              Tuple tuple = tuples.get(b);
+              long[] sums = e.getValue();
+              assertEquals(message, e.getKey(), tuple.getString("a_s"));
+              assertEquals(message, sums[0], tuple.getDouble("sum(a_i)"), 0.0);
+              assertEquals(message, sums[1], tuple.getDouble("sum(a_f)"), 0.0);
+              assertEquals(message, b, tuple.getDouble("min(a_i)"), 0.0);
+              assertEquals(message, 9, tuple.getDouble("max(a_f)"), 0.0);
+              assertEquals(message, (double) sums[0] / sums[2], tuple.getDouble("avg(a_i)"), 1e-9);
+              assertEquals(message, sums[2], tuple.getDouble("count(*)"), 0.0);
+              b++;
+            }
+          }
+        }
+      }
+    } finally {
+      solrClientCache.close();
+      CollectionAdminRequest.deleteCollection("rollupSingleShard").process(cluster.getSolrClient());
+    }
+  }
+
+  @Test
+  public void testSolrStreamReadBatch() throws Exception {
+    new UpdateRequest()
+        .add(id, "0", "a_s", "hello0", "a_i", "0", "a_f", "0")
+        .add(id, "1", "a_s", "hello1", "a_i", "1", "a_f", "1")
+        .add(id, "2", "a_s", "hello2", "a_i", "2", "a_f", "2")
+        .commit(cluster.getSolrClient(), COLLECTIONORALIAS);
+
+    String url = cluster.getJettySolrRunners().get(0).getBaseUrl().toString() + "/" + COLLECTIONORALIAS;
+    StreamContext streamContext = new StreamContext();
+    SolrClientCache solrClientCache = new SolrClientCache();
+    streamContext.setSolrClientCache(solrClientCache);
+    try {
+      // the EOF tuple of the /stream handler ends up in the middle of the batch
+      ModifiableSolrParams paramsLoc = new ModifiableSolrParams();
+      paramsLoc.set("expr", "search(" + COLLECTIONORALIAS + ", q=*:*, fl=\"id,a_s,a_i,a_f\", sort=\"a_i asc\")");
+      paramsLoc.set("qt", "/stream");
+      paramsLoc.set("wt", "javabin");
+      SolrStream solrStream = new SolrStream(url, paramsLoc);
+      solrStream.setStreamContext(streamContext);
+      TupleBatch batch = new TupleBatch(10);
+      try {
+        solrStream.open();
+        solrStream.readBatch(batch);
+      } finally {
+        solrStream.close();
+      }
+      assertEquals(3, batch.size());
+      for (int row = 0; row < 3; row++) {
+        assertEquals("hello" + row, batch.getColumn("a_s").get(row));
+        assertEquals(row, batch.getColumn("a_i").getLong(row));
+        assertEquals(row, batch.getColumn("a_f").getDouble(row), 0.0);
+      }
+      assertNotNull(batch.getEOF());
+      assertTrue(batch.getEOF().EOF);
+      assertNotNull(batch.getEOF().get("RESPONSE_TIME"));
+
+      // an EXCEPTION tuple fails the read
+      paramsLoc.set("expr", "search(" + COLLECTIONORALIAS + ", q=*:*, fl=\"id,a_s\", sort=\"no_such_field asc\")");
+      SolrStream failing = new SolrStream(url, paramsLoc);
+      failing.setStreamContext(streamContext);
+      try {
+        failing.open();
+        IOException e = expectThrows(IOException.class, () -> failing.readBatch(new TupleBatch(10)));
+        assertTrue(e.getMessage(), e.getMessage().startsWith("--> " + url));
+      } finally {
+        failing.close();
+      }
+    } finally {
+      solrClientCache.close();
+    }
+  }
+
   @Test
   public void testHashRollupStream() throws Exception {
 
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class TestBufferPool extends SolrTestCase {
+
+  @Test
+  public void testSizeClasses() {
+    assertEquals(BufferPool.MIN_SIZE, BufferPool.takeBytes(1).length);
+    assertEquals(BufferPool.MIN_SIZE, BufferPool.takeBytes(BufferPool.MIN_SIZE).length);
+    assertEquals(BufferPool.MIN_SIZE * 2, BufferPool.takeBytes(BufferPool.MIN_SIZE + 1).length);
+    assertEquals(BufferPool.MAX_SIZE, BufferPool.takeChars(BufferPool.MAX_SIZE - 1).length);
+    assertEquals(BufferPool.MAX_SIZE + 1, BufferPool.takeChars(BufferPool.MAX_SIZE + 1).length);
+  }
+
+  @Test
+  public void testReuse() {
+    byte[] bytes = BufferPool.takeBytes(BufferPool.MIN_SIZE * 4);
+    char[] chars = BufferPool.takeChars(BufferPool.MIN_SIZE * 4);
+    BufferPool.release(bytes);
+    BufferPool.release(chars);
+
+    long hits = BufferPool.getHits();
+    long misses = BufferPool.getMisses();
+    assertEquals(bytes.length, BufferPool.takeBytes(BufferPool.MIN_SIZE * 3).length);
+    assertEquals(chars.length, BufferPool.takeChars(BufferPool.MIN_SIZE * 3).length);
+    assertEquals(hits + 2, BufferPool.getHits());
+    assertEquals(misses, BufferPool.getMisses());
+
+    // buffers not from the pool are ignored
+    long discards = BufferPool.getDiscards();
+    long pooledBytes = BufferPool.getPooledBytes();
+    BufferPool.release(new byte[BufferPool.MIN_SIZE + 1]);
+    BufferPool.release(new char[BufferPool.MAX_SIZE * 2]);
+    assertEquals(discards, BufferPool.getDiscards());
+    assertEquals(pooledBytes, BufferPool.getPooledBytes());
+  }
+
+  @Test
+  public void testPooledWriters() throws IOException {
+    StringWriter sw = new StringWriter();
+    FastWriter fw = FastWriter.wrapPooled(sw);
+    assertSame(fw, FastWriter.wrapPooled(fw));
+    char[] big = new char[BufferPool.MIN_SIZE * 3];
+    Arrays.fill(big, 'x');
+    fw.write("abc");
+    fw.write(big);
+    fw.flush();
+    fw.release();
+    assertEquals("abc" + new String(big), sw.toString());
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    FastOutputStream fos = FastOutputStream.wrapPooled(baos);
+    fos.writeInt(42);
+    fos.flushBuffer();
+    fos.release();
+    fos.release(); // only returned once
+    assertEquals(4, baos.size());
+  }
+
+  @Test
+  public void testJavaBinCodecReturnsBuffers() throws IOException {
+    char[] chars = new char[BufferPool.MIN_SIZE];
+    Arrays.fill(chars, 'é');
+    List<Object> val = Arrays.asList("small", new String(chars), 42L);
+
+    for (int i = 0; i < 2; i++) {
+      long hits = BufferPool.getHits();
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (JavaBinCodec codec = new JavaBinCodec()) {
+        codec.marshal(val, baos);
+      }
+      if (i > 0) {
+        // the output buffer and the string encoding scratch buffer of the first codec were reused
+        assertTrue(BufferPool.getHits() >= hits + 2);
+      }
+      try (JavaBinCodec codec = new JavaBinCodec()) {
+        assertEquals(val, codec.unmarshal(new ByteArrayInputStream(baos.toByteArray())));
+      }
+    }
+  }
+}
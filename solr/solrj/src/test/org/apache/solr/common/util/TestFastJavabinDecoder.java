@@ -187,8 +187,16 @@ public class TestFastJavabinDecoder extends SolrTestCaseJ4 {
     parser.processResponse(new FastInputStream(null, baos.getbuf(), 0, baos.size()), null);
   }
 
-  @SuppressWarnings({"unchecked"})
   public void testParsingWithChildDocs() throws IOException {
+    doTestParsingWithChildDocs(false);
+  }
+
+  public void testParsingWithChildDocsInDocBatches() throws IOException {
+    doTestParsingWithChildDocs(true);
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private void doTestParsingWithChildDocs(boolean docBatches) throws IOException {
     SolrDocument d1 = TestJavaBinCodec.generateSolrDocumentWithChildDocs();
     d1.setField("id", "101");
     SolrDocument d2 = TestJavaBinCodec.generateSolrDocumentWithChildDocs();
@@ -207,8 +215,9 @@ public class TestFastJavabinDecoder extends SolrTestCaseJ4 {
 
     BinaryRequestWriter.BAOS baos = new BinaryRequestWriter.BAOS();
     try (JavaBinCodec jbc = new JavaBinCodec()) {
-      jbc.marshal(orderedMap, baos);
+      jbc.setDocBatches(docBatches).marshal(orderedMap, baos);
     }
+    assertEquals(docBatches ? 3 : 2, baos.getbuf()[0]);
     boolean[] useListener = new boolean[1];
     useListener[0] = true;
 
@@ -397,6 +397,91 @@ public class TestJavaBinCodec extends SolrTestCaseJ4 {
     assertFalse(grandChildDocuments.get(0).hasChildDocuments());
     assertNull(grandChildDocuments.get(0).getChildDocuments());
   }
+
+  @Test
+  public void testDocBatches() throws IOException {
+    SolrDocument d1 = generateSolrDocumentWithChildDocs();
+    SolrDocument d2 = new SolrDocument();
+    d2.setField("id", "4");
+    d2.setField("price", 1.5f);
+    d2.setField("subject", null);
+    SolrDocument d3 = new SolrDocument();
+    d3.setField("price", 2.5f);
+    d3.setField("id", "5");
+    d3.setField("cat", Arrays.asList("a", "b"));
+
+    SolrDocumentList docs = new SolrDocumentList();
+    docs.setNumFound(10);
+    docs.setStart(2);
+    docs.setMaxScore(3.5f);
+    docs.setNumFoundExact(false);
+    docs.add(d1);
+    docs.add(d2);
+    docs.add(d3);
+
+    byte[] bytes;
+    try (JavaBinCodec javabin = new JavaBinCodec(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+      javabin.setDocBatches(true).marshal(docs, baos);
+      bytes = baos.toByteArray();
+    }
+    assertEquals(3, bytes[0]);
+    assertEquals(JavaBinCodec.SOLRDOCBATCH, bytes[1]);
+    assertTrue(bytes.length < getBytes(docs).length);
+
+    SolrDocumentList result = (SolrDocumentList) getObject(bytes);
+    assertEquals(10, result.getNumFound());
+    assertEquals(2, result.getStart());
+    assertEquals(3.5f, result.getMaxScore(), 0f);
+    assertFalse(result.getNumFoundExact());
+    assertEquals(3, result.size());
+
+    assertEquals(d1.getFieldNames(), result.get(0).getFieldNames());
+    assertEquals("parentDocument", result.get(0).getFieldValue("subject"));
+    assertEquals(2, result.get(0).getChildDocuments().size());
+    assertEquals("foo", result.get(0).getChildDocuments().get(0).getFieldValue("cat"));
+    assertEquals(1, result.get(0).getChildDocuments().get(0).getChildDocuments().size());
+
+    assertEquals(3, result.get(1).size());
+    assertTrue(result.get(1).containsKey("subject"));
+    assertNull(result.get(1).getFieldValue("subject"));
+    assertEquals(1.5f, result.get(1).getFieldValue("price"));
+    assertFalse(result.get(1).hasChildDocuments());
+
+    assertEquals(3, result.get(2).size());
+    assertEquals("5", result.get(2).getFieldValue("id"));
+    assertEquals(Arrays.asList("a", "b"), result.get(2).getFieldValue("cat"));
+    assertFalse(result.get(2).containsKey("subject"));
+  }
+
+  @Test
+  public void testSparseDocBatches() throws IOException {
+    // every document has a field of its own, so the batch keeps starting its field list over
+    SolrDocumentList docs = new SolrDocumentList();
+    for (int i = 0; i < 50; i++) {
+      SolrDocument doc = new SolrDocument();
+      doc.setField("id", Integer.toString(i));
+      doc.setField("field_" + i, (long) i);
+      docs.add(doc);
+    }
+
+    byte[] bytes;
+    try (JavaBinCodec javabin = new JavaBinCodec(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+      javabin.setDocBatches(true).marshal(docs, baos);
+      bytes = baos.toByteArray();
+    }
+    assertEquals(JavaBinCodec.SOLRDOCBATCH, bytes[1]);
+    // without starting over, the last documents would carry an END for almost every field of the batch
+    assertTrue(bytes.length + " vs " + getBytes(docs).length, bytes.length < getBytes(docs).length + docs.size());
+
+    SolrDocumentList result = (SolrDocumentList) getObject(bytes);
+    assertEquals(docs.size(), result.size());
+    for (int i = 0; i < docs.size(); i++) {
+      assertEquals(docs.get(i).getFieldNames(), result.get(i).getFieldNames());
+      assertEquals(Integer.toString(i), result.get(i).getFieldValue("id"));
+      assertEquals((long) i, result.get(i).getFieldValue("field_" + i));
+    }
+  }
+
   @Test
   @SuppressWarnings({"unchecked", "rawtypes"})
   public void testStringCaching() throws Exception {